@@ -25,6 +25,7 @@ description = "OpenDC Compute Service implementation"
 /* Build configuration */
 plugins {
     `kotlin-library-conventions`
+    `benchmark-conventions`
 }
 
 dependencies {
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service
+
+import org.opendc.compute.api.Flavor
+import org.opendc.compute.api.Image
+import org.opendc.compute.api.Server
+import org.opendc.compute.api.ServerState
+import org.opendc.compute.api.ServerWatcher
+import org.opendc.compute.service.driver.Host
+import org.opendc.compute.service.driver.HostListener
+import org.opendc.compute.service.driver.HostModel
+import org.opendc.compute.service.driver.HostState
+import org.opendc.compute.service.driver.telemetry.GuestCpuStats
+import org.opendc.compute.service.driver.telemetry.GuestSystemStats
+import org.opendc.compute.service.driver.telemetry.HostCpuStats
+import org.opendc.compute.service.driver.telemetry.HostSystemStats
+import org.opendc.compute.service.scheduler.FilterScheduler
+import org.opendc.compute.service.scheduler.filters.ComputeFilter
+import org.opendc.compute.service.scheduler.filters.RamFilter
+import org.opendc.compute.service.scheduler.filters.VCpuFilter
+import org.opendc.compute.service.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.service.scheduler.weights.InstanceCountWeigher
+import org.opendc.compute.service.scheduler.weights.RamWeigher
+import org.opendc.compute.service.scheduler.weights.VCpuWeigher
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.time.Instant
+import java.util.SplittableRandom
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for the placement time of the [FilterScheduler] for increasing numbers of hosts.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class FilterSchedulerBenchmarks {
+    @Param("1000", "10000", "100000")
+    private var hostCount: Int = 0
+
+    private lateinit var tableScheduler: FilterScheduler
+    private lateinit var listScheduler: FilterScheduler
+    private lateinit var server: Server
+
+    @Setup
+    fun setUp() {
+        val random = SplittableRandom(0)
+        val table = HostTable()
+
+        tableScheduler = createScheduler()
+        listScheduler = createScheduler()
+        tableScheduler.setHostTable(table)
+
+        repeat(hostCount) {
+            val hv = HostView(BenchmarkHost(HostModel(3200.0 * 32, 32, 256_000)))
+            hv.instanceCount = random.nextInt(8)
+            hv.provisionedCores = hv.instanceCount * 2
+            hv.availableMemory -= hv.instanceCount * 4096L
+
+            table.add(hv)
+            tableScheduler.addHost(hv)
+            listScheduler.addHost(hv)
+        }
+
+        server = BenchmarkServer(BenchmarkFlavor(2, 4096))
+    }
+
+    @Benchmark
+    fun benchmarkSelectTable(): HostView? {
+        return tableScheduler.select(server)
+    }
+
+    @Benchmark
+    fun benchmarkSelectList(): HostView? {
+        return listScheduler.select(server)
+    }
+
+    private fun createScheduler(): FilterScheduler {
+        return FilterScheduler(
+            filters = listOf(ComputeFilter(), VCpuFilter(16.0), RamFilter(1.5)),
+            weighers = listOf(RamWeigher(), CoreRamWeigher(), VCpuWeigher(16.0), InstanceCountWeigher(-1.0))
+        )
+    }
+
+    private class BenchmarkHost(private val model: HostModel) : Host {
+        private val uid = UUID.randomUUID()
+
+        override fun getUid(): UUID = uid
+        override fun getName(): String = uid.toString()
+        override fun getModel(): HostModel = model
+        override fun getState(): HostState = HostState.UP
+        override fun getMeta(): Map<String, *> = emptyMap<String, Any>()
+        override fun getInstances(): Set<Server> = emptySet()
+        override fun canFit(server: Server): Boolean = true
+        override fun spawn(server: Server) {}
+        override fun contains(server: Server): Boolean = false
+        override fun start(server: Server) {}
+        override fun stop(server: Server) {}
+        override fun delete(server: Server) {}
+        override fun addListener(listener: HostListener) {}
+        override fun removeListener(listener: HostListener) {}
+        override fun getSystemStats(): HostSystemStats = throw UnsupportedOperationException()
+        override fun getSystemStats(server: Server): GuestSystemStats = throw UnsupportedOperationException()
+        override fun getCpuStats(): HostCpuStats = throw UnsupportedOperationException()
+        override fun getCpuStats(server: Server): GuestCpuStats = throw UnsupportedOperationException()
+    }
+
+    private class BenchmarkFlavor(override val cpuCount: Int, override val memorySize: Long) : Flavor {
+        override val gpuCapacity: Double = 0.0
+        override val uid: UUID = UUID.randomUUID()
+        override val name: String = "flavor"
+        override val labels: Map<String, String> = emptyMap()
+        override val meta: Map<String, Any> = emptyMap()
+
+        override fun reload() {}
+        override fun delete() {}
+    }
+
+    private class BenchmarkServer(override val flavor: Flavor) : Server {
+        override val image: Image get() = throw UnsupportedOperationException()
+        override val state: ServerState = ServerState.PROVISIONING
+        override val launchedAt: Instant? = null
+        override val uid: UUID = UUID.randomUUID()
+        override val name: String = "server"
+        override val labels: Map<String, String> = emptyMap()
+        override val meta: Map<String, Any> = emptyMap()
+
+        override fun start() {}
+        override fun stop() {}
+        override fun watch(watcher: ServerWatcher) {}
+        override fun unwatch(watcher: ServerWatcher) {}
+        override fun reload() {}
+        override fun delete() {}
+    }
+}
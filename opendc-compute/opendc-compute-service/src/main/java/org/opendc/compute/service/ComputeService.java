@@ -28,6 +28,7 @@ import java.time.InstantSource;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,6 +41,7 @@ import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.opendc.common.Dispatcher;
+import org.opendc.common.DispatcherHandle;
 import org.opendc.common.util.Pacer;
 import org.opendc.compute.api.ComputeClient;
 import org.opendc.compute.api.Flavor;
@@ -51,6 +53,9 @@ import org.opendc.compute.service.driver.HostListener;
 import org.opendc.compute.service.driver.HostModel;
 import org.opendc.compute.service.driver.HostState;
 import org.opendc.compute.service.scheduler.ComputeScheduler;
+import org.opendc.compute.service.scheduler.rebalance.ComputeRebalancer;
+import org.opendc.compute.service.scheduler.rebalance.Migration;
+import org.opendc.compute.service.scheduler.replay.PlacementLogWriter;
 import org.opendc.compute.service.telemetry.SchedulerStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +66,11 @@ import org.slf4j.LoggerFactory;
 public final class ComputeService implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ComputeService.class);
 
+    /**
+     * The {@link Dispatcher} used to schedule the future events of the service.
+     */
+    private final Dispatcher dispatcher;
+
     /**
      * The {@link InstantSource} representing the clock tracking the (simulation) time.
      */
@@ -76,6 +86,57 @@ public final class ComputeService implements AutoCloseable {
      */
     private final Pacer pacer;
 
+    /**
+     * The {@link ComputeRebalancer} responsible for revising the placement of the running servers or
+     * <code>null</code> if the placement of servers is never revised.
+     */
+    @Nullable
+    private final ComputeRebalancer rebalancer;
+
+    /**
+     * The interval between two rebalancing cycles in milliseconds.
+     */
+    private final long rebalanceIntervalMs;
+
+    /**
+     * The maximum number of migrations to perform per rebalancing cycle.
+     */
+    private final int migrationBudget;
+
+    /**
+     * The {@link DispatcherHandle} representing the pending rebalancing cycle.
+     */
+    private DispatcherHandle rebalanceHandle;
+
+    /**
+     * The time in milliseconds a host needs to be empty before it is powered down or a negative value if hosts are
+     * never powered down.
+     */
+    private final long idleTimeoutMs;
+
+    /**
+     * The power state in which idle hosts are put.
+     */
+    private final HostState idleState;
+
+    /**
+     * The powered-down hosts that are waking up.
+     */
+    private final Set<HostView> wakingHosts = new HashSet<>();
+
+    /**
+     * The hosts that have woken up, but of which the idle timeout is only armed after the next scheduling cycle, such
+     * that the pending servers are placed before the host is powered down again.
+     */
+    private final Set<HostView> awokenHosts = new HashSet<>();
+
+    /**
+     * The {@link PlacementLogWriter} to record the placement decisions to or <code>null</code> if decisions are not
+     * recorded.
+     */
+    @Nullable
+    private final PlacementLogWriter placementLog;
+
     /**
      * The {@link SplittableRandom} used to generate the unique identifiers for the service resources.
      */
@@ -91,6 +152,11 @@ public final class ComputeService implements AutoCloseable {
      */
     private final Map<Host, HostView> hostToView = new HashMap<>();
 
+    /**
+     * The structure-of-arrays snapshot of the registered hosts.
+     */
+    private final HostTable hostTable = new HostTable();
+
     /**
      * The available hypervisors.
      */
@@ -140,8 +206,22 @@ public final class ComputeService implements AutoCloseable {
             if (hv != null) {
                 if (newState == HostState.UP) {
                     availableHosts.add(hv);
+                    wakingHosts.remove(hv);
+
+                    if (queue.isEmpty()) {
+                        // Power the host down again in case it is not used
+                        markIdle(hv);
+                    } else {
+                        // The pending servers are only placed at the next scheduling cycle, which may be later than
+                        // the idle timeout
+                        awokenHosts.add(hv);
+                    }
                 } else {
                     availableHosts.remove(hv);
+
+                    if (newState == HostState.ERROR) {
+                        wakingHosts.remove(hv);
+                    }
                 }
             }
 
@@ -175,6 +255,9 @@ public final class ComputeService implements AutoCloseable {
                     hv.availableGpuCapacity -= flavor.getGpuCapacity();
                     hv.instanceCount--;
                     hv.availableMemory += flavor.getMemorySize();
+                    hostTable.update(hv);
+
+                    markIdle(hv);
                 } else {
                     LOGGER.error("Unknown host {}", host);
                 }
@@ -193,14 +276,43 @@ public final class ComputeService implements AutoCloseable {
     private long attemptsError = 0L;
     private int serversPending = 0;
     private int serversActive = 0;
+    private long migrationsIssued = 0L;
+    private long hostsDrained = 0L;
+    private long hostsPoweredDown = 0L;
 
     /**
      * Construct a {@link ComputeService} instance.
      */
     ComputeService(Dispatcher dispatcher, ComputeScheduler scheduler, Duration quantum) {
+        this(dispatcher, scheduler, quantum, null, Duration.ofHours(1), 0, null, HostState.SLEEPING, null);
+    }
+
+    /**
+     * Construct a {@link ComputeService} instance that optionally rebalances its servers, manages the power state
+     * of its hosts and records its placement decisions.
+     */
+    ComputeService(
+            Dispatcher dispatcher,
+            ComputeScheduler scheduler,
+            Duration quantum,
+            @Nullable ComputeRebalancer rebalancer,
+            Duration rebalanceInterval,
+            int migrationBudget,
+            @Nullable Duration idleTimeout,
+            HostState idleState,
+            @Nullable PlacementLogWriter placementLog) {
+        this.dispatcher = dispatcher;
         this.clock = dispatcher.getTimeSource();
         this.scheduler = scheduler;
         this.pacer = new Pacer(dispatcher, quantum.toMillis(), (time) -> doSchedule());
+        this.rebalancer = rebalancer;
+        this.rebalanceIntervalMs = rebalanceInterval.toMillis();
+        this.migrationBudget = migrationBudget;
+        this.idleTimeoutMs = idleTimeout != null ? idleTimeout.toMillis() : -1;
+        this.idleState = idleState;
+        this.placementLog = placementLog;
+
+        scheduler.setHostTable(hostTable);
     }
 
     /**
@@ -243,6 +355,7 @@ public final class ComputeService implements AutoCloseable {
         maxGpuCapacity = Math.max(maxGpuCapacity, model.gpuCapacity());
         maxMemory = Math.max(maxMemory, model.memoryCapacity());
         hostToView.put(host, hv);
+        hostTable.add(hv);
 
         if (host.getState() == HostState.UP) {
             availableHosts.add(hv);
@@ -250,6 +363,10 @@ public final class ComputeService implements AutoCloseable {
 
         scheduler.addHost(hv);
         host.addListener(hostListener);
+
+        if (host.getState() == HostState.UP) {
+            markIdle(hv);
+        }
     }
 
     /**
@@ -259,7 +376,10 @@ public final class ComputeService implements AutoCloseable {
         HostView view = hostToView.remove(host);
         if (view != null) {
             availableHosts.remove(view);
+            wakingHosts.remove(view);
+            awokenHosts.remove(view);
             scheduler.removeHost(view);
+            hostTable.remove(view);
             host.removeListener(hostListener);
         }
     }
@@ -296,7 +416,10 @@ public final class ComputeService implements AutoCloseable {
                 attemptsError,
                 servers.size(),
                 serversPending,
-                serversActive);
+                serversActive,
+                migrationsIssued,
+                hostsDrained,
+                hostsPoweredDown);
     }
 
     @Override
@@ -307,6 +430,12 @@ public final class ComputeService implements AutoCloseable {
 
         isClosed = true;
         pacer.cancel();
+
+        final DispatcherHandle handle = rebalanceHandle;
+        if (handle != null) {
+            rebalanceHandle = null;
+            handle.cancel();
+        }
     }
 
     /**
@@ -356,6 +485,9 @@ public final class ComputeService implements AutoCloseable {
      * Run a single scheduling iteration.
      */
     private void doSchedule() {
+        // The requests that wait for the powered-down host that was selected for them
+        List<SchedulingRequest> deferred = null;
+
         while (!queue.isEmpty()) {
             SchedulingRequest request = queue.peek();
 
@@ -369,6 +501,19 @@ public final class ComputeService implements AutoCloseable {
             final ServiceFlavor flavor = server.getFlavor();
             final HostView hv = scheduler.select(request.server);
 
+            if (hv != null && isPoweredDown(hv.getHost())) {
+                // The scheduler selected a powered-down host: wake it up and place the server once it is available.
+                // Only this request waits, since the requests behind it may still fit on the hosts that are awake.
+                LOGGER.trace("Server {} selected powered-down host {}", server, hv.getHost());
+                wakeUp(hv);
+
+                if (deferred == null) {
+                    deferred = new ArrayList<>();
+                }
+                deferred.add(queue.poll());
+                continue;
+            }
+
             if (hv == null || !hv.getHost().canFit(server)) {
                 LOGGER.trace(
                         "Server {} selected for scheduling but no capacity available for it at the moment", server);
@@ -384,6 +529,8 @@ public final class ComputeService implements AutoCloseable {
                     server.setState(ServerState.TERMINATED);
                     continue;
                 } else {
+                    // Power on additional hosts under queue pressure
+                    wakeUpFor(server);
                     break;
                 }
             }
@@ -409,13 +556,257 @@ public final class ComputeService implements AutoCloseable {
                 hv.provisionedCores += flavor.getCpuCount();
                 hv.availableGpuCapacity += flavor.getGpuCapacity();
                 hv.availableMemory -= flavor.getMemorySize();
+                hostTable.update(hv);
 
                 activeServers.put(server, host);
+
+                if (placementLog != null) {
+                    placementLog.write(clock.millis(), server.getUid(), host.getUid());
+                }
             } catch (Exception cause) {
                 LOGGER.error("Failed to deploy VM", cause);
                 attemptsError++;
             }
         }
+
+        if (deferred != null) {
+            // Return the deferred requests to the head of the queue in their original order
+            for (int i = deferred.size() - 1; i >= 0; i--) {
+                queue.addFirst(deferred.get(i));
+            }
+        }
+
+        if (!awokenHosts.isEmpty()) {
+            // Power the hosts that woke up down again in case they were not used
+            for (HostView hv : awokenHosts) {
+                markIdle(hv);
+            }
+            awokenHosts.clear();
+        }
+
+        requestRebalancingCycle();
+    }
+
+    /**
+     * Indicate that a rebalancing cycle is needed, since servers are active in the system.
+     */
+    private void requestRebalancingCycle() {
+        // Bail out in case no rebalancing policy is configured or a cycle is already pending
+        if (rebalancer == null || rebalanceHandle != null || isClosed || activeServers.isEmpty()) {
+            return;
+        }
+
+        rebalanceHandle = dispatcher.scheduleCancellable(rebalanceIntervalMs, this::doRebalance);
+    }
+
+    /**
+     * Run a single rebalancing iteration.
+     */
+    private void doRebalance() {
+        rebalanceHandle = null;
+
+        final ComputeRebalancer rebalancer = this.rebalancer;
+        if (rebalancer == null || activeServers.isEmpty()) {
+            return;
+        }
+
+        final List<HostView> hosts = new ArrayList<>(availableHosts);
+        final List<Migration> migrations = rebalancer.rebalance(hosts, migrationBudget);
+
+        int issued = 0;
+        for (Migration migration : migrations) {
+            if (issued >= migrationBudget) {
+                break;
+            }
+
+            if (migrate(migration)) {
+                issued++;
+            }
+        }
+
+        LOGGER.debug("Rebalancing cycle issued {} of {} proposed migrations", issued, migrations.size());
+
+        // Keep rebalancing while there are servers left to rebalance
+        requestRebalancingCycle();
+    }
+
+    /**
+     * Move a running server from its current host to the target host of the specified {@link Migration}.
+     *
+     * @return <code>true</code> if the migration was issued, <code>false</code> if it is no longer valid.
+     */
+    private boolean migrate(Migration migration) {
+        if (!(migration.getServer() instanceof ServiceServer server)) {
+            return false;
+        }
+
+        final HostView sourceView = migration.getSource();
+        final HostView targetView = migration.getTarget();
+        final Host source = sourceView.getHost();
+        final Host target = targetView.getHost();
+
+        // The proposal may have become stale in the meantime
+        if (source == target
+                || server.getHost() != source
+                || server.getState() != ServerState.RUNNING
+                || !availableHosts.contains(targetView)
+                || !target.canFit(server)) {
+            return false;
+        }
+
+        LOGGER.info("Migrating server {} from host {} to host {}", server, source, target);
+
+        // Update the host before deleting the server from its old host, such that the events of the old host are
+        // ignored by the host listener.
+        server.host = target;
+
+        try {
+            target.spawn(server);
+        } catch (Exception cause) {
+            LOGGER.error("Failed to migrate VM", cause);
+            server.host = source;
+            return false;
+        }
+
+        source.delete(server);
+
+        final ServiceFlavor flavor = server.getFlavor();
+        sourceView.instanceCount--;
+        sourceView.provisionedCores -= flavor.getCpuCount();
+        sourceView.availableGpuCapacity -= flavor.getGpuCapacity();
+        sourceView.availableMemory += flavor.getMemorySize();
+        hostTable.update(sourceView);
+
+        targetView.instanceCount++;
+        targetView.provisionedCores += flavor.getCpuCount();
+        targetView.availableGpuCapacity += flavor.getGpuCapacity();
+        targetView.availableMemory -= flavor.getMemorySize();
+        hostTable.update(targetView);
+
+        activeServers.put(server, target);
+        target.start(server);
+
+        migrationsIssued++;
+        if (sourceView.instanceCount == 0) {
+            hostsDrained++;
+            markIdle(sourceView);
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine whether the specified host is powered down by the service.
+     */
+    private static boolean isPoweredDown(Host host) {
+        final HostState state = host.getState();
+        return state == HostState.SLEEPING || state == HostState.OFF;
+    }
+
+    /**
+     * Mark the specified host as idle if it does not host any servers, such that it is powered down when it remains
+     * idle for the idle timeout.
+     */
+    private void markIdle(HostView hv) {
+        if (idleTimeoutMs < 0 || hv.instanceCount > 0) {
+            return;
+        }
+
+        final long now = clock.millis();
+        hv.idleSince = now;
+        dispatcher.schedule(idleTimeoutMs, () -> powerDownIfIdle(hv, now));
+    }
+
+    /**
+     * Power down the specified host if it has remained idle since <code>idleSince</code>.
+     */
+    private void powerDownIfIdle(HostView hv, long idleSince) {
+        final Host host = hv.getHost();
+
+        // Bail out in case the host has been used in the meantime
+        if (isClosed
+                || hv.idleSince != idleSince
+                || hv.instanceCount > 0
+                || host.getState() != HostState.UP
+                || hostToView.get(host) != hv) {
+            return;
+        }
+
+        LOGGER.debug("Powering down idle host {}", host);
+
+        try {
+            host.setPowerState(idleState);
+            hostsPoweredDown++;
+        } catch (UnsupportedOperationException | IllegalStateException cause) {
+            LOGGER.warn("Failed to power down host {}", host, cause);
+        }
+    }
+
+    /**
+     * Wake up the specified powered-down host.
+     */
+    private void wakeUp(HostView hv) {
+        if (!wakingHosts.add(hv)) {
+            return;
+        }
+
+        final Host host = hv.getHost();
+        LOGGER.debug("Waking up host {}", host);
+
+        try {
+            host.setPowerState(HostState.UP);
+        } catch (UnsupportedOperationException | IllegalStateException cause) {
+            LOGGER.warn("Failed to wake up host {}", host, cause);
+            wakingHosts.remove(hv);
+        }
+    }
+
+    /**
+     * Wake up powered-down hosts until the memory of the hosts that are waking up covers the memory demand of the
+     * pending servers.
+     *
+     * @param server The server at the head of the queue that could not be placed.
+     */
+    private void wakeUpFor(ServiceServer server) {
+        if (idleTimeoutMs < 0) {
+            return;
+        }
+
+        long pendingMemory = 0;
+        for (SchedulingRequest request : queue) {
+            if (!request.isCancelled) {
+                pendingMemory += request.server.getFlavor().getMemorySize();
+            }
+        }
+
+        long wakingMemory = 0;
+        for (HostView hv : wakingHosts) {
+            wakingMemory += hv.getHost().getModel().memoryCapacity();
+        }
+
+        final ServiceFlavor flavor = server.getFlavor();
+        final List<HostView> candidates = new ArrayList<>();
+        for (HostView hv : hostToView.values()) {
+            final HostModel model = hv.getHost().getModel();
+            if (!wakingHosts.contains(hv)
+                    && isPoweredDown(hv.getHost())
+                    && model.cpuCount() >= flavor.getCpuCount()
+                    && model.memoryCapacity() >= flavor.getMemorySize()) {
+                candidates.add(hv);
+            }
+        }
+
+        // Prefer the hosts that are available the soonest
+        candidates.sort(Comparator.comparing(hv -> hv.getHost().getWakeUpDelay()));
+
+        for (HostView hv : candidates) {
+            if (wakingMemory >= pendingMemory) {
+                break;
+            }
+
+            wakeUp(hv);
+            wakingMemory += hv.getHost().getModel().memoryCapacity();
+        }
     }
 
     /**
@@ -425,6 +816,12 @@ public final class ComputeService implements AutoCloseable {
         private final Dispatcher dispatcher;
         private final ComputeScheduler computeScheduler;
         private Duration quantum = Duration.ofMinutes(5);
+        private ComputeRebalancer rebalancer = null;
+        private Duration rebalanceInterval = Duration.ofHours(1);
+        private int migrationBudget = Integer.MAX_VALUE;
+        private Duration idleTimeout = null;
+        private HostState idleState = HostState.SLEEPING;
+        private PlacementLogWriter placementLog = null;
 
         Builder(Dispatcher dispatcher, ComputeScheduler computeScheduler) {
             this.dispatcher = dispatcher;
@@ -439,11 +836,69 @@ public final class ComputeService implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Periodically revise the placement of the running servers using the specified {@link ComputeRebalancer}.
+         *
+         * @param rebalancer The policy that proposes the migrations.
+         * @param interval The interval between two rebalancing cycles.
+         * @param migrationBudget The maximum number of migrations to perform per rebalancing cycle.
+         */
+        public Builder withRebalancer(ComputeRebalancer rebalancer, Duration interval, int migrationBudget) {
+            if (interval.isZero() || interval.isNegative()) {
+                throw new IllegalArgumentException("Rebalancing interval must be positive");
+            } else if (migrationBudget < 0) {
+                throw new IllegalArgumentException("Migration budget must be non-negative");
+            }
+
+            this.rebalancer = rebalancer;
+            this.rebalanceInterval = interval;
+            this.migrationBudget = migrationBudget;
+            return this;
+        }
+
+        /**
+         * Power down hosts that have been empty for the specified duration and power them on again when servers
+         * cannot be placed on the available hosts.
+         *
+         * @param idleTimeout The duration a host needs to be empty before it is powered down.
+         * @param idleState The power state to put idle hosts in ({@link HostState#SLEEPING} or {@link HostState#OFF}).
+         */
+        public Builder withPowerManagement(Duration idleTimeout, HostState idleState) {
+            if (idleTimeout.isNegative()) {
+                throw new IllegalArgumentException("Idle timeout must be non-negative");
+            } else if (idleState != HostState.SLEEPING && idleState != HostState.OFF) {
+                throw new IllegalArgumentException("Idle hosts can only be put to sleep or powered off");
+            }
+
+            this.idleTimeout = idleTimeout;
+            this.idleState = idleState;
+            return this;
+        }
+
+        /**
+         * Record the placement decisions of the service to the specified {@link PlacementLogWriter}, such that they
+         * can be replayed using a {@link org.opendc.compute.service.scheduler.PlacementReplayScheduler}. The caller remains
+         * responsible for closing the writer after the service has been closed.
+         */
+        public Builder withPlacementLog(PlacementLogWriter placementLog) {
+            this.placementLog = placementLog;
+            return this;
+        }
+
         /**
          * Build a {@link ComputeService}.
          */
         public ComputeService build() {
-            return new ComputeService(dispatcher, computeScheduler, quantum);
+            return new ComputeService(
+                    dispatcher,
+                    computeScheduler,
+                    quantum,
+                    rebalancer,
+                    rebalanceInterval,
+                    migrationBudget,
+                    idleTimeout,
+                    idleState,
+                    placementLog);
         }
     }
 
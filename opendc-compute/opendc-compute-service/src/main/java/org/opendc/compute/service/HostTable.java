@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service;
+
+import java.util.Arrays;
+import org.opendc.compute.service.driver.HostModel;
+
+/**
+ * A structure-of-arrays snapshot of the {@link HostView}s registered with a {@link ComputeService}.
+ *
+ * <p>
+ * The state of each host is stored in primitive arrays (columns) that are kept in sync with the {@link HostView}s by
+ * the {@link ComputeService}. This allows schedulers to weigh large host pools in tight loops without dereferencing
+ * the individual views. Hosts are stored in the order in which they were registered. The arrays returned by this
+ * class may be larger than {@link #size()} and must not be modified.
+ */
+public final class HostTable {
+    private HostView[] views = new HostView[16];
+    private int[] instanceCounts = new int[16];
+    private long[] availableMemory = new long[16];
+    private int[] provisionedCores = new int[16];
+    private double[] availableGpuCapacity = new double[16];
+    private int[] cpuCounts = new int[16];
+    private double[] cpuCapacities = new double[16];
+    private int size;
+
+    /**
+     * Return the number of hosts in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the {@link HostView} at the specified index.
+     */
+    public HostView getView(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return views[index];
+    }
+
+    /**
+     * Return the column containing the number of instances on each host.
+     */
+    public int[] getInstanceCounts() {
+        return instanceCounts;
+    }
+
+    /**
+     * Return the column containing the available memory of each host.
+     */
+    public long[] getAvailableMemory() {
+        return availableMemory;
+    }
+
+    /**
+     * Return the column containing the provisioned cores on each host.
+     */
+    public int[] getProvisionedCores() {
+        return provisionedCores;
+    }
+
+    /**
+     * Return the column containing the available GPU capacity of each host.
+     */
+    public double[] getAvailableGpuCapacity() {
+        return availableGpuCapacity;
+    }
+
+    /**
+     * Return the column containing the number of CPU cores of each host.
+     */
+    public int[] getCpuCounts() {
+        return cpuCounts;
+    }
+
+    /**
+     * Return the column containing the CPU capacity of each host.
+     */
+    public double[] getCpuCapacities() {
+        return cpuCapacities;
+    }
+
+    /**
+     * Add the specified {@link HostView} to the table.
+     */
+    void add(HostView hv) {
+        if (size == views.length) {
+            grow();
+        }
+
+        final int index = size++;
+        final HostModel model = hv.getHost().getModel();
+
+        views[index] = hv;
+        cpuCounts[index] = model.cpuCount();
+        cpuCapacities[index] = model.cpuCapacity();
+        hv.tableIndex = index;
+
+        update(hv);
+    }
+
+    /**
+     * Remove the specified {@link HostView} from the table.
+     */
+    void remove(HostView hv) {
+        final int index = hv.tableIndex;
+        if (index < 0) {
+            return;
+        }
+
+        // Shift the remaining hosts to preserve the order of registration
+        final int length = size - index - 1;
+        System.arraycopy(views, index + 1, views, index, length);
+        System.arraycopy(instanceCounts, index + 1, instanceCounts, index, length);
+        System.arraycopy(availableMemory, index + 1, availableMemory, index, length);
+        System.arraycopy(provisionedCores, index + 1, provisionedCores, index, length);
+        System.arraycopy(availableGpuCapacity, index + 1, availableGpuCapacity, index, length);
+        System.arraycopy(cpuCounts, index + 1, cpuCounts, index, length);
+        System.arraycopy(cpuCapacities, index + 1, cpuCapacities, index, length);
+
+        views[--size] = null;
+        hv.tableIndex = -1;
+
+        for (int i = index; i < size; i++) {
+            views[i].tableIndex = i;
+        }
+    }
+
+    /**
+     * Synchronize the columns of the table with the state of the specified {@link HostView}.
+     */
+    void update(HostView hv) {
+        final int index = hv.tableIndex;
+        if (index < 0) {
+            return;
+        }
+
+        instanceCounts[index] = hv.instanceCount;
+        availableMemory[index] = hv.availableMemory;
+        provisionedCores[index] = hv.provisionedCores;
+        availableGpuCapacity[index] = hv.availableGpuCapacity;
+    }
+
+    /**
+     * Grow the columns of the table.
+     */
+    private void grow() {
+        final int capacity = views.length * 2;
+        views = Arrays.copyOf(views, capacity);
+        instanceCounts = Arrays.copyOf(instanceCounts, capacity);
+        availableMemory = Arrays.copyOf(availableMemory, capacity);
+        provisionedCores = Arrays.copyOf(provisionedCores, capacity);
+        availableGpuCapacity = Arrays.copyOf(availableGpuCapacity, capacity);
+        cpuCounts = Arrays.copyOf(cpuCounts, capacity);
+        cpuCapacities = Arrays.copyOf(cpuCapacities, capacity);
+    }
+}
@@ -33,6 +33,8 @@ public class HostView {
     long availableMemory;
     int provisionedCores;
     double availableGpuCapacity;
+    long idleSince = Long.MIN_VALUE;
+    int tableIndex = -1;
 
     /**
      * Construct a {@link HostView} instance.
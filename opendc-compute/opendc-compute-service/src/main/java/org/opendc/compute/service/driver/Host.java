@@ -22,6 +22,7 @@
 
 package org.opendc.compute.service.driver;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -99,6 +100,29 @@ public interface Host {
      */
     void delete(Server server);
 
+    /**
+     * Request the host to transition into the specified power state.
+     * <p>
+     * A host may only be put into {@link HostState#SLEEPING} or {@link HostState#OFF} when it does not run any
+     * guests. Requesting {@link HostState#UP} wakes the host up, after which it reports {@link HostState#UP} once the
+     * wake-up procedure completes.
+     *
+     * @param state The power state to transition to ({@link HostState#UP}, {@link HostState#SLEEPING} or
+     *              {@link HostState#OFF}).
+     * @throws UnsupportedOperationException if the host does not support power management.
+     * @throws IllegalStateException if the host cannot transition into the specified state at the moment.
+     */
+    default void setPowerState(HostState state) {
+        throw new UnsupportedOperationException("Host does not support power management");
+    }
+
+    /**
+     * Return the time it takes for this host to become available for guests from its current state.
+     */
+    default Duration getWakeUpDelay() {
+        return Duration.ZERO;
+    }
+
     /**
      * Add a [HostListener] to this host.
      */
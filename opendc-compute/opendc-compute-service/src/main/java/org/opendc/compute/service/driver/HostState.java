@@ -39,5 +39,15 @@ public enum HostState {
     /**
      * The host is in an error state and unable to host any guests.
      */
-    ERROR
+    ERROR,
+
+    /**
+     * The host is suspended to save energy and needs to be woken up before it is able to host guests.
+     */
+    SLEEPING,
+
+    /**
+     * The host is powered off to save energy and needs to be booted before it is able to host guests.
+     */
+    OFF
 }
@@ -33,6 +33,9 @@ package org.opendc.compute.service.telemetry;
  * @param serversTotal The number of servers registered with the service.
  * @param serversPending The number of servers that are pending to be scheduled.
  * @param serversActive The number of servers that are currently managed by the service and running.
+ * @param migrationsIssued The number of server migrations issued by the rebalancing policy.
+ * @param hostsDrained The number of times a host was emptied by a migration, allowing it to be powered down.
+ * @param hostsPoweredDown The number of times an idle host was powered down by the service.
  */
 public record SchedulerStats(
         int hostsAvailable,
@@ -42,4 +45,7 @@ public record SchedulerStats(
         long attemptsError,
         int serversTotal,
         int serversPending,
-        int serversActive) {}
+        int serversActive,
+        long migrationsIssued,
+        long hostsDrained,
+        long hostsPoweredDown) {}
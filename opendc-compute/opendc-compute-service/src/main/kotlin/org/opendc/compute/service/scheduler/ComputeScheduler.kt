@@ -24,6 +24,7 @@ package org.opendc.compute.service.scheduler
 
 import org.opendc.compute.api.Server
 import org.opendc.compute.service.ComputeService
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -47,4 +48,10 @@ public interface ComputeScheduler {
      * @return The host to schedule the server on or `null` if no server is available.
      */
     public fun select(server: Server): HostView?
+
+    /**
+     * Provide the scheduler with the [HostTable] that mirrors the hosts registered with the scheduler, in the order in
+     * which they were added. Schedulers may use the table to weigh large host pools more efficiently.
+     */
+    public fun setHostTable(table: HostTable) {}
 }
@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 import org.opendc.compute.service.scheduler.filters.HostFilter
 import org.opendc.compute.service.scheduler.weights.HostWeigher
@@ -53,57 +54,178 @@ public class FilterScheduler(
      */
     private val hosts = mutableListOf<HostView>()
 
+    /**
+     * The [HostTable] mirroring [hosts] or `null` if the scheduler is not attached to a table.
+     */
+    private var table: HostTable? = null
+
+    /**
+     * A flag to indicate that [hosts] is a prefix of the [table] in the same order, which holds as long as hosts are
+     * added to the table before and removed from the table after they are added to or removed from this scheduler.
+     */
+    private var isMirrored = false
+
+    /**
+     * A buffer containing the indices of the hosts in the [table] that passed the filters.
+     */
+    private var indices = IntArray(0)
+
     init {
         require(subsetSize >= 1) { "Subset size must be one or greater" }
     }
 
     override fun addHost(host: HostView) {
         hosts.add(host)
+
+        val table = table
+        if (table != null && isMirrored) {
+            val index = hosts.size - 1
+            isMirrored = index < table.size() && table.getView(index) === host
+        }
     }
 
     override fun removeHost(host: HostView) {
-        hosts.remove(host)
+        val index = hosts.indexOf(host)
+        if (index < 0) {
+            return
+        }
+
+        hosts.removeAt(index)
+
+        val table = table
+        if (table != null && isMirrored) {
+            isMirrored = index < table.size() && table.getView(index) === host
+        }
+    }
+
+    override fun setHostTable(table: HostTable) {
+        this.table = table
+        isMirrored = hosts.size <= table.size() && hosts.indices.all { table.getView(it) === hosts[it] }
     }
 
     override fun select(server: Server): HostView? {
+        val table = table
+
+        // Only use the table if it mirrors the pool of hosts of this scheduler in the same order, since the order
+        // determines which host is selected among hosts with equal weights
+        return if (table != null && isMirrored && table.size() == hosts.size) {
+            selectFromTable(table, server)
+        } else {
+            selectFromList(server)
+        }
+    }
+
+    /**
+     * Select a host for [server] by weighing the columns of the [HostTable].
+     */
+    private fun selectFromTable(table: HostTable, server: Server): HostView? {
+        val size = table.size()
+        var indices = indices
+        if (indices.size < size) {
+            indices = IntArray(size)
+            this.indices = indices
+        }
+
+        var count = 0
+        for (i in 0 until size) {
+            val host = table.getView(i)
+            if (filters.all { filter -> filter.test(host, server) }) {
+                indices[count++] = i
+            }
+        }
+
+        val index = if (weighers.isNotEmpty()) {
+            val weights = combine(weighers.map { it.getWeights(table, indices, count, server) }, count)
+            pick(weights, count)
+        } else {
+            pickUnweighted(count)
+        }
+
+        return if (index >= 0) table.getView(indices[index]) else null
+    }
+
+    /**
+     * Select a host for [server] by weighing the [HostView]s one by one.
+     */
+    private fun selectFromList(server: Server): HostView? {
         val hosts = hosts
         val filteredHosts = hosts.filter { host -> filters.all { filter -> filter.test(host, server) } }
 
-        val subset = if (weighers.isNotEmpty()) {
-            val results = weighers.map { it.getWeights(filteredHosts, server) }
-            val weights = DoubleArray(filteredHosts.size)
+        val index = if (weighers.isNotEmpty()) {
+            val weights = combine(weighers.map { it.getWeights(filteredHosts, server) }, filteredHosts.size)
+            pick(weights, filteredHosts.size)
+        } else {
+            pickUnweighted(filteredHosts.size)
+        }
 
-            for (result in results) {
-                val min = result.min
-                val range = (result.max - min)
+        return if (index >= 0) filteredHosts[index] else null
+    }
 
-                // Skip result if all weights are the same
-                if (range == 0.0) {
-                    continue
-                }
+    /**
+     * Combine the normalized results of the weighers into a single weight per host.
+     */
+    private fun combine(results: List<HostWeigher.Result>, count: Int): DoubleArray {
+        val weights = DoubleArray(count)
 
-                val multiplier = result.multiplier
-                val factor = multiplier / range
+        for (result in results) {
+            val min = result.min
+            val range = (result.max - min)
 
-                for ((i, weight) in result.weights.withIndex()) {
-                    weights[i] += factor * (weight - min)
-                }
+            // Skip result if all weights are the same
+            if (range == 0.0) {
+                continue
             }
 
-            weights.indices
-                .asSequence()
-                .sortedByDescending { weights[it] }
-                .map { filteredHosts[it] }
-                .take(subsetSize)
-                .toList()
-        } else {
-            filteredHosts
+            val multiplier = result.multiplier
+            val factor = multiplier / range
+            val values = result.weights
+
+            for (i in 0 until count) {
+                weights[i] += factor * (values[i] - min)
+            }
         }
 
+        return weights
+    }
+
+    /**
+     * Pick the position of a host among the [subsetSize] hosts with the highest [weights], or -1 if there are no hosts.
+     */
+    private fun pick(weights: DoubleArray, count: Int): Int {
+        if (count == 0) {
+            return -1
+        } else if (subsetSize == 1) {
+            // Find the first host with the highest weight without sorting all hosts
+            var best = 0
+            for (i in 1 until count) {
+                if (weights[i].compareTo(weights[best]) > 0) {
+                    best = i
+                }
+            }
+            return best
+        }
+
+        val subset = (0 until count)
+            .asSequence()
+            .sortedByDescending { weights[it] }
+            .take(subsetSize)
+            .toList()
+
         return when (val maxSize = min(subsetSize, subset.size)) {
-            0 -> null
             1 -> subset[0]
             else -> subset[random.nextInt(maxSize)]
         }
     }
+
+    /**
+     * Pick the position of a host among the first [subsetSize] hosts that passed the filters, or -1 if there are no
+     * hosts.
+     */
+    private fun pickUnweighted(count: Int): Int {
+        return when (val maxSize = min(subsetSize, count)) {
+            0 -> -1
+            1 -> 0
+            else -> random.nextInt(maxSize)
+        }
+    }
 }
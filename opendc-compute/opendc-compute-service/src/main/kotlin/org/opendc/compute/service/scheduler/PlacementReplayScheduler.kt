@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
+import org.opendc.compute.service.HostView
+import org.opendc.compute.service.scheduler.replay.PlacementLogWriter
+import org.opendc.compute.service.scheduler.replay.PlacementRecord
+import java.time.InstantSource
+import java.util.UUID
+
+/**
+ * Policy replaying the exact host-level placement decisions recorded by a [PlacementLogWriter].
+ *
+ * Hosts are indexed by their unique identifier, such that each decision is replayed in constant time. Since a server
+ * may be placed multiple times (e.g., after a host failure), the scheduler replays the first recorded decision for
+ * the server that was made at or after the current moment in time.
+ *
+ * @param placements The placement decisions to replay.
+ * @param clock The [InstantSource] of the simulation.
+ * @param fallback The [ComputeScheduler] to use for servers without a recorded decision or `null` to fail instead.
+ */
+public class PlacementReplayScheduler(
+    placements: List<PlacementRecord>,
+    private val clock: InstantSource,
+    private val fallback: ComputeScheduler? = null
+) : ComputeScheduler {
+    /**
+     * The recorded decisions indexed by server identifier.
+     */
+    private val decisions = HashMap<UUID, Decisions>()
+
+    /**
+     * The pool of hosts available to the scheduler indexed by host identifier.
+     */
+    private val hosts = HashMap<UUID, HostView>()
+
+    init {
+        for (record in placements.sortedBy { it.timestamp }) {
+            decisions.getOrPut(record.serverUid) { Decisions() }.add(record.timestamp.toEpochMilli(), record.hostUid)
+        }
+    }
+
+    override fun addHost(host: HostView) {
+        hosts[host.host.uid] = host
+        fallback?.addHost(host)
+    }
+
+    override fun removeHost(host: HostView) {
+        hosts.remove(host.host.uid, host)
+        fallback?.removeHost(host)
+    }
+
+    override fun setHostTable(table: HostTable) {
+        fallback?.setHostTable(table)
+    }
+
+    override fun select(server: Server): HostView? {
+        val hostUid = decisions[server.uid]?.next(clock.millis())
+
+        if (hostUid == null) {
+            return fallback?.select(server)
+                ?: throw IllegalStateException("Could not find placement decision in placement log for server ${server.uid}")
+        }
+
+        // The host may be unavailable at the moment, in which case the server will wait for the host
+        return hosts[hostUid]
+    }
+
+    /**
+     * The recorded decisions for a single server, ordered by time.
+     */
+    private class Decisions {
+        private var timestamps = LongArray(1)
+        private var hosts = arrayOfNulls<UUID>(1)
+        private var size = 0
+        private var cursor = 0
+
+        fun add(timestamp: Long, host: UUID) {
+            if (size == timestamps.size) {
+                timestamps = timestamps.copyOf(size * 2)
+                hosts = hosts.copyOf(size * 2)
+            }
+
+            timestamps[size] = timestamp
+            hosts[size] = host
+            size++
+        }
+
+        /**
+         * Return the host of the first decision made at or after [now], or the host of the last decision if all
+         * decisions were made before [now].
+         */
+        fun next(now: Long): UUID? {
+            var cursor = cursor
+            while (cursor < size - 1 && timestamps[cursor] < now) {
+                cursor++
+            }
+            this.cursor = cursor
+            return hosts[cursor]
+        }
+    }
+}
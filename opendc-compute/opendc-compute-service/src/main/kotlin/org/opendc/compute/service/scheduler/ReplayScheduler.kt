@@ -40,18 +40,34 @@ public class ReplayScheduler(private val vmPlacements: Map<String, String>) : Co
      */
     private val hosts = mutableListOf<HostView>()
 
+    /**
+     * The hosts belonging to each cluster that has been looked up by the scheduler.
+     */
+    private val clusters = HashMap<String, MutableList<HostView>>()
+
     override fun addHost(host: HostView) {
         hosts.add(host)
+
+        val name = host.host.name
+        for ((clusterName, machines) in clusters) {
+            if (name.contains(clusterName)) {
+                machines.add(host)
+            }
+        }
     }
 
     override fun removeHost(host: HostView) {
         hosts.remove(host)
+
+        for (machines in clusters.values) {
+            machines.remove(host)
+        }
     }
 
     override fun select(server: Server): HostView? {
         val clusterName = vmPlacements[server.name]
             ?: throw IllegalStateException("Could not find placement data in VM placement file for VM ${server.name}")
-        val machinesInCluster = hosts.filter { it.host.name.contains(clusterName) }
+        val machinesInCluster = clusters.getOrPut(clusterName) { hosts.filterTo(mutableListOf()) { it.host.name.contains(clusterName) } }
 
         if (machinesInCluster.isEmpty()) {
             logger.info { "Could not find any machines belonging to cluster $clusterName for image ${server.name}, assigning randomly." }
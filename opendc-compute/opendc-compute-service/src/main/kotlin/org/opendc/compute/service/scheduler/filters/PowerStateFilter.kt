@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.filters
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostView
+import org.opendc.compute.service.driver.HostState
+import java.time.Duration
+
+/**
+ * A [HostFilter] that filters on active hosts and on powered-down hosts that can be woken up within [maxWakeUpDelay].
+ *
+ * This filter can be used in place of [ComputeFilter] when the compute service manages the power state of its hosts.
+ * When a powered-down host is selected, the compute service wakes the host up and places the server once the host is
+ * available.
+ *
+ * @param maxWakeUpDelay The maximum time a server may wait for a host to wake up.
+ */
+public class PowerStateFilter(private val maxWakeUpDelay: Duration) : HostFilter {
+    override fun test(host: HostView, server: Server): Boolean {
+        return when (host.host.state) {
+            HostState.UP -> true
+            HostState.SLEEPING, HostState.OFF -> host.host.wakeUpDelay <= maxWakeUpDelay
+            else -> false
+        }
+    }
+
+    override fun toString(): String = "PowerStateFilter[maxWakeUpDelay=$maxWakeUpDelay]"
+}
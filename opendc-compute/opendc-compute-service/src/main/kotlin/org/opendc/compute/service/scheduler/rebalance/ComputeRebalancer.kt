@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.rebalance
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.ComputeService
+import org.opendc.compute.service.HostView
+
+/**
+ * A policy used by the [ComputeService] to periodically revise the placement of running [Server]s.
+ *
+ * Whereas a [org.opendc.compute.service.scheduler.ComputeScheduler] decides once where a server is placed, a
+ * [ComputeRebalancer] is invoked every rebalancing cycle and may propose to move servers between hosts, for instance
+ * to consolidate a fragmented fleet or to relieve overloaded hosts.
+ *
+ * Migrations are modelled as cold migrations: the server is spawned as a new guest on the target host and deleted from
+ * the source host, so its workload is started anew and the progress made on the source host is lost. Workloads that
+ * replay a timestamped trace (such as the lazily loaded traces of the experiments) skip the fragments that have
+ * already elapsed and thus continue at the current point in time, but any other workload restarts from the beginning.
+ */
+public interface ComputeRebalancer {
+    /**
+     * Propose a list of migrations for the servers running on the specified [hosts].
+     *
+     * @param hosts The hosts that are currently available for scheduling.
+     * @param budget The maximum number of migrations that may be proposed in this cycle.
+     * @return The migrations to perform, in the order in which they should be applied.
+     */
+    public fun rebalance(hosts: List<HostView>, budget: Int): List<Migration>
+}
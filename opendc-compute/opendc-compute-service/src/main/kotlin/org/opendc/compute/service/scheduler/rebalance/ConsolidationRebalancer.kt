@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.rebalance
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostView
+
+/**
+ * A [ComputeRebalancer] that consolidates the servers onto as few hosts as possible, such that the emptied hosts may
+ * be powered down.
+ *
+ * The policy visits the least loaded hosts first and attempts to move all of their servers onto the other occupied
+ * hosts using first-fit decreasing: the largest servers are placed first, onto the most loaded host that can still
+ * accommodate them. A host is only drained if all of its servers can be moved within the remaining migration budget.
+ *
+ * Note that a migrated server restarts its workload on the target host (see [ComputeRebalancer]), so draining a host
+ * loses the progress of all of its servers.
+ *
+ * @param cpuAllocationRatio Virtual CPU to physical CPU allocation ratio.
+ * @param ramAllocationRatio Virtual RAM to physical RAM allocation ratio.
+ * @param threshold The load (between 0 and 1) below which a host is considered for draining.
+ */
+public class ConsolidationRebalancer(
+    private val cpuAllocationRatio: Double,
+    private val ramAllocationRatio: Double,
+    private val threshold: Double = 0.5
+) : ComputeRebalancer {
+    init {
+        require(cpuAllocationRatio > 0.0) { "CPU allocation ratio must be greater than zero" }
+        require(ramAllocationRatio > 0.0) { "RAM allocation ratio must be greater than zero" }
+        require(threshold in 0.0..1.0) { "Threshold must be between 0 and 1" }
+    }
+
+    override fun rebalance(hosts: List<HostView>, budget: Int): List<Migration> {
+        val loads = hosts
+            .map { HostLoad(it, cpuAllocationRatio, ramAllocationRatio) }
+            .filter { it.servers.isNotEmpty() }
+        val candidates = loads.sortedBy { it.load }
+        val drained = HashSet<HostLoad>()
+        val receivers = HashSet<HostLoad>()
+        val migrations = mutableListOf<Migration>()
+        var remaining = budget
+
+        for (source in candidates) {
+            // Servers that are about to be moved onto a host cannot be moved again in the same cycle
+            if (source in receivers || source.load > threshold) {
+                continue
+            }
+
+            val servers = source.servers
+            if (servers.size > remaining) {
+                continue
+            }
+
+            // Bins are filled from the most loaded host to the least loaded one
+            val targets = loads
+                .filter { it !== source && it !in drained }
+                .sortedByDescending { it.load }
+            val plan = ArrayList<Pair<Server, HostLoad>>(servers.size)
+
+            for (server in servers.sortedWith(SIZE_ORDER)) {
+                val target = targets.firstOrNull { it.canFit(server) } ?: break
+                target.add(server)
+                plan.add(server to target)
+            }
+
+            if (plan.size < servers.size) {
+                // Roll back the partial plan, since the host cannot be emptied
+                for ((server, target) in plan) {
+                    target.remove(server)
+                }
+                continue
+            }
+
+            for ((server, target) in plan) {
+                source.remove(server)
+                receivers.add(target)
+                migrations.add(Migration(server, source.view, target.view))
+            }
+
+            drained.add(source)
+            remaining -= plan.size
+        }
+
+        return migrations
+    }
+
+    override fun toString(): String = "ConsolidationRebalancer[threshold=$threshold]"
+
+    private companion object {
+        /**
+         * The order in which servers are packed: largest vCPU count first and then largest memory size.
+         */
+        val SIZE_ORDER: Comparator<Server> =
+            compareByDescending<Server> { it.flavor.cpuCount }.thenByDescending { it.flavor.memorySize }
+    }
+}
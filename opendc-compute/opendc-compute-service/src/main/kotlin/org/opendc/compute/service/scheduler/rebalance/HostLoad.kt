@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.rebalance
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.api.ServerState
+import org.opendc.compute.service.HostView
+import kotlin.math.max
+
+/**
+ * Helper class to track the tentative allocation of a host while a [ComputeRebalancer] plans its migrations.
+ *
+ * @param view The [HostView] of the host.
+ * @param cpuAllocationRatio Virtual CPU to physical CPU allocation ratio.
+ * @param ramAllocationRatio Virtual RAM to physical RAM allocation ratio.
+ */
+internal class HostLoad(val view: HostView, cpuAllocationRatio: Double, ramAllocationRatio: Double) {
+    private val cpuCount = view.host.model.cpuCount
+    private val gpuCapacity = view.host.model.gpuCapacity
+    private val memoryCapacity = view.host.model.memoryCapacity
+    private val cpuLimit = cpuCount * cpuAllocationRatio
+    private val memoryLimit = memoryCapacity * ramAllocationRatio
+
+    /**
+     * The servers that are (tentatively) running on the host.
+     */
+    val servers: MutableList<Server> = view.host.instances.filterTo(mutableListOf()) { it.state == ServerState.RUNNING }
+
+    /**
+     * The number of vCPUs (tentatively) provisioned on the host.
+     */
+    var provisionedCores: Int = view.provisionedCores
+        private set
+
+    /**
+     * The GPU capacity (tentatively) provisioned on the host. Note that [HostView.getAvailableGpuCapacity] tracks the
+     * provisioned GPU capacity of the host.
+     */
+    var provisionedGpuCapacity: Double = view.availableGpuCapacity
+        private set
+
+    /**
+     * The amount of memory (tentatively) provisioned on the host.
+     */
+    var provisionedMemory: Long = memoryCapacity - view.availableMemory
+        private set
+
+    /**
+     * The fraction of the allocatable capacity of the host that is provisioned, determined by the scarcest resource.
+     */
+    val load: Double
+        get() {
+            val load = max(provisionedCores / cpuLimit, provisionedMemory / memoryLimit)
+            return if (gpuCapacity > 0.0) max(load, provisionedGpuCapacity / gpuCapacity) else load
+        }
+
+    /**
+     * Determine whether the specified [server] fits on the host given its tentative allocation.
+     */
+    fun canFit(server: Server): Boolean {
+        val flavor = server.flavor
+
+        // Do not allow an instance to overcommit against itself, only against other instances
+        if (flavor.cpuCount > cpuCount || flavor.memorySize > memoryCapacity) {
+            return false
+        }
+
+        // GPU capacity is not overcommitted
+        if (flavor.gpuCapacity > 0.0 && gpuCapacity - provisionedGpuCapacity < flavor.gpuCapacity) {
+            return false
+        }
+
+        return cpuLimit - provisionedCores >= flavor.cpuCount && memoryLimit - provisionedMemory >= flavor.memorySize
+    }
+
+    /**
+     * Tentatively place the specified [server] on this host.
+     */
+    fun add(server: Server) {
+        servers.add(server)
+        provisionedCores += server.flavor.cpuCount
+        provisionedGpuCapacity += server.flavor.gpuCapacity
+        provisionedMemory += server.flavor.memorySize
+    }
+
+    /**
+     * Tentatively remove the specified [server] from this host.
+     */
+    fun remove(server: Server) {
+        servers.remove(server)
+        provisionedCores -= server.flavor.cpuCount
+        provisionedGpuCapacity -= server.flavor.gpuCapacity
+        provisionedMemory -= server.flavor.memorySize
+    }
+
+    override fun toString(): String = "HostLoad[host=${view.host},load=$load]"
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.rebalance
+
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostView
+
+/**
+ * A [ComputeRebalancer] that relieves hosts whose CPU utilization exceeds a threshold.
+ *
+ * For every overloaded host (most utilized first), the policy moves the busiest servers to the least utilized host
+ * that can accommodate them, until the projected utilization of the host falls below the threshold. Servers are only
+ * moved if the projected utilization of the target host stays below the threshold as well.
+ *
+ * Note that a migrated server restarts its workload on the target host (see [ComputeRebalancer]), so relieving a
+ * hotspot trades the lost progress of the moved servers for the reduced contention on the host.
+ *
+ * @param cpuAllocationRatio Virtual CPU to physical CPU allocation ratio.
+ * @param ramAllocationRatio Virtual RAM to physical RAM allocation ratio.
+ * @param threshold The CPU utilization (between 0 and 1) above which a host is considered overloaded.
+ */
+public class HotspotRebalancer(
+    private val cpuAllocationRatio: Double,
+    private val ramAllocationRatio: Double,
+    private val threshold: Double = 0.9
+) : ComputeRebalancer {
+    init {
+        require(cpuAllocationRatio > 0.0) { "CPU allocation ratio must be greater than zero" }
+        require(ramAllocationRatio > 0.0) { "RAM allocation ratio must be greater than zero" }
+        require(threshold in 0.0..1.0) { "Threshold must be between 0 and 1" }
+    }
+
+    override fun rebalance(hosts: List<HostView>, budget: Int): List<Migration> {
+        val loads = hosts.map { HostLoad(it, cpuAllocationRatio, ramAllocationRatio) }
+        val utilization = DoubleArray(loads.size) { loads[it].view.host.cpuStats.utilization }
+        val migrations = mutableListOf<Migration>()
+        var remaining = budget
+
+        val hotspots = loads.indices
+            .filter { utilization[it] > threshold }
+            .sortedByDescending { utilization[it] }
+        val isHotspot = BooleanArray(loads.size)
+        for (i in hotspots) {
+            isHotspot[i] = true
+        }
+
+        for (i in hotspots) {
+            if (remaining <= 0) {
+                break
+            }
+
+            val source = loads[i]
+            val host = source.view.host
+            val capacity = host.model.cpuCapacity
+            val servers = source.servers
+                .map { it to host.getCpuStats(it).usage }
+                .sortedByDescending { it.second }
+
+            for ((server, usage) in servers) {
+                if (utilization[i] <= threshold || remaining <= 0) {
+                    break
+                }
+
+                var best = -1
+                var bestUtilization = Double.MAX_VALUE
+
+                for (j in loads.indices) {
+                    val target = loads[j]
+                    if (isHotspot[j] || !target.canFit(server)) {
+                        continue
+                    }
+
+                    val projected = utilization[j] + usage / target.view.host.model.cpuCapacity
+                    if (projected <= threshold && projected < bestUtilization) {
+                        best = j
+                        bestUtilization = projected
+                    }
+                }
+
+                if (best < 0) {
+                    continue
+                }
+
+                val target = loads[best]
+                source.remove(server)
+                target.add(server)
+                utilization[i] -= usage / capacity
+                utilization[best] = bestUtilization
+                migrations.add(Migration(server, source.view, target.view))
+                remaining--
+            }
+        }
+
+        return migrations
+    }
+
+    override fun toString(): String = "HotspotRebalancer[threshold=$threshold]"
+}
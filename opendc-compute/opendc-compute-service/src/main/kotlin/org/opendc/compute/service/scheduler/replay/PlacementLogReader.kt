@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.replay
+
+import java.io.BufferedInputStream
+import java.io.DataInputStream
+import java.io.EOFException
+import java.io.InputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+import java.util.UUID
+
+/**
+ * A reader for the binary placement log written by a [PlacementLogWriter].
+ *
+ * @param input The [InputStream] to read the log from.
+ */
+public class PlacementLogReader(input: InputStream) : AutoCloseable {
+    /**
+     * Construct a [PlacementLogReader] that reads the log from the specified [path].
+     */
+    public constructor(path: Path) : this(Files.newInputStream(path))
+
+    /**
+     * The stream to read the records from.
+     */
+    private val input = DataInputStream(BufferedInputStream(input))
+
+    init {
+        val magic = this.input.readInt()
+        require(magic == PlacementLogWriter.MAGIC) { "Not a placement log" }
+
+        val version = this.input.readInt()
+        require(version == PlacementLogWriter.VERSION) { "Unsupported placement log version $version" }
+    }
+
+    /**
+     * Read the next [PlacementRecord] from the log or return `null` if the end of the log has been reached.
+     */
+    public fun read(): PlacementRecord? {
+        val input = input
+        val timestamp = try {
+            input.readLong()
+        } catch (e: EOFException) {
+            return null
+        }
+
+        val serverUid = UUID(input.readLong(), input.readLong())
+        val hostUid = UUID(input.readLong(), input.readLong())
+        return PlacementRecord(Instant.ofEpochMilli(timestamp), serverUid, hostUid)
+    }
+
+    /**
+     * Read the remaining records of the log.
+     */
+    public fun readAll(): List<PlacementRecord> {
+        val records = mutableListOf<PlacementRecord>()
+
+        while (true) {
+            val record = read() ?: break
+            records.add(record)
+        }
+
+        return records
+    }
+
+    override fun close() {
+        input.close()
+    }
+}
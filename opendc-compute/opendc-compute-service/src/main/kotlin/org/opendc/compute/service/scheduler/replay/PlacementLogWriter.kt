@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.replay
+
+import java.io.BufferedOutputStream
+import java.io.DataOutputStream
+import java.io.OutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.UUID
+
+/**
+ * A writer for the binary placement log of a [org.opendc.compute.service.ComputeService].
+ *
+ * The log consists of a small header followed by fixed-size records of 40 bytes: the timestamp in milliseconds, the
+ * server identifier and the host identifier, all encoded as big-endian longs. Use [PlacementLogReader] to read the
+ * log back.
+ *
+ * @param output The [OutputStream] to write the log to.
+ */
+public class PlacementLogWriter(output: OutputStream) : AutoCloseable {
+    /**
+     * Construct a [PlacementLogWriter] that writes the log to the specified [path].
+     */
+    public constructor(path: Path) : this(Files.newOutputStream(path))
+
+    /**
+     * The stream to write the records to.
+     */
+    private val output = DataOutputStream(BufferedOutputStream(output))
+
+    init {
+        this.output.writeInt(MAGIC)
+        this.output.writeInt(VERSION)
+    }
+
+    /**
+     * Write a placement decision to the log.
+     *
+     * @param timestamp The moment (in milliseconds since the epoch) at which the server was placed.
+     * @param serverUid The unique identifier of the server that was placed.
+     * @param hostUid The unique identifier of the host on which the server was placed.
+     */
+    public fun write(timestamp: Long, serverUid: UUID, hostUid: UUID) {
+        val output = output
+        output.writeLong(timestamp)
+        output.writeLong(serverUid.mostSignificantBits)
+        output.writeLong(serverUid.leastSignificantBits)
+        output.writeLong(hostUid.mostSignificantBits)
+        output.writeLong(hostUid.leastSignificantBits)
+    }
+
+    /**
+     * Write the specified [PlacementRecord] to the log.
+     */
+    public fun write(record: PlacementRecord) {
+        write(record.timestamp.toEpochMilli(), record.serverUid, record.hostUid)
+    }
+
+    /**
+     * Flush the buffered records to the underlying stream.
+     */
+    public fun flush() {
+        output.flush()
+    }
+
+    override fun close() {
+        output.close()
+    }
+
+    internal companion object {
+        /**
+         * The magic number identifying a placement log ("ODCP").
+         */
+        const val MAGIC = 0x4F444350
+
+        /**
+         * The version of the log format.
+         */
+        const val VERSION = 1
+    }
+}
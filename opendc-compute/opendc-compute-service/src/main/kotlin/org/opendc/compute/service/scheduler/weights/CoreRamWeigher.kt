@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -37,5 +38,18 @@ public class CoreRamWeigher(override val multiplier: Double = 1.0) : HostWeigher
         return host.availableMemory.toDouble() / host.host.model.cpuCount
     }
 
+    override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+        val availableMemory = table.availableMemory
+        val cpuCounts = table.cpuCounts
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            val index = indices[i]
+            weights[i] = availableMemory[index].toDouble() / cpuCounts[index]
+        }
+
+        return HostWeigher.Result.of(weights, count, multiplier)
+    }
+
     override fun toString(): String = "CoreRamWeigher"
 }
@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 import org.opendc.compute.service.scheduler.FilterScheduler
 
@@ -45,17 +46,29 @@ public interface HostWeigher {
      */
     public fun getWeights(hosts: List<HostView>, server: Server): Result {
         val weights = DoubleArray(hosts.size)
-        var min = Double.MAX_VALUE
-        var max = Double.MIN_VALUE
 
         for ((i, host) in hosts.withIndex()) {
-            val weight = getWeight(host, server)
-            weights[i] = weight
-            min = kotlin.math.min(min, weight)
-            max = kotlin.math.max(max, weight)
+            weights[i] = getWeight(host, server)
         }
 
-        return Result(weights, min, max, multiplier)
+        return Result.of(weights, weights.size, multiplier)
+    }
+
+    /**
+     * Obtain the weights for the first [count] hosts at the specified [indices] of the [table] when scheduling the
+     * specified [server].
+     *
+     * The default implementation weighs the [HostView] of each host separately. Weighers that only depend on the
+     * columns of the [HostTable] should override this method to weigh the hosts in a single pass over the columns.
+     */
+    public fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): Result {
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            weights[i] = getWeight(table.getView(indices[i]), server)
+        }
+
+        return Result.of(weights, count, multiplier)
     }
 
     /**
@@ -71,5 +84,24 @@ public interface HostWeigher {
         public val min: Double,
         public val max: Double,
         public val multiplier: Double
-    )
+    ) {
+        public companion object {
+            /**
+             * Construct a [Result] from the first [count] entries of [weights].
+             */
+            @JvmStatic
+            public fun of(weights: DoubleArray, count: Int, multiplier: Double): Result {
+                var min = Double.MAX_VALUE
+                var max = Double.MIN_VALUE
+
+                for (i in 0 until count) {
+                    val weight = weights[i]
+                    min = kotlin.math.min(min, weight)
+                    max = kotlin.math.max(max, weight)
+                }
+
+                return Result(weights, min, max, multiplier)
+            }
+        }
+    }
 }
@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -33,5 +34,16 @@ public class InstanceCountWeigher(override val multiplier: Double = 1.0) : HostW
         return host.instanceCount.toDouble()
     }
 
+    override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+        val instanceCounts = table.instanceCounts
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            weights[i] = instanceCounts[indices[i]].toDouble()
+        }
+
+        return HostWeigher.Result.of(weights, count, multiplier)
+    }
+
     override fun toString(): String = "InstanceCountWeigher"
 }
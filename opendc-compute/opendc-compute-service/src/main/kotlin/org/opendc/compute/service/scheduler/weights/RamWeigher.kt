@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -36,5 +37,16 @@ public class RamWeigher(override val multiplier: Double = 1.0) : HostWeigher {
         return host.availableMemory.toDouble()
     }
 
+    override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+        val availableMemory = table.availableMemory
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            weights[i] = availableMemory[indices[i]].toDouble()
+        }
+
+        return HostWeigher.Result.of(weights, count, multiplier)
+    }
+
     override fun toString(): String = "RamWeigher"
 }
@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -36,5 +37,20 @@ public class VCpuCapacityWeigher(override val multiplier: Double = 1.0) : HostWe
         return model.cpuCapacity / model.cpuCount - requiredCapacity / server.flavor.cpuCount
     }
 
+    override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+        val cpuCapacities = table.cpuCapacities
+        val cpuCounts = table.cpuCounts
+        val requiredCapacity = server.flavor.meta["cpu-capacity"] as? Double ?: 0.0
+        val requiredCoreCapacity = requiredCapacity / server.flavor.cpuCount
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            val index = indices[i]
+            weights[i] = cpuCapacities[index] / cpuCounts[index] - requiredCoreCapacity
+        }
+
+        return HostWeigher.Result.of(weights, count, multiplier)
+    }
+
     override fun toString(): String = "VCpuWeigher"
 }
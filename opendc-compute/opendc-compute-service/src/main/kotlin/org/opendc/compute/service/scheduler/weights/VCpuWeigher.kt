@@ -23,6 +23,7 @@
 package org.opendc.compute.service.scheduler.weights
 
 import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostTable
 import org.opendc.compute.service.HostView
 
 /**
@@ -40,5 +41,19 @@ public class VCpuWeigher(private val allocationRatio: Double, override val multi
         return host.host.model.cpuCount * allocationRatio - host.provisionedCores
     }
 
+    override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+        val cpuCounts = table.cpuCounts
+        val provisionedCores = table.provisionedCores
+        val allocationRatio = allocationRatio
+        val weights = DoubleArray(count)
+
+        for (i in 0 until count) {
+            val index = indices[i]
+            weights[i] = cpuCounts[index] * allocationRatio - provisionedCores[index]
+        }
+
+        return HostWeigher.Result.of(weights, count, multiplier)
+    }
+
     override fun toString(): String = "VCpuWeigher"
 }
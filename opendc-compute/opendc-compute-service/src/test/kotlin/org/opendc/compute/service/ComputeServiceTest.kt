@@ -45,8 +45,11 @@ import org.opendc.compute.service.driver.HostModel
 import org.opendc.compute.service.driver.HostState
 import org.opendc.compute.service.scheduler.FilterScheduler
 import org.opendc.compute.service.scheduler.filters.ComputeFilter
+import org.opendc.compute.service.scheduler.filters.PowerStateFilter
 import org.opendc.compute.service.scheduler.filters.RamFilter
 import org.opendc.compute.service.scheduler.filters.VCpuFilter
+import org.opendc.compute.service.scheduler.rebalance.ComputeRebalancer
+import org.opendc.compute.service.scheduler.rebalance.Migration
 import org.opendc.compute.service.scheduler.weights.RamWeigher
 import org.opendc.simulator.kotlin.SimulationCoroutineScope
 import org.opendc.simulator.kotlin.runSimulation
@@ -300,6 +303,119 @@ internal class ComputeServiceTest {
         verify(exactly = 0) { host.canFit(server) }
     }
 
+    @Test
+    fun testSleepingHostDoesNotBlockQueue() = scope.runSimulation {
+        val scheduler = FilterScheduler(
+            filters = listOf(
+                PowerStateFilter(Duration.ofMinutes(10)),
+                VCpuFilter(allocationRatio = 1.0),
+                RamFilter(allocationRatio = 1.0)
+            ),
+            weighers = listOf(RamWeigher())
+        )
+        val service = ComputeService.builder(scope.dispatcher, scheduler)
+            .withQuantum(Duration.ofMinutes(5))
+            .build()
+
+        // A large host that is asleep and a small host that is awake
+        val sleepingListeners = mutableListOf<HostListener>()
+        val sleepingHost = mockk<Host>(relaxUnitFun = true)
+        every { sleepingHost.uid } returns UUID.randomUUID()
+        every { sleepingHost.model } returns HostModel(2600.0, 1, 4096)
+        every { sleepingHost.state } returns HostState.SLEEPING
+        every { sleepingHost.wakeUpDelay } returns Duration.ofMinutes(1)
+        every { sleepingHost.canFit(any()) } returns true
+        every { sleepingHost.addListener(any()) } answers {
+            sleepingListeners.add(it.invocation.args[0] as HostListener)
+        }
+
+        val awakeHost = mockk<Host>(relaxUnitFun = true)
+        every { awakeHost.uid } returns UUID.randomUUID()
+        every { awakeHost.model } returns HostModel(4 * 2600.0, 4, 2048)
+        every { awakeHost.state } returns HostState.UP
+        every { awakeHost.wakeUpDelay } returns Duration.ZERO
+        every { awakeHost.canFit(any()) } returns true
+
+        service.addHost(sleepingHost)
+        service.addHost(awakeHost)
+
+        val client = service.newClient()
+        val image = client.newImage("test")
+
+        // The first server only fits on the sleeping host, the second server only on the awake host
+        val first = client.newServer("first", image, client.newFlavor("large", 1, 3072), start = false)
+        val second = client.newServer("second", image, client.newFlavor("small", 2, 1024), start = false)
+
+        first.start()
+        second.start()
+        delay(5L * 60 * 1000)
+
+        verify { sleepingHost.setPowerState(HostState.UP) }
+        verify(exactly = 0) { sleepingHost.spawn(any()) }
+        verify { awakeHost.spawn(match { it.uid == second.uid }) }
+        verify(exactly = 0) { awakeHost.spawn(match { it.uid == first.uid }) }
+
+        // Once the host has woken up, the deferred server is placed on it
+        every { sleepingHost.state } returns HostState.UP
+        sleepingListeners.forEach { it.onStateChanged(sleepingHost, HostState.UP) }
+        delay(5L * 60 * 1000)
+
+        verify { sleepingHost.spawn(match { it.uid == first.uid }) }
+    }
+
+    @Test
+    fun testIdleTimeoutShorterThanQuantum() = scope.runSimulation {
+        val scheduler = FilterScheduler(
+            filters = listOf(
+                PowerStateFilter(Duration.ofMinutes(10)),
+                VCpuFilter(allocationRatio = 1.0),
+                RamFilter(allocationRatio = 1.0)
+            ),
+            weighers = listOf(RamWeigher())
+        )
+        val service = ComputeService.builder(scope.dispatcher, scheduler)
+            .withQuantum(Duration.ofMinutes(5))
+            .withPowerManagement(Duration.ofMinutes(1), HostState.SLEEPING)
+            .build()
+
+        var state = HostState.SLEEPING
+        val listeners = mutableListOf<HostListener>()
+        val host = mockk<Host>(relaxUnitFun = true)
+        every { host.uid } returns UUID.randomUUID()
+        every { host.model } returns HostModel(4 * 2600.0, 4, 2048)
+        every { host.state } answers { state }
+        every { host.wakeUpDelay } returns Duration.ofMinutes(1)
+        every { host.canFit(any()) } returns true
+        every { host.setPowerState(any()) } answers {
+            // Waking up takes effect once the test notifies the listeners
+            val newState = it.invocation.args[0] as HostState
+            if (newState != HostState.UP) {
+                state = newState
+            }
+        }
+        every { host.addListener(any()) } answers { listeners.add(it.invocation.args[0] as HostListener) }
+
+        service.addHost(host)
+
+        val client = service.newClient()
+        val image = client.newImage("test")
+        val server = client.newServer("test", image, client.newFlavor("test", 1, 1024), start = false)
+
+        server.start()
+        delay(6L * 60 * 1000)
+
+        verify { host.setPowerState(HostState.UP) }
+        verify(exactly = 0) { host.spawn(any()) }
+
+        // The host wakes up between two scheduling cycles and must not be powered down before the next cycle
+        state = HostState.UP
+        listeners.forEach { it.onStateChanged(host, HostState.UP) }
+        delay(5L * 60 * 1000)
+
+        verify(exactly = 0) { host.setPowerState(HostState.SLEEPING) }
+        verify { host.spawn(match { it.uid == server.uid }) }
+    }
+
     @Test
     fun testServerDeploy() = scope.runSimulation {
         val host = mockk<Host>(relaxUnitFun = true)
@@ -368,4 +484,65 @@ internal class ComputeServiceTest {
         server.reload()
         assertEquals(ServerState.PROVISIONING, server.state)
     }
+
+    @Test
+    fun testServerMigration() = scope.runSimulation {
+        val hostA = mockk<Host>(relaxUnitFun = true)
+        val hostB = mockk<Host>(relaxUnitFun = true)
+        val listeners = mutableListOf<HostListener>()
+
+        for (host in listOf(hostA, hostB)) {
+            every { host.uid } returns UUID.randomUUID()
+            every { host.model } returns HostModel(4 * 2600.0, 4, 2048)
+            every { host.state } returns HostState.UP
+            every { host.canFit(any()) } returns true
+            every { host.addListener(any()) } answers { listeners.add(it.invocation.args[0] as HostListener) }
+        }
+
+        val slot = slot<Server>()
+        val rebalancer = object : ComputeRebalancer {
+            override fun rebalance(hosts: List<HostView>, budget: Int): List<Migration> {
+                val source = hosts.first { it.host == hostA }
+                val target = hosts.first { it.host == hostB }
+                return listOf(Migration(slot.captured, source, target))
+            }
+        }
+        val computeScheduler = FilterScheduler(
+            filters = listOf(ComputeFilter(), VCpuFilter(allocationRatio = 1.0), RamFilter(allocationRatio = 1.0)),
+            weighers = listOf(RamWeigher())
+        )
+        val service = ComputeService.builder(scope.dispatcher, computeScheduler)
+            .withRebalancer(rebalancer, Duration.ofMinutes(10), 1)
+            .build()
+
+        service.addHost(hostA)
+        service.addHost(hostB)
+
+        val client = service.newClient()
+        val flavor = client.newFlavor("test", 1, 1024)
+        val image = client.newImage("test")
+        val server = client.newServer("test", image, flavor, start = false)
+
+        server.start()
+        delay(5L * 60 * 1000)
+        coVerify { hostA.spawn(capture(slot)) }
+        listeners.forEach { it.onStateChanged(hostA, slot.captured, ServerState.RUNNING) }
+
+        delay(11L * 60 * 1000)
+
+        verify { hostB.spawn(server) }
+        verify { hostA.delete(server) }
+        verify { hostB.start(server) }
+        assertEquals(hostB, service.lookupHost(server))
+
+        // Events of the old host must not affect the migrated server
+        listeners.forEach { it.onStateChanged(hostA, slot.captured, ServerState.TERMINATED) }
+        assertEquals(ServerState.RUNNING, server.state)
+
+        val stats = service.schedulerStats
+        assertEquals(1L, stats.migrationsIssued)
+        assertEquals(1L, stats.hostsDrained)
+
+        service.close()
+    }
 }
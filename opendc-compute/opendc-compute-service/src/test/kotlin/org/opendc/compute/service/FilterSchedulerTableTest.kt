@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.Arguments
+import org.junit.jupiter.params.provider.MethodSource
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.driver.Host
+import org.opendc.compute.service.driver.HostModel
+import org.opendc.compute.service.driver.HostState
+import org.opendc.compute.service.scheduler.FilterScheduler
+import org.opendc.compute.service.scheduler.filters.ComputeFilter
+import org.opendc.compute.service.scheduler.filters.DifferentHostFilter
+import org.opendc.compute.service.scheduler.filters.HostFilter
+import org.opendc.compute.service.scheduler.filters.InstanceCountFilter
+import org.opendc.compute.service.scheduler.filters.PowerStateFilter
+import org.opendc.compute.service.scheduler.filters.RamFilter
+import org.opendc.compute.service.scheduler.filters.SameHostFilter
+import org.opendc.compute.service.scheduler.filters.VCpuCapacityFilter
+import org.opendc.compute.service.scheduler.filters.VCpuFilter
+import org.opendc.compute.service.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.service.scheduler.weights.HostWeigher
+import org.opendc.compute.service.scheduler.weights.InstanceCountWeigher
+import org.opendc.compute.service.scheduler.weights.RamWeigher
+import org.opendc.compute.service.scheduler.weights.VCpuCapacityWeigher
+import org.opendc.compute.service.scheduler.weights.VCpuWeigher
+import org.opendc.compute.service.scheduler.weights.WakeUpDelayWeigher
+import java.time.Duration
+import java.util.SplittableRandom
+import java.util.UUID
+
+/**
+ * Test suite for the [HostTable] path of the [FilterScheduler], which must select the same host as the path that
+ * weighs the [HostView]s one by one.
+ *
+ * The suite lives in the package of the [HostTable], since the table and the views are populated by the
+ * [ComputeService] through package-private members.
+ */
+internal class FilterSchedulerTableTest {
+    /**
+     * A server that runs on some of the hosts, used by the affinity filters.
+     */
+    private val placed = mockk<Server>()
+
+    init {
+        every { placed.uid } returns UUID(0, 1)
+    }
+
+    @ParameterizedTest(name = "{0} (subset size {3})")
+    @MethodSource("configurations")
+    fun testSameSelection(name: String, filters: List<HostFilter>, weighers: List<HostWeigher>, subsetSize: Int) {
+        val table = HostTable()
+        val listProbe = PathProbe()
+        val tableProbe = PathProbe()
+        val listScheduler = FilterScheduler(filters, weighers + listProbe, subsetSize, SplittableRandom(1))
+        val tableScheduler = FilterScheduler(filters, weighers + tableProbe, subsetSize, SplittableRandom(1))
+        tableScheduler.setHostTable(table)
+
+        // Register the hosts in the same order as the compute service: first in the table, then with the scheduler
+        for (host in createHosts()) {
+            table.add(host)
+            listScheduler.addHost(host)
+            tableScheduler.addHost(host)
+        }
+
+        for (server in createServers()) {
+            val expected = listScheduler.select(server)
+            val actual = tableScheduler.select(server)
+            assertSame(expected, actual) { "$name selected a different host for ${server.flavor.cpuCount} vCPUs" }
+        }
+
+        assertAll(
+            { assertEquals(0, listProbe.tableCalls, "List scheduler weighed the table") },
+            { assertEquals(0, tableProbe.listCalls, "Table scheduler weighed the list") },
+            { assertTrue(tableProbe.tableCalls > 0, "Table scheduler did not weigh the table") }
+        )
+    }
+
+    @Test
+    fun testRemoveHost() {
+        val table = HostTable()
+        val tableProbe = PathProbe()
+        val scheduler = FilterScheduler(listOf(ComputeFilter()), listOf(RamWeigher(), tableProbe))
+        scheduler.setHostTable(table)
+
+        val hosts = createHosts()
+        for (host in hosts) {
+            table.add(host)
+            scheduler.addHost(host)
+        }
+
+        // Remove in the order of the compute service: first from the scheduler, then from the table
+        scheduler.removeHost(hosts[3])
+        table.remove(hosts[3])
+
+        scheduler.select(createServers().first())
+        assertTrue(tableProbe.tableCalls > 0)
+    }
+
+    @Test
+    fun testTableOrderDiffers() {
+        val table = HostTable()
+        val probe = PathProbe()
+        val scheduler = FilterScheduler(emptyList(), listOf(probe))
+        scheduler.setHostTable(table)
+
+        val hosts = createHosts().take(2)
+        for (host in hosts) {
+            table.add(host)
+        }
+
+        // The pool of the scheduler has the same size as the table, but a different order
+        scheduler.addHost(hosts[1])
+        scheduler.addHost(hosts[0])
+
+        assertAll(
+            { assertSame(hosts[1], scheduler.select(createServers().first())) },
+            { assertEquals(0, probe.tableCalls) }
+        )
+    }
+
+    /**
+     * Create a pool of hosts with varied models and states, including hosts with equal weights to check that both paths
+     * break ties in the same way.
+     */
+    private fun createHosts(): List<HostView> {
+        return List(16) { i ->
+            val cpuCount = CPU_COUNTS[i % CPU_COUNTS.size]
+            val memory = if (i % 2 == 0) 4096L else 8192L
+            val model = HostModel(cpuCount * (if (i % 3 == 0) 2000.0 else 2600.0), cpuCount, memory)
+
+            val host = mockk<Host>()
+            every { host.uid } returns UUID(1, i.toLong())
+            every { host.model } returns model
+            every { host.state } returns if (i % 5 == 4) HostState.SLEEPING else HostState.UP
+            every { host.wakeUpDelay } returns Duration.ofMinutes((i % 7).toLong())
+            every { host.instances } returns if (i % 4 == 0) setOf(placed) else emptySet()
+
+            val view = HostView(host)
+            view.instanceCount = i % 4
+            view.availableMemory = memory - (i % 3) * 1024L
+            view.provisionedCores = i % 5
+            view
+        }
+    }
+
+    /**
+     * Create a set of servers with varied flavors and scheduler hints.
+     */
+    private fun createServers(): List<Server> {
+        val hints = listOf(
+            emptyMap(),
+            mapOf("scheduler_hint:same_host" to setOf(placed.uid)),
+            mapOf("scheduler_hint:different_host" to setOf(placed.uid))
+        )
+
+        return List(12) { i ->
+            val server = mockk<Server>()
+            every { server.uid } returns UUID(2, i.toLong())
+            every { server.flavor.cpuCount } returns CPU_COUNTS[i % CPU_COUNTS.size] / 2
+            every { server.flavor.memorySize } returns 1024L * (1 + i % 5)
+            every { server.flavor.meta } returns if (i % 2 == 0) mapOf("cpu-capacity" to 2200.0) else emptyMap()
+            every { server.meta } returns hints[i % hints.size]
+            server
+        }
+    }
+
+    /**
+     * A [HostWeigher] without influence on the selection that records which path of the scheduler weighed the hosts.
+     */
+    private class PathProbe : HostWeigher {
+        override val multiplier: Double = 0.0
+        var listCalls = 0
+        var tableCalls = 0
+
+        override fun getWeight(host: HostView, server: Server): Double = 0.0
+
+        override fun getWeights(hosts: List<HostView>, server: Server): HostWeigher.Result {
+            listCalls++
+            return super.getWeights(hosts, server)
+        }
+
+        override fun getWeights(table: HostTable, indices: IntArray, count: Int, server: Server): HostWeigher.Result {
+            tableCalls++
+            return super.getWeights(table, indices, count, server)
+        }
+    }
+
+    private companion object {
+        val CPU_COUNTS = intArrayOf(2, 4, 8)
+
+        @JvmStatic
+        fun configurations(): List<Arguments> {
+            val filters = listOf(
+                ComputeFilter(),
+                PowerStateFilter(Duration.ofMinutes(3)),
+                RamFilter(1.0),
+                RamFilter(1.5),
+                VCpuFilter(1.0),
+                VCpuFilter(4.0),
+                VCpuCapacityFilter(),
+                InstanceCountFilter(2),
+                SameHostFilter(),
+                DifferentHostFilter()
+            )
+            val weighers = listOf(
+                RamWeigher(1.0),
+                RamWeigher(-1.0),
+                CoreRamWeigher(1.0),
+                VCpuWeigher(4.0),
+                VCpuWeigher(4.0, -1.0),
+                VCpuCapacityWeigher(1.0),
+                InstanceCountWeigher(1.0),
+                InstanceCountWeigher(-1.0),
+                WakeUpDelayWeigher()
+            )
+
+            val configurations = mutableListOf<Triple<String, List<HostFilter>, List<HostWeigher>>>()
+            for (filter in filters) {
+                configurations += Triple(filter.javaClass.simpleName, listOf(filter), emptyList())
+            }
+            for (weigher in weighers) {
+                val name = "${weigher.javaClass.simpleName}[${weigher.multiplier}]"
+                configurations += Triple(name, listOf(ComputeFilter()), listOf(weigher))
+            }
+            configurations += Triple("all", filters.take(2), weighers)
+
+            return configurations.flatMap { (name, f, w) ->
+                listOf(1, 3).map { subsetSize -> Arguments.of(name, f, w, subsetSize) }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
+import org.opendc.compute.api.Server
+import org.opendc.compute.service.HostView
+import org.opendc.compute.service.scheduler.replay.PlacementLogReader
+import org.opendc.compute.service.scheduler.replay.PlacementLogWriter
+import org.opendc.compute.service.scheduler.replay.PlacementRecord
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.time.Instant
+import java.time.InstantSource
+import java.util.UUID
+
+/**
+ * Test suite for the [PlacementReplayScheduler].
+ */
+internal class PlacementReplaySchedulerTest {
+    @Test
+    fun testLogRoundTrip() {
+        val records = listOf(
+            PlacementRecord(Instant.ofEpochMilli(0), UUID.randomUUID(), UUID.randomUUID()),
+            PlacementRecord(Instant.ofEpochMilli(300_000), UUID.randomUUID(), UUID.randomUUID())
+        )
+
+        val output = ByteArrayOutputStream()
+        PlacementLogWriter(output).use { writer -> records.forEach(writer::write) }
+
+        val result = PlacementLogReader(ByteArrayInputStream(output.toByteArray())).use { it.readAll() }
+
+        assertAll(
+            { assertEquals(8 + 40 * records.size, output.size()) },
+            { assertEquals(records, result) }
+        )
+    }
+
+    @Test
+    fun testInvalidLog() {
+        assertThrows<IllegalArgumentException> { PlacementLogReader(ByteArrayInputStream(ByteArray(8))) }
+    }
+
+    @Test
+    fun testReplay() {
+        var now = 0L
+        val clock = InstantSource { Instant.ofEpochMilli(now) }
+
+        val hostA = mockHost()
+        val hostB = mockHost()
+        val server = mockk<Server>()
+        every { server.uid } returns UUID.randomUUID()
+
+        val scheduler = PlacementReplayScheduler(
+            listOf(
+                PlacementRecord(Instant.ofEpochMilli(1000), server.uid, hostA.host.uid),
+                PlacementRecord(Instant.ofEpochMilli(5000), server.uid, hostB.host.uid)
+            ),
+            clock
+        )
+
+        scheduler.addHost(hostA)
+        scheduler.addHost(hostB)
+
+        val first = scheduler.select(server)
+        now = 2000
+        val second = scheduler.select(server)
+        now = 10000
+        val third = scheduler.select(server)
+
+        assertAll(
+            { assertEquals(hostA, first) },
+            { assertEquals(hostB, second) },
+            { assertEquals(hostB, third) }
+        )
+    }
+
+    @Test
+    fun testReplayUnavailableHost() {
+        val hostA = mockHost()
+        val server = mockk<Server>()
+        every { server.uid } returns UUID.randomUUID()
+
+        val scheduler = PlacementReplayScheduler(
+            listOf(PlacementRecord(Instant.EPOCH, server.uid, hostA.host.uid)),
+            InstantSource { Instant.EPOCH }
+        )
+
+        scheduler.addHost(hostA)
+        scheduler.removeHost(hostA)
+
+        assertNull(scheduler.select(server))
+    }
+
+    @Test
+    fun testMissingDecision() {
+        val hostA = mockHost()
+        val server = mockk<Server>()
+        every { server.uid } returns UUID.randomUUID()
+
+        val scheduler = PlacementReplayScheduler(emptyList(), InstantSource { Instant.EPOCH })
+        scheduler.addHost(hostA)
+
+        assertThrows<IllegalStateException> { scheduler.select(server) }
+    }
+
+    @Test
+    fun testFallback() {
+        val hostA = mockHost()
+        val server = mockk<Server>()
+        every { server.uid } returns UUID.randomUUID()
+        every { server.flavor.cpuCount } returns 2
+        every { server.flavor.memorySize } returns 1024
+
+        val fallback = FilterScheduler(filters = emptyList(), weighers = emptyList())
+        val scheduler = PlacementReplayScheduler(emptyList(), InstantSource { Instant.EPOCH }, fallback)
+        scheduler.addHost(hostA)
+
+        assertEquals(hostA, scheduler.select(server))
+    }
+
+    private fun mockHost(): HostView {
+        val host = mockk<HostView>()
+        every { host.host.uid } returns UUID.randomUUID()
+        return host
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.service.scheduler.rebalance
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.opendc.compute.api.Server
+import org.opendc.compute.api.ServerState
+import org.opendc.compute.service.HostView
+import org.opendc.compute.service.driver.HostModel
+import org.opendc.compute.service.driver.telemetry.GuestCpuStats
+import org.opendc.compute.service.driver.telemetry.HostCpuStats
+
+/**
+ * Test suite for the [ComputeRebalancer] implementations.
+ */
+internal class ComputeRebalancerTest {
+    @Test
+    fun testInvalidThreshold() {
+        assertThrows<IllegalArgumentException> { ConsolidationRebalancer(1.0, 1.0, threshold = 1.5) }
+        assertThrows<IllegalArgumentException> { HotspotRebalancer(1.0, 1.0, threshold = -0.5) }
+    }
+
+    @Test
+    fun testConsolidateEmpty() {
+        val rebalancer = ConsolidationRebalancer(1.0, 1.0)
+        assertEquals(emptyList<Migration>(), rebalancer.rebalance(emptyList(), Int.MAX_VALUE))
+    }
+
+    @Test
+    fun testConsolidateLeastLoadedHost() {
+        val rebalancer = ConsolidationRebalancer(1.0, 1.0)
+
+        val serverA = mockServer(cpuCount = 1, memorySize = 512)
+        val serverB = mockServer(cpuCount = 2, memorySize = 1024)
+        val hostA = mockHost(listOf(serverA))
+        val hostB = mockHost(listOf(serverB))
+
+        assertEquals(listOf(Migration(serverA, hostA, hostB)), rebalancer.rebalance(listOf(hostA, hostB), Int.MAX_VALUE))
+    }
+
+    @Test
+    fun testConsolidateDoesNotFit() {
+        val rebalancer = ConsolidationRebalancer(1.0, 1.0, threshold = 1.0)
+
+        val serverA = mockServer(cpuCount = 3, memorySize = 512)
+        val serverB = mockServer(cpuCount = 3, memorySize = 512)
+        val hostA = mockHost(listOf(serverA))
+        val hostB = mockHost(listOf(serverB))
+
+        assertEquals(emptyList<Migration>(), rebalancer.rebalance(listOf(hostA, hostB), Int.MAX_VALUE))
+    }
+
+    @Test
+    fun testConsolidateBudget() {
+        val rebalancer = ConsolidationRebalancer(1.0, 1.0)
+
+        val serverA = mockServer(cpuCount = 1, memorySize = 256)
+        val serverB = mockServer(cpuCount = 1, memorySize = 256)
+        val serverC = mockServer(cpuCount = 1, memorySize = 512)
+        val hostA = mockHost(listOf(serverA, serverB))
+        val hostB = mockHost(listOf(serverC))
+
+        // Host B can be drained with a single migration, but host A cannot
+        assertEquals(listOf(Migration(serverC, hostB, hostA)), rebalancer.rebalance(listOf(hostA, hostB), 1))
+        assertEquals(emptyList<Migration>(), rebalancer.rebalance(listOf(hostA, hostB), 0))
+    }
+
+    @Test
+    fun testConsolidateGpuDoesNotFit() {
+        val rebalancer = ConsolidationRebalancer(1.0, 1.0)
+
+        val serverA = mockServer(cpuCount = 1, memorySize = 512, gpuCapacity = 1000.0)
+        val serverB = mockServer(cpuCount = 2, memorySize = 1024)
+        val hostA = mockHost(listOf(serverA), gpuCapacity = 2000.0)
+        val hostB = mockHost(listOf(serverB))
+
+        // The server on host A requires a GPU, which host B lacks, so host B is drained instead
+        assertEquals(listOf(Migration(serverB, hostB, hostA)), rebalancer.rebalance(listOf(hostA, hostB), Int.MAX_VALUE))
+    }
+
+    @Test
+    fun testHotspotRelief() {
+        val rebalancer = HotspotRebalancer(1.0, 1.0, threshold = 0.8)
+
+        val serverA = mockServer(cpuCount = 1, memorySize = 512)
+        val serverB = mockServer(cpuCount = 1, memorySize = 512)
+        val hostA = mockHost(listOf(serverA, serverB), utilization = 0.9)
+        val hostB = mockHost(emptyList(), utilization = 0.1)
+
+        every { hostA.host.getCpuStats(serverA) } returns guestCpuStats(usage = 1000.0)
+        every { hostA.host.getCpuStats(serverB) } returns guestCpuStats(usage = 2000.0)
+
+        assertEquals(listOf(Migration(serverB, hostA, hostB)), rebalancer.rebalance(listOf(hostA, hostB), Int.MAX_VALUE))
+    }
+
+    @Test
+    fun testHotspotNoTarget() {
+        val rebalancer = HotspotRebalancer(1.0, 1.0, threshold = 0.8)
+
+        val serverA = mockServer(cpuCount = 1, memorySize = 512)
+        val hostA = mockHost(listOf(serverA), utilization = 0.9)
+        val hostB = mockHost(emptyList(), utilization = 0.75)
+
+        every { hostA.host.getCpuStats(serverA) } returns guestCpuStats(usage = 2000.0)
+
+        assertEquals(emptyList<Migration>(), rebalancer.rebalance(listOf(hostA, hostB), Int.MAX_VALUE))
+    }
+
+    private fun mockServer(cpuCount: Int, memorySize: Long, gpuCapacity: Double = 0.0): Server {
+        val server = mockk<Server>()
+        every { server.state } returns ServerState.RUNNING
+        every { server.flavor.cpuCount } returns cpuCount
+        every { server.flavor.memorySize } returns memorySize
+        every { server.flavor.gpuCapacity } returns gpuCapacity
+        return server
+    }
+
+    private fun mockHost(servers: List<Server>, utilization: Double = 0.0, gpuCapacity: Double = 0.0): HostView {
+        val model = HostModel(4 * 2600.0, 4, gpuCapacity, 2048)
+        val host = mockk<HostView>()
+        every { host.host.model } returns model
+        every { host.host.instances } returns servers.toSet()
+        every { host.host.cpuStats } returns HostCpuStats(0, 0, 0, 0, model.cpuCapacity, 0.0, utilization * model.cpuCapacity, utilization)
+        every { host.provisionedCores } returns servers.sumOf { it.flavor.cpuCount }
+        every { host.availableGpuCapacity } returns servers.sumOf { it.flavor.gpuCapacity }
+        every { host.availableMemory } returns model.memoryCapacity - servers.sumOf { it.flavor.memorySize }
+        return host
+    }
+
+    private fun guestCpuStats(usage: Double): GuestCpuStats {
+        return GuestCpuStats(0, 0, 0, 0, 2600.0, usage, usage / 2600.0)
+    }
+}
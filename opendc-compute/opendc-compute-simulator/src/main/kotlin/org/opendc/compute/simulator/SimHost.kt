@@ -66,6 +66,8 @@ import java.util.function.Supplier
  * @param mapper A [SimWorkloadMapper] to map a [Server] to a [SimWorkload].
  * @param bootModel A [Supplier] providing the [SimWorkload] to execute during the boot procedure of the hypervisor.
  * @param optimize A flag to indicate to optimize the machine models of the virtual machines.
+ * @param powerModel The [SimHostPowerModel] describing the low-power states of the host or `null` if the host does not
+ * support power management.
  */
 public class SimHost(
     private val uid: UUID,
@@ -76,7 +78,8 @@ public class SimHost(
     private val hypervisor: SimHypervisor,
     private val mapper: SimWorkloadMapper = DefaultWorkloadMapper,
     private val bootModel: Supplier<SimWorkload?> = Supplier { null },
-    private val optimize: Boolean = false
+    private val optimize: Boolean = false,
+    private val powerModel: SimHostPowerModel? = null
 ) : Host, AutoCloseable {
 
     /**
@@ -156,7 +159,12 @@ public class SimHost(
     }
 
     override fun spawn(server: Server) {
-        guests.computeIfAbsent(server) { key ->
+        // A server that migrated away from this host may be spawned again after it was deleted
+        guests.compute(server) { key, existing ->
+            if (existing != null && existing.state != ServerState.DELETED) {
+                return@compute existing
+            }
+
             require(canFit(key)) { "Server does not fit" }
 
             val machine = hypervisor.newMachine(key.flavor.toMachineModel())
@@ -223,7 +231,7 @@ public class SimHost(
                 ServerState.ERROR -> error++
                 ServerState.DELETED -> {
                     // Remove guests that have been deleted
-                    this.guests.remove(guest.server)
+                    this.guests.remove(guest.server, guest)
                     guests.remove()
                 }
                 else -> invalid++
@@ -235,7 +243,7 @@ public class SimHost(
             Duration.ofMillis(_downtime),
             _bootTime,
             machine.psu.powerUsage,
-            machine.psu.energyUsage,
+            machine.psu.energyUsage + _transitionEnergy,
             terminated,
             running,
             error,
@@ -294,6 +302,36 @@ public class SimHost(
 
     override fun toString(): String = "SimHost[uid=$uid,name=$name,model=$model]"
 
+    override fun setPowerState(state: HostState) {
+        val powerModel = powerModel ?: throw UnsupportedOperationException("Host does not support power management")
+
+        when (state) {
+            HostState.UP -> powerUp(powerModel)
+            HostState.SLEEPING -> powerDown(state, powerModel.suspendLatency, powerModel.suspendEnergy, powerModel.sleepPower)
+            HostState.OFF -> powerDown(state, powerModel.shutdownLatency, powerModel.shutdownEnergy, powerModel.offPower)
+            else -> throw IllegalArgumentException("Invalid power state $state")
+        }
+    }
+
+    override fun getWakeUpDelay(): Duration {
+        val powerModel = powerModel ?: return Duration.ZERO
+
+        return when (_state) {
+            HostState.SLEEPING, HostState.OFF -> {
+                if (ctx != null) {
+                    // The host is already waking up
+                    Duration.ofMillis(maxOf(0L, _wakeUpDeadline - clock.millis()))
+                } else if (_state == HostState.SLEEPING) {
+                    // A pending transition into the low-power state is aborted when waking up
+                    powerModel.resumeLatency
+                } else {
+                    powerModel.bootLatency
+                }
+            }
+            else -> Duration.ZERO
+        }
+    }
+
     public fun fail() {
         reset(HostState.ERROR)
 
@@ -313,10 +351,17 @@ public class SimHost(
      */
     private var ctx: SimMachineContext? = null
 
+    /**
+     * The [SimMachineContext] that represents a power state transition of the machine.
+     */
+    private var transitionCtx: SimMachineContext? = null
+
     /**
      * Launch the hypervisor.
+     *
+     * @param wakeUp The workload modelling the wake-up procedure of the machine, if any.
      */
-    private fun launch() {
+    private fun launch(wakeUp: SimWorkload? = null) {
         check(ctx == null) { "Concurrent hypervisor running" }
 
         val bootWorkload = bootModel.get()
@@ -324,6 +369,11 @@ public class SimHost(
         val hypervisorWorkload = object : SimWorkload by hypervisor {
             override fun onStart(ctx: SimMachineContext) {
                 try {
+                    clearPowerOverride()
+
+                    // Do not account the time spent waking up as uptime
+                    updateUptime()
+
                     _bootTime = clock.instant()
                     _state = HostState.UP
                     hypervisor.onStart(ctx)
@@ -339,7 +389,8 @@ public class SimHost(
             }
         }
 
-        val workload = if (bootWorkload != null) SimWorkloads.chain(bootWorkload, hypervisorWorkload) else hypervisorWorkload
+        val workloads = listOfNotNull(wakeUp, bootWorkload, hypervisorWorkload)
+        val workload = if (workloads.size > 1) SimWorkloads.chain(*workloads.toTypedArray()) else hypervisorWorkload
 
         // Launch hypervisor onto machine
         ctx = machine.startWorkload(workload, emptyMap()) { cause ->
@@ -348,6 +399,94 @@ public class SimHost(
         }
     }
 
+    /**
+     * Transition the host from a low-power state into the [HostState.UP] state.
+     */
+    private fun powerUp(powerModel: SimHostPowerModel) {
+        if (_state == HostState.UP || ctx != null) {
+            // The host is already up or waking up
+            return
+        }
+
+        val (latency, energy) = when (_state) {
+            HostState.SLEEPING -> powerModel.resumeLatency to powerModel.resumeEnergy
+            HostState.OFF -> powerModel.bootLatency to powerModel.bootEnergy
+            else -> throw IllegalStateException("Host is not powered down")
+        }
+
+        updateUptime()
+
+        // Abort any pending transition into the low-power state
+        transitionCtx?.shutdown()
+
+        _wakeUpDeadline = clock.millis() + latency.toMillis()
+        launch(startTransition(latency, energy))
+    }
+
+    /**
+     * Transition the host from the [HostState.UP] state into the low-power [state].
+     */
+    private fun powerDown(state: HostState, latency: Duration, energy: Double, power: Double) {
+        if (_state == state) {
+            return
+        }
+
+        check(_state == HostState.UP) { "Host must be up to be powered down" }
+        check(_guests.none { it.state == ServerState.RUNNING }) { "Host must be idle to be powered down" }
+
+        reset(state)
+
+        val transition = startTransition(latency, energy)
+        if (transition == null) {
+            overridePower(power)
+            return
+        }
+
+        transitionCtx = machine.startWorkload(transition, emptyMap()) { _ ->
+            transitionCtx = null
+
+            // Only settle into the low-power state if the host was not woken up during the transition
+            if (ctx == null) {
+                overridePower(power)
+            }
+        }
+    }
+
+    /**
+     * Override the power draw of the machine to draw the specified [energy] over the [latency] of a transition.
+     *
+     * @return The workload that models the duration of the transition or `null` if the transition is instantaneous.
+     */
+    private fun startTransition(latency: Duration, energy: Double): SimWorkload? {
+        val latencyMs = latency.toMillis()
+        if (latencyMs <= 0) {
+            _transitionEnergy += energy
+            clearPowerOverride()
+            return null
+        }
+
+        overridePower(energy / (latencyMs / 1000.0))
+        return SimWorkloads.runtime(latencyMs, 1.0)
+    }
+
+    /**
+     * Fix the power draw of the machine to [power] Watts, regardless of its resource usage.
+     */
+    private fun overridePower(power: Double) {
+        _isPowerOverridden = true
+        machine.psu.setPowerOverride(power)
+    }
+
+    /**
+     * Let the PSU estimate the power draw of the machine based on its resource usage again.
+     */
+    private fun clearPowerOverride() {
+        if (_isPowerOverridden) {
+            _isPowerOverridden = false
+            machine.psu.setPowerOverride(-1.0)
+        }
+    }
+
     /**
      * Reset the machine.
      */
@@ -389,6 +528,9 @@ public class SimHost(
     private var _uptime = 0L
     private var _downtime = 0L
     private var _bootTime: Instant? = null
+    private var _transitionEnergy = 0.0
+    private var _wakeUpDeadline = Long.MIN_VALUE
+    private var _isPowerOverridden = false
     private val _cpuLimit = machine.model.cpus.sumOf { it.frequency }
     private val _gpuLimit = machine.model.gpus.sumOf { it.frequency }
 
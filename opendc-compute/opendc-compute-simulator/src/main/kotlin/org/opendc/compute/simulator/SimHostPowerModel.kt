@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator
+
+import java.time.Duration
+
+/**
+ * A description of the low-power states of a [SimHost] and the cost of transitioning between them.
+ *
+ * During a transition, the host draws the energy of the transition evenly over the latency of the transition. If the
+ * latency of a transition is zero, the energy of the transition is accounted for at once.
+ *
+ * @param sleepPower The power draw of the host (in W) while it is suspended.
+ * @param offPower The power draw of the host (in W) while it is powered off.
+ * @param suspendLatency The time it takes to suspend the host.
+ * @param suspendEnergy The energy (in J) consumed while suspending the host.
+ * @param resumeLatency The time it takes to resume the host from suspension.
+ * @param resumeEnergy The energy (in J) consumed while resuming the host.
+ * @param shutdownLatency The time it takes to power off the host.
+ * @param shutdownEnergy The energy (in J) consumed while powering off the host.
+ * @param bootLatency The time it takes to boot the host after it was powered off.
+ * @param bootEnergy The energy (in J) consumed while booting the host.
+ */
+public data class SimHostPowerModel(
+    val sleepPower: Double = 0.0,
+    val offPower: Double = 0.0,
+    val suspendLatency: Duration = Duration.ZERO,
+    val suspendEnergy: Double = 0.0,
+    val resumeLatency: Duration = Duration.ZERO,
+    val resumeEnergy: Double = 0.0,
+    val shutdownLatency: Duration = Duration.ZERO,
+    val shutdownEnergy: Double = 0.0,
+    val bootLatency: Duration = Duration.ZERO,
+    val bootEnergy: Double = 0.0
+) {
+    init {
+        require(sleepPower >= 0.0 && offPower >= 0.0) { "Power draw must be non-negative" }
+        require(suspendEnergy >= 0.0 && resumeEnergy >= 0.0 && shutdownEnergy >= 0.0 && bootEnergy >= 0.0) { "Transition energy must be non-negative" }
+        require(!suspendLatency.isNegative && !resumeLatency.isNegative && !shutdownLatency.isNegative && !bootLatency.isNegative) { "Transition latency must be non-negative" }
+    }
+}
@@ -25,6 +25,7 @@ package org.opendc.compute.simulator.failure
 import org.apache.commons.math3.distribution.RealDistribution
 import org.opendc.compute.simulator.SimHost
 import org.opendc.compute.simulator.internal.HostFaultInjectorImpl
+import org.opendc.compute.simulator.internal.ScheduledHostFaultInjectorImpl
 import java.time.Clock
 import java.time.InstantSource
 import kotlin.coroutines.CoroutineContext
@@ -62,5 +63,23 @@ public interface HostFaultInjector : AutoCloseable {
             selector: VictimSelector,
             fault: HostFault
         ): HostFaultInjector = HostFaultInjectorImpl(context, clock, hosts, iat, selector, fault)
+
+        /**
+         * Construct a new [HostFaultInjector] that replays the specified [HostFaultSchedule].
+         *
+         * In contrast to an injector that samples the faults while the simulation runs, the injector replays all
+         * faults from a single task.
+         *
+         * @param context The scope to run the fault injector in.
+         * @param clock The [Clock] to keep track of simulation time.
+         * @param hosts The hosts to inject the faults into, in the order for which the schedule was sampled.
+         * @param schedule The [HostFaultSchedule] to replay.
+         */
+        public operator fun invoke(
+            context: CoroutineContext,
+            clock: InstantSource,
+            hosts: Set<SimHost>,
+            schedule: HostFaultSchedule
+        ): HostFaultInjector = ScheduledHostFaultInjectorImpl(context, clock, hosts, schedule)
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator.failure
+
+import org.apache.commons.math3.distribution.RealDistribution
+import org.opendc.compute.simulator.SimHost
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.time.Duration
+import java.util.IdentityHashMap
+import kotlin.math.roundToLong
+
+/**
+ * A precomputed timeline of host failures and recoveries.
+ *
+ * The timeline is stored as a set of primitive arrays sorted by time. Hosts are identified by their position in the
+ * iteration order of the set of hosts for which the schedule was sampled, such that a schedule can be exported and
+ * replayed for the same topology across repeated simulations.
+ *
+ * @property hostCount The number of hosts for which the schedule was sampled.
+ * @property size The number of events in the schedule.
+ */
+public class HostFaultSchedule private constructor(
+    public val hostCount: Int,
+    public val size: Int,
+    private val timestamps: LongArray,
+    private val hosts: IntArray,
+    private val actions: ByteArray
+) {
+    /**
+     * Return the time (in milliseconds) of the event at [index], relative to the start of the fault injection.
+     */
+    public fun getTimestamp(index: Int): Long {
+        checkIndex(index)
+        return timestamps[index]
+    }
+
+    /**
+     * Return the position of the host that is affected by the event at [index].
+     */
+    public fun getHost(index: Int): Int {
+        checkIndex(index)
+        return hosts[index]
+    }
+
+    /**
+     * Determine whether the event at [index] recovers the host (as opposed to failing the host).
+     */
+    public fun isRecovery(index: Int): Boolean {
+        checkIndex(index)
+        return actions[index] == RECOVER
+    }
+
+    /**
+     * Write the schedule in binary form to the specified [output] stream.
+     */
+    public fun write(output: OutputStream) {
+        val out = DataOutputStream(BufferedOutputStream(output))
+        out.writeInt(MAGIC)
+        out.writeInt(VERSION)
+        out.writeInt(hostCount)
+        out.writeInt(size)
+
+        for (i in 0 until size) {
+            out.writeLong(timestamps[i])
+            out.writeInt(hosts[i])
+            out.writeByte(actions[i].toInt())
+        }
+
+        out.flush()
+    }
+
+    override fun toString(): String = "HostFaultSchedule[hosts=$hostCount,events=$size]"
+
+    private fun checkIndex(index: Int) {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException(index)
+        }
+    }
+
+    public companion object {
+        private const val MAGIC = 0x4F444346 // "ODCF"
+        private const val VERSION = 1
+        private const val FAIL: Byte = 0
+        private const val RECOVER: Byte = 1
+
+        /**
+         * Sample a [HostFaultSchedule] of start-stop faults for the specified [hosts].
+         *
+         * The distributions are sampled in the same order as a [HostFaultInjector] with a [StartStopHostFault] would,
+         * such that the resulting schedule matches the faults injected by such an injector. Like that injector, the
+         * next failure is sampled after the hosts of the previous failure have recovered.
+         *
+         * @param hosts The hosts to sample the faults for.
+         * @param iat The inter-arrival time distribution of the failures (in hours).
+         * @param selector The [VictimSelector] to select the host victims.
+         * @param duration The distribution of the duration of the failures (in seconds).
+         * @param horizon The duration of the simulation after which no new faults are sampled.
+         */
+        @JvmStatic
+        public fun sample(
+            hosts: Set<SimHost>,
+            iat: RealDistribution,
+            selector: VictimSelector,
+            duration: RealDistribution,
+            horizon: Duration
+        ): HostFaultSchedule {
+            val positions = IdentityHashMap<SimHost, Int>(hosts.size)
+            for (host in hosts) {
+                positions[host] = positions.size
+            }
+
+            val builder = Builder()
+            val end = horizon.toMillis()
+            var now = 0L
+
+            while (true) {
+                // Make sure to convert delay from hours to milliseconds
+                val d = (iat.sample() * 3.6e6).roundToLong()
+
+                // Handle long overflow
+                if (now + d <= 0 || now + d > end) {
+                    break
+                }
+
+                now += d
+
+                val victims = selector.select(hosts)
+                for (host in victims) {
+                    builder.add(now, positions.getValue(host), FAIL)
+                }
+
+                val df = (duration.sample() * 1000).roundToLong() // seconds to milliseconds
+
+                // Handle long overflow
+                if (now + df <= 0) {
+                    continue
+                }
+
+                now += df
+
+                for (host in victims) {
+                    builder.add(now, positions.getValue(host), RECOVER)
+                }
+            }
+
+            return builder.build(hosts.size)
+        }
+
+        /**
+         * Read a [HostFaultSchedule] that was written by [write] from the specified [input] stream.
+         */
+        @JvmStatic
+        public fun read(input: InputStream): HostFaultSchedule {
+            val data = DataInputStream(BufferedInputStream(input))
+            require(data.readInt() == MAGIC) { "Not a fault schedule" }
+
+            val version = data.readInt()
+            require(version == VERSION) { "Unsupported fault schedule version $version" }
+
+            val hostCount = data.readInt()
+            val size = data.readInt()
+            val timestamps = LongArray(size)
+            val hosts = IntArray(size)
+            val actions = ByteArray(size)
+
+            for (i in 0 until size) {
+                timestamps[i] = data.readLong()
+                hosts[i] = data.readInt()
+                actions[i] = data.readByte()
+            }
+
+            return HostFaultSchedule(hostCount, size, timestamps, hosts, actions)
+        }
+    }
+
+    /**
+     * Helper class to collect the events of a schedule in the order in which they are sampled.
+     */
+    private class Builder {
+        private var timestamps = LongArray(64)
+        private var hosts = IntArray(64)
+        private var actions = ByteArray(64)
+        private var size = 0
+
+        fun add(timestamp: Long, host: Int, action: Byte) {
+            if (size == timestamps.size) {
+                val capacity = size * 2
+                timestamps = timestamps.copyOf(capacity)
+                hosts = hosts.copyOf(capacity)
+                actions = actions.copyOf(capacity)
+            }
+
+            timestamps[size] = timestamp
+            hosts[size] = host
+            actions[size] = action
+            size++
+        }
+
+        fun build(hostCount: Int): HostFaultSchedule {
+            val timestamps = timestamps
+
+            // Stable sort, such that events at the same time are applied in the order in which they were sampled
+            val order = (0 until size).sortedBy { timestamps[it] }
+
+            return HostFaultSchedule(
+                hostCount,
+                size,
+                LongArray(size) { timestamps[order[it]] },
+                IntArray(size) { hosts[order[it]] },
+                ByteArray(size) { actions[order[it]] }
+            )
+        }
+    }
+}
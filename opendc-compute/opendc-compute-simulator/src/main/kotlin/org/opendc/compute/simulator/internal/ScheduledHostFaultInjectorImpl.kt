@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator.internal
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import org.opendc.compute.simulator.SimHost
+import org.opendc.compute.simulator.failure.HostFaultInjector
+import org.opendc.compute.simulator.failure.HostFaultSchedule
+import java.time.InstantSource
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * A [HostFaultInjector] that replays a precomputed [HostFaultSchedule] from a single task.
+ *
+ * @param context The scope to run the fault injector in.
+ * @param clock The [InstantSource] to keep track of simulation time.
+ * @param hosts The set of hosts to inject faults into.
+ * @param schedule The [HostFaultSchedule] to replay.
+ */
+internal class ScheduledHostFaultInjectorImpl(
+    context: CoroutineContext,
+    private val clock: InstantSource,
+    hosts: Set<SimHost>,
+    private val schedule: HostFaultSchedule
+) : HostFaultInjector {
+    /**
+     * The scope in which the injector runs.
+     */
+    private val scope = CoroutineScope(context + Job())
+
+    /**
+     * The hosts indexed by their position in the schedule.
+     */
+    private val hosts = hosts.toTypedArray()
+
+    /**
+     * The [Job] that awaits the next event in the schedule.
+     */
+    private var job: Job? = null
+
+    init {
+        require(this.hosts.size == schedule.hostCount) { "Schedule was sampled for ${schedule.hostCount} hosts, but ${this.hosts.size} hosts given" }
+    }
+
+    override fun start() {
+        if (job != null) {
+            return
+        }
+
+        job = scope.launch {
+            runInjector()
+        }
+    }
+
+    /**
+     * Apply the events of the schedule in order.
+     */
+    private suspend fun runInjector() {
+        val schedule = schedule
+        val hosts = hosts
+        val start = clock.millis()
+
+        for (i in 0 until schedule.size) {
+            val d = start + schedule.getTimestamp(i) - clock.millis()
+            if (d > 0) {
+                delay(d)
+            }
+
+            val host = hosts[schedule.getHost(i)]
+            if (schedule.isRecovery(i)) {
+                host.recover()
+            } else {
+                host.fail()
+            }
+        }
+    }
+
+    override fun close() {
+        scope.cancel()
+    }
+}
@@ -26,6 +26,7 @@ import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.suspendCancellableCoroutine
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertAll
@@ -36,6 +37,7 @@ import org.opendc.compute.api.ServerState
 import org.opendc.compute.api.ServerWatcher
 import org.opendc.compute.service.driver.Host
 import org.opendc.compute.service.driver.HostListener
+import org.opendc.compute.service.driver.HostState
 import org.opendc.simulator.compute.SimBareMetalMachine
 import org.opendc.simulator.compute.kernel.SimHypervisor
 import org.opendc.simulator.compute.model.MachineModel
@@ -44,9 +46,11 @@ import org.opendc.simulator.compute.model.ProcessingNode
 import org.opendc.simulator.compute.model.ProcessingUnit
 import org.opendc.simulator.compute.workload.SimTrace
 import org.opendc.simulator.compute.workload.SimTraceFragment
+import org.opendc.simulator.compute.workload.SimWorkloads
 import org.opendc.simulator.flow2.FlowEngine
 import org.opendc.simulator.flow2.mux.FlowMultiplexerFactory
 import org.opendc.simulator.kotlin.runSimulation
+import java.time.Duration
 import java.time.Instant
 import java.util.SplittableRandom
 import java.util.UUID
@@ -296,6 +300,109 @@ internal class SimHostTest {
         )
     }
 
+    /**
+     * Test that a server moved to another host the way the compute service migrates it, by spawning it on the target
+     * host and deleting it from the source host, starts its workload anew.
+     */
+    @Test
+    fun testMigrationRestartsWorkload() = runSimulation {
+        val engine = FlowEngine.create(dispatcher)
+        val graph = engine.newGraph()
+
+        val hosts = List(2) {
+            SimHost(
+                uid = UUID.randomUUID(),
+                name = "test-$it",
+                meta = emptyMap(),
+                timeSource,
+                SimBareMetalMachine.create(graph, machineModel),
+                SimHypervisor.create(FlowMultiplexerFactory.maxMinMultiplexer(), SplittableRandom(1))
+            )
+        }
+        val (source, target) = hosts
+        val image = MockImage(
+            UUID.randomUUID(),
+            "<unnamed>",
+            emptyMap(),
+            mapOf("workload" to SimWorkloads.runtime(Duration.ofMinutes(10), 0.5))
+        )
+        val server = MockServer(UUID.randomUUID(), "a", MockFlavor(2, 0), image)
+
+        source.spawn(server)
+        source.start(server)
+        delay(5 * 60 * 1000L)
+
+        // Migrate the server halfway through its workload
+        target.spawn(server)
+        source.delete(server)
+        target.start(server)
+
+        suspendCancellableCoroutine { cont ->
+            target.addListener(object : HostListener {
+                override fun onStateChanged(host: Host, server: Server, newState: ServerState) {
+                    if (newState == ServerState.TERMINATED) {
+                        cont.resume(Unit)
+                    }
+                }
+            })
+        }
+
+        hosts.forEach { it.close() }
+
+        // The progress made on the source host is lost, so the workload runs for its full duration on the target host
+        assertTrue(timeSource.millis() >= 15 * 60 * 1000L, "Workload should restart after migration")
+    }
+
+    /**
+     * Test suspending and resuming a host.
+     */
+    @Test
+    fun testSuspendResume() = runSimulation {
+        val engine = FlowEngine.create(dispatcher)
+        val graph = engine.newGraph()
+
+        val machine = SimBareMetalMachine.create(graph, machineModel)
+        val hypervisor = SimHypervisor.create(FlowMultiplexerFactory.maxMinMultiplexer(), SplittableRandom(1))
+        val powerModel = SimHostPowerModel(
+            suspendLatency = Duration.ofMinutes(1),
+            resumeLatency = Duration.ofMinutes(2),
+            resumeEnergy = 1200.0
+        )
+
+        val host = SimHost(
+            uid = UUID.randomUUID(),
+            name = "test",
+            meta = emptyMap(),
+            timeSource,
+            machine,
+            hypervisor,
+            powerModel = powerModel
+        )
+
+        delay(1000L)
+        host.setPowerState(HostState.SLEEPING)
+        delay(5 * 60 * 1000L)
+
+        val sleepState = host.state
+        val wakeUpDelay = host.wakeUpDelay
+        host.setPowerState(HostState.UP)
+        delay(60 * 1000L)
+
+        val wakingState = host.state
+        delay(90 * 1000L)
+
+        val upState = host.state
+        host.close()
+
+        assertAll(
+            { assertEquals(HostState.SLEEPING, sleepState, "Host should be suspended") },
+            { assertEquals(Duration.ofMinutes(2), wakeUpDelay, "Wake-up delay does not match") },
+            { assertEquals(HostState.SLEEPING, wakingState, "Host should still be resuming") },
+            { assertEquals(HostState.UP, upState, "Host should be resumed") },
+            { assertEquals(31000, host.getSystemStats().uptime.toMillis(), "Uptime does not match") }
+        )
+    }
+
     private class MockFlavor(
         override val cpuCount: Int,
         override val memorySize: Long
@@ -23,13 +23,20 @@
 package org.opendc.compute.simulator.failure
 
 import io.mockk.coVerify
+import io.mockk.every
 import io.mockk.mockk
 import kotlinx.coroutines.delay
 import org.apache.commons.math3.distribution.LogNormalDistribution
 import org.apache.commons.math3.random.Well19937c
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
 import org.opendc.compute.simulator.SimHost
 import org.opendc.simulator.kotlin.runSimulation
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.time.Duration
 import java.time.InstantSource
 import kotlin.coroutines.CoroutineContext
@@ -97,6 +104,115 @@ class HostFaultInjectorTest {
         coVerify(exactly = 1) { hosts[1].recover() }
     }
 
+    /**
+     * Test that a precomputed schedule injects the same faults as the sampling injector, at the same times and into
+     * the same hosts.
+     */
+    @Test
+    fun testScheduledInjectorStopsMultipleMachines() {
+        val horizon = Duration.ofDays(55)
+
+        val expected = recordFaults(horizon) { context, clock, hosts -> createSimpleInjector(context, clock, hosts) }
+        val actual = recordFaults(horizon) { context, clock, hosts ->
+            HostFaultInjector(context, clock, hosts, createSimpleSchedule(hosts, horizon))
+        }
+
+        assertAll(
+            { assertEquals(expected, actual) },
+            { assertEquals(setOf(0, 1), actual.filter { !it.isRecovery }.map { it.host }.toSet()) },
+            { assertEquals(1, actual.count { it.host == 0 && !it.isRecovery }) },
+            { assertEquals(1, actual.count { it.host == 1 && !it.isRecovery }) },
+            { assertEquals(1, actual.count { it.host == 0 && it.isRecovery }) },
+            { assertEquals(1, actual.count { it.host == 1 && it.isRecovery }) },
+            { assertTrue(actual.zipWithNext().all { (a, b) -> a.time <= b.time }) }
+        )
+    }
+
+    /**
+     * Test that a schedule can be exported and read back.
+     */
+    @Test
+    fun testScheduleRoundTrip() {
+        val hosts = setOf<SimHost>(mockk(), mockk(), mockk())
+        val schedule = createSimpleSchedule(hosts, Duration.ofDays(365))
+
+        val output = ByteArrayOutputStream()
+        schedule.write(output)
+        val result = HostFaultSchedule.read(ByteArrayInputStream(output.toByteArray()))
+
+        assertAll(
+            { assertEquals(schedule.hostCount, result.hostCount) },
+            { assertEquals(schedule.size, result.size) },
+            { assertTrue((0 until schedule.size).all { schedule.getTimestamp(it) == result.getTimestamp(it) }) },
+            { assertTrue((0 until schedule.size).all { schedule.getHost(it) == result.getHost(it) }) },
+            { assertTrue((0 until schedule.size).all { schedule.isRecovery(it) == result.isRecovery(it) }) },
+            { assertTrue((1 until schedule.size).all { schedule.getTimestamp(it - 1) <= schedule.getTimestamp(it) }) }
+        )
+    }
+
+    /**
+     * Test that a schedule is only replayed for the hosts it was sampled for.
+     */
+    @Test
+    fun testScheduleHostMismatch() = runSimulation {
+        val schedule = createSimpleSchedule(setOf(mockk()), Duration.ofDays(55))
+
+        assertThrows<IllegalArgumentException> {
+            HostFaultInjector(coroutineContext, timeSource, setOf(mockk(), mockk()), schedule)
+        }
+    }
+
+    /**
+     * A fault that was injected into a host.
+     *
+     * @param time The simulation time at which the fault was injected (in milliseconds).
+     * @param host The index of the host.
+     * @param isRecovery A flag to indicate that the host recovered.
+     */
+    private data class Fault(val time: Long, val host: Int, val isRecovery: Boolean)
+
+    /**
+     * Run the injector constructed by [factory] on two hosts for the specified [horizon] and record the faults.
+     */
+    private fun recordFaults(
+        horizon: Duration,
+        factory: (CoroutineContext, InstantSource, Set<SimHost>) -> HostFaultInjector
+    ): List<Fault> {
+        val faults = mutableListOf<Fault>()
+
+        runSimulation {
+            val clock = timeSource
+            val hosts = List(2) { i ->
+                val host = mockk<SimHost>()
+                every { host.fail() } answers { faults += Fault(clock.millis(), i, false) }
+                every { host.recover() } answers { faults += Fault(clock.millis(), i, true) }
+                host
+            }
+
+            val injector = factory(coroutineContext, clock, hosts.toSet())
+
+            injector.start()
+
+            delay(horizon.toMillis())
+
+            injector.close()
+        }
+
+        return faults
+    }
+
+    /**
+     * Create a simple start stop fault schedule.
+     */
+    private fun createSimpleSchedule(hosts: Set<SimHost>, horizon: Duration): HostFaultSchedule {
+        val rng = Well19937c(0)
+        val iat = LogNormalDistribution(rng, ln(24 * 7.0), 1.03)
+        val selector = StochasticVictimSelector(LogNormalDistribution(rng, 1.88, 1.25))
+        val duration = LogNormalDistribution(rng, 8.89, 2.71)
+
+        return HostFaultSchedule.sample(hosts, iat, selector, duration, horizon)
+    }
+
     /**
      * Create a simple start stop fault injector.
      */
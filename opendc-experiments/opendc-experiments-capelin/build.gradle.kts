@@ -46,6 +46,8 @@ dependencies {
     runtimeOnly(projects.opendcTrace.opendcTraceOpendc)
     runtimeOnly(libs.log4j.core)
     runtimeOnly(libs.log4j.slf4j)
+
+    testImplementation(projects.opendcTrace.opendcTraceApi)
 }
 
 val createCapelinApp by tasks.creating(CreateStartScripts::class) {
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.capelin
+
+import org.opendc.compute.service.ComputeService
+import org.opendc.compute.service.scheduler.FilterScheduler
+import org.opendc.compute.service.scheduler.filters.ComputeFilter
+import org.opendc.compute.service.scheduler.filters.RamFilter
+import org.opendc.compute.service.scheduler.filters.VCpuFilter
+import org.opendc.compute.service.scheduler.weights.CoreRamWeigher
+import org.opendc.experiments.capelin.topology.clusterTopology
+import org.opendc.experiments.compute.ComputeWorkloadLoader
+import org.opendc.experiments.compute.VirtualMachine
+import org.opendc.experiments.compute.registerComputeMonitor
+import org.opendc.experiments.compute.replay
+import org.opendc.experiments.compute.sampleByLoad
+import org.opendc.experiments.compute.setupComputeService
+import org.opendc.experiments.compute.setupHosts
+import org.opendc.experiments.compute.telemetry.ComputeMonitor
+import org.opendc.experiments.compute.telemetry.TelemetryProjection
+import org.opendc.experiments.compute.telemetry.table.HostColumn
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.experiments.compute.telemetry.table.ServerTableReader
+import org.opendc.experiments.compute.topology.HostSpec
+import org.opendc.experiments.compute.trace
+import org.opendc.experiments.provisioner.Provisioner
+import org.opendc.simulator.kotlin.runSimulation
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.io.File
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks comparing the fixed-interval and change-based sampling modes of the metric reader on an idle-heavy
+ * simulation, where only a small fraction of the load of the trace is replayed on the full topology.
+ *
+ * The `power` projection selects only three host columns (which do not require the CPU statistics of the hosts) and
+ * no server columns, in order to measure the per-tick cost of collecting unused metrics.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+class ComputeMetricReaderBenchmarks {
+    private lateinit var vms: List<VirtualMachine>
+    private lateinit var topology: List<HostSpec>
+
+    /**
+     * The change threshold of the metric reader, where a negative value selects the fixed-interval mode.
+     */
+    @Param("-1.0", "0.0", "0.1")
+    private var changeThreshold: Double = 0.0
+
+    /**
+     * The columns collected by the metric reader.
+     */
+    @Param("all", "power")
+    private var projection: String = "all"
+
+    @Setup
+    fun setUp() {
+        val loader = ComputeWorkloadLoader(File("src/test/resources/trace"))
+        vms = trace("bitbrains-small").sampleByLoad(0.1).resolve(loader, Random(1L))
+        topology = checkNotNull(object {}.javaClass.getResourceAsStream("/topology.txt")).use { clusterTopology(it) }
+    }
+
+    @Benchmark
+    fun benchmarkMetricReader(blackhole: Blackhole) = runSimulation {
+        val serviceDomain = "compute.opendc.org"
+        val selection = when (projection) {
+            "power" -> TelemetryProjection.hosts(HostColumn.POWER_USAGE, HostColumn.POWER_TOTAL, HostColumn.GUESTS_RUNNING)
+            else -> TelemetryProjection.ALL
+        }
+        val monitor = object : ComputeMonitor {
+            override fun record(reader: HostTableReader) {
+                blackhole.consume(reader.cpuActiveTime)
+                blackhole.consume(reader.powerTotal)
+            }
+
+            override fun record(reader: ServerTableReader) {
+                blackhole.consume(reader.cpuActiveTime)
+            }
+        }
+
+        Provisioner(dispatcher, seed = 0).use { provisioner ->
+            val computeScheduler = FilterScheduler(
+                filters = listOf(ComputeFilter(), VCpuFilter(16.0), RamFilter(1.0)),
+                weighers = listOf(CoreRamWeigher(multiplier = 1.0))
+            )
+
+            provisioner.runSteps(
+                setupComputeService(serviceDomain, { computeScheduler }),
+                registerComputeMonitor(serviceDomain, monitor, changeThreshold = changeThreshold.takeIf { it >= 0 }, projection = selection),
+                setupHosts(serviceDomain, topology)
+            )
+
+            val service = provisioner.registry.resolve(serviceDomain, ComputeService::class.java)!!
+            service.replay(timeSource, vms, 0L)
+        }
+    }
+}
@@ -44,7 +44,10 @@ import org.opendc.experiments.capelin.portfolio.MoreHpcPortfolio
 import org.opendc.experiments.capelin.portfolio.MoreVelocityPortfolio
 import org.opendc.experiments.capelin.portfolio.OperationalPhenomenaPortfolio
 import org.opendc.experiments.capelin.portfolio.TestPortfolio
+import org.opendc.experiments.compute.export.parquet.ParquetOutputOptions
+import org.opendc.experiments.compute.export.parquet.ParquetWriterPool
 import java.io.File
+import java.time.Duration
 import java.util.concurrent.ForkJoinPool
 import java.util.stream.LongStream
 
@@ -90,6 +93,39 @@ internal class CapelinCommand : CliktCommand(name = "capelin") {
         .int()
         .default(Runtime.getRuntime().availableProcessors() - 1)
 
+    /**
+     * The number of threads shared by the scenarios to write their output.
+     */
+    private val writerThreads by option("--writer-threads", help = "number of threads writing the output")
+        .int()
+        .default(maxOf(1, Runtime.getRuntime().availableProcessors() / 4))
+
+    /**
+     * The number of threads reading the partitions of a trace.
+     */
+    private val scanThreads by option("--scan-threads", help = "number of threads reading the partitions of a trace")
+        .int()
+        .default(1)
+
+    /**
+     * The maximum number of rows per output file.
+     */
+    private val rowsPerFile by option("--rows-per-file", help = "maximum number of rows per output file")
+        .long()
+        .default(Long.MAX_VALUE)
+
+    /**
+     * The length of the time partitions of the output in simulated hours.
+     */
+    private val partitionHours by option("--partition-hours", help = "length of the time partitions of the output in hours")
+        .long()
+
+    /**
+     * A flag to write a `_metadata` summary file next to the output files of each table.
+     */
+    private val writeSummary by option("--write-summary", help = "write a _metadata summary file per output table")
+        .flag()
+
     /**
      * The number of repeats.
      */
@@ -123,7 +159,20 @@ internal class CapelinCommand : CliktCommand(name = "capelin") {
     private val basePartitions: Map<String, String> by option("-P", "--base-partitions").associate()
 
     override fun run() {
-        val runner = CapelinRunner(envPath, tracePath, outputPath.takeUnless { disableOutput })
+        val outputOptions = ParquetOutputOptions(
+            maxRowsPerFile = rowsPerFile,
+            partitionInterval = partitionHours?.let { Duration.ofHours(it) },
+            writeSummary = writeSummary
+        )
+        val writerPool = ParquetWriterPool(writerThreads)
+        val runner = CapelinRunner(
+            envPath,
+            tracePath,
+            outputPath.takeUnless { disableOutput },
+            outputOptions,
+            writerPool,
+            scanThreads
+        )
         val scenarios = portfolio().scenarios.toList()
 
         val pool = ForkJoinPool(parallelism)
@@ -135,6 +184,7 @@ internal class CapelinCommand : CliktCommand(name = "capelin") {
         }
 
         pool.shutdown()
+        writerPool.close()
     }
 
     /**
@@ -28,6 +28,8 @@ import org.opendc.experiments.capelin.topology.clusterTopology
 import org.opendc.experiments.compute.ComputeWorkloadLoader
 import org.opendc.experiments.compute.createComputeScheduler
 import org.opendc.experiments.compute.export.parquet.ParquetComputeMonitor
+import org.opendc.experiments.compute.export.parquet.ParquetOutputOptions
+import org.opendc.experiments.compute.export.parquet.ParquetWriterPool
 import org.opendc.experiments.compute.grid5000
 import org.opendc.experiments.compute.registerComputeMonitor
 import org.opendc.experiments.compute.replay
@@ -46,16 +48,22 @@ import kotlin.math.roundToLong
  * @param envPath The path to the directory containing the environments.
  * @param tracePath The path to the directory containing the traces.
  * @param outputPath The path to the directory where the output should be written (or `null` if no output should be generated).
+ * @param outputOptions The options for the layout of the output files.
+ * @param writerPool The pool of threads shared by the scenarios to write their output, or `null` to use a thread per table.
+ * @param scanParallelism The number of partitions of a trace to read concurrently when loading it.
  */
 public class CapelinRunner(
     private val envPath: File,
     tracePath: File,
-    private val outputPath: File?
+    private val outputPath: File?,
+    private val outputOptions: ParquetOutputOptions = ParquetOutputOptions(),
+    private val writerPool: ParquetWriterPool? = null,
+    scanParallelism: Int = 1
 ) {
     /**
      * The [ComputeWorkloadLoader] to use for loading the traces.
      */
-    private val workloadLoader = ComputeWorkloadLoader(tracePath)
+    private val workloadLoader = ComputeWorkloadLoader(tracePath, scanParallelism)
 
     /**
      * Run a single [scenario] with the specified seed.
@@ -80,7 +88,9 @@ public class CapelinRunner(
                         ParquetComputeMonitor(
                             outputPath,
                             partition,
-                            bufferSize = 4096
+                            bufferSize = 4096,
+                            options = outputOptions,
+                            pool = writerPool
                         )
                     )
                 )
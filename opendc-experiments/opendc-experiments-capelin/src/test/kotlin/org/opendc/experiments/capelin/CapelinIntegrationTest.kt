@@ -48,7 +48,17 @@ import org.opendc.experiments.compute.topology.HostSpec
 import org.opendc.experiments.compute.trace
 import org.opendc.experiments.provisioner.Provisioner
 import org.opendc.simulator.kotlin.runSimulation
+import org.opendc.trace.Trace
+import org.opendc.trace.TraceStatistics
+import org.opendc.trace.WriteOptions
+import org.opendc.trace.conv.RESOURCE_CPU_COUNT
+import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_DURATION
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import java.io.File
+import java.nio.file.Files
 import java.time.Duration
 import java.util.Random
 
@@ -128,6 +138,38 @@ class CapelinIntegrationTest {
         )
     }
 
+    /**
+     * Test that recording hosts only on change preserves the totals of a large simulation setup.
+     */
+    @Test
+    fun testLargeOnChange() = runSimulation {
+        val seed = 0L
+        val workload = createTestWorkload(1.0, seed)
+        val topology = createTopology()
+        val monitor = monitor
+
+        Provisioner(dispatcher, seed).use { provisioner ->
+            provisioner.runSteps(
+                setupComputeService(serviceDomain = "compute.opendc.org", { computeScheduler }),
+                registerComputeMonitor(serviceDomain = "compute.opendc.org", monitor, changeThreshold = 0.1),
+                setupHosts(serviceDomain = "compute.opendc.org", topology)
+            )
+
+            val service = provisioner.registry.resolve("compute.opendc.org", ComputeService::class.java)!!
+            service.replay(timeSource, workload, seed)
+        }
+
+        // Note that these values should be identical to the fixed-interval mode
+        assertAll(
+            { assertEquals(50, monitor.attemptsSuccess, "The scheduler should schedule 50 VMs") },
+            { assertEquals(223394101, monitor.idleTime) { "Incorrect idle time" } },
+            { assertEquals(66977086, monitor.activeTime) { "Incorrect active time" } },
+            { assertEquals(3160276, monitor.stealTime) { "Incorrect steal time" } },
+            { assertEquals(0, monitor.lostTime) { "Incorrect lost time" } },
+            { assertEquals(5.84093E9, monitor.energyUsage, 1E4) { "Incorrect power draw" } }
+        )
+    }
+
     /**
      * Test a small simulation setup.
      */
@@ -237,6 +279,78 @@ class CapelinIntegrationTest {
         )
     }
 
+    /**
+     * Test that sampling a trace with statistics selects the same VMs as sampling the fully loaded trace.
+     */
+    @Test
+    fun testSampleWithStatistics() {
+        val source = File("src/test/resources/trace/bitbrains-small").toPath()
+        val baseDir = Files.createTempDirectory("opendc")
+        val target = Files.createDirectory(baseDir.resolve("bitbrains-small"))
+        for (file in listOf("meta.parquet", "trace.parquet", "interference-model.json")) {
+            Files.copy(source.resolve(file), target.resolve(file))
+        }
+
+        val statistics = TraceStatistics.builder()
+        val reader = checkNotNull(Trace.open(target, "opendc-vm").getTable(TABLE_RESOURCE_STATES)).newReader()
+        while (reader.nextRow()) {
+            statistics.add(
+                reader.getString(RESOURCE_ID)!!,
+                reader.getInstant(RESOURCE_STATE_TIMESTAMP)!!.toEpochMilli(),
+                reader.getDuration(RESOURCE_STATE_DURATION)!!.toMillis(),
+                reader.getInt(RESOURCE_CPU_COUNT),
+                reader.getDouble(RESOURCE_STATE_CPU_USAGE)
+            )
+        }
+        reader.close()
+        statistics.build().write(target.resolve("trace-stats.bin"))
+
+        val expected = createTestWorkload(0.25, seed = 1L)
+        val actual = ComputeWorkloadLoader(baseDir.toFile()).get("bitbrains-small", "opendc-vm", 0.25)
+
+        assertAll(
+            { assertEquals(expected.map { it.uid }, actual.map { it.uid }) },
+            { assertEquals(expected.map { it.totalLoad }, actual.map { it.totalLoad }) }
+        )
+    }
+
+    /**
+     * Test that scanning the row groups of a trace in parallel loads the same VMs and traces as a sequential scan.
+     */
+    @Test
+    fun testParallelLoad() {
+        val source = File("src/test/resources/trace/bitbrains-small").toPath()
+        val baseDir = Files.createTempDirectory("opendc")
+        val target = Files.createDirectory(baseDir.resolve("bitbrains-small"))
+        for (file in listOf("meta.parquet", "interference-model.json")) {
+            Files.copy(source.resolve(file), target.resolve(file))
+        }
+
+        // Rewrite the fragments into small row groups, such that the scan is split into many partitions
+        val reader = checkNotNull(Trace.open(source, "opendc-vm").getTable(TABLE_RESOURCE_STATES)).newReader()
+        val writer = checkNotNull(Trace.open(target, "opendc-vm").getTable(TABLE_RESOURCE_STATES))
+            .newWriter(WriteOptions(rowGroupSize = 64 * 1024, statistics = false))
+        while (reader.nextRow()) {
+            writer.startRow()
+            writer.setString(RESOURCE_ID, reader.getString(RESOURCE_ID)!!)
+            writer.setInstant(RESOURCE_STATE_TIMESTAMP, reader.getInstant(RESOURCE_STATE_TIMESTAMP)!!)
+            writer.setDuration(RESOURCE_STATE_DURATION, reader.getDuration(RESOURCE_STATE_DURATION)!!)
+            writer.setInt(RESOURCE_CPU_COUNT, reader.getInt(RESOURCE_CPU_COUNT))
+            writer.setDouble(RESOURCE_STATE_CPU_USAGE, reader.getDouble(RESOURCE_STATE_CPU_USAGE))
+            writer.endRow()
+        }
+        reader.close()
+        writer.close()
+
+        val expected = ComputeWorkloadLoader(baseDir.toFile()).get("bitbrains-small", "opendc-vm")
+        val actual = ComputeWorkloadLoader(baseDir.toFile(), scanParallelism = 4).get("bitbrains-small", "opendc-vm")
+
+        assertAll(
+            { assertEquals(50, expected.size) },
+            { assertEquals(expected, actual) }
+        )
+    }
+
     /**
      * Obtain the trace reader for the test.
      */
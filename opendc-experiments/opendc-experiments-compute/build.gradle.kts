@@ -27,6 +27,7 @@ plugins {
     `kotlin-library-conventions`
     `testing-conventions`
     `jacoco-conventions`
+    `benchmark-conventions`
 }
 
 dependencies {
@@ -41,5 +42,44 @@ dependencies {
 
     implementation(libs.kotlin.logging)
 
+    // The Arrow exporter is optional: users of ArrowComputeMonitor must add Arrow to their runtime classpath
+    compileOnly(libs.arrow.vector)
+    compileOnly(libs.arrow.compression)
+
     testImplementation(libs.slf4j.simple)
+    testImplementation(libs.arrow.vector)
+    testImplementation(libs.arrow.compression)
+    testRuntimeOnly(libs.arrow.memory.unsafe)
+
+    jmhImplementation(libs.arrow.vector)
+    jmhImplementation(libs.arrow.compression)
+    jmhRuntimeOnly(libs.arrow.memory.unsafe)
+}
+
+val arrowTestPattern = "org.opendc.experiments.compute.export.arrow.*"
+
+tasks.test {
+    filter {
+        excludeTestsMatching(arrowTestPattern)
+    }
+}
+
+val arrowTest by tasks.registering(Test::class) {
+    description = "Runs the tests of the Arrow exporter."
+    group = LifecycleBasePlugin.VERIFICATION_GROUP
+
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+
+    useJUnitPlatform()
+    filter {
+        includeTestsMatching(arrowTestPattern)
+    }
+
+    // Arrow requires access to the internals of direct buffers
+    jvmArgs("--add-opens=java.base/java.nio=ALL-UNNAMED")
+}
+
+tasks.check {
+    dependsOn(arrowTest)
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export
+
+import org.apache.arrow.compression.CommonsCompressionFactory
+import org.apache.arrow.memory.RootAllocator
+import org.apache.arrow.vector.BigIntVector
+import org.apache.arrow.vector.ipc.ArrowFileReader
+import org.apache.parquet.hadoop.example.GroupReadSupport
+import org.opendc.experiments.compute.export.arrow.ArrowHostDataWriter
+import org.opendc.experiments.compute.export.parquet.ParquetHostDataWriter
+import org.opendc.experiments.compute.telemetry.table.HostInfo
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.trace.util.parquet.LocalParquetReader
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for the end-to-end time to write the host metrics of a simulation and read them back, comparing the
+ * Parquet and Arrow IPC output formats. The workload resembles a single day of a Capelin portfolio scenario.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = ["--add-opens=java.base/java.nio=ALL-UNNAMED"]) // Arrow requires access to direct buffers
+@Warmup(iterations = 1, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+class ExportFormatBenchmarks {
+    @Param("parquet", "arrow", "arrow-lz4")
+    private var format: String = "parquet"
+
+    @Param("200")
+    private var hostCount: Int = 0
+
+    @Param("288")
+    private var intervals: Int = 0
+
+    private lateinit var path: Path
+    private lateinit var hosts: Array<HostInfo>
+    private val reader = BenchmarkHostTableReader()
+
+    @Setup
+    fun setUp() {
+        path = Files.createTempFile("opendc", format)
+        hosts = Array(hostCount) { HostInfo(UUID.randomUUID().toString(), "host-$it", "x86", 32, 256_000) }
+    }
+
+    @TearDown
+    fun tearDown() {
+        Files.deleteIfExists(path)
+    }
+
+    @Benchmark
+    fun benchmarkWriteRead(): Long {
+        when (format) {
+            "parquet" -> ParquetHostDataWriter(path.toFile(), bufferSize = 4096).use { writer -> writeAll(writer::write) }
+            "arrow" -> ArrowHostDataWriter(path.toFile()).use { writer -> writeAll(writer::write) }
+            "arrow-lz4" -> ArrowHostDataWriter(path.toFile(), compression = true).use { writer -> writeAll(writer::write) }
+        }
+
+        return if (format == "parquet") readParquet() else readArrow()
+    }
+
+    /**
+     * Write the metrics of all hosts for every interval.
+     */
+    private inline fun writeAll(write: (HostTableReader) -> Unit) {
+        val reader = reader
+        reader.timestamp = Instant.EPOCH
+
+        for (i in 0 until intervals) {
+            reader.timestamp = reader.timestamp.plusSeconds(300)
+
+            for (host in hosts) {
+                reader.host = host
+                reader.cpuActiveTime = i.toLong()
+                write(reader)
+            }
+        }
+    }
+
+    /**
+     * Read back the active CPU time of the Parquet output.
+     */
+    private fun readParquet(): Long {
+        var sum = 0L
+        LocalParquetReader(path, GroupReadSupport()).use { reader ->
+            while (true) {
+                val group = reader.read() ?: break
+                sum += group.getLong("cpu_time_active", 0)
+            }
+        }
+        return sum
+    }
+
+    /**
+     * Read back the active CPU time of the Arrow output.
+     */
+    private fun readArrow(): Long {
+        var sum = 0L
+        RootAllocator().use { allocator ->
+            ArrowFileReader(FileChannel.open(path), allocator, CommonsCompressionFactory.INSTANCE).use { reader ->
+                val root = reader.vectorSchemaRoot
+                val activeTime = root.getVector("cpu_time_active") as BigIntVector
+
+                while (reader.loadNextBatch()) {
+                    for (i in 0 until root.rowCount) {
+                        sum += activeTime.get(i)
+                    }
+                }
+            }
+        }
+        return sum
+    }
+
+    /**
+     * A mutable [HostTableReader] that is reused for every row, like the readers of the metric reader.
+     */
+    private class BenchmarkHostTableReader : HostTableReader {
+        override var timestamp: Instant = Instant.EPOCH
+        override lateinit var host: HostInfo
+        override val guestsTerminated: Int = 0
+        override val guestsRunning: Int = 4
+        override val guestsError: Int = 0
+        override val guestsInvalid: Int = 0
+        override val cpuLimit: Double = 102_400.0
+        override val cpuUsage: Double = 51_200.0
+        override val cpuDemand: Double = 51_200.0
+        override val cpuUtilization: Double = 0.5
+        override var cpuActiveTime: Long = 0
+        override val cpuIdleTime: Long = 0
+        override val cpuStealTime: Long = 0
+        override val cpuLostTime: Long = 0
+        override val powerUsage: Double = 200.0
+        override val powerTotal: Double = 60_000.0
+        override val uptime: Long = 300_000
+        override val downtime: Long = 0
+        override val bootTime: Instant? = Instant.EPOCH
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.parquet.hadoop.api.WriteSupport
+import org.apache.parquet.io.api.RecordConsumer
+import org.apache.parquet.schema.MessageType
+import org.apache.parquet.schema.PrimitiveType
+import org.apache.parquet.schema.Types
+import org.openjdk.jmh.annotations.AuxCounters
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Benchmarks for the time the simulation stalls on a [ParquetDataWriter] whose disk cannot keep up.
+ *
+ * The writer thread is slowed down artificially for every row, such that the buffer between the simulation and the
+ * writer thread fills up during every exported interval. The score is the time the simulation spends exporting an
+ * interval under each [BackpressurePolicy]. The number of dropped and spilled rows is reported as secondary results.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class BackpressureBenchmarks {
+    @Param("BLOCK", "SPILL", "DROP")
+    private var policy: String = "BLOCK"
+
+    @Param("1024")
+    private var bufferSize: Int = 0
+
+    @Param("5000")
+    private var rowCount: Int = 0
+
+    private lateinit var path: Path
+    private lateinit var writer: SlowDataWriter
+    private var timestamp = 0L
+
+    @Setup(Level.Iteration)
+    fun setUp() {
+        path = Files.createTempFile("opendc", "parquet")
+        writer = SlowDataWriter(path.toFile(), bufferSize, BackpressurePolicy.valueOf(policy))
+    }
+
+    @TearDown(Level.Iteration)
+    fun tearDown() {
+        writer.close()
+        Files.deleteIfExists(path)
+    }
+
+    @Benchmark
+    fun benchmarkExportInterval(counters: WriterCounters) {
+        val writer = writer
+        val timestamp = timestamp + 300_000
+        this.timestamp = timestamp
+
+        for (i in 0 until rowCount) {
+            writer.write(timestamp)
+        }
+
+        // The statistics accumulate over the iteration, since a new writer is created for each iteration
+        val stats = writer.getStats()
+        counters.droppedRows = stats.droppedRecords
+        counters.spilledRows = stats.spilledRecords
+    }
+
+    /**
+     * The number of rows that were dropped or spilled by the writer during an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    class WriterCounters {
+        @JvmField var droppedRows: Long = 0
+        @JvmField var spilledRows: Long = 0
+
+        @Setup(Level.Iteration)
+        fun reset() {
+            droppedRows = 0
+            spilledRows = 0
+        }
+    }
+
+    /**
+     * A [ParquetDataWriter] of timestamps that emulates a slow disk.
+     */
+    private class SlowDataWriter(path: File, bufferSize: Int, backpressure: BackpressurePolicy) :
+        ParquetDataWriter<Long>(path, SlowWriteSupport(), 8, bufferSize, backpressure) {
+        override fun encode(row: Long, buffer: ByteBuffer, offset: Int) {
+            buffer.putLong(offset, row)
+        }
+    }
+
+    /**
+     * A [WriteSupport] that delays every row.
+     */
+    private class SlowWriteSupport : WriteSupport<TelemetryRecord>() {
+        lateinit var recordConsumer: RecordConsumer
+
+        override fun init(configuration: Configuration): WriteContext {
+            return WriteContext(SCHEMA, emptyMap())
+        }
+
+        override fun prepareForWrite(recordConsumer: RecordConsumer) {
+            this.recordConsumer = recordConsumer
+        }
+
+        override fun write(record: TelemetryRecord) {
+            LockSupport.parkNanos(DELAY_NANOS)
+
+            val consumer = recordConsumer
+            consumer.startMessage()
+            consumer.startField("timestamp", 0)
+            consumer.addLong(record.getLong(0))
+            consumer.endField("timestamp", 0)
+            consumer.endMessage()
+        }
+    }
+
+    private companion object {
+        /**
+         * The time to delay every row on the writer thread.
+         */
+        const val DELAY_NANOS = 1_000L
+
+        val SCHEMA: MessageType = Types.buildMessage()
+            .addFields(
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.INT64)
+                    .named("timestamp")
+            )
+            .named("timestamp")
+    }
+}
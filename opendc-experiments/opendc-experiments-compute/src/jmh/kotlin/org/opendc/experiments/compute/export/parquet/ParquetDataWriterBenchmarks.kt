@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.opendc.experiments.compute.telemetry.table.HostInfo
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for exporting host metrics using the [ParquetHostDataWriter].
+ *
+ * Each invocation exports a single five-minute interval of the configured number of hosts, such that a one-month run
+ * corresponds to 8640 invocations. Run with `-prof gc` to obtain the allocation rate per exported interval.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class ParquetDataWriterBenchmarks {
+    @Param("5000")
+    private var hostCount: Int = 0
+
+    private lateinit var path: Path
+    private lateinit var writer: ParquetHostDataWriter
+    private lateinit var hosts: Array<HostInfo>
+    private val reader = BenchmarkHostTableReader()
+
+    @Setup
+    fun setUp() {
+        path = Files.createTempFile("opendc", "parquet")
+        writer = ParquetHostDataWriter(path.toFile(), bufferSize = 4096)
+        hosts = Array(hostCount) { HostInfo(UUID.randomUUID().toString(), "host-$it", "x86", 32, 256_000) }
+    }
+
+    @TearDown
+    fun tearDown() {
+        writer.close()
+        Files.deleteIfExists(path)
+    }
+
+    @Benchmark
+    fun benchmarkExportInterval() {
+        val reader = reader
+        val timestamp = reader.timestamp.plusSeconds(300)
+        reader.timestamp = timestamp
+
+        for (host in hosts) {
+            reader.host = host
+            reader.cpuActiveTime += 1000
+            writer.write(reader)
+        }
+    }
+
+    /**
+     * A mutable [HostTableReader] that is reused for every row, like the readers of the metric reader.
+     */
+    private class BenchmarkHostTableReader : HostTableReader {
+        override var timestamp: Instant = Instant.EPOCH
+        override lateinit var host: HostInfo
+        override val guestsTerminated: Int = 0
+        override val guestsRunning: Int = 4
+        override val guestsError: Int = 0
+        override val guestsInvalid: Int = 0
+        override val cpuLimit: Double = 102_400.0
+        override val cpuUsage: Double = 51_200.0
+        override val cpuDemand: Double = 51_200.0
+        override val cpuUtilization: Double = 0.5
+        override var cpuActiveTime: Long = 0
+        override val cpuIdleTime: Long = 0
+        override val cpuStealTime: Long = 0
+        override val cpuLostTime: Long = 0
+        override val powerUsage: Double = 200.0
+        override val powerTotal: Double = 60_000.0
+        override val uptime: Long = 300_000
+        override val downtime: Long = 0
+        override val bootTime: Instant? = Instant.EPOCH
+    }
+}
@@ -28,6 +28,7 @@ import org.opendc.compute.service.ComputeService
 import org.opendc.compute.service.scheduler.ComputeScheduler
 import org.opendc.experiments.compute.telemetry.ComputeMonitor
 import org.opendc.experiments.compute.telemetry.ComputeMonitorProvisioningStep
+import org.opendc.experiments.compute.telemetry.TelemetryProjection
 import org.opendc.experiments.compute.topology.HostSpec
 import org.opendc.experiments.provisioner.ProvisioningContext
 import org.opendc.experiments.provisioner.ProvisioningStep
@@ -55,13 +56,18 @@ public fun setupComputeService(
  * @param serviceDomain The service domain at which the [ComputeService] is located.
  * @param monitor The [ComputeMonitor] to install.
  * @param exportInterval The interval between which to collect the metrics.
+ * @param changeThreshold The relative change in CPU activity for which a host or server is recorded, or `null` to
+ * record every host and server every interval. See [ComputeMetricReader].
+ * @param projection The columns of the tables to collect.
  */
 public fun registerComputeMonitor(
     serviceDomain: String,
     monitor: ComputeMonitor,
-    exportInterval: Duration = Duration.ofMinutes(5)
+    exportInterval: Duration = Duration.ofMinutes(5),
+    changeThreshold: Double? = null,
+    projection: TelemetryProjection = TelemetryProjection.ALL
 ): ProvisioningStep {
-    return ComputeMonitorProvisioningStep(serviceDomain, monitor, exportInterval)
+    return ComputeMonitorProvisioningStep(serviceDomain, monitor, exportInterval, changeThreshold, projection)
 }
 
 /**
@@ -23,9 +23,15 @@
 package org.opendc.experiments.compute
 
 import mu.KotlinLogging
+import org.opendc.experiments.compute.internal.CompressedVirtualMachineTrace
+import org.opendc.experiments.compute.internal.LoadSampledComputeWorkload
 import org.opendc.simulator.compute.kernel.interference.VmInterferenceModel
 import org.opendc.simulator.compute.workload.SimTrace
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.ScanOptions
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.Trace
+import org.opendc.trace.TraceStatistics
 import org.opendc.trace.conv.INTERFERENCE_GROUP_MEMBERS
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
 import org.opendc.trace.conv.INTERFERENCE_GROUP_TARGET
@@ -43,6 +49,8 @@ import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import java.io.File
 import java.lang.ref.SoftReference
+import java.time.Instant
+import java.util.BitSet
 import java.util.UUID
 import java.util.concurrent.ConcurrentHashMap
 import kotlin.math.max
@@ -52,8 +60,10 @@ import kotlin.math.roundToLong
  * A helper class for loading compute workload traces into memory.
  *
  * @param baseDir The directory containing the traces.
+ * @param scanParallelism The number of partitions of a trace to read concurrently. With a value above `1`, the
+ * partitions are scanned without preserving their order, since the fragments are grouped by resource anyway.
  */
-public class ComputeWorkloadLoader(private val baseDir: File) {
+public class ComputeWorkloadLoader(private val baseDir: File, private val scanParallelism: Int = 1) {
     /**
      * The logger for this instance.
      */
@@ -64,11 +74,22 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
      */
     private val cache = ConcurrentHashMap<String, SoftReference<List<VirtualMachine>>>()
 
+    /**
+     * The cache of workloads sampled by load, keyed by trace name and fraction.
+     */
+    private val sampleCache = ConcurrentHashMap<Pair<String, Double>, SoftReference<List<VirtualMachine>>>()
+
     /**
      * Read the fragments into memory.
+     *
+     * @param trace The trace to read the fragments from.
+     * @param selected The identifiers of the resources to read the fragments of, or `null` to read all resources.
      */
-    private fun parseFragments(trace: Trace): Map<String, Builder> {
-        val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
+    private fun parseFragments(trace: Trace, selected: Set<String>? = null): Map<String, Builder> {
+        val table = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES))
+        // Let the format skip the data of the resources that were not selected, e.g., using row group statistics
+        val predicates = if (selected != null) listOf(TablePredicate.In(RESOURCE_ID, selected)) else emptyList()
+        val reader = table.newReader(null, ScanOptions(parallelism = scanParallelism, ordered = false, predicates = predicates))
 
         val idCol = reader.resolve(RESOURCE_ID)
         val timestampCol = reader.resolve(RESOURCE_STATE_TIMESTAMP)
@@ -76,22 +97,58 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
         val coresCol = reader.resolve(RESOURCE_CPU_COUNT)
         val usageCol = reader.resolve(RESOURCE_STATE_CPU_USAGE)
 
-        val fragments = mutableMapOf<String, Builder>()
+        // Size the buffers of the resources exactly if the trace stores its statistics
+        val statistics = trace.statistics
+
+        val batch = ColumnBatch()
+        val ids = batch.addString(idCol)
+        val timestamps = batch.addInstant(timestampCol)
+        val durations = batch.addDuration(durationCol)
+        val cores = batch.addInt(coresCol)
+        val usages = batch.addDouble(usageCol)
+
+        // Builders indexed by the dictionary identifier of the resource, or `null` for resources that were not selected
+        val builders = ArrayList<Builder?>()
+        val resolved = BitSet()
 
         return try {
-            while (reader.nextRow()) {
-                val id = reader.getString(idCol)!!
-                val time = reader.getInstant(timestampCol)!!
-                val duration = reader.getDuration(durationCol)!!
-                val cores = reader.getInt(coresCol)
-                val cpuUsage = reader.getDouble(usageCol)
-
-                val deadlineMs = time.toEpochMilli()
-                val timeMs = (time - duration).toEpochMilli()
-                val builder = fragments.computeIfAbsent(id) { Builder() }
-                builder.add(timeMs, deadlineMs, cpuUsage, cores)
+            while (true) {
+                val size = reader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    val id = ids.ids[row]
+                    check(id >= 0) { "Missing resource identifier" }
+
+                    if (!resolved[id]) {
+                        // The workers of a parallel scan intern the identifiers concurrently, so identifiers may be
+                        // seen in any order
+                        while (builders.size <= id) {
+                            builders += null
+                        }
+
+                        val name = ids.lookup(id)
+                        if (selected == null || name in selected) {
+                            builders[id] = Builder(statistics?.get(name)?.rowCount?.toInt() ?: INITIAL_CAPACITY)
+                        }
+                        resolved.set(id)
+                    }
+
+                    val builder = builders[id] ?: continue
+
+                    val deadlineMs = timestamps.values[row]
+                    val timeMs = deadlineMs - durations.values[row]
+                    builder.add(timeMs, deadlineMs, usages.values[row], cores.values[row].toInt())
+                }
             }
 
+            val fragments = LinkedHashMap<String, Builder>(builders.size * 2)
+            for (id in builders.indices) {
+                val builder = builders[id] ?: continue
+                fragments[ids.lookup(id)] = builder
+            }
             fragments
         } finally {
             reader.close()
@@ -100,8 +157,19 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
 
     /**
      * Read the metadata into a workload.
+     *
+     * @param trace The trace to read the metadata from.
+     * @param fragments The fragments of the resources to construct virtual machines for.
+     * @param interferenceModel The interference model of the trace.
+     * @param resources The identifiers of all resources that have fragments in the trace, which determine the
+     * identifiers of the virtual machines.
      */
-    private fun parseMeta(trace: Trace, fragments: Map<String, Builder>, interferenceModel: VmInterferenceModel): List<VirtualMachine> {
+    private fun parseMeta(
+        trace: Trace,
+        fragments: Map<String, Builder>,
+        interferenceModel: VmInterferenceModel,
+        resources: Set<String> = fragments.keys
+    ): List<VirtualMachine> {
         val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader()
 
         val idCol = reader.resolve(RESOURCE_ID)
@@ -117,18 +185,20 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
         return try {
             while (reader.nextRow()) {
                 val id = reader.getString(idCol)!!
-                if (!fragments.containsKey(id)) {
+                if (id !in resources) {
                     continue
                 }
 
+                // Assign identifiers as if all resources are loaded, so that a sample has the same identifiers
+                val uid = UUID.nameUUIDFromBytes("$id-${counter++}".toByteArray())
+                val builder = fragments[id] ?: continue
+
                 val submissionTime = reader.getInstant(startTimeCol)!!
                 val endTime = reader.getInstant(stopTimeCol)!!
                 val cpuCount = reader.getInt(cpuCountCol)
                 val cpuCapacity = reader.getDouble(cpuCapacityCol)
                 val memCapacity = reader.getDouble(memCol) / 1000.0 // Convert from KB to MB
-                val uid = UUID.nameUUIDFromBytes("$id-${counter++}".toByteArray())
-
-                val builder = fragments.getValue(id)
+                val trace = builder.build()
                 val totalLoad = builder.totalLoad
 
                 entries.add(
@@ -142,7 +212,7 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
                         totalLoad,
                         submissionTime,
                         endTime,
-                        builder.build(),
+                        trace,
                         interferenceModel.getProfile(id)
                     )
                 )
@@ -213,31 +283,127 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
         return checkNotNull(ref?.get()) { "Memory pressure" }
     }
 
+    /**
+     * Load a sample of the trace with the specified [name] and [format], consisting of the VMs that make up the
+     * specified [fraction] of the total load in order of their start time.
+     *
+     * If the trace stores its statistics, the VMs are selected from the statistics and only the fragments of the
+     * selected VMs are read. Otherwise, the full trace is loaded and sampled afterwards.
+     */
+    public fun get(name: String, format: String, fraction: Double): List<VirtualMachine> {
+        val ref = sampleCache.compute(name to fraction) { _, oldVal ->
+            val inst = oldVal?.get()
+            if (inst == null) {
+                SoftReference(loadSample(name, format, fraction))
+            } else {
+                oldVal
+            }
+        }
+
+        return checkNotNull(ref?.get()) { "Memory pressure" }
+    }
+
     /**
      * Clear the workload cache.
      */
     public fun reset() {
         cache.clear()
+        sampleCache.clear()
+    }
+
+    /**
+     * Load a sample of the trace with the specified [name] and [format] by load.
+     */
+    private fun loadSample(name: String, format: String, fraction: Double): List<VirtualMachine> {
+        val path = baseDir.resolve(name)
+        val trace = Trace.open(path, format)
+        val statistics = trace.statistics
+
+        // Sample the full trace if it is loaded already or if the load of its VMs is not known up front
+        val loaded = cache[name]?.get()
+        if (loaded != null || statistics == null) {
+            val vms = loaded ?: get(name, format)
+            val res = LoadSampledComputeWorkload.sample(vms, fraction) { it.totalLoad }
+            logger.info { "Sampled ${vms.size} VMs (fraction $fraction) into subset of ${res.size} VMs" }
+            return res
+        }
+
+        logger.info { "Loading sample of trace $name at $path (fraction $fraction)" }
+
+        val candidates = parseCandidates(trace, statistics)
+        val selected = LoadSampledComputeWorkload.sample(candidates, fraction) { it.load }.mapTo(HashSet()) { it.id }
+
+        val fragments = parseFragments(trace, selected)
+        val interferenceModel = parseInterferenceModel(trace)
+        val vms = parseMeta(trace, fragments, interferenceModel, statistics.resources.keys)
+
+        logger.info { "Sampled ${candidates.size} VMs (fraction $fraction) into subset of ${vms.size} VMs" }
+        return vms
+    }
+
+    /**
+     * Read the resources of [trace] that have fragments, in the order in which they are loaded, together with their
+     * load as recorded in [statistics].
+     */
+    private fun parseCandidates(trace: Trace, statistics: TraceStatistics): List<Candidate> {
+        val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader(listOf(RESOURCE_ID, RESOURCE_START_TIME))
+
+        return try {
+            val idCol = reader.resolve(RESOURCE_ID)
+            val startTimeCol = reader.resolve(RESOURCE_START_TIME)
+            val candidates = mutableListOf<Candidate>()
+
+            while (reader.nextRow()) {
+                val id = reader.getString(idCol)!!
+                val resource = statistics[id] ?: continue
+                candidates += Candidate(id, reader.getInstant(startTimeCol)!!, resource.cpuLoad)
+            }
+
+            // Order the candidates like the virtual machines of a fully loaded trace
+            candidates.sortBy { it.startTime }
+            candidates
+        } finally {
+            reader.close()
+        }
     }
 
+    /**
+     * A resource that may be selected when sampling a trace.
+     */
+    private data class Candidate(val id: String, val startTime: Instant, val load: Double)
+
     /**
      * A builder for a VM trace.
+     *
+     * The fragments are buffered in primitive arrays, so that they may be added out of order when the partitions of a
+     * trace are scanned concurrently, and the trace is sized exactly once all fragments are known.
+     *
+     * @param capacity The initial number of fragments to buffer.
      */
-    private class Builder {
+    internal class Builder(capacity: Int) {
         /**
-         * The total load of the trace.
+         * The total load of the trace, which is computed when the trace is built.
          */
         @JvmField var totalLoad: Double = 0.0
 
         /**
-         * The internal builder for the trace.
+         * The buffered fragments.
          */
-        private val builder = SimTrace.builder()
+        private var timestamps = LongArray(max(capacity, 1))
+        private var deadlines = LongArray(max(capacity, 1))
+        private var usages = DoubleArray(max(capacity, 1))
+        private var cores = IntArray(max(capacity, 1))
+        private var size = 0
 
         /**
-         * The deadline of the previous fragment.
+         * A flag to indicate that the fragments were added in order of their start time.
          */
-        private var previousDeadline = Long.MIN_VALUE
+        private var isSorted = true
+
+        /**
+         * The trace that was built from the fragments.
+         */
+        private var trace: VirtualMachineTrace? = null
 
         /**
          * Add a fragment to the trace.
@@ -248,21 +414,87 @@ public class ComputeWorkloadLoader(private val baseDir: File) {
          * @param cores Number of cores used.
          */
         fun add(timestamp: Long, deadline: Long, usage: Double, cores: Int) {
-            val duration = max(0, deadline - timestamp)
-            totalLoad += (usage * duration) / 1000.0 // avg MHz * duration = MFLOPs
+            val size = size
+            if (size == timestamps.size) {
+                grow()
+            }
 
-            if (timestamp != previousDeadline) {
-                // There is a gap between the previous and current fragment; fill the gap
-                builder.add(timestamp, 0.0, cores)
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                isSorted = false
             }
 
-            builder.add(deadline, usage, cores)
-            previousDeadline = deadline
+            timestamps[size] = timestamp
+            deadlines[size] = deadline
+            usages[size] = usage
+            this.cores[size] = cores
+            this.size = size + 1
         }
 
         /**
-         * Build the trace.
+         * Build the trace as a compressed block, which is only decoded into a [SimTrace] when the VM is started.
+         */
+        fun build(): VirtualMachineTrace {
+            val cached = trace
+            if (cached != null) {
+                return cached
+            }
+
+            // Sort stably, so that fragments with the same start time keep their order within a partition
+            val order = if (isSorted) null else (0 until size).sortedBy { timestamps[it] }
+
+            val builder = CompressedVirtualMachineTrace.Builder()
+            var previousDeadline = Long.MIN_VALUE
+            var totalLoad = 0.0
+
+            for (i in 0 until size) {
+                val index = order?.get(i) ?: i
+                val timestamp = timestamps[index]
+                val deadline = deadlines[index]
+                val cores = cores[index]
+
+                if (timestamp != previousDeadline) {
+                    // There is a gap between the previous and current fragment; fill the gap
+                    builder.add(timestamp, 0.0, cores)
+                }
+
+                val usage = usages[index]
+                builder.add(deadline, usage, cores)
+                previousDeadline = deadline
+
+                // Sum in order of start time, such that the load does not depend on the order of a parallel scan
+                val duration = max(0, deadline - timestamp)
+                totalLoad += (usage * duration) / 1000.0 // avg MHz * duration = MFLOPs
+            }
+
+            val trace = builder.build()
+            this.trace = trace
+            this.totalLoad = totalLoad
+
+            // Release the buffered fragments
+            timestamps = LongArray(0)
+            deadlines = LongArray(0)
+            usages = DoubleArray(0)
+            this.cores = IntArray(0)
+            size = 0
+            return trace
+        }
+
+        /**
+         * Grow the buffers of the builder.
+         */
+        private fun grow() {
+            val capacity = timestamps.size * 2
+            timestamps = timestamps.copyOf(capacity)
+            deadlines = deadlines.copyOf(capacity)
+            usages = usages.copyOf(capacity)
+            cores = cores.copyOf(capacity)
+        }
+    }
+
+    private companion object {
+        /**
+         * The initial number of fragments to buffer for a resource without statistics.
          */
-        fun build(): SimTrace = builder.build()
+        const val INITIAL_CAPACITY = 64
     }
 }
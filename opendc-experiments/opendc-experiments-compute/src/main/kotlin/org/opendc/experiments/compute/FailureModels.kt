@@ -29,6 +29,7 @@ import org.apache.commons.math3.random.Well19937c
 import org.opendc.compute.service.ComputeService
 import org.opendc.compute.simulator.SimHost
 import org.opendc.compute.simulator.failure.HostFaultInjector
+import org.opendc.compute.simulator.failure.HostFaultSchedule
 import org.opendc.compute.simulator.failure.StartStopHostFault
 import org.opendc.compute.simulator.failure.StochasticVictimSelector
 import java.time.Duration
@@ -69,3 +70,71 @@ public fun grid5000(failureInterval: Duration): FailureModel {
         override fun toString(): String = "Grid5000FailureModel"
     }
 }
+
+/**
+ * Obtain a [FailureModel] based on the GRID'5000 failure trace that samples all failures within the specified
+ * [horizon] up front and replays them from a single task.
+ *
+ * @see grid5000
+ */
+public fun grid5000(failureInterval: Duration, horizon: Duration): FailureModel {
+    return object : FailureModel {
+        override fun createInjector(
+            context: CoroutineContext,
+            clock: InstantSource,
+            service: ComputeService,
+            random: RandomGenerator
+        ): HostFaultInjector {
+            val hosts = service.hosts.map { it as SimHost }.toSet()
+            val schedule = sampleGrid5000Schedule(hosts, failureInterval, horizon, random)
+            return HostFaultInjector(context, clock, hosts, schedule)
+        }
+
+        override fun toString(): String = "Grid5000FailureModel"
+    }
+}
+
+/**
+ * Sample a [HostFaultSchedule] for the specified [hosts] based on the GRID'5000 failure trace.
+ *
+ * The resulting schedule can be exported using [HostFaultSchedule.write] and reused across repeated simulations via
+ * [replay].
+ */
+public fun sampleGrid5000Schedule(
+    hosts: Set<SimHost>,
+    failureInterval: Duration,
+    horizon: Duration,
+    random: RandomGenerator
+): HostFaultSchedule {
+    val rng = Well19937c(random.nextLong())
+
+    // Parameters from A. Iosup, A Framework for the Study of Grid Inter-Operation Mechanisms, 2009
+    // GRID'5000
+    return HostFaultSchedule.sample(
+        hosts,
+        iat = LogNormalDistribution(rng, ln(failureInterval.toHours().toDouble()), 1.03),
+        selector = StochasticVictimSelector(LogNormalDistribution(rng, 1.88, 1.25), random),
+        duration = LogNormalDistribution(rng, 8.89, 2.71),
+        horizon = horizon
+    )
+}
+
+/**
+ * Obtain a [FailureModel] that replays the specified [HostFaultSchedule], regardless of the random seed of the
+ * simulation.
+ */
+public fun replay(schedule: HostFaultSchedule): FailureModel {
+    return object : FailureModel {
+        override fun createInjector(
+            context: CoroutineContext,
+            clock: InstantSource,
+            service: ComputeService,
+            random: RandomGenerator
+        ): HostFaultInjector {
+            val hosts = service.hosts.map { it as SimHost }.toSet()
+            return HostFaultInjector(context, clock, hosts, schedule)
+        }
+
+        override fun toString(): String = "ReplayFailureModel[$schedule]"
+    }
+}
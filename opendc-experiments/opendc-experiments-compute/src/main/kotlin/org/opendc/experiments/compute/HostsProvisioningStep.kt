@@ -61,7 +61,8 @@ public class HostsProvisioningStep internal constructor(
                 ctx.dispatcher.timeSource,
                 machine,
                 hypervisor,
-                optimize = optimize
+                optimize = optimize,
+                powerModel = spec.powerModel
             )
 
             require(hosts.add(host)) { "Host with uid ${spec.uid} already exists" }
@@ -29,6 +29,7 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.yield
 import org.opendc.compute.service.ComputeService
+import org.opendc.experiments.compute.internal.LazyTraceWorkload
 import java.time.InstantSource
 import java.util.Random
 import kotlin.coroutines.coroutineContext
@@ -81,7 +82,8 @@ public suspend fun ComputeService.replay(
                 }
 
                 val workloadOffset = -offset + 300001
-                val workload = entry.trace.createWorkload(workloadOffset)
+                // Defer loading the trace until the guest starts, so that only the traces of running VMs are in memory
+                val workload = LazyTraceWorkload(entry.trace, workloadOffset)
                 val meta = mutableMapOf<String, Any>("workload" to workload)
 
                 val interferenceProfile = entry.interferenceProfile
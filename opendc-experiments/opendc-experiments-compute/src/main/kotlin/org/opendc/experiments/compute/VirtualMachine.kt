@@ -38,7 +38,7 @@ import java.util.UUID
  * @param memCapacity The provisioned memory for the VM in MB.
  * @param startTime The start time of the VM.
  * @param stopTime The stop time of the VM.
- * @param trace The trace that belong to this VM.
+ * @param trace The handle to the trace that belongs to this VM, which is loaded when the VM is started.
  * @param interferenceProfile The interference profile of this virtual machine.
  */
 public data class VirtualMachine(
@@ -51,6 +51,35 @@ public data class VirtualMachine(
     val totalLoad: Double,
     val startTime: Instant,
     val stopTime: Instant,
-    val trace: SimTrace,
+    val trace: VirtualMachineTrace,
     val interferenceProfile: VmInterferenceProfile?
-)
+) {
+    /**
+     * Construct a [VirtualMachine] whose [trace] is kept in memory.
+     */
+    public constructor(
+        uid: UUID,
+        name: String,
+        cpuCount: Int,
+        cpuCapacity: Double,
+        gpuCapacity: Double,
+        memCapacity: Long,
+        totalLoad: Double,
+        startTime: Instant,
+        stopTime: Instant,
+        trace: SimTrace,
+        interferenceProfile: VmInterferenceProfile?
+    ) : this(
+        uid,
+        name,
+        cpuCount,
+        cpuCapacity,
+        gpuCapacity,
+        memCapacity,
+        totalLoad,
+        startTime,
+        stopTime,
+        VirtualMachineTrace.of(trace),
+        interferenceProfile
+    )
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute
+
+import org.opendc.simulator.compute.workload.SimTrace
+
+/**
+ * A handle to the [SimTrace] of a [VirtualMachine] that is loaded on demand.
+ *
+ * The trace of a virtual machine is only needed while its guest runs. Implementations may therefore keep the trace in
+ * a compact form (e.g., compressed) and construct the [SimTrace] only when it is requested, so that the memory used
+ * by a workload tracks the number of virtual machines that are running at the same time.
+ */
+public fun interface VirtualMachineTrace {
+    /**
+     * Load the [SimTrace] of the virtual machine.
+     *
+     * The caller should not retain the trace beyond the lifetime of the guest that runs it.
+     */
+    public fun load(): SimTrace
+
+    public companion object {
+        /**
+         * Construct a [VirtualMachineTrace] that holds the specified [trace] in memory.
+         */
+        @JvmStatic
+        public fun of(trace: SimTrace): VirtualMachineTrace = VirtualMachineTrace { trace }
+    }
+}
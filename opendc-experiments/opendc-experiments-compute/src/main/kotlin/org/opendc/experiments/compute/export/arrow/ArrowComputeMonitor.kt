@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.opendc.experiments.compute.telemetry.ComputeMonitor
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.experiments.compute.telemetry.table.ServerTableReader
+import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
+import java.io.File
+
+/**
+ * A [ComputeMonitor] that logs the events to Arrow IPC (Feather v2) files.
+ *
+ * Without [compression], the files can be memory-mapped by readers such as pandas or Polars without decoding.
+ *
+ * Arrow is an optional dependency of this module, so `arrow-vector`, `arrow-memory-unsafe` (or `arrow-memory-netty`)
+ * and, for compression, `arrow-compression` must be on the runtime classpath, and the JVM must be started with
+ * `--add-opens=java.base/java.nio=ALL-UNNAMED`.
+ *
+ * @param base The base directory to write the files to.
+ * @param partition The partition of the output to write to.
+ * @param compression A flag to enable LZ4 compression of the record batches.
+ * @param batchSize The number of rows per record batch.
+ */
+public class ArrowComputeMonitor(
+    base: File,
+    partition: String,
+    compression: Boolean = false,
+    batchSize: Int = 4096
+) : ComputeMonitor, AutoCloseable {
+    private val serverWriter = ArrowServerDataWriter(
+        File(base, "server/$partition/data.arrow").also { it.parentFile.mkdirs() },
+        compression,
+        batchSize
+    )
+
+    private val hostWriter = ArrowHostDataWriter(
+        File(base, "host/$partition/data.arrow").also { it.parentFile.mkdirs() },
+        compression,
+        batchSize
+    )
+
+    private val serviceWriter = ArrowServiceDataWriter(
+        File(base, "service/$partition/data.arrow").also { it.parentFile.mkdirs() },
+        compression,
+        batchSize
+    )
+
+    override fun record(reader: ServerTableReader) {
+        serverWriter.write(reader)
+    }
+
+    override fun record(reader: HostTableReader) {
+        hostWriter.write(reader)
+    }
+
+    override fun record(reader: ServiceTableReader) {
+        serviceWriter.write(reader)
+    }
+
+    override fun close() {
+        try {
+            hostWriter.close()
+        } finally {
+            try {
+                serviceWriter.close()
+            } finally {
+                serverWriter.close()
+            }
+        }
+    }
+}
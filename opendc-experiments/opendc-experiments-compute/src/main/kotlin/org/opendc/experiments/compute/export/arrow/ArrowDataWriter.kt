@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.compression.CommonsCompressionFactory
+import org.apache.arrow.memory.BufferAllocator
+import org.apache.arrow.memory.RootAllocator
+import org.apache.arrow.vector.VectorSchemaRoot
+import org.apache.arrow.vector.compression.CompressionUtil
+import org.apache.arrow.vector.compression.NoCompressionCodec
+import org.apache.arrow.vector.dictionary.DictionaryProvider
+import org.apache.arrow.vector.ipc.ArrowFileWriter
+import org.apache.arrow.vector.ipc.message.IpcOption
+import org.apache.arrow.vector.types.pojo.Schema
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.UUID
+
+/**
+ * A writer that writes data in the Arrow IPC file format (also known as Feather v2).
+ *
+ * Rows are copied directly into the Arrow column vectors of a [VectorSchemaRoot], which are written as a record batch
+ * once [batchSize] rows have been collected. The buffers of the vectors are written as-is, such that uncompressed
+ * files can be memory-mapped by readers without decoding.
+ *
+ * @param path The path to the file to write the data to.
+ * @param schema The Arrow schema of the data.
+ * @param compression A flag to enable LZ4 compression of the record batches.
+ * @param batchSize The number of rows per record batch.
+ */
+public abstract class ArrowDataWriter<in T>(
+    path: File,
+    schema: Schema,
+    compression: Boolean = false,
+    private val batchSize: Int = 4096
+) : AutoCloseable {
+    init {
+        require(batchSize > 0) { "Batch size must be positive" }
+    }
+
+    /**
+     * The allocator for the buffers of the vectors.
+     */
+    private val allocator: BufferAllocator = RootAllocator()
+
+    /**
+     * The vectors containing the current record batch.
+     */
+    protected val root: VectorSchemaRoot = VectorSchemaRoot.create(schema, allocator).also { root ->
+        for (vector in root.fieldVectors) {
+            vector.setInitialCapacity(batchSize)
+        }
+        root.allocateNew()
+    }
+
+    /**
+     * The writer for the Arrow IPC file.
+     */
+    private val writer = ArrowFileWriter(
+        root,
+        DictionaryProvider.MapDictionaryProvider(),
+        FileChannel.open(path.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+        emptyMap(),
+        IpcOption.DEFAULT,
+        if (compression) CommonsCompressionFactory.INSTANCE else NoCompressionCodec.Factory.INSTANCE,
+        if (compression) CompressionUtil.CodecType.LZ4_FRAME else CompressionUtil.CodecType.NO_COMPRESSION
+    ).also { it.start() }
+
+    /**
+     * The encoded identifiers by their string representation.
+     */
+    private val ids = HashMap<String, ByteArray>()
+
+    /**
+     * The number of rows in the current record batch.
+     */
+    private var size = 0
+
+    /**
+     * A flag to indicate that the writer has been closed.
+     */
+    private var isClosed = false
+
+    /**
+     * Write the specified row to the file.
+     *
+     * The values of [data] are copied, so the caller may reuse the object after this method returns.
+     */
+    public fun write(data: T) {
+        check(!isClosed) { "Writer is closed" }
+
+        copy(data, size++)
+
+        if (size == batchSize) {
+            flush()
+        }
+    }
+
+    /**
+     * Copy the values of [row] into the vectors of [root] at the specified [index].
+     */
+    protected abstract fun copy(row: T, index: Int)
+
+    /**
+     * Obtain the 16-byte big-endian representation of the UUID identified by [id].
+     */
+    protected fun encodeId(id: String): ByteArray {
+        return ids.getOrPut(id) {
+            val uuid = UUID.fromString(id)
+            ByteBuffer.allocate(16)
+                .putLong(uuid.mostSignificantBits)
+                .putLong(uuid.leastSignificantBits)
+                .array()
+        }
+    }
+
+    /**
+     * Write the current rows as a record batch.
+     */
+    private fun flush() {
+        val root = root
+        root.rowCount = size
+        writer.writeBatch()
+
+        for (vector in root.fieldVectors) {
+            vector.reset()
+        }
+        size = 0
+    }
+
+    override fun close() {
+        if (isClosed) {
+            return
+        }
+
+        isClosed = true
+
+        try {
+            if (size > 0) {
+                flush()
+            }
+
+            writer.end()
+        } finally {
+            writer.close()
+            root.close()
+            allocator.close()
+        }
+    }
+}
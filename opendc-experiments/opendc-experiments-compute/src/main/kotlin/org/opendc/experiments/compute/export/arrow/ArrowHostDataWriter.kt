@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.vector.BigIntVector
+import org.apache.arrow.vector.FixedSizeBinaryVector
+import org.apache.arrow.vector.Float8Vector
+import org.apache.arrow.vector.IntVector
+import org.apache.arrow.vector.TimeStampMilliTZVector
+import org.apache.arrow.vector.types.pojo.Field
+import org.apache.arrow.vector.types.pojo.Schema
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import java.io.File
+
+/**
+ * An Arrow IPC writer for [HostTableReader]s.
+ */
+public class ArrowHostDataWriter(path: File, compression: Boolean = false, batchSize: Int = 4096) :
+    ArrowDataWriter<HostTableReader>(path, SCHEMA, compression, batchSize) {
+    private val timestamp = root.getVector("timestamp") as TimeStampMilliTZVector
+    private val hostId = root.getVector("host_id") as FixedSizeBinaryVector
+    private val uptime = root.getVector("uptime") as BigIntVector
+    private val downtime = root.getVector("downtime") as BigIntVector
+    private val bootTime = root.getVector("boot_time") as TimeStampMilliTZVector
+    private val cpuCount = root.getVector("cpu_count") as IntVector
+    private val cpuLimit = root.getVector("cpu_limit") as Float8Vector
+    private val cpuActiveTime = root.getVector("cpu_time_active") as BigIntVector
+    private val cpuIdleTime = root.getVector("cpu_time_idle") as BigIntVector
+    private val cpuStealTime = root.getVector("cpu_time_steal") as BigIntVector
+    private val cpuLostTime = root.getVector("cpu_time_lost") as BigIntVector
+    private val memLimit = root.getVector("mem_limit") as BigIntVector
+    private val powerTotal = root.getVector("power_total") as Float8Vector
+    private val guestsTerminated = root.getVector("guests_terminated") as IntVector
+    private val guestsRunning = root.getVector("guests_running") as IntVector
+    private val guestsError = root.getVector("guests_error") as IntVector
+    private val guestsInvalid = root.getVector("guests_invalid") as IntVector
+
+    override fun copy(row: HostTableReader, index: Int) {
+        val host = row.host
+
+        timestamp.setSafe(index, row.timestamp.toEpochMilli())
+        hostId.setSafe(index, encodeId(host.id))
+        uptime.setSafe(index, row.uptime)
+        downtime.setSafe(index, row.downtime)
+
+        val bootTime = row.bootTime
+        if (bootTime != null) {
+            this.bootTime.setSafe(index, bootTime.toEpochMilli())
+        } else {
+            this.bootTime.setNull(index)
+        }
+
+        cpuCount.setSafe(index, host.cpuCount)
+        cpuLimit.setSafe(index, row.cpuLimit)
+        cpuActiveTime.setSafe(index, row.cpuActiveTime)
+        cpuIdleTime.setSafe(index, row.cpuIdleTime)
+        cpuStealTime.setSafe(index, row.cpuStealTime)
+        cpuLostTime.setSafe(index, row.cpuLostTime)
+        memLimit.setSafe(index, host.memCapacity)
+        powerTotal.setSafe(index, row.powerTotal)
+        guestsTerminated.setSafe(index, row.guestsTerminated)
+        guestsRunning.setSafe(index, row.guestsRunning)
+        guestsError.setSafe(index, row.guestsError)
+        guestsInvalid.setSafe(index, row.guestsInvalid)
+    }
+
+    override fun toString(): String = "host-writer"
+
+    private companion object {
+        /**
+         * The schema of the host data.
+         */
+        val SCHEMA: Schema = Schema(
+            listOf(
+                Field.notNullable("timestamp", TIMESTAMP),
+                Field.notNullable("host_id", UUID_BINARY),
+                Field.notNullable("uptime", INT64),
+                Field.notNullable("downtime", INT64),
+                Field.nullable("boot_time", TIMESTAMP),
+                Field.notNullable("cpu_count", INT32),
+                Field.notNullable("cpu_limit", FLOAT64),
+                Field.notNullable("cpu_time_active", INT64),
+                Field.notNullable("cpu_time_idle", INT64),
+                Field.notNullable("cpu_time_steal", INT64),
+                Field.notNullable("cpu_time_lost", INT64),
+                Field.notNullable("mem_limit", INT64),
+                Field.notNullable("power_total", FLOAT64),
+                Field.notNullable("guests_terminated", INT32),
+                Field.notNullable("guests_running", INT32),
+                Field.notNullable("guests_error", INT32),
+                Field.notNullable("guests_invalid", INT32)
+            )
+        )
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.vector.BigIntVector
+import org.apache.arrow.vector.FixedSizeBinaryVector
+import org.apache.arrow.vector.Float8Vector
+import org.apache.arrow.vector.IntVector
+import org.apache.arrow.vector.TimeStampMilliTZVector
+import org.apache.arrow.vector.types.pojo.Field
+import org.apache.arrow.vector.types.pojo.Schema
+import org.opendc.experiments.compute.telemetry.table.ServerTableReader
+import java.io.File
+
+/**
+ * An Arrow IPC writer for [ServerTableReader]s.
+ */
+public class ArrowServerDataWriter(path: File, compression: Boolean = false, batchSize: Int = 4096) :
+    ArrowDataWriter<ServerTableReader>(path, SCHEMA, compression, batchSize) {
+    private val timestamp = root.getVector("timestamp") as TimeStampMilliTZVector
+    private val serverId = root.getVector("server_id") as FixedSizeBinaryVector
+    private val hostId = root.getVector("host_id") as FixedSizeBinaryVector
+    private val uptime = root.getVector("uptime") as BigIntVector
+    private val downtime = root.getVector("downtime") as BigIntVector
+    private val provisionTime = root.getVector("provision_time") as TimeStampMilliTZVector
+    private val bootTime = root.getVector("boot_time") as TimeStampMilliTZVector
+    private val cpuCount = root.getVector("cpu_count") as IntVector
+    private val cpuLimit = root.getVector("cpu_limit") as Float8Vector
+    private val cpuActiveTime = root.getVector("cpu_time_active") as BigIntVector
+    private val cpuIdleTime = root.getVector("cpu_time_idle") as BigIntVector
+    private val cpuStealTime = root.getVector("cpu_time_steal") as BigIntVector
+    private val cpuLostTime = root.getVector("cpu_time_lost") as BigIntVector
+    private val memLimit = root.getVector("mem_limit") as BigIntVector
+
+    override fun copy(row: ServerTableReader, index: Int) {
+        val server = row.server
+
+        timestamp.setSafe(index, row.timestamp.toEpochMilli())
+        serverId.setSafe(index, encodeId(server.id))
+
+        val host = row.host
+        if (host != null) {
+            hostId.setSafe(index, encodeId(host.id))
+        } else {
+            hostId.setNull(index)
+        }
+
+        uptime.setSafe(index, row.uptime)
+        downtime.setSafe(index, row.downtime)
+
+        val provisionTime = row.provisionTime
+        if (provisionTime != null) {
+            this.provisionTime.setSafe(index, provisionTime.toEpochMilli())
+        } else {
+            this.provisionTime.setNull(index)
+        }
+
+        val bootTime = row.bootTime
+        if (bootTime != null) {
+            this.bootTime.setSafe(index, bootTime.toEpochMilli())
+        } else {
+            this.bootTime.setNull(index)
+        }
+
+        cpuCount.setSafe(index, server.cpuCount)
+        cpuLimit.setSafe(index, row.cpuLimit)
+        cpuActiveTime.setSafe(index, row.cpuActiveTime)
+        cpuIdleTime.setSafe(index, row.cpuIdleTime)
+        cpuStealTime.setSafe(index, row.cpuStealTime)
+        cpuLostTime.setSafe(index, row.cpuLostTime)
+        memLimit.setSafe(index, server.memCapacity)
+    }
+
+    override fun toString(): String = "server-writer"
+
+    private companion object {
+        /**
+         * The schema of the server data.
+         */
+        val SCHEMA: Schema = Schema(
+            listOf(
+                Field.notNullable("timestamp", TIMESTAMP),
+                Field.notNullable("server_id", UUID_BINARY),
+                Field.nullable("host_id", UUID_BINARY),
+                Field.notNullable("uptime", INT64),
+                Field.notNullable("downtime", INT64),
+                Field.nullable("provision_time", TIMESTAMP),
+                Field.nullable("boot_time", TIMESTAMP),
+                Field.notNullable("cpu_count", INT32),
+                Field.notNullable("cpu_limit", FLOAT64),
+                Field.notNullable("cpu_time_active", INT64),
+                Field.notNullable("cpu_time_idle", INT64),
+                Field.notNullable("cpu_time_steal", INT64),
+                Field.notNullable("cpu_time_lost", INT64),
+                Field.notNullable("mem_limit", INT64)
+            )
+        )
+    }
+}
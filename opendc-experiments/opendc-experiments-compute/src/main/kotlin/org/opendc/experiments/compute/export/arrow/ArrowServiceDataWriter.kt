@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.vector.IntVector
+import org.apache.arrow.vector.TimeStampMilliTZVector
+import org.apache.arrow.vector.types.pojo.Field
+import org.apache.arrow.vector.types.pojo.Schema
+import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
+import java.io.File
+
+/**
+ * An Arrow IPC writer for [ServiceTableReader]s.
+ */
+public class ArrowServiceDataWriter(path: File, compression: Boolean = false, batchSize: Int = 4096) :
+    ArrowDataWriter<ServiceTableReader>(path, SCHEMA, compression, batchSize) {
+    private val timestamp = root.getVector("timestamp") as TimeStampMilliTZVector
+    private val hostsUp = root.getVector("hosts_up") as IntVector
+    private val hostsDown = root.getVector("hosts_down") as IntVector
+    private val serversTotal = root.getVector("servers_total") as IntVector
+    private val serversPending = root.getVector("servers_pending") as IntVector
+    private val serversActive = root.getVector("servers_active") as IntVector
+    private val attemptsSuccess = root.getVector("attempts_success") as IntVector
+    private val attemptsFailure = root.getVector("attempts_failure") as IntVector
+    private val attemptsError = root.getVector("attempts_error") as IntVector
+
+    override fun copy(row: ServiceTableReader, index: Int) {
+        timestamp.setSafe(index, row.timestamp.toEpochMilli())
+        hostsUp.setSafe(index, row.hostsUp)
+        hostsDown.setSafe(index, row.hostsDown)
+        serversTotal.setSafe(index, row.serversTotal)
+        serversPending.setSafe(index, row.serversPending)
+        serversActive.setSafe(index, row.serversActive)
+        attemptsSuccess.setSafe(index, row.attemptsSuccess)
+        attemptsFailure.setSafe(index, row.attemptsFailure)
+        attemptsError.setSafe(index, row.attemptsError)
+    }
+
+    override fun toString(): String = "service-writer"
+
+    private companion object {
+        /**
+         * The schema of the service data.
+         */
+        val SCHEMA: Schema = Schema(
+            listOf(
+                Field.notNullable("timestamp", TIMESTAMP),
+                Field.notNullable("hosts_up", INT32),
+                Field.notNullable("hosts_down", INT32),
+                Field.notNullable("servers_total", INT32),
+                Field.notNullable("servers_pending", INT32),
+                Field.notNullable("servers_active", INT32),
+                Field.notNullable("attempts_success", INT32),
+                Field.notNullable("attempts_failure", INT32),
+                Field.notNullable("attempts_error", INT32)
+            )
+        )
+    }
+}
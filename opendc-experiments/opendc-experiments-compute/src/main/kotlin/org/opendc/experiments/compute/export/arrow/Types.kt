@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.vector.types.FloatingPointPrecision
+import org.apache.arrow.vector.types.TimeUnit
+import org.apache.arrow.vector.types.pojo.ArrowType
+
+/**
+ * The Arrow type of the timestamp columns.
+ */
+internal val TIMESTAMP = ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC")
+
+/**
+ * The Arrow type of the UUID columns, which are stored as 16-byte big-endian values like in the Parquet output.
+ */
+internal val UUID_BINARY = ArrowType.FixedSizeBinary(16)
+
+/**
+ * The Arrow type of 32-bit integer columns.
+ */
+internal val INT32 = ArrowType.Int(32, true)
+
+/**
+ * The Arrow type of 64-bit integer columns.
+ */
+internal val INT64 = ArrowType.Int(64, true)
+
+/**
+ * The Arrow type of double-precision columns.
+ */
+internal val FLOAT64 = ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)
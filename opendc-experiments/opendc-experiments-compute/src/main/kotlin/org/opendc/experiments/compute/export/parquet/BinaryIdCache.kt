@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.parquet.io.api.Binary
+import org.opendc.experiments.compute.telemetry.table.EncodedHostId
+import org.opendc.experiments.compute.telemetry.table.EncodedServerId
+import java.util.UUID
+
+/**
+ * A table of the [Binary] representations of the UUID identifiers written by the Parquet writers.
+ *
+ * The identifiers of hosts and servers are static for the duration of a run, but are reported for every row of every
+ * export interval. The simulation interns each identifier once into this table and stores the resulting index in the
+ * fixed-size binary record of a row, after which the writer thread passes the same [Binary] instance to Parquet for
+ * every row. This also allows the dictionary encoder to reuse its entries cheaply.
+ *
+ * Readers that already carry an encoded identifier (see [EncodedHostId] and [EncodedServerId]) are interned by that
+ * [Binary] directly, such that the simulation neither parses nor hashes the identifier string.
+ *
+ * Identifiers are interned by a single producer thread, while a single consumer thread may look up any index that was
+ * published to it through the [RecordRingBuffer].
+ */
+internal class BinaryIdCache {
+    /**
+     * The indices of the identifiers by their string representation, only accessed by the producer.
+     */
+    private val indices = HashMap<String, Int>()
+
+    /**
+     * The indices of the identifiers that were encoded by the table readers, only accessed by the producer.
+     */
+    private val encodedIndices = HashMap<Binary, Int>()
+
+    /**
+     * The number of interned identifiers, only accessed by the producer.
+     */
+    private var size = 0
+
+    /**
+     * The encoded identifiers by their index, or `null` if the identifier is not a valid UUID.
+     */
+    @Volatile
+    private var values = arrayOfNulls<Binary>(64)
+
+    /**
+     * Obtain the index of the identifier [id], interning it if necessary.
+     */
+    fun intern(id: String): Int {
+        val cached = indices[id]
+        if (cached != null) {
+            return cached
+        }
+
+        val binary = try {
+            UUID.fromString(id).toBinary()
+        } catch (e: IllegalArgumentException) {
+            null
+        }
+
+        val index = add(binary)
+        indices[id] = index
+        return index
+    }
+
+    /**
+     * Obtain the index of the identifier that was already encoded as [id], interning it if necessary.
+     */
+    fun intern(id: Binary): Int {
+        val cached = encodedIndices[id]
+        if (cached != null) {
+            return cached
+        }
+
+        val index = add(id)
+        encodedIndices[id] = index
+        return index
+    }
+
+    /**
+     * Publish [binary] at the next index.
+     */
+    private fun add(binary: Binary?): Int {
+        val index = size++
+
+        var values = values
+        if (index == values.size) {
+            values = values.copyOf(values.size * 2)
+        }
+
+        values[index] = binary
+        this.values = values
+        return index
+    }
+
+    /**
+     * Obtain the [Binary] representation of the identifier at [index].
+     *
+     * @throws IllegalArgumentException if the identifier is not a valid UUID.
+     */
+    operator fun get(index: Int): Binary {
+        return requireNotNull(values[index]) { "Invalid UUID identifier" }
+    }
+}
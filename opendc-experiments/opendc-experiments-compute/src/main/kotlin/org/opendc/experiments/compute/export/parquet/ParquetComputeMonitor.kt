@@ -23,6 +23,7 @@
 package org.opendc.experiments.compute.export.parquet
 
 import org.opendc.experiments.compute.telemetry.ComputeMonitor
+import org.opendc.experiments.compute.telemetry.TelemetryProjection
 import org.opendc.experiments.compute.telemetry.table.HostTableReader
 import org.opendc.experiments.compute.telemetry.table.ServerTableReader
 import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
@@ -30,21 +31,49 @@ import java.io.File
 
 /**
  * A [ComputeMonitor] that logs the events to a Parquet file.
+ *
+ * @param base The base directory to write the data to.
+ * @param partition The partition of the data to write.
+ * @param bufferSize The number of rows buffered per writer.
+ * @param backpressure The policy of the writers when their buffer is full.
+ * @param options The options for the layout of the output files of each table.
+ * @param pool The pool of threads shared with other monitors to write the output, or `null` to use a thread per table.
+ * @param projection The columns of the tables to write, which should match the projection of the metric reader.
  */
-public class ParquetComputeMonitor(base: File, partition: String, bufferSize: Int) : ComputeMonitor, AutoCloseable {
+public class ParquetComputeMonitor(
+    base: File,
+    partition: String,
+    bufferSize: Int,
+    backpressure: BackpressurePolicy = BackpressurePolicy.BLOCK,
+    options: ParquetOutputOptions = ParquetOutputOptions(),
+    pool: ParquetWriterPool? = null,
+    projection: TelemetryProjection = TelemetryProjection.ALL
+) : ComputeMonitor, AutoCloseable {
     private val serverWriter = ParquetServerDataWriter(
         File(base, "server/$partition/data.parquet").also { it.parentFile.mkdirs() },
-        bufferSize
+        bufferSize,
+        backpressure,
+        options,
+        pool,
+        projection.server
     )
 
     private val hostWriter = ParquetHostDataWriter(
         File(base, "host/$partition/data.parquet").also { it.parentFile.mkdirs() },
-        bufferSize
+        bufferSize,
+        backpressure,
+        options,
+        pool,
+        projection.host
     )
 
     private val serviceWriter = ParquetServiceDataWriter(
         File(base, "service/$partition/data.parquet").also { it.parentFile.mkdirs() },
-        bufferSize
+        bufferSize,
+        backpressure,
+        options,
+        pool,
+        projection.service
     )
 
     override fun record(reader: ServerTableReader) {
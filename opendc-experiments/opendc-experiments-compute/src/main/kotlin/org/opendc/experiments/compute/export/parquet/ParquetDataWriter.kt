@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021 AtLarge Research
+ * Copyright (c) 2023 AtLarge Research
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -28,22 +28,44 @@ import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.ParquetWriter
 import org.apache.parquet.hadoop.api.WriteSupport
 import org.apache.parquet.hadoop.metadata.CompressionCodecName
+import org.apache.parquet.io.api.Binary
 import org.opendc.trace.util.parquet.LocalParquetWriter
 import java.io.File
-import java.util.concurrent.ArrayBlockingQueue
-import java.util.concurrent.BlockingQueue
+import java.lang.invoke.VarHandle
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.time.Duration
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.LockSupport
 import kotlin.concurrent.thread
 
 /**
  * A writer that writes data in Parquet format.
  *
+ * Rows are encoded as fixed-layout binary records into an off-heap [RecordRingBuffer], from which a background thread
+ * writes them to the Parquet file. The simulation and the writer thread do not share any lock, and the behaviour when
+ * the writer thread falls behind is determined by the [BackpressurePolicy].
+ *
+ * Every record must start with the timestamp of the row in epoch milliseconds, which is used to partition the output.
+ *
  * @param path The path to the file to write the data to.
- * @param writeSupport The [WriteSupport] implementation for converting the records to Parquet format.
+ * @param writeSupport The [WriteSupport] implementation for converting a [TelemetryRecord] to Parquet format.
+ * @param recordSize The size in bytes of the binary record of a row.
+ * @param bufferSize The number of records in the buffer.
+ * @param backpressure The policy when the buffer is full.
+ * @param options The options for the layout of the output files.
+ * @param pool The pool of threads to write the output with, or `null` to use a dedicated thread.
  */
 public abstract class ParquetDataWriter<in T>(
     path: File,
-    private val writeSupport: WriteSupport<T>,
-    bufferSize: Int = 4096
+    private val writeSupport: WriteSupport<TelemetryRecord>,
+    private val recordSize: Int,
+    bufferSize: Int = 4096,
+    private val backpressure: BackpressurePolicy = BackpressurePolicy.BLOCK,
+    private val options: ParquetOutputOptions = ParquetOutputOptions(),
+    private val pool: ParquetWriterPool? = null
 ) : AutoCloseable {
     /**
      * The logging instance to use.
@@ -51,63 +73,309 @@ public abstract class ParquetDataWriter<in T>(
     private val logger = KotlinLogging.logger {}
 
     /**
-     * The queue of records to process.
+     * The buffer between the simulation and the writer thread.
+     */
+    private val ring = RecordRingBuffer(recordSize, bufferSize)
+
+    /**
+     * The identifiers interned by the simulation.
+     */
+    private val ids = BinaryIdCache()
+
+    /**
+     * The file to spill records to when the buffer is full, if the policy is [BackpressurePolicy.SPILL].
+     */
+    private val spill: SpillFile? = if (backpressure == BackpressurePolicy.SPILL) SpillFile(recordSize) else null
+
+    /**
+     * Scratch space for encoding records that are spilled to disk.
+     */
+    private val spillBuffer: ByteBuffer? = if (spill != null) ByteBuffer.allocateDirect(recordSize).order(ByteOrder.nativeOrder()) else null
+
+    /**
+     * A flag to indicate that the simulation is spilling records rather than publishing them to the buffer.
+     */
+    private var isSpilling = false
+
+    /**
+     * The points at which the simulation resumed publishing to the buffer while spilled records were still pending.
+     */
+    private val barriers = ConcurrentLinkedQueue<SpillBarrier>()
+
+    /**
+     * Statistics about the buffer, only updated by the simulation.
+     */
+    private var droppedRecords = 0L
+    private var spilledRecords = 0L
+    private var stallTime = 0L
+
+    /**
+     * The number of records after which the writer thread is woken up.
      */
-    private val queue: BlockingQueue<T> = ArrayBlockingQueue(bufferSize)
+    private val wakeUpMask = (ring.capacity / 4 - 1).coerceAtLeast(0).toLong()
+    private var written = 0L
 
     /**
      * An exception to be propagated to the actual writer.
      */
+    @Volatile
     private var exception: Throwable? = null
 
     /**
-     * The thread that is responsible for writing the Parquet records.
+     * A flag to indicate that the writer has been closed.
+     */
+    @Volatile
+    private var isClosed = false
+
+    /**
+     * The producer that is waiting for a free slot in the buffer, or `null` if the producer is not blocked.
+     */
+    @Volatile
+    private var blockedProducer: Thread? = null
+
+    /**
+     * The files to write the records to, only accessed by the writer thread.
+     */
+    private val output = ParquetOutput(path, options) { file ->
+        val builder = LocalParquetWriter.builder(file, writeSupport)
+            .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
+            .withCompressionCodec(CompressionCodecName.ZSTD)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .withRowGroupSize(options.rowGroupSize)
+            .withPageSize(options.pageSize)
+        buildWriter(builder)
+    }
+
+    /**
+     * The view of the record that is being written, only accessed by the writer thread.
      */
-    private val writerThread = thread(start = false, name = this.toString()) {
-        val writer = let {
-            val builder = LocalParquetWriter.builder(path.toPath(), writeSupport)
-                .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
-                .withCompressionCodec(CompressionCodecName.ZSTD)
-                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
-            buildWriter(builder)
+    private val record = TelemetryRecord(ids)
+    private val spillRecord = ByteBuffer.allocateDirect(recordSize).order(ByteOrder.nativeOrder())
+
+    /**
+     * A flag to indicate that the output has been opened, only accessed by the writer thread.
+     */
+    private var isStarted = false
+
+    /**
+     * A flag to indicate that the writer thread has been started or the writer has been scheduled on the [pool].
+     */
+    private var isRunning = false
+
+    /**
+     * The thread that is responsible for writing the Parquet records, or `null` if the writer uses a [pool] or has not
+     * been started yet.
+     */
+    private var writerThread: Thread? = null
+
+    /**
+     * A flag to indicate that a task of this writer has been submitted to the [pool].
+     */
+    private val isScheduled = AtomicBoolean()
+
+    /**
+     * A latch that is released once the output has been closed by the [pool].
+     */
+    private val isFinished = CountDownLatch(1)
+
+    /**
+     * The task that writes the pending records on the [pool].
+     */
+    private val task = Runnable {
+        // Drain a single batch per task, such that writers sharing the pool take turns
+        drain()
+
+        if (isClosed && isEmpty()) {
+            try {
+                finish()
+            } finally {
+                isFinished.countDown()
+            }
+            return@Runnable
         }
 
-        val queue = queue
-        val buf = mutableListOf<T>()
-        var shouldStop = false
+        isScheduled.set(false)
+
+        // Re-check after clearing the flag to not miss a signal that arrived while the task was running
+        if (!isEmpty() || isClosed) {
+            signal()
+        }
+    }
 
+    /**
+     * Write the records on the dedicated writer thread until the writer is closed.
+     */
+    private fun runWriterThread() {
         try {
-            while (!shouldStop) {
-                try {
-                    writer.write(queue.take())
-                } catch (e: InterruptedException) {
-                    shouldStop = true
+            while (true) {
+                if (drain()) {
+                    continue
                 }
 
-                if (queue.drainTo(buf) > 0) {
-                    for (data in buf) {
-                        writer.write(data)
+                if (isClosed) {
+                    if (isEmpty()) {
+                        break
                     }
-                    buf.clear()
+                    continue
                 }
+
+                // The producer unparks this thread when records are pending or the writer is closed. A signal that
+                // arrives before parking is not lost, since it leaves a permit for the next park.
+                LockSupport.park(this)
             }
+        } finally {
+            finish()
+        }
+    }
+
+    /**
+     * Wake up the writer thread or schedule the writer on the pool.
+     */
+    private fun signal() {
+        if (pool == null) {
+            LockSupport.unpark(writerThread)
+        } else if (isScheduled.compareAndSet(false, true)) {
+            pool.execute(task)
+        }
+    }
+
+    /**
+     * Write the pending records to the output.
+     *
+     * @return `true` if any records were written, `false` otherwise.
+     */
+    private fun drain(): Boolean {
+        if (!isStarted) {
+            isStarted = true
+            try {
+                output.start()
+            } catch (e: Throwable) {
+                logger.error(e) { "Failed to open Parquet data writer" }
+                exception = e
+            }
+        }
+
+        val ring = ring
+        val record = record
+
+        // Obtain the published records before the barriers, such that the barrier before any visible record is visible
+        var n = ring.available()
+        val barrier = barriers.peek()
+        if (barrier != null) {
+            n = minOf(n.toLong(), barrier.ringSequence - ring.consumed).toInt()
+        }
+
+        if (n > 0) {
+            for (i in 0 until n) {
+                record.reset(ring.buffer, ring.offset(i))
+                write(record)
+            }
+            ring.release(n)
+            wakeProducer()
+            return true
+        }
+
+        // Spilled records are newer than the records in the buffer before the next barrier, so read them afterwards
+        val spill = spill
+        if (spill != null) {
+            val limit = if (barrier != null) barrier.spillCount - spill.consumed else spill.pending
+            if (limit > 0) {
+                val spillRecord = spillRecord
+                val count = minOf(limit, ring.capacity.toLong())
+                for (i in 0 until count) {
+                    spill.read(spillRecord)
+                    record.reset(spillRecord, 0)
+                    write(record)
+                }
+                return true
+            }
+        }
+
+        if (barrier != null) {
+            // All records before the barrier have been written
+            barriers.poll()
+            return true
+        }
+
+        return false
+    }
+
+    /**
+     * Wake up the producer if it is waiting for the slots that were just released.
+     */
+    private fun wakeProducer() {
+        // Order the release of the slots before reading the flag, pairing with the producer in [claimBlocking]
+        VarHandle.fullFence()
+
+        val producer = blockedProducer
+        if (producer != null) {
+            LockSupport.unpark(producer)
+        }
+    }
+
+    /**
+     * Determine whether there are no pending records left.
+     */
+    private fun isEmpty(): Boolean = ring.available() == 0 && (spill == null || spill.pending == 0L)
+
+    /**
+     * Write the specified [record] to the output, unless the writer thread has failed.
+     */
+    private fun write(record: TelemetryRecord) {
+        // Skip the remaining records after a failure, but keep consuming them to not block the simulation
+        if (exception != null) {
+            return
+        }
+
+        try {
+            output.write(record)
         } catch (e: Throwable) {
             logger.error(e) { "Failure in Parquet data writer" }
             exception = e
-        } finally {
-            writer.close()
+        }
+    }
+
+    /**
+     * Close the output after all records have been written.
+     */
+    private fun finish() {
+        try {
+            output.close()
+        } catch (e: Throwable) {
+            logger.error(e) { "Failed to close Parquet data writer" }
         }
     }
 
     /**
      * Build the [ParquetWriter] used to write the Parquet files.
      */
-    protected open fun buildWriter(builder: LocalParquetWriter.Builder<@UnsafeVariance T>): ParquetWriter<@UnsafeVariance T> {
+    protected open fun buildWriter(builder: LocalParquetWriter.Builder<TelemetryRecord>): ParquetWriter<TelemetryRecord> {
         return builder.build()
     }
 
+    /**
+     * Encode the values of [row] as a binary record at [offset] in [buffer].
+     */
+    protected abstract fun encode(row: T, buffer: ByteBuffer, offset: Int)
+
+    /**
+     * Write the identifier [id] at [offset] in [buffer], such that it can be read using [TelemetryRecord.getId].
+     *
+     * @param encoded The [Binary] representation of [id] if the reader already encoded it, or `null` otherwise.
+     */
+    protected fun putId(buffer: ByteBuffer, offset: Int, id: String?, encoded: Binary? = null) {
+        val index = when {
+            id == null -> -1
+            encoded != null -> ids.intern(encoded)
+            else -> ids.intern(id)
+        }
+        buffer.putInt(offset, index)
+    }
+
     /**
      * Write the specified metrics to the database.
+     *
+     * The values of [data] are copied, so the caller may reuse the object after this method returns.
      */
     public fun write(data: T) {
         val exception = exception
@@ -115,18 +383,151 @@ public abstract class ParquetDataWriter<in T>(
             throw IllegalStateException("Writer thread failed", exception)
         }
 
-        queue.put(data)
+        check(!isClosed) { "Writer is closed" }
+
+        start()
+
+        val ring = ring
+        val spill = spill
+
+        if (isSpilling) {
+            // Keep spilling until the writer thread has drained half of the buffer, to not alternate on every record
+            if (ring.size > ring.capacity / 2) {
+                spill(data, checkNotNull(spill))
+                return
+            }
+
+            resume(checkNotNull(spill))
+        }
+
+        var offset = ring.claim()
+        if (offset < 0) {
+            signal()
+
+            when (backpressure) {
+                BackpressurePolicy.BLOCK -> offset = claimBlocking()
+                BackpressurePolicy.SPILL -> {
+                    isSpilling = true
+                    spill(data, checkNotNull(spill))
+                    return
+                }
+                BackpressurePolicy.DROP -> {
+                    droppedRecords++
+                    return
+                }
+            }
+        }
+
+        encode(data, ring.buffer, offset)
+        ring.publish()
+
+        if (++written and wakeUpMask == 0L) {
+            signal()
+        }
+    }
+
+    /**
+     * Wait until a slot in the buffer is available, parking the producer until the writer releases a slot.
+     */
+    private fun claimBlocking(): Int {
+        val start = System.nanoTime()
+        val ring = ring
+
+        // Announce the wait before claiming, such that a release by the writer cannot be missed
+        blockedProducer = Thread.currentThread()
+
+        var offset = ring.claim()
+        try {
+            while (offset < 0) {
+                signal()
+                LockSupport.park(this)
+                offset = ring.claim()
+            }
+        } finally {
+            blockedProducer = null
+        }
+
+        stallTime += System.nanoTime() - start
+        return offset
+    }
+
+    /**
+     * Spill the specified row to disk.
+     */
+    private fun spill(data: T, spill: SpillFile) {
+        val buffer = checkNotNull(spillBuffer)
+        encode(data, buffer, 0)
+        spill.append(buffer)
+        spilledRecords++
+
+        if (spilledRecords and wakeUpMask == 0L) {
+            signal()
+        }
+    }
+
+    /**
+     * Resume publishing records to the buffer after spilling.
+     */
+    private fun resume(spill: SpillFile) {
+        isSpilling = false
+
+        if (spill.pending > 0) {
+            // Let the writer thread write the pending spilled records before the records published from now on
+            barriers.offer(SpillBarrier(ring.published, spill.appended))
+        }
+    }
+
+    /**
+     * Obtain statistics about the buffer between the simulation and the writer thread.
+     */
+    public fun getStats(): WriterStats {
+        return WriterStats(ring.capacity, ring.size, droppedRecords, spilledRecords, Duration.ofNanos(stallTime))
     }
 
     /**
      * Signal the writer to stop.
      */
     override fun close() {
-        writerThread.interrupt()
-        writerThread.join()
+        if (isClosed) {
+            return
+        }
+
+        start()
+        isClosed = true
+        signal()
+
+        val writerThread = writerThread
+        if (writerThread != null) {
+            writerThread.join()
+        } else {
+            isFinished.await()
+        }
+
+        spill?.close()
     }
 
-    init {
-        writerThread.start()
+    /**
+     * Start the writer thread or schedule the writer on the [pool] on first use, rather than in the constructor, since
+     * the writer thread invokes [buildWriter] of the subclass, which is only initialized after this constructor has run.
+     */
+    private fun start() {
+        if (isRunning) {
+            return
+        }
+
+        isRunning = true
+        if (pool == null) {
+            writerThread = thread(name = toString()) { runWriterThread() }
+        } else {
+            signal()
+        }
     }
+
+    /**
+     * A point in the order of the records at which the simulation resumed publishing records to the buffer.
+     *
+     * @property ringSequence The sequence number of the first record in the buffer after the barrier.
+     * @property spillCount The number of spilled records that precede the barrier.
+     */
+    private class SpillBarrier(@JvmField val ringSequence: Long, @JvmField val spillCount: Long)
 }
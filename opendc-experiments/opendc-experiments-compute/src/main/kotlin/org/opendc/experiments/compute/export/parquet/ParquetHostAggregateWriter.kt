@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.parquet.column.ParquetProperties
+import org.apache.parquet.hadoop.ParquetFileWriter
+import org.apache.parquet.hadoop.api.WriteSupport
+import org.apache.parquet.hadoop.metadata.CompressionCodecName
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.io.api.RecordConsumer
+import org.apache.parquet.schema.LogicalTypeAnnotation
+import org.apache.parquet.schema.MessageType
+import org.apache.parquet.schema.PrimitiveType
+import org.apache.parquet.schema.Types
+import org.opendc.experiments.compute.telemetry.aggregate.HostAggregate
+import org.opendc.trace.util.parquet.LocalParquetWriter
+import java.io.File
+
+/**
+ * A Parquet writer for the [HostAggregate]s computed by an
+ * [org.opendc.experiments.compute.telemetry.aggregate.AggregateComputeMonitor].
+ *
+ * Unlike the [ParquetDataWriter]s, the aggregates are only written once at the end of a run, so the rows are written
+ * directly on the calling thread.
+ *
+ * @param path The path to the file to write the aggregates to.
+ */
+public class ParquetHostAggregateWriter(private val path: File) {
+    /**
+     * Write the specified [aggregates] to the file, replacing any existing content.
+     */
+    public fun write(aggregates: Iterable<HostAggregate>) {
+        path.parentFile?.mkdirs()
+
+        LocalParquetWriter.builder(path.toPath(), HostAggregateWriteSupport())
+            .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
+            .withCompressionCodec(CompressionCodecName.ZSTD)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .build()
+            .use { writer ->
+                for (aggregate in aggregates) {
+                    writer.write(aggregate)
+                }
+            }
+    }
+
+    override fun toString(): String = "host-aggregate-writer"
+
+    /**
+     * A [WriteSupport] implementation for [HostAggregate]s.
+     */
+    private class HostAggregateWriteSupport : WriteSupport<HostAggregate>() {
+        lateinit var recordConsumer: RecordConsumer
+
+        override fun init(configuration: Configuration): WriteContext {
+            return WriteContext(SCHEMA, emptyMap())
+        }
+
+        override fun prepareForWrite(recordConsumer: RecordConsumer) {
+            this.recordConsumer = recordConsumer
+        }
+
+        override fun write(record: HostAggregate) {
+            write(recordConsumer, record)
+        }
+
+        private fun write(consumer: RecordConsumer, data: HostAggregate) {
+            consumer.startMessage()
+
+            consumer.startField("group", 0)
+            consumer.addBinary(Binary.fromString(data.group))
+            consumer.endField("group", 0)
+
+            consumer.startField("metric", 1)
+            consumer.addBinary(Binary.fromString(data.metric.name.lowercase()))
+            consumer.endField("metric", 1)
+
+            consumer.startField("count", 2)
+            consumer.addLong(data.count)
+            consumer.endField("count", 2)
+
+            consumer.startField("sum", 3)
+            consumer.addDouble(data.sum)
+            consumer.endField("sum", 3)
+
+            consumer.startField("min", 4)
+            consumer.addDouble(data.min)
+            consumer.endField("min", 4)
+
+            consumer.startField("max", 5)
+            consumer.addDouble(data.max)
+            consumer.endField("max", 5)
+
+            consumer.startField("mean", 6)
+            consumer.addDouble(data.mean)
+            consumer.endField("mean", 6)
+
+            if (data.quantiles.isNotEmpty()) {
+                consumer.startField("quantiles", 7)
+                for ((quantile, value) in data.quantiles) {
+                    consumer.startGroup()
+
+                    consumer.startField("quantile", 0)
+                    consumer.addDouble(quantile)
+                    consumer.endField("quantile", 0)
+
+                    consumer.startField("value", 1)
+                    consumer.addDouble(value)
+                    consumer.endField("value", 1)
+
+                    consumer.endGroup()
+                }
+                consumer.endField("quantiles", 7)
+            }
+
+            consumer.endMessage()
+        }
+    }
+
+    private companion object {
+        private val SCHEMA: MessageType = Types.buildMessage()
+            .addFields(
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.BINARY)
+                    .`as`(LogicalTypeAnnotation.stringType())
+                    .named("group"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.BINARY)
+                    .`as`(LogicalTypeAnnotation.stringType())
+                    .named("metric"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.INT64)
+                    .named("count"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                    .named("sum"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                    .named("min"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                    .named("max"),
+                Types
+                    .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                    .named("mean"),
+                Types
+                    .repeatedGroup()
+                    .addFields(
+                        Types
+                            .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                            .named("quantile"),
+                        Types
+                            .required(PrimitiveType.PrimitiveTypeName.DOUBLE)
+                            .named("value")
+                    )
+                    .named("quantiles")
+            )
+            .named("host_aggregate")
+    }
+}
@@ -30,122 +30,210 @@ import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.MessageType
 import org.apache.parquet.schema.PrimitiveType
 import org.apache.parquet.schema.Types
+import org.opendc.experiments.compute.telemetry.table.EncodedHostId
+import org.opendc.experiments.compute.telemetry.table.HostColumn
 import org.opendc.experiments.compute.telemetry.table.HostTableReader
 import org.opendc.trace.util.parquet.LocalParquetWriter
 import java.io.File
-import java.util.UUID
+import java.nio.ByteBuffer
+import java.util.EnumSet
 
 /**
  * A Parquet event writer for [HostTableReader]s.
  */
-public class ParquetHostDataWriter(path: File, bufferSize: Int) :
-    ParquetDataWriter<HostTableReader>(path, HostDataWriteSupport(), bufferSize) {
+public class ParquetHostDataWriter(
+    path: File,
+    bufferSize: Int,
+    backpressure: BackpressurePolicy = BackpressurePolicy.BLOCK,
+    options: ParquetOutputOptions = ParquetOutputOptions(),
+    pool: ParquetWriterPool? = null,
+    columns: Set<HostColumn> = EnumSet.allOf(HostColumn::class.java)
+) : ParquetDataWriter<HostTableReader>(path, HostDataWriteSupport(columns.map { it.columnName }), RECORD_SIZE, bufferSize, backpressure, options, pool) {
 
-    override fun buildWriter(builder: LocalParquetWriter.Builder<HostTableReader>): ParquetWriter<HostTableReader> {
+    override fun buildWriter(builder: LocalParquetWriter.Builder<TelemetryRecord>): ParquetWriter<TelemetryRecord> {
         return builder
             .withDictionaryEncoding("host_id", true)
+            .withDictionaryEncoding("cpu_count", true)
+            .withDictionaryEncoding("mem_limit", true)
             .build()
     }
 
+    override fun encode(row: HostTableReader, buffer: ByteBuffer, offset: Int) {
+        val host = row.host
+
+        buffer.putLong(offset + TIMESTAMP, row.timestamp.toEpochMilli())
+        putId(buffer, offset + HOST_ID, host.id, (row as? EncodedHostId)?.encodedHostId)
+        buffer.putInt(offset + CPU_COUNT, host.cpuCount)
+        buffer.putLong(offset + UPTIME, row.uptime)
+        buffer.putLong(offset + DOWNTIME, row.downtime)
+        buffer.putLong(offset + BOOT_TIME, row.bootTime?.toEpochMilli() ?: Long.MIN_VALUE)
+        buffer.putDouble(offset + CPU_LIMIT, row.cpuLimit)
+        buffer.putLong(offset + CPU_TIME_ACTIVE, row.cpuActiveTime)
+        buffer.putLong(offset + CPU_TIME_IDLE, row.cpuIdleTime)
+        buffer.putLong(offset + CPU_TIME_STEAL, row.cpuStealTime)
+        buffer.putLong(offset + CPU_TIME_LOST, row.cpuLostTime)
+        buffer.putLong(offset + MEM_LIMIT, host.memCapacity)
+        buffer.putDouble(offset + POWER_TOTAL, row.powerTotal)
+        buffer.putInt(offset + GUESTS_TERMINATED, row.guestsTerminated)
+        buffer.putInt(offset + GUESTS_RUNNING, row.guestsRunning)
+        buffer.putInt(offset + GUESTS_ERROR, row.guestsError)
+        buffer.putInt(offset + GUESTS_INVALID, row.guestsInvalid)
+    }
+
     override fun toString(): String = "host-writer"
 
     /**
-     * A [WriteSupport] implementation for a [HostTableReader].
+     * A [WriteSupport] implementation for the binary records of [HostTableReader] rows.
      */
-    private class HostDataWriteSupport : WriteSupport<HostTableReader>() {
+    private class HostDataWriteSupport(columns: Collection<String>) : WriteSupport<TelemetryRecord>() {
         lateinit var recordConsumer: RecordConsumer
 
+        /**
+         * The projection of the schema onto the selected columns.
+         */
+        private val projection = ParquetProjection(SCHEMA, 2, columns)
+
         override fun init(configuration: Configuration): WriteContext {
-            return WriteContext(SCHEMA, emptyMap())
+            return WriteContext(projection.schema, emptyMap())
         }
 
         override fun prepareForWrite(recordConsumer: RecordConsumer) {
             this.recordConsumer = recordConsumer
         }
 
-        override fun write(record: HostTableReader) {
+        override fun write(record: TelemetryRecord) {
             write(recordConsumer, record)
         }
 
-        private fun write(consumer: RecordConsumer, data: HostTableReader) {
+        private fun write(consumer: RecordConsumer, data: TelemetryRecord) {
             consumer.startMessage()
 
             consumer.startField("timestamp", 0)
-            consumer.addLong(data.timestamp.toEpochMilli())
+            consumer.addLong(data.getLong(TIMESTAMP))
             consumer.endField("timestamp", 0)
 
             consumer.startField("host_id", 1)
-            consumer.addBinary(UUID.fromString(data.host.id).toBinary())
+            consumer.addBinary(data.getId(HOST_ID)!!)
             consumer.endField("host_id", 1)
 
-            consumer.startField("uptime", 2)
-            consumer.addLong(data.uptime)
-            consumer.endField("uptime", 2)
+            if (projection.has(2)) {
+                consumer.startField("uptime", projection[2])
+                consumer.addLong(data.getLong(UPTIME))
+                consumer.endField("uptime", projection[2])
+            }
 
-            consumer.startField("downtime", 3)
-            consumer.addLong(data.downtime)
-            consumer.endField("downtime", 3)
+            if (projection.has(3)) {
+                consumer.startField("downtime", projection[3])
+                consumer.addLong(data.getLong(DOWNTIME))
+                consumer.endField("downtime", projection[3])
+            }
 
-            val bootTime = data.bootTime
-            if (bootTime != null) {
-                consumer.startField("boot_time", 4)
-                consumer.addLong(bootTime.toEpochMilli())
-                consumer.endField("boot_time", 4)
+            val bootTime = data.getLong(BOOT_TIME)
+            if (bootTime != Long.MIN_VALUE && projection.has(4)) {
+                consumer.startField("boot_time", projection[4])
+                consumer.addLong(bootTime)
+                consumer.endField("boot_time", projection[4])
             }
 
-            consumer.startField("cpu_count", 5)
-            consumer.addInteger(data.host.cpuCount)
-            consumer.endField("cpu_count", 5)
+            if (projection.has(5)) {
+                consumer.startField("cpu_count", projection[5])
+                consumer.addInteger(data.getInt(CPU_COUNT))
+                consumer.endField("cpu_count", projection[5])
+            }
 
-            consumer.startField("cpu_limit", 6)
-            consumer.addDouble(data.cpuLimit)
-            consumer.endField("cpu_limit", 6)
+            if (projection.has(6)) {
+                consumer.startField("cpu_limit", projection[6])
+                consumer.addDouble(data.getDouble(CPU_LIMIT))
+                consumer.endField("cpu_limit", projection[6])
+            }
 
-            consumer.startField("cpu_time_active", 7)
-            consumer.addLong(data.cpuActiveTime)
-            consumer.endField("cpu_time_active", 7)
+            if (projection.has(7)) {
+                consumer.startField("cpu_time_active", projection[7])
+                consumer.addLong(data.getLong(CPU_TIME_ACTIVE))
+                consumer.endField("cpu_time_active", projection[7])
+            }
 
-            consumer.startField("cpu_time_idle", 8)
-            consumer.addLong(data.cpuIdleTime)
-            consumer.endField("cpu_time_idle", 8)
+            if (projection.has(8)) {
+                consumer.startField("cpu_time_idle", projection[8])
+                consumer.addLong(data.getLong(CPU_TIME_IDLE))
+                consumer.endField("cpu_time_idle", projection[8])
+            }
 
-            consumer.startField("cpu_time_steal", 9)
-            consumer.addLong(data.cpuStealTime)
-            consumer.endField("cpu_time_steal", 9)
+            if (projection.has(9)) {
+                consumer.startField("cpu_time_steal", projection[9])
+                consumer.addLong(data.getLong(CPU_TIME_STEAL))
+                consumer.endField("cpu_time_steal", projection[9])
+            }
 
-            consumer.startField("cpu_time_lost", 10)
-            consumer.addLong(data.cpuLostTime)
-            consumer.endField("cpu_time_lost", 10)
+            if (projection.has(10)) {
+                consumer.startField("cpu_time_lost", projection[10])
+                consumer.addLong(data.getLong(CPU_TIME_LOST))
+                consumer.endField("cpu_time_lost", projection[10])
+            }
 
-            consumer.startField("mem_limit", 11)
-            consumer.addLong(data.host.memCapacity)
-            consumer.endField("mem_limit", 11)
+            if (projection.has(11)) {
+                consumer.startField("mem_limit", projection[11])
+                consumer.addLong(data.getLong(MEM_LIMIT))
+                consumer.endField("mem_limit", projection[11])
+            }
 
-            consumer.startField("power_total", 12)
-            consumer.addDouble(data.powerTotal)
-            consumer.endField("power_total", 12)
+            if (projection.has(12)) {
+                consumer.startField("power_total", projection[12])
+                consumer.addDouble(data.getDouble(POWER_TOTAL))
+                consumer.endField("power_total", projection[12])
+            }
 
-            consumer.startField("guests_terminated", 13)
-            consumer.addInteger(data.guestsTerminated)
-            consumer.endField("guests_terminated", 13)
+            if (projection.has(13)) {
+                consumer.startField("guests_terminated", projection[13])
+                consumer.addInteger(data.getInt(GUESTS_TERMINATED))
+                consumer.endField("guests_terminated", projection[13])
+            }
 
-            consumer.startField("guests_running", 14)
-            consumer.addInteger(data.guestsRunning)
-            consumer.endField("guests_running", 14)
+            if (projection.has(14)) {
+                consumer.startField("guests_running", projection[14])
+                consumer.addInteger(data.getInt(GUESTS_RUNNING))
+                consumer.endField("guests_running", projection[14])
+            }
 
-            consumer.startField("guests_error", 15)
-            consumer.addInteger(data.guestsError)
-            consumer.endField("guests_error", 15)
+            if (projection.has(15)) {
+                consumer.startField("guests_error", projection[15])
+                consumer.addInteger(data.getInt(GUESTS_ERROR))
+                consumer.endField("guests_error", projection[15])
+            }
 
-            consumer.startField("guests_invalid", 16)
-            consumer.addInteger(data.guestsInvalid)
-            consumer.endField("guests_invalid", 16)
+            if (projection.has(16)) {
+                consumer.startField("guests_invalid", projection[16])
+                consumer.addInteger(data.getInt(GUESTS_INVALID))
+                consumer.endField("guests_invalid", projection[16])
+            }
 
             consumer.endMessage()
         }
     }
 
     private companion object {
+        /**
+         * The offsets of the fields in the binary record of a row.
+         */
+        const val TIMESTAMP = 0
+        const val HOST_ID = 8
+        const val CPU_COUNT = 12
+        const val UPTIME = 16
+        const val DOWNTIME = 24
+        const val BOOT_TIME = 32
+        const val CPU_LIMIT = 40
+        const val CPU_TIME_ACTIVE = 48
+        const val CPU_TIME_IDLE = 56
+        const val CPU_TIME_STEAL = 64
+        const val CPU_TIME_LOST = 72
+        const val MEM_LIMIT = 80
+        const val POWER_TOTAL = 88
+        const val GUESTS_TERMINATED = 96
+        const val GUESTS_RUNNING = 100
+        const val GUESTS_ERROR = 104
+        const val GUESTS_INVALID = 108
+        const val RECORD_SIZE = 112
+
         /**
          * The schema of the host data.
          */
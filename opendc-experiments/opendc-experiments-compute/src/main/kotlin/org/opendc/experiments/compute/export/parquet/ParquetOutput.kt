@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.parquet.format.Util
+import org.apache.parquet.format.converter.ParquetMetadataConverter
+import org.apache.parquet.hadoop.ParquetFileWriter
+import org.apache.parquet.hadoop.ParquetWriter
+import org.apache.parquet.hadoop.metadata.BlockMetaData
+import org.apache.parquet.hadoop.metadata.FileMetaData
+import org.apache.parquet.hadoop.metadata.ParquetMetadata
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * The Parquet files to which a [ParquetDataWriter] writes its records, laid out according to [ParquetOutputOptions].
+ *
+ * Every record starts with its timestamp in epoch milliseconds, which is used to assign the record to a partition.
+ * Since the simulation reports rows in order of time, only a single file is open at any moment.
+ *
+ * @param path The path of the output, which is the exact file when the output is not rolled over.
+ * @param options The options for the layout of the files.
+ * @param open A function to open a [ParquetWriter] for the specified file.
+ */
+internal class ParquetOutput(
+    private val path: File,
+    private val options: ParquetOutputOptions,
+    private val open: (Path) -> ParquetWriter<TelemetryRecord>
+) : AutoCloseable {
+    /**
+     * The directory containing the output.
+     */
+    private val directory = path.absoluteFile.parentFile
+
+    /**
+     * The writer of the current file, or `null` if no file is open.
+     */
+    private var writer: ParquetWriter<TelemetryRecord>? = null
+
+    /**
+     * The path of the current file relative to [directory].
+     */
+    private var name: String = path.name
+
+    /**
+     * The number of rows written to the current file.
+     */
+    private var rows = 0L
+
+    /**
+     * The start of the partition of the current file.
+     */
+    private var partition = 0L
+
+    /**
+     * The sequence number of the next file.
+     */
+    private var sequence = 0
+
+    /**
+     * The footers of the closed files by their path relative to [directory].
+     */
+    private val footers = ArrayList<Pair<String, ParquetMetadata>>()
+
+    /**
+     * Open the output, which creates the file eagerly if the output is not rolled over.
+     */
+    fun start() {
+        if (!options.isRolling) {
+            writer = open(path.toPath())
+        }
+    }
+
+    /**
+     * Write the specified [record] to the output.
+     */
+    fun write(record: TelemetryRecord) {
+        val interval = options.partitionInterval?.toMillis()
+        val partition = if (interval != null) Math.floorDiv(record.getLong(0), interval) * interval else 0L
+
+        var writer = writer
+        if (writer == null || partition != this.partition || rows >= options.maxRowsPerFile || writer.dataSize >= options.maxBytesPerFile) {
+            roll()
+            writer = next(partition)
+        }
+
+        writer.write(record)
+        rows++
+    }
+
+    /**
+     * Open the next file of the output for the specified [partition].
+     */
+    private fun next(partition: Long): ParquetWriter<TelemetryRecord> {
+        if (!options.isRolling) {
+            // The single output file is only reopened if the previous writer failed to open
+            return open(path.toPath()).also { writer = it }
+        }
+
+        val stem = path.nameWithoutExtension
+        val file = String.format("%s-%05d.parquet", stem, sequence++)
+        val name = if (options.partitionInterval != null) "time=$partition/$file" else file
+        val target = File(directory, name)
+        target.parentFile.mkdirs()
+
+        val writer = open(target.toPath())
+        this.writer = writer
+        this.name = name
+        this.partition = partition
+        this.rows = 0
+        return writer
+    }
+
+    /**
+     * Close the current file of the output.
+     */
+    private fun roll() {
+        val writer = writer ?: return
+        this.writer = null
+
+        writer.close()
+        footers.add(name to writer.footer)
+    }
+
+    /**
+     * Write a `_metadata` summary file containing the row groups of all files in the output.
+     */
+    private fun writeSummary() {
+        if (footers.isEmpty()) {
+            return
+        }
+
+        val blocks = ArrayList<BlockMetaData>()
+        for ((name, footer) in footers) {
+            for (block in footer.blocks) {
+                block.path = name
+                blocks.add(block)
+            }
+        }
+
+        val fileMetaData = footers[0].second.fileMetaData
+        val summary = ParquetMetadata(FileMetaData(fileMetaData.schema, fileMetaData.keyValueMetaData, fileMetaData.createdBy), blocks)
+
+        val footer = ByteArrayOutputStream()
+        Util.writeFileMetaData(ParquetMetadataConverter().toParquetMetadata(ParquetFileWriter.CURRENT_VERSION, summary), footer)
+
+        val length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(footer.size())
+
+        Files.newOutputStream(File(directory, SUMMARY_FILE).toPath()).buffered().use { out ->
+            out.write(ParquetFileWriter.MAGIC)
+            footer.writeTo(out)
+            out.write(length.array())
+            out.write(ParquetFileWriter.MAGIC)
+        }
+    }
+
+    override fun close() {
+        roll()
+
+        if (options.writeSummary) {
+            writeSummary()
+        }
+    }
+
+    private companion object {
+        /**
+         * The name of the summary file.
+         */
+        const val SUMMARY_FILE = "_metadata"
+    }
+}
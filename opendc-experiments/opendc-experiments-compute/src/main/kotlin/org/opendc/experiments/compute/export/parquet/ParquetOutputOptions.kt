@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.parquet.hadoop.ParquetWriter
+import java.time.Duration
+
+/**
+ * Options for the layout of the Parquet files written by a [ParquetDataWriter].
+ *
+ * By default, a writer writes all rows to a single file at the path it was constructed with. When a file limit or a
+ * partition interval is configured, the writer instead rolls over to a new file named `<name>-<sequence>.parquet` next
+ * to that path, optionally in a `time=<start>` subdirectory per interval of simulated time (in epoch milliseconds).
+ *
+ * @property maxRowsPerFile The maximum number of rows to write to a single file.
+ * @property maxBytesPerFile The approximate maximum size of a single file in bytes.
+ * @property rowGroupSize The target size of a row group in bytes.
+ * @property pageSize The target size of a page in bytes.
+ * @property partitionInterval The interval of simulated time covered by each partition, or `null` to not partition by time.
+ * @property writeSummary A flag to indicate that a `_metadata` summary file with the footers of all files should be
+ * written next to the output, which allows readers to prune files and row groups by their column statistics.
+ */
+public data class ParquetOutputOptions(
+    val maxRowsPerFile: Long = Long.MAX_VALUE,
+    val maxBytesPerFile: Long = Long.MAX_VALUE,
+    val rowGroupSize: Int = ParquetWriter.DEFAULT_BLOCK_SIZE,
+    val pageSize: Int = ParquetWriter.DEFAULT_PAGE_SIZE,
+    val partitionInterval: Duration? = null,
+    val writeSummary: Boolean = false
+) {
+    init {
+        require(maxRowsPerFile > 0) { "Maximum number of rows per file must be positive" }
+        require(maxBytesPerFile > 0) { "Maximum file size must be positive" }
+        require(partitionInterval == null || partitionInterval.toMillis() > 0) { "Partition interval must be positive" }
+    }
+
+    /**
+     * A flag to indicate that the output is split over multiple files.
+     */
+    internal val isRolling: Boolean
+        get() = maxRowsPerFile != Long.MAX_VALUE || maxBytesPerFile != Long.MAX_VALUE || partitionInterval != null
+}
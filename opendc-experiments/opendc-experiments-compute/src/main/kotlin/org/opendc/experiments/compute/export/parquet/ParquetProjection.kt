@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.parquet.schema.MessageType
+
+/**
+ * A projection of the schema of a Parquet table onto a subset of its columns.
+ *
+ * The write supports of the writers address the fields by their index in the full [schema][full]. This class maps
+ * those indices to the indices in the projected [schema], or -1 if the field is not part of the projection.
+ *
+ * @param full The full schema of the table.
+ * @param keys The number of leading fields of the schema that are part of every projection.
+ * @param columns The names of the selected columns.
+ */
+internal class ParquetProjection(full: MessageType, keys: Int, columns: Collection<String>) {
+    /**
+     * The indices of the fields in the projected schema by their index in the full schema.
+     */
+    private val indices = IntArray(full.fieldCount) { -1 }
+
+    /**
+     * The projected schema.
+     */
+    val schema: MessageType
+
+    init {
+        val fields = full.fields.filterIndexed { index, field -> index < keys || field.name in columns }
+        for ((index, field) in fields.withIndex()) {
+            indices[full.getFieldIndex(field.name)] = index
+        }
+
+        schema = if (fields.size == full.fieldCount) full else MessageType(full.name, fields)
+    }
+
+    /**
+     * Determine whether the field at [index] in the full schema is part of the projection.
+     */
+    fun has(index: Int): Boolean = indices[index] >= 0
+
+    /**
+     * Return the index in the projected schema of the field at [index] in the full schema.
+     */
+    operator fun get(index: Int): Int = indices[index]
+}
@@ -30,117 +30,190 @@ import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.MessageType
 import org.apache.parquet.schema.PrimitiveType
 import org.apache.parquet.schema.Types
+import org.opendc.experiments.compute.telemetry.table.EncodedHostId
+import org.opendc.experiments.compute.telemetry.table.EncodedServerId
+import org.opendc.experiments.compute.telemetry.table.ServerColumn
 import org.opendc.experiments.compute.telemetry.table.ServerTableReader
 import org.opendc.trace.util.parquet.LocalParquetWriter
 import java.io.File
-import java.util.UUID
+import java.nio.ByteBuffer
+import java.util.EnumSet
 
 /**
  * A Parquet event writer for [ServerTableReader]s.
  */
-public class ParquetServerDataWriter(path: File, bufferSize: Int) :
-    ParquetDataWriter<ServerTableReader>(path, ServerDataWriteSupport(), bufferSize) {
+public class ParquetServerDataWriter(
+    path: File,
+    bufferSize: Int,
+    backpressure: BackpressurePolicy = BackpressurePolicy.BLOCK,
+    options: ParquetOutputOptions = ParquetOutputOptions(),
+    pool: ParquetWriterPool? = null,
+    columns: Set<ServerColumn> = EnumSet.allOf(ServerColumn::class.java)
+) : ParquetDataWriter<ServerTableReader>(path, ServerDataWriteSupport(columns.map { it.columnName }), RECORD_SIZE, bufferSize, backpressure, options, pool) {
 
-    override fun buildWriter(builder: LocalParquetWriter.Builder<ServerTableReader>): ParquetWriter<ServerTableReader> {
+    override fun buildWriter(builder: LocalParquetWriter.Builder<TelemetryRecord>): ParquetWriter<TelemetryRecord> {
         return builder
             .withDictionaryEncoding("server_id", true)
             .withDictionaryEncoding("host_id", true)
+            .withDictionaryEncoding("cpu_count", true)
+            .withDictionaryEncoding("mem_limit", true)
             .build()
     }
 
+    override fun encode(row: ServerTableReader, buffer: ByteBuffer, offset: Int) {
+        val server = row.server
+
+        buffer.putLong(offset + TIMESTAMP, row.timestamp.toEpochMilli())
+        putId(buffer, offset + SERVER_ID, server.id, (row as? EncodedServerId)?.encodedServerId)
+        putId(buffer, offset + HOST_ID, row.host?.id, (row as? EncodedHostId)?.encodedHostId)
+        buffer.putLong(offset + UPTIME, row.uptime)
+        buffer.putLong(offset + DOWNTIME, row.downtime)
+        buffer.putLong(offset + BOOT_TIME, row.bootTime?.toEpochMilli() ?: Long.MIN_VALUE)
+        buffer.putLong(offset + PROVISION_TIME, row.provisionTime?.toEpochMilli() ?: Long.MIN_VALUE)
+        buffer.putInt(offset + CPU_COUNT, server.cpuCount)
+        buffer.putDouble(offset + CPU_LIMIT, row.cpuLimit)
+        buffer.putLong(offset + CPU_TIME_ACTIVE, row.cpuActiveTime)
+        buffer.putLong(offset + CPU_TIME_IDLE, row.cpuIdleTime)
+        buffer.putLong(offset + CPU_TIME_STEAL, row.cpuStealTime)
+        buffer.putLong(offset + CPU_TIME_LOST, row.cpuLostTime)
+        buffer.putLong(offset + MEM_LIMIT, server.memCapacity)
+    }
+
     override fun toString(): String = "server-writer"
 
     /**
-     * A [WriteSupport] implementation for a [ServerTableReader].
+     * A [WriteSupport] implementation for the binary records of [ServerTableReader] rows.
      */
-    private class ServerDataWriteSupport : WriteSupport<ServerTableReader>() {
+    private class ServerDataWriteSupport(columns: Collection<String>) : WriteSupport<TelemetryRecord>() {
         lateinit var recordConsumer: RecordConsumer
 
+        /**
+         * The projection of the schema onto the selected columns.
+         */
+        private val projection = ParquetProjection(SCHEMA, 2, columns)
+
         override fun init(configuration: Configuration): WriteContext {
-            return WriteContext(SCHEMA, emptyMap())
+            return WriteContext(projection.schema, emptyMap())
         }
 
         override fun prepareForWrite(recordConsumer: RecordConsumer) {
             this.recordConsumer = recordConsumer
         }
 
-        override fun write(record: ServerTableReader) {
+        override fun write(record: TelemetryRecord) {
             write(recordConsumer, record)
         }
 
-        private fun write(consumer: RecordConsumer, data: ServerTableReader) {
+        private fun write(consumer: RecordConsumer, data: TelemetryRecord) {
             consumer.startMessage()
 
             consumer.startField("timestamp", 0)
-            consumer.addLong(data.timestamp.toEpochMilli())
+            consumer.addLong(data.getLong(TIMESTAMP))
             consumer.endField("timestamp", 0)
 
             consumer.startField("server_id", 1)
-            consumer.addBinary(UUID.fromString(data.server.id).toBinary())
+            consumer.addBinary(data.getId(SERVER_ID)!!)
             consumer.endField("server_id", 1)
 
-            val hostId = data.host?.id
-            if (hostId != null) {
-                consumer.startField("host_id", 2)
-                consumer.addBinary(UUID.fromString(hostId).toBinary())
-                consumer.endField("host_id", 2)
+            val hostId = data.getId(HOST_ID)
+            if (hostId != null && projection.has(2)) {
+                consumer.startField("host_id", projection[2])
+                consumer.addBinary(hostId)
+                consumer.endField("host_id", projection[2])
             }
 
-            consumer.startField("uptime", 3)
-            consumer.addLong(data.uptime)
-            consumer.endField("uptime", 3)
+            if (projection.has(3)) {
+                consumer.startField("uptime", projection[3])
+                consumer.addLong(data.getLong(UPTIME))
+                consumer.endField("uptime", projection[3])
+            }
 
-            consumer.startField("downtime", 4)
-            consumer.addLong(data.downtime)
-            consumer.endField("downtime", 4)
+            if (projection.has(4)) {
+                consumer.startField("downtime", projection[4])
+                consumer.addLong(data.getLong(DOWNTIME))
+                consumer.endField("downtime", projection[4])
+            }
 
-            val bootTime = data.bootTime
-            if (bootTime != null) {
-                consumer.startField("boot_time", 5)
-                consumer.addLong(bootTime.toEpochMilli())
-                consumer.endField("boot_time", 5)
+            val bootTime = data.getLong(BOOT_TIME)
+            if (bootTime != Long.MIN_VALUE && projection.has(5)) {
+                consumer.startField("boot_time", projection[5])
+                consumer.addLong(bootTime)
+                consumer.endField("boot_time", projection[5])
             }
 
-            val provisionTime = data.provisionTime
-            if (provisionTime != null) {
-                consumer.startField("provision_time", 6)
-                consumer.addLong(provisionTime.toEpochMilli())
-                consumer.endField("provision_time", 6)
+            val provisionTime = data.getLong(PROVISION_TIME)
+            if (provisionTime != Long.MIN_VALUE && projection.has(6)) {
+                consumer.startField("provision_time", projection[6])
+                consumer.addLong(provisionTime)
+                consumer.endField("provision_time", projection[6])
             }
 
-            consumer.startField("cpu_count", 7)
-            consumer.addInteger(data.server.cpuCount)
-            consumer.endField("cpu_count", 7)
+            if (projection.has(7)) {
+                consumer.startField("cpu_count", projection[7])
+                consumer.addInteger(data.getInt(CPU_COUNT))
+                consumer.endField("cpu_count", projection[7])
+            }
 
-            consumer.startField("cpu_limit", 8)
-            consumer.addDouble(data.cpuLimit)
-            consumer.endField("cpu_limit", 8)
+            if (projection.has(8)) {
+                consumer.startField("cpu_limit", projection[8])
+                consumer.addDouble(data.getDouble(CPU_LIMIT))
+                consumer.endField("cpu_limit", projection[8])
+            }
 
-            consumer.startField("cpu_time_active", 9)
-            consumer.addLong(data.cpuActiveTime)
-            consumer.endField("cpu_time_active", 9)
+            if (projection.has(9)) {
+                consumer.startField("cpu_time_active", projection[9])
+                consumer.addLong(data.getLong(CPU_TIME_ACTIVE))
+                consumer.endField("cpu_time_active", projection[9])
+            }
 
-            consumer.startField("cpu_time_idle", 10)
-            consumer.addLong(data.cpuIdleTime)
-            consumer.endField("cpu_time_idle", 10)
+            if (projection.has(10)) {
+                consumer.startField("cpu_time_idle", projection[10])
+                consumer.addLong(data.getLong(CPU_TIME_IDLE))
+                consumer.endField("cpu_time_idle", projection[10])
+            }
 
-            consumer.startField("cpu_time_steal", 11)
-            consumer.addLong(data.cpuStealTime)
-            consumer.endField("cpu_time_steal", 11)
+            if (projection.has(11)) {
+                consumer.startField("cpu_time_steal", projection[11])
+                consumer.addLong(data.getLong(CPU_TIME_STEAL))
+                consumer.endField("cpu_time_steal", projection[11])
+            }
 
-            consumer.startField("cpu_time_lost", 12)
-            consumer.addLong(data.cpuLostTime)
-            consumer.endField("cpu_time_lost", 12)
+            if (projection.has(12)) {
+                consumer.startField("cpu_time_lost", projection[12])
+                consumer.addLong(data.getLong(CPU_TIME_LOST))
+                consumer.endField("cpu_time_lost", projection[12])
+            }
 
-            consumer.startField("mem_limit", 13)
-            consumer.addLong(data.server.memCapacity)
-            consumer.endField("mem_limit", 13)
+            if (projection.has(13)) {
+                consumer.startField("mem_limit", projection[13])
+                consumer.addLong(data.getLong(MEM_LIMIT))
+                consumer.endField("mem_limit", projection[13])
+            }
 
             consumer.endMessage()
         }
     }
 
     private companion object {
+        /**
+         * The offsets of the fields in the binary record of a row.
+         */
+        const val TIMESTAMP = 0
+        const val SERVER_ID = 8
+        const val HOST_ID = 12
+        const val UPTIME = 16
+        const val DOWNTIME = 24
+        const val BOOT_TIME = 32
+        const val PROVISION_TIME = 40
+        const val CPU_COUNT = 48
+        const val CPU_LIMIT = 56
+        const val CPU_TIME_ACTIVE = 64
+        const val CPU_TIME_IDLE = 72
+        const val CPU_TIME_STEAL = 80
+        const val CPU_TIME_LOST = 88
+        const val MEM_LIMIT = 96
+        const val RECORD_SIZE = 104
+
         /**
          * The schema of the server data.
          */
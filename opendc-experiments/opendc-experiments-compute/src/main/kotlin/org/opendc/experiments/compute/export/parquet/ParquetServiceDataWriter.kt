@@ -29,75 +29,127 @@ import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.MessageType
 import org.apache.parquet.schema.PrimitiveType
 import org.apache.parquet.schema.Types
+import org.opendc.experiments.compute.telemetry.table.ServiceColumn
 import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
 import java.io.File
+import java.nio.ByteBuffer
+import java.util.EnumSet
 
 /**
  * A Parquet event writer for [ServiceTableReader]s.
  */
-public class ParquetServiceDataWriter(path: File, bufferSize: Int) :
-    ParquetDataWriter<ServiceTableReader>(path, ServiceDataWriteSupport(), bufferSize) {
+public class ParquetServiceDataWriter(
+    path: File,
+    bufferSize: Int,
+    backpressure: BackpressurePolicy = BackpressurePolicy.BLOCK,
+    options: ParquetOutputOptions = ParquetOutputOptions(),
+    pool: ParquetWriterPool? = null,
+    columns: Set<ServiceColumn> = EnumSet.allOf(ServiceColumn::class.java)
+) : ParquetDataWriter<ServiceTableReader>(path, ServiceDataWriteSupport(columns.map { it.columnName }), RECORD_SIZE, bufferSize, backpressure, options, pool) {
+
+    override fun encode(row: ServiceTableReader, buffer: ByteBuffer, offset: Int) {
+        buffer.putLong(offset + TIMESTAMP, row.timestamp.toEpochMilli())
+        buffer.putInt(offset + HOSTS_UP, row.hostsUp)
+        buffer.putInt(offset + HOSTS_DOWN, row.hostsDown)
+        buffer.putInt(offset + SERVERS_PENDING, row.serversPending)
+        buffer.putInt(offset + SERVERS_ACTIVE, row.serversActive)
+        buffer.putInt(offset + ATTEMPTS_SUCCESS, row.attemptsSuccess)
+        buffer.putInt(offset + ATTEMPTS_FAILURE, row.attemptsFailure)
+        buffer.putInt(offset + ATTEMPTS_ERROR, row.attemptsError)
+    }
 
     override fun toString(): String = "service-writer"
 
     /**
-     * A [WriteSupport] implementation for a [ServiceTableReader].
+     * A [WriteSupport] implementation for the binary records of [ServiceTableReader] rows.
      */
-    private class ServiceDataWriteSupport : WriteSupport<ServiceTableReader>() {
+    private class ServiceDataWriteSupport(columns: Collection<String>) : WriteSupport<TelemetryRecord>() {
         lateinit var recordConsumer: RecordConsumer
 
+        /**
+         * The projection of the schema onto the selected columns.
+         */
+        private val projection = ParquetProjection(SCHEMA, 1, columns)
+
         override fun init(configuration: Configuration): WriteContext {
-            return WriteContext(SCHEMA, emptyMap())
+            return WriteContext(projection.schema, emptyMap())
         }
 
         override fun prepareForWrite(recordConsumer: RecordConsumer) {
             this.recordConsumer = recordConsumer
         }
 
-        override fun write(record: ServiceTableReader) {
+        override fun write(record: TelemetryRecord) {
             write(recordConsumer, record)
         }
 
-        private fun write(consumer: RecordConsumer, data: ServiceTableReader) {
+        private fun write(consumer: RecordConsumer, data: TelemetryRecord) {
             consumer.startMessage()
 
             consumer.startField("timestamp", 0)
-            consumer.addLong(data.timestamp.toEpochMilli())
+            consumer.addLong(data.getLong(TIMESTAMP))
             consumer.endField("timestamp", 0)
 
-            consumer.startField("hosts_up", 1)
-            consumer.addInteger(data.hostsUp)
-            consumer.endField("hosts_up", 1)
-
-            consumer.startField("hosts_down", 2)
-            consumer.addInteger(data.hostsDown)
-            consumer.endField("hosts_down", 2)
-
-            consumer.startField("servers_pending", 3)
-            consumer.addInteger(data.serversPending)
-            consumer.endField("servers_pending", 3)
-
-            consumer.startField("servers_active", 4)
-            consumer.addInteger(data.serversActive)
-            consumer.endField("servers_active", 4)
-
-            consumer.startField("attempts_success", 5)
-            consumer.addInteger(data.attemptsSuccess)
-            consumer.endField("attempts_pending", 5)
-
-            consumer.startField("attempts_failure", 6)
-            consumer.addInteger(data.attemptsFailure)
-            consumer.endField("attempts_failure", 6)
-
-            consumer.startField("attempts_error", 7)
-            consumer.addInteger(data.attemptsError)
-            consumer.endField("attempts_error", 7)
+            if (projection.has(1)) {
+                consumer.startField("hosts_up", projection[1])
+                consumer.addInteger(data.getInt(HOSTS_UP))
+                consumer.endField("hosts_up", projection[1])
+            }
+
+            if (projection.has(2)) {
+                consumer.startField("hosts_down", projection[2])
+                consumer.addInteger(data.getInt(HOSTS_DOWN))
+                consumer.endField("hosts_down", projection[2])
+            }
+
+            if (projection.has(3)) {
+                consumer.startField("servers_pending", projection[3])
+                consumer.addInteger(data.getInt(SERVERS_PENDING))
+                consumer.endField("servers_pending", projection[3])
+            }
+
+            if (projection.has(4)) {
+                consumer.startField("servers_active", projection[4])
+                consumer.addInteger(data.getInt(SERVERS_ACTIVE))
+                consumer.endField("servers_active", projection[4])
+            }
+
+            if (projection.has(5)) {
+                consumer.startField("attempts_success", projection[5])
+                consumer.addInteger(data.getInt(ATTEMPTS_SUCCESS))
+                consumer.endField("attempts_pending", projection[5])
+            }
+
+            if (projection.has(6)) {
+                consumer.startField("attempts_failure", projection[6])
+                consumer.addInteger(data.getInt(ATTEMPTS_FAILURE))
+                consumer.endField("attempts_failure", projection[6])
+            }
+
+            if (projection.has(7)) {
+                consumer.startField("attempts_error", projection[7])
+                consumer.addInteger(data.getInt(ATTEMPTS_ERROR))
+                consumer.endField("attempts_error", projection[7])
+            }
 
             consumer.endMessage()
         }
     }
 
     private companion object {
+        /**
+         * The offsets of the fields in the binary record of a row.
+         */
+        const val TIMESTAMP = 0
+        const val HOSTS_UP = 8
+        const val HOSTS_DOWN = 12
+        const val SERVERS_PENDING = 16
+        const val SERVERS_ACTIVE = 20
+        const val ATTEMPTS_SUCCESS = 24
+        const val ATTEMPTS_FAILURE = 28
+        const val ATTEMPTS_ERROR = 32
+        const val RECORD_SIZE = 40
+
         private val SCHEMA: MessageType = Types.buildMessage()
             .addFields(
                 Types
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A bounded pool of threads shared by multiple [ParquetDataWriter]s to write their Parquet files.
+ *
+ * By default, every writer owns a thread, which for large portfolios run in parallel means hundreds of threads
+ * competing for the same disk. Writers that share a pool instead schedule their pending records as tasks on the pool,
+ * such that at most [threads] files are written concurrently.
+ *
+ * The pool must outlive the writers using it and should be closed after all of them have been closed.
+ *
+ * @param threads The number of threads in the pool.
+ */
+public class ParquetWriterPool(public val threads: Int = Runtime.getRuntime().availableProcessors()) : AutoCloseable {
+    init {
+        require(threads > 0) { "Number of threads must be positive" }
+    }
+
+    /**
+     * The executor that runs the tasks of the writers.
+     */
+    private val executor: ExecutorService = run {
+        val id = POOL_ID.incrementAndGet()
+        val counter = AtomicInteger()
+        Executors.newFixedThreadPool(threads) { runnable ->
+            val thread = Thread(runnable, "parquet-writer-$id-${counter.incrementAndGet()}")
+            thread.isDaemon = true
+            thread
+        }
+    }
+
+    /**
+     * Run [task] on one of the threads of the pool.
+     */
+    internal fun execute(task: Runnable) {
+        executor.execute(task)
+    }
+
+    override fun close() {
+        executor.shutdown()
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)
+    }
+
+    private companion object {
+        /**
+         * The identifier of the last created pool.
+         */
+        val POOL_ID = AtomicInteger()
+    }
+}
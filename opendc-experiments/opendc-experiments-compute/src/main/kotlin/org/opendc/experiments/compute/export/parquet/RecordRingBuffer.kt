@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A single-producer/single-consumer ring buffer of fixed-size binary records stored in an off-heap [ByteBuffer].
+ *
+ * The producer claims a slot using [claim], writes the record at the returned offset and makes it visible to the
+ * consumer using [publish]. The consumer reads the published records at [offset] and returns their slots to the
+ * producer using [release]. Neither side takes a lock: the positions are exchanged through ordered writes.
+ *
+ * @param recordSize The size of a single record in bytes.
+ * @param minCapacity The minimum number of records in the buffer, which is rounded up to a power of two.
+ */
+internal class RecordRingBuffer(val recordSize: Int, minCapacity: Int) {
+    init {
+        require(recordSize > 0) { "Record size must be positive" }
+        require(minCapacity > 0) { "Capacity must be positive" }
+    }
+
+    /**
+     * The number of records in the buffer.
+     */
+    val capacity: Int = if (minCapacity == 1) 1 else Integer.highestOneBit(minCapacity - 1) shl 1
+
+    /**
+     * The storage of the records.
+     */
+    val buffer: ByteBuffer = ByteBuffer.allocateDirect(recordSize * capacity).order(ByteOrder.nativeOrder())
+
+    private val mask = capacity - 1L
+
+    /**
+     * The sequence number of the next record to publish, written by the producer.
+     */
+    private val tail = AtomicLong()
+
+    /**
+     * The sequence number of the next record to consume, written by the consumer.
+     */
+    private val head = AtomicLong()
+
+    /**
+     * The local copies of the positions for the producer and consumer.
+     */
+    private var producerTail = 0L
+    private var producerHead = 0L
+    private var consumerHead = 0L
+
+    /**
+     * The sequence number of the next record to publish, only accessed by the producer.
+     */
+    val published: Long
+        get() = producerTail
+
+    /**
+     * The sequence number of the next record to consume, only accessed by the consumer.
+     */
+    val consumed: Long
+        get() = consumerHead
+
+    /**
+     * The number of records that are currently in the buffer.
+     */
+    val size: Int
+        get() = (tail.get() - head.get()).toInt()
+
+    /**
+     * Claim the next slot of the buffer for the producer.
+     *
+     * @return The offset of the claimed slot in [buffer], or -1 if the buffer is full.
+     */
+    fun claim(): Int {
+        val seq = producerTail
+        if (seq - producerHead >= capacity) {
+            producerHead = head.get()
+            if (seq - producerHead >= capacity) {
+                return -1
+            }
+        }
+
+        return ((seq and mask) * recordSize).toInt()
+    }
+
+    /**
+     * Make the record in the most recently claimed slot visible to the consumer.
+     */
+    fun publish() {
+        tail.lazySet(++producerTail)
+    }
+
+    /**
+     * Return the number of records that are available to the consumer.
+     */
+    fun available(): Int = (tail.get() - consumerHead).toInt()
+
+    /**
+     * Return the offset in [buffer] of the available record at [index] (relative to the oldest record).
+     */
+    fun offset(index: Int): Int = (((consumerHead + index) and mask) * recordSize).toInt()
+
+    /**
+     * Return the slots of the [n] oldest records to the producer.
+     */
+    fun release(n: Int) {
+        consumerHead += n
+        head.lazySet(consumerHead)
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A temporary file to which fixed-size binary records are spilled when the [RecordRingBuffer] of a writer is full.
+ *
+ * Like the ring buffer, the file is shared between a single producer appending records and a single consumer reading
+ * them in order. Once the consumer has read every record, the producer truncates the file before appending the next
+ * record, so the file only grows as far as the consumer falls behind. The file is deleted when it is closed.
+ *
+ * @param recordSize The size of a single record in bytes.
+ */
+internal class SpillFile(private val recordSize: Int) : AutoCloseable {
+    /**
+     * The channel to the temporary file.
+     */
+    private val channel = FileChannel.open(
+        Files.createTempFile("opendc-telemetry", ".spill"),
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE
+    )
+
+    /**
+     * The number of records written by the producer and read by the consumer.
+     */
+    private val written = AtomicLong()
+    private val read = AtomicLong()
+    private var producerWritten = 0L
+    private var consumerRead = 0L
+
+    /**
+     * The number of records that were appended before the first record in the file, which is published by the producer
+     * before the records that follow it.
+     */
+    @Volatile
+    private var base = 0L
+
+    /**
+     * The number of records that have been spilled, but not read yet.
+     */
+    val pending: Long
+        get() = written.get() - read.get()
+
+    /**
+     * The number of records that have been appended, only accessed by the producer.
+     */
+    val appended: Long
+        get() = producerWritten
+
+    /**
+     * The number of records that have been read, only accessed by the consumer.
+     */
+    val consumed: Long
+        get() = consumerRead
+
+    /**
+     * The size of the file in bytes.
+     */
+    val length: Long
+        get() = channel.size()
+
+    /**
+     * Append the record in [src] to the file.
+     */
+    fun append(src: ByteBuffer) {
+        if (producerWritten > base && read.get() == producerWritten) {
+            // The consumer does not access the file until the next record is published
+            channel.truncate(0)
+            base = producerWritten
+        }
+
+        var position = (producerWritten - base) * recordSize
+        src.clear().limit(recordSize)
+        while (src.hasRemaining()) {
+            position += channel.write(src, position)
+        }
+        written.lazySet(++producerWritten)
+    }
+
+    /**
+     * Read the oldest unread record into [dst].
+     */
+    fun read(dst: ByteBuffer) {
+        var position = (consumerRead - base) * recordSize
+        dst.clear().limit(recordSize)
+        while (dst.hasRemaining()) {
+            val n = channel.read(dst, position)
+            check(n >= 0) { "Unexpected end of spill file" }
+            position += n
+        }
+        read.lazySet(++consumerRead)
+    }
+
+    override fun close() {
+        channel.close()
+    }
+}
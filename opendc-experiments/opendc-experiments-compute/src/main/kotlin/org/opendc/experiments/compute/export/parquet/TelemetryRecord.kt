@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.apache.parquet.io.api.Binary
+import java.nio.ByteBuffer
+
+/**
+ * A view of a fixed-layout binary record of telemetry data that is being written by a [ParquetDataWriter].
+ *
+ * The fields of the record are read at their offset relative to the start of the record, as defined by the layout of
+ * the writer that encoded the record.
+ */
+public class TelemetryRecord internal constructor(private val ids: BinaryIdCache) {
+    /**
+     * The buffer containing the record.
+     */
+    private var buffer: ByteBuffer = EMPTY
+
+    /**
+     * The offset of the record in [buffer].
+     */
+    private var offset: Int = 0
+
+    /**
+     * Point this view to the record at [offset] in [buffer].
+     */
+    internal fun reset(buffer: ByteBuffer, offset: Int) {
+        this.buffer = buffer
+        this.offset = offset
+    }
+
+    /**
+     * Read the `Int` field at [field].
+     */
+    public fun getInt(field: Int): Int = buffer.getInt(offset + field)
+
+    /**
+     * Read the `Long` field at [field].
+     */
+    public fun getLong(field: Int): Long = buffer.getLong(offset + field)
+
+    /**
+     * Read the `Double` field at [field].
+     */
+    public fun getDouble(field: Int): Double = buffer.getDouble(offset + field)
+
+    /**
+     * Read the identifier field at [field], or `null` if the identifier is absent.
+     *
+     * @throws IllegalArgumentException if the identifier is not a valid UUID.
+     */
+    public fun getId(field: Int): Binary? {
+        val index = buffer.getInt(offset + field)
+        return if (index >= 0) ids[index] else null
+    }
+
+    private companion object {
+        val EMPTY: ByteBuffer = ByteBuffer.allocate(0)
+    }
+}
@@ -23,16 +23,18 @@
 package org.opendc.experiments.compute.export.parquet
 
 import org.apache.parquet.io.api.Binary
-import java.nio.ByteBuffer
 import java.util.UUID
 
 /**
  * Helper method to convert a [UUID] into a [Binary] object consumed by Parquet.
  */
 internal fun UUID.toBinary(): Binary {
-    val bb = ByteBuffer.allocate(16)
-    bb.putLong(mostSignificantBits)
-    bb.putLong(leastSignificantBits)
-    bb.rewind()
-    return Binary.fromConstantByteBuffer(bb)
+    val bytes = ByteArray(16)
+    val msb = mostSignificantBits
+    val lsb = leastSignificantBits
+    for (i in 0 until 8) {
+        bytes[i] = (msb ushr (56 - 8 * i)).toByte()
+        bytes[8 + i] = (lsb ushr (56 - 8 * i)).toByte()
+    }
+    return Binary.fromConstantByteArray(bytes)
 }
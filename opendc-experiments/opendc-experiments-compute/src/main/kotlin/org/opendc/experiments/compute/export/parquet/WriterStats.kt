@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import java.time.Duration
+
+/**
+ * Statistics about the buffer between the simulation and the writer thread of a [ParquetDataWriter].
+ *
+ * @property capacity The number of records that fit in the buffer.
+ * @property occupancy The number of records currently in the buffer.
+ * @property droppedRecords The number of records that were dropped because the buffer was full.
+ * @property spilledRecords The number of records that were spilled to disk because the buffer was full.
+ * @property stallTime The time the simulation was blocked waiting for room in the buffer.
+ */
+public data class WriterStats(
+    val capacity: Int,
+    val occupancy: Int,
+    val droppedRecords: Long,
+    val spilledRecords: Long,
+    val stallTime: Duration
+)
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.internal
+
+import org.opendc.experiments.compute.VirtualMachineTrace
+import org.opendc.simulator.compute.workload.SimTrace
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+import kotlin.math.max
+
+/**
+ * A [VirtualMachineTrace] that stores the fragments of the trace as a deflate-compressed block and decodes them each
+ * time the trace is loaded.
+ *
+ * The deadlines of the fragments are delta-encoded, which together with the repetitive usage and core counts of most
+ * traces compresses the block to a fraction of the size of a [SimTrace]. Two instances are equal if they store the same
+ * fragments.
+ *
+ * @param block The compressed fragments.
+ * @param size The number of fragments in the block.
+ */
+internal class CompressedVirtualMachineTrace private constructor(
+    private val block: ByteArray,
+    private val size: Int
+) : VirtualMachineTrace {
+    override fun load(): SimTrace {
+        val builder = SimTrace.builder(max(size, 1))
+
+        DataInputStream(InflaterInputStream(ByteArrayInputStream(block))).use { input ->
+            var deadline = 0L
+            for (i in 0 until size) {
+                deadline += input.readLong()
+                builder.add(deadline, input.readDouble(), input.readInt())
+            }
+        }
+
+        return builder.build()
+    }
+
+    override fun equals(other: Any?): Boolean =
+        other is CompressedVirtualMachineTrace && size == other.size && block.contentEquals(other.block)
+
+    override fun hashCode(): Int = 31 * size + block.contentHashCode()
+
+    override fun toString(): String = "CompressedVirtualMachineTrace[size=$size,bytes=${block.size}]"
+
+    /**
+     * A builder for a [CompressedVirtualMachineTrace].
+     */
+    class Builder {
+        /**
+         * The compressed fragments.
+         */
+        private val buffer = ByteArrayOutputStream()
+        private val deflater = Deflater(Deflater.BEST_SPEED)
+        private val output = DataOutputStream(DeflaterOutputStream(buffer, deflater))
+
+        /**
+         * The number of fragments that were added.
+         */
+        private var size = 0
+
+        /**
+         * The deadline of the previous fragment.
+         */
+        private var previousDeadline = 0L
+
+        /**
+         * Add a fragment to the trace.
+         *
+         * @param deadline The timestamp at which the fragment ends (in epoch millis).
+         * @param usage The CPU usage of this fragment.
+         * @param cores The number of cores used.
+         */
+        fun add(deadline: Long, usage: Double, cores: Int) {
+            output.writeLong(deadline - previousDeadline)
+            output.writeDouble(usage)
+            output.writeInt(cores)
+
+            previousDeadline = deadline
+            size++
+        }
+
+        /**
+         * Build the trace and release the resources of the builder.
+         */
+        fun build(): CompressedVirtualMachineTrace {
+            try {
+                output.close()
+            } finally {
+                // The stream does not release a deflater that was passed to it
+                deflater.end()
+            }
+
+            return CompressedVirtualMachineTrace(buffer.toByteArray(), size)
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.internal
+
+import org.opendc.experiments.compute.VirtualMachineTrace
+import org.opendc.simulator.compute.SimMachineContext
+import org.opendc.simulator.compute.workload.SimWorkload
+
+/**
+ * A [SimWorkload] that loads the trace of a virtual machine when its guest starts and releases it when the guest
+ * stops, so that only the traces of running virtual machines are kept in memory.
+ *
+ * @param trace The handle to the trace of the virtual machine.
+ * @param offset The offset for the timestamps of the trace.
+ */
+internal class LazyTraceWorkload(private val trace: VirtualMachineTrace, private val offset: Long) : SimWorkload {
+    /**
+     * The workload of the loaded trace while the guest is running.
+     */
+    private var delegate: SimWorkload? = null
+
+    override fun onStart(ctx: SimMachineContext) {
+        val delegate = trace.load().createWorkload(offset)
+        this.delegate = delegate
+        delegate.onStart(ctx)
+    }
+
+    override fun onStop(ctx: SimMachineContext) {
+        val delegate = delegate ?: return
+        this.delegate = null
+        delegate.onStop(ctx)
+    }
+
+    override fun snapshot(): SimWorkload = delegate?.snapshot() ?: LazyTraceWorkload(trace, offset)
+
+    override fun toString(): String = "LazyTraceWorkload[trace=$trace,offset=$offset]"
+}
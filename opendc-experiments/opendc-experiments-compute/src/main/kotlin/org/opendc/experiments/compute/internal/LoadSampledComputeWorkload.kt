@@ -38,24 +38,40 @@ internal class LoadSampledComputeWorkload(val source: ComputeWorkload, val fract
     private val logger = KotlinLogging.logger {}
 
     override fun resolve(loader: ComputeWorkloadLoader, random: RandomGenerator): List<VirtualMachine> {
+        // Sample a trace before it is loaded, so that only the fragments of the sampled VMs need to be read
+        if (source is TraceComputeWorkload) {
+            return loader.get(source.name, source.format, fraction)
+        }
+
         val vms = source.resolve(loader, random)
-        val res = mutableListOf<VirtualMachine>()
+        val res = sample(vms, fraction) { it.totalLoad }
 
-        val totalLoad = vms.sumOf { it.totalLoad }
-        var currentLoad = 0.0
+        logger.info { "Sampled ${vms.size} VMs (fraction $fraction) into subset of ${res.size} VMs" }
 
-        for (entry in vms) {
-            val entryLoad = entry.totalLoad
-            if ((currentLoad + entryLoad) / totalLoad > fraction) {
-                break
-            }
+        return res
+    }
 
-            currentLoad += entryLoad
-            res += entry
-        }
+    companion object {
+        /**
+         * Select the longest prefix of [entries] whose [load] does not exceed [fraction] of the total load.
+         */
+        fun <T> sample(entries: List<T>, fraction: Double, load: (T) -> Double): List<T> {
+            val res = mutableListOf<T>()
 
-        logger.info { "Sampled ${vms.size} VMs (fraction $fraction) into subset of ${res.size} VMs" }
+            val totalLoad = entries.sumOf(load)
+            var currentLoad = 0.0
 
-        return res
+            for (entry in entries) {
+                val entryLoad = load(entry)
+                if ((currentLoad + entryLoad) / totalLoad > fraction) {
+                    break
+                }
+
+                currentLoad += entryLoad
+                res += entry
+            }
+
+            return res
+        }
     }
 }
@@ -27,11 +27,18 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import mu.KotlinLogging
+import org.apache.parquet.io.api.Binary
 import org.opendc.common.Dispatcher
 import org.opendc.common.asCoroutineDispatcher
 import org.opendc.compute.api.Server
+import org.opendc.compute.api.ServerState
 import org.opendc.compute.service.ComputeService
 import org.opendc.compute.service.driver.Host
+import org.opendc.compute.service.driver.HostListener
+import org.opendc.compute.service.driver.HostState
+import org.opendc.experiments.compute.export.parquet.toBinary
+import org.opendc.experiments.compute.telemetry.table.EncodedHostId
+import org.opendc.experiments.compute.telemetry.table.EncodedServerId
 import org.opendc.experiments.compute.telemetry.table.HostInfo
 import org.opendc.experiments.compute.telemetry.table.HostTableReader
 import org.opendc.experiments.compute.telemetry.table.ServerInfo
@@ -39,22 +46,45 @@ import org.opendc.experiments.compute.telemetry.table.ServerTableReader
 import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
 import java.time.Duration
 import java.time.Instant
+import java.util.UUID
+import kotlin.math.abs
+import kotlin.math.max
 
 /**
  * A helper class to collect metrics from a [ComputeService] instance and automatically export the metrics every
  * export interval.
  *
+ * By default, every host and server is recorded every export interval. If a [changeThreshold] is specified, the
+ * metrics are still sampled every interval, but a host or server is only recorded when it has changed: when one of its
+ * (guest) states changed, when its number of running guests changed, or when its CPU activity during the interval
+ * deviates relatively more than [changeThreshold] from the activity it last reported. Unchanged intervals are folded
+ * into the next record of the entity, whose counters (e.g., CPU time, energy, uptime) then span all folded intervals,
+ * such that the totals are identical to the fixed-interval mode.
+ *
+ * The [projection] determines which statistics are obtained from the hosts and servers. For instance, the CPU
+ * statistics of a host are not synchronized if no CPU column of the host table is selected. Since the change-based
+ * mode compares the CPU activity and guests of an entity, those statistics are always obtained in that mode.
+ *
  * @param dispatcher A [Dispatcher] for scheduling the future events.
  * @param service The [ComputeService] to monitor.
  * @param monitor The monitor to export the metrics to.
  * @param exportInterval The export interval.
+ * @param changeThreshold The relative change in CPU activity for which a host or server is recorded, or `null` to
+ * record every entity every export interval.
+ * @param projection The columns of the tables to collect.
  */
 public class ComputeMetricReader(
     dispatcher: Dispatcher,
     private val service: ComputeService,
     private val monitor: ComputeMonitor,
-    private val exportInterval: Duration = Duration.ofMinutes(5)
+    private val exportInterval: Duration = Duration.ofMinutes(5),
+    private val changeThreshold: Double? = null,
+    private val projection: TelemetryProjection = TelemetryProjection.ALL
 ) : AutoCloseable {
+    init {
+        require(changeThreshold == null || changeThreshold >= 0.0) { "Change threshold must be non-negative" }
+    }
+
     private val logger = KotlinLogging.logger {}
     private val scope = CoroutineScope(dispatcher.asCoroutineDispatcher())
     private val clock = dispatcher.timeSource
@@ -74,6 +104,42 @@ public class ComputeMetricReader(
      */
     private val serverTableReaders = mutableMapOf<Server, ServerTableReaderImpl>()
 
+    /**
+     * The host readers that received an event since the previous cycle.
+     */
+    private val dirtyHostReaders = ArrayList<HostTableReaderImpl>()
+
+    /**
+     * The server readers that received an event since the previous cycle.
+     */
+    private val dirtyServerReaders = ArrayList<ServerTableReaderImpl>()
+
+    /**
+     * The listener that marks the readers of hosts and servers as changed when their state changes.
+     */
+    private val hostListener = object : HostListener {
+        override fun onStateChanged(host: Host, server: Server, newState: ServerState) {
+            markDirty(hostTableReaders[host])
+
+            val reader = serverTableReaders[server]
+            if (reader != null && !reader.isDirty) {
+                reader.isDirty = true
+                dirtyServerReaders.add(reader)
+            }
+        }
+
+        override fun onStateChanged(host: Host, newState: HostState) {
+            markDirty(hostTableReaders[host])
+        }
+
+        private fun markDirty(reader: HostTableReaderImpl?) {
+            if (reader != null && !reader.isDirty) {
+                reader.isDirty = true
+                dirtyHostReaders.add(reader)
+            }
+        }
+    }
+
     /**
      * The background job that is responsible for collecting the metrics every cycle.
      */
@@ -84,6 +150,10 @@ public class ComputeMetricReader(
         val hostTableReaders = hostTableReaders
         val serverTableReaders = serverTableReaders
         val serviceTableReader = serviceTableReader
+        val changeThreshold = changeThreshold
+        val recordHosts = projection.host.isNotEmpty()
+        val recordServers = projection.server.isNotEmpty()
+        val recordService = projection.service.isNotEmpty()
 
         try {
             while (isActive) {
@@ -92,34 +162,125 @@ public class ComputeMetricReader(
                 try {
                     val now = clock.instant()
 
-                    for (host in service.hosts) {
-                        val reader = hostTableReaders.computeIfAbsent(host) { HostTableReaderImpl(it) }
-                        reader.record(now)
-                        monitor.record(reader)
-                        reader.reset()
+                    if (recordHosts) {
+                        for (host in service.hosts) {
+                            val reader = hostTableReaders.computeIfAbsent(host) { createHostReader(it) }
+                            reader.record(now)
+
+                            if (changeThreshold == null || reader.hasChanged(changeThreshold)) {
+                                monitor.record(reader)
+                                reader.reset()
+                            }
+                        }
+                    }
+
+                    if (recordServers) {
+                        for (server in service.servers) {
+                            val reader = serverTableReaders.computeIfAbsent(server) { createServerReader(it) }
+                            reader.record(now)
+
+                            if (changeThreshold == null || reader.hasChanged(changeThreshold)) {
+                                monitor.record(reader)
+                                reader.reset()
+                            }
+                        }
                     }
 
-                    for (server in service.servers) {
-                        val reader = serverTableReaders.computeIfAbsent(server) { ServerTableReaderImpl(service, it) }
-                        reader.record(now)
-                        monitor.record(reader)
-                        reader.reset()
+                    if (changeThreshold != null) {
+                        flushDirty()
                     }
 
-                    serviceTableReader.record(now)
-                    monitor.record(serviceTableReader)
+                    if (recordService) {
+                        serviceTableReader.record(now)
+                        monitor.record(serviceTableReader)
+                    }
                 } catch (cause: Throwable) {
                     logger.warn(cause) { "Exporter threw an Exception" }
                 }
             }
         } finally {
+            if (changeThreshold != null) {
+                for (host in hostTableReaders.keys) {
+                    host.removeListener(hostListener)
+                }
+            }
+
             if (monitor is AutoCloseable) {
                 monitor.close()
             }
         }
     }
 
+    /**
+     * Construct a [HostTableReaderImpl] for the specified [host].
+     */
+    private fun createHostReader(host: Host): HostTableReaderImpl {
+        if (changeThreshold != null) {
+            host.addListener(hostListener)
+        }
+
+        val isChangeBased = changeThreshold != null
+        return HostTableReaderImpl(host, projection.hostCpu || isChangeBased, projection.hostSystem || isChangeBased)
+    }
+
+    /**
+     * Construct a [ServerTableReaderImpl] for the specified [server].
+     */
+    private fun createServerReader(server: Server): ServerTableReaderImpl {
+        return ServerTableReaderImpl(service, server, projection.serverCpu || changeThreshold != null, projection.serverSystem)
+    }
+
+    /**
+     * Record the readers that received an event, but were not visited during the last cycle, because their entity
+     * was removed from the service.
+     */
+    private fun flushDirty() {
+        for (reader in dirtyHostReaders) {
+            if (reader.isPending) {
+                monitor.record(reader)
+                reader.reset()
+            }
+            reader.isPending = false
+        }
+        dirtyHostReaders.clear()
+
+        for (reader in dirtyServerReaders) {
+            if (reader.isPending) {
+                monitor.record(reader)
+                reader.reset()
+            }
+            reader.isPending = false
+        }
+        dirtyServerReaders.clear()
+    }
+
+    /**
+     * Record the intervals that have not been reported yet, such that the totals of the run are complete.
+     */
+    private fun flushPending() {
+        for (reader in hostTableReaders.values) {
+            if (reader.isPending) {
+                monitor.record(reader)
+                reader.reset()
+                reader.isPending = false
+            }
+        }
+
+        for (reader in serverTableReaders.values) {
+            if (reader.isPending) {
+                monitor.record(reader)
+                reader.reset()
+                reader.isPending = false
+            }
+        }
+    }
+
     override fun close() {
+        if (changeThreshold != null && job.isActive) {
+            // Report the pending intervals before the monitor is closed
+            flushPending()
+        }
+
         job.cancel()
     }
 
@@ -183,11 +344,20 @@ public class ComputeMetricReader(
 
     /**
      * An aggregator for host metrics before they are reported.
+     *
+     * @param readCpu A flag to indicate that the CPU statistics of the host should be obtained.
+     * @param readSystem A flag to indicate that the system statistics of the host should be obtained.
      */
-    private class HostTableReaderImpl(host: Host) : HostTableReader {
+    private class HostTableReaderImpl(
+        host: Host,
+        private val readCpu: Boolean,
+        private val readSystem: Boolean
+    ) : HostTableReader, EncodedHostId {
         private val _host = host
 
-        override val host: HostInfo = HostInfo(host.uid.toString(), host.name, "x86", host.model.cpuCount, host.model.memoryCapacity)
+        override val encodedHostId: Binary = host.uid.toBinary()
+
+        override val host: HostInfo = HostInfo(host.uid.toString(), host.name, "x86", host.model.cpuCount, host.model.memoryCapacity, host.meta)
 
         override val timestamp: Instant
             get() = _timestamp
@@ -268,31 +438,76 @@ public class ComputeMetricReader(
             get() = _bootTime
         private var _bootTime: Instant? = null
 
+        /**
+         * A flag to indicate that the host received an event since it was last recorded.
+         */
+        var isDirty = true
+
+        /**
+         * A flag to indicate that the host has sampled intervals that have not been recorded yet.
+         */
+        var isPending = false
+
+        /**
+         * The state of the host when it was last recorded, used to detect changes.
+         */
+        private var lastActiveTime = 0L
+        private var recordedActivity = 0L
+        private var recordedGuestsRunning = 0
+
+        /**
+         * Determine whether the host has changed since it was last recorded.
+         */
+        fun hasChanged(threshold: Double): Boolean {
+            val activity = _cpuActiveTime - lastActiveTime
+            lastActiveTime = _cpuActiveTime
+
+            val changed = isDirty ||
+                _guestsRunning != recordedGuestsRunning ||
+                isDeviating(activity, recordedActivity, threshold)
+
+            if (changed) {
+                isDirty = false
+                isPending = false
+                recordedActivity = activity
+                recordedGuestsRunning = _guestsRunning
+            } else {
+                isPending = true
+            }
+
+            return changed
+        }
+
         /**
          * Record the next cycle.
          */
         fun record(now: Instant) {
-            val hostCpuStats = _host.getCpuStats()
-            val hostSysStats = _host.getSystemStats()
-
             _timestamp = now
-            _guestsTerminated = hostSysStats.guestsTerminated
-            _guestsRunning = hostSysStats.guestsRunning
-            _guestsError = hostSysStats.guestsError
-            _guestsInvalid = hostSysStats.guestsInvalid
-            _cpuLimit = hostCpuStats.capacity
-            _cpuDemand = hostCpuStats.demand
-            _cpuUsage = hostCpuStats.usage
-            _cpuUtilization = hostCpuStats.utilization
-            _cpuActiveTime = hostCpuStats.activeTime
-            _cpuIdleTime = hostCpuStats.idleTime
-            _cpuStealTime = hostCpuStats.stealTime
-            _cpuLostTime = hostCpuStats.lostTime
-            _powerUsage = hostSysStats.powerUsage
-            _powerTotal = hostSysStats.energyUsage
-            _uptime = hostSysStats.uptime.toMillis()
-            _downtime = hostSysStats.downtime.toMillis()
-            _bootTime = hostSysStats.bootTime
+
+            if (readCpu) {
+                val hostCpuStats = _host.getCpuStats()
+                _cpuLimit = hostCpuStats.capacity
+                _cpuDemand = hostCpuStats.demand
+                _cpuUsage = hostCpuStats.usage
+                _cpuUtilization = hostCpuStats.utilization
+                _cpuActiveTime = hostCpuStats.activeTime
+                _cpuIdleTime = hostCpuStats.idleTime
+                _cpuStealTime = hostCpuStats.stealTime
+                _cpuLostTime = hostCpuStats.lostTime
+            }
+
+            if (readSystem) {
+                val hostSysStats = _host.getSystemStats()
+                _guestsTerminated = hostSysStats.guestsTerminated
+                _guestsRunning = hostSysStats.guestsRunning
+                _guestsError = hostSysStats.guestsError
+                _guestsInvalid = hostSysStats.guestsInvalid
+                _powerUsage = hostSysStats.powerUsage
+                _powerTotal = hostSysStats.energyUsage
+                _uptime = hostSysStats.uptime.toMillis()
+                _downtime = hostSysStats.downtime.toMillis()
+                _bootTime = hostSysStats.bootTime
+            }
         }
 
         /**
@@ -324,10 +539,20 @@ public class ComputeMetricReader(
 
     /**
      * An aggregator for server metrics before they are reported.
+     *
+     * @param readCpu A flag to indicate that the CPU statistics of the server should be obtained.
+     * @param readSystem A flag to indicate that the system statistics of the server should be obtained.
      */
-    private class ServerTableReaderImpl(private val service: ComputeService, server: Server) : ServerTableReader {
+    private class ServerTableReaderImpl(
+        private val service: ComputeService,
+        server: Server,
+        private val readCpu: Boolean,
+        private val readSystem: Boolean
+    ) : ServerTableReader, EncodedHostId, EncodedServerId {
         private val _server = server
 
+        override val encodedServerId: Binary = server.uid.toBinary()
+
         /**
          * The static information about this server.
          */
@@ -347,6 +572,8 @@ public class ComputeMetricReader(
          */
         override var host: HostInfo? = null
         private var _host: Host? = null
+        private var lastHostUid: UUID? = null
+        override var encodedHostId: Binary? = null
 
         private var _timestamp = Instant.MIN
         override val timestamp: Instant
@@ -394,18 +621,75 @@ public class ComputeMetricReader(
         private var _cpuLostTime = 0L
         private var previousCpuLostTime = 0L
 
+        /**
+         * A flag to indicate that the server received an event since it was last recorded.
+         */
+        var isDirty = true
+
+        /**
+         * A flag to indicate that the server has sampled intervals that have not been recorded yet.
+         */
+        var isPending = false
+
+        /**
+         * The state of the server when it was last recorded, used to detect changes.
+         */
+        private var lastActiveTime = 0L
+        private var recordedActivity = 0L
+        private var recordedHostUid: UUID? = null
+
+        /**
+         * Determine whether the server has changed since it was last recorded.
+         */
+        fun hasChanged(threshold: Double): Boolean {
+            val activity = _cpuActiveTime - lastActiveTime
+            lastActiveTime = _cpuActiveTime
+
+            val hostUid = _host?.uid
+            val changed = isDirty ||
+                hostUid != recordedHostUid ||
+                isDeviating(activity, recordedActivity, threshold)
+
+            if (changed) {
+                isDirty = false
+                isPending = false
+                recordedActivity = activity
+                recordedHostUid = hostUid
+            } else {
+                isPending = true
+            }
+
+            return changed
+        }
+
         /**
          * Record the next cycle.
          */
         fun record(now: Instant) {
             val newHost = service.lookupHost(_server)
-            if (newHost != null && newHost.uid != _host?.uid) {
+            if (newHost == null) {
+                _host = null
+            } else if (newHost.uid != _host?.uid) {
                 _host = newHost
-                host = HostInfo(newHost.uid.toString(), newHost.name, "x86", newHost.model.cpuCount, newHost.model.memoryCapacity)
+                host = HostInfo(newHost.uid.toString(), newHost.name, "x86", newHost.model.cpuCount, newHost.model.memoryCapacity, newHost.meta)
             }
 
-            val cpuStats = _host?.getCpuStats(_server)
-            val sysStats = _host?.getSystemStats(_server)
+            if (newHost != null && newHost.uid != lastHostUid) {
+                // The counters of a server restart when it is migrated to another host
+                if (lastHostUid != null) {
+                    previousUptime = 0
+                    previousDowntime = 0
+                    previousCpuActiveTime = 0
+                    previousCpuIdleTime = 0
+                    previousCpuStealTime = 0
+                    previousCpuLostTime = 0
+                }
+                lastHostUid = newHost.uid
+                encodedHostId = newHost.uid.toBinary()
+            }
+
+            val cpuStats = if (readCpu) _host?.getCpuStats(_server) else null
+            val sysStats = if (readSystem) _host?.getSystemStats(_server) else null
 
             _timestamp = now
             _cpuLimit = cpuStats?.capacity ?: 0.0
@@ -434,4 +718,14 @@ public class ComputeMetricReader(
             _cpuLimit = 0.0
         }
     }
+
+    private companion object {
+        /**
+         * Determine whether the CPU [activity] during the last interval deviates relatively more than [threshold] from
+         * the [recorded] activity.
+         */
+        fun isDeviating(activity: Long, recorded: Long, threshold: Double): Boolean {
+            return abs(activity - recorded) > threshold * max(abs(activity), abs(recorded))
+        }
+    }
 }
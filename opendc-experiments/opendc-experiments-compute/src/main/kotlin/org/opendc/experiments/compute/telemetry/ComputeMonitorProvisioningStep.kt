@@ -34,11 +34,13 @@ import java.time.Duration
 public class ComputeMonitorProvisioningStep internal constructor(
     private val serviceDomain: String,
     private val monitor: ComputeMonitor,
-    private val exportInterval: Duration
+    private val exportInterval: Duration,
+    private val changeThreshold: Double?,
+    private val projection: TelemetryProjection
 ) : ProvisioningStep {
     override fun apply(ctx: ProvisioningContext): AutoCloseable {
         val service = requireNotNull(ctx.registry.resolve(serviceDomain, ComputeService::class.java)) { "Compute service $serviceDomain does not exist" }
-        val metricReader = ComputeMetricReader(ctx.dispatcher, service, monitor, exportInterval)
+        val metricReader = ComputeMetricReader(ctx.dispatcher, service, monitor, exportInterval, changeThreshold, projection)
         return AutoCloseable { metricReader.close() }
     }
 }
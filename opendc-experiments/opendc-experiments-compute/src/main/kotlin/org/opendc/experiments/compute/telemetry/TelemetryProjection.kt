@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry
+
+import org.opendc.experiments.compute.telemetry.table.HostColumn
+import org.opendc.experiments.compute.telemetry.table.ServerColumn
+import org.opendc.experiments.compute.telemetry.table.ServiceColumn
+import org.opendc.experiments.compute.telemetry.table.StatsSource
+import java.util.EnumSet
+
+/**
+ * A selection of the columns of the host, server and service tables that an experiment requires.
+ *
+ * The [ComputeMetricReader] only obtains the statistics of hosts and servers that are needed for the selected columns,
+ * and the writers only write the selected columns. The values of the columns that are not selected are reported as
+ * zero (or `null`) by the table readers. A table for which no column is selected is not reported at all.
+ *
+ * @property host The selected columns of the host table.
+ * @property server The selected columns of the server table.
+ * @property service The selected columns of the service table.
+ */
+public data class TelemetryProjection(
+    val host: Set<HostColumn> = EnumSet.allOf(HostColumn::class.java),
+    val server: Set<ServerColumn> = EnumSet.allOf(ServerColumn::class.java),
+    val service: Set<ServiceColumn> = EnumSet.allOf(ServiceColumn::class.java)
+) {
+    /**
+     * A flag to indicate that the CPU statistics of hosts are required.
+     */
+    internal val hostCpu: Boolean = host.any { it.source == StatsSource.CPU }
+
+    /**
+     * A flag to indicate that the system statistics of hosts are required.
+     */
+    internal val hostSystem: Boolean = host.any { it.source == StatsSource.SYSTEM }
+
+    /**
+     * A flag to indicate that the CPU statistics of servers are required.
+     */
+    internal val serverCpu: Boolean = server.any { it.source == StatsSource.CPU }
+
+    /**
+     * A flag to indicate that the system statistics of servers are required.
+     */
+    internal val serverSystem: Boolean = server.any { it.source == StatsSource.SYSTEM }
+
+    public companion object {
+        /**
+         * A [TelemetryProjection] that selects all columns.
+         */
+        @JvmField
+        public val ALL: TelemetryProjection = TelemetryProjection()
+
+        /**
+         * Construct a [TelemetryProjection] that only selects the specified host columns and no server columns.
+         */
+        @JvmStatic
+        public fun hosts(vararg columns: HostColumn): TelemetryProjection {
+            return TelemetryProjection(
+                host = EnumSet.noneOf(HostColumn::class.java).apply { addAll(columns) },
+                server = EnumSet.noneOf(ServerColumn::class.java)
+            )
+        }
+    }
+}
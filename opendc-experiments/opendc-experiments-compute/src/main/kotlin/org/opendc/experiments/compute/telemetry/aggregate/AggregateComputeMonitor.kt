@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+import org.opendc.experiments.compute.export.parquet.ParquetHostAggregateWriter
+import org.opendc.experiments.compute.telemetry.ComputeMonitor
+import org.opendc.experiments.compute.telemetry.table.HostInfo
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.experiments.compute.telemetry.table.ServiceData
+import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
+import org.opendc.experiments.compute.telemetry.table.toServiceData
+import java.io.File
+import java.util.IdentityHashMap
+
+/**
+ * A [ComputeMonitor] that aggregates the host metrics in place instead of exporting a row per host every interval.
+ *
+ * Hosts are partitioned into groups using [groupBy], for which the configured [rollups] are maintained using primitive
+ * accumulators. The aggregates can be obtained at any point during or after the simulation using [collect]. When an
+ * [output] file is given, the aggregates are written to it as Parquet when the monitor is closed.
+ *
+ * @param rollups The rollups to compute for each group.
+ * @param groupBy A function to determine the group of a host, e.g., [byCluster].
+ * @param compression The compression factor of the t-digests used to estimate the quantiles.
+ * @param output The file to write the aggregates to on [close], or `null` to only keep them in memory.
+ */
+public class AggregateComputeMonitor(
+    rollups: List<HostRollup>,
+    private val groupBy: (HostInfo) -> String = { ALL },
+    private val compression: Double = 100.0,
+    private val output: File? = null
+) : ComputeMonitor, AutoCloseable {
+    /**
+     * The rollups to compute for each group.
+     */
+    private val rollups = rollups.toTypedArray()
+
+    /**
+     * The metrics to aggregate, in the order of [rollups].
+     */
+    private val metrics = Array(this.rollups.size) { this.rollups[it].metric }
+
+    /**
+     * The accumulators of each group by the group name.
+     */
+    private val groups = LinkedHashMap<String, Group>()
+
+    /**
+     * A cache of the group of each host. The [HostInfo] of a host is stable between intervals, so an identity lookup
+     * suffices.
+     */
+    private val groupByHost = IdentityHashMap<HostInfo, Group>()
+
+    /**
+     * The most recent data of the compute service.
+     */
+    public var service: ServiceData? = null
+        private set
+
+    override fun record(reader: HostTableReader) {
+        val group = groupByHost.getOrPut(reader.host) {
+            groups.getOrPut(groupBy(reader.host)) { Group() }
+        }
+
+        val metrics = metrics
+        val sum = group.sum
+        val min = group.min
+        val max = group.max
+        val digests = group.digests
+
+        for (i in metrics.indices) {
+            val value = metrics[i].get(reader)
+
+            sum[i] += value
+            if (value < min[i]) {
+                min[i] = value
+            }
+            if (value > max[i]) {
+                max[i] = value
+            }
+            digests[i]?.add(value)
+        }
+
+        group.count++
+    }
+
+    override fun record(reader: ServiceTableReader) {
+        service = reader.toServiceData()
+    }
+
+    /**
+     * Collect the current aggregates of each group, ordered by group and then by the order of the rollups.
+     */
+    public fun collect(): List<HostAggregate> {
+        val result = ArrayList<HostAggregate>(groups.size * rollups.size)
+
+        for ((name, group) in groups) {
+            for ((i, rollup) in rollups.withIndex()) {
+                val digest = group.digests[i]
+                val quantiles = if (digest != null) rollup.quantiles.associateWith { digest.quantile(it) } else emptyMap()
+
+                result += HostAggregate(name, rollup.metric, group.count, group.sum[i], group.min[i], group.max[i], quantiles)
+            }
+        }
+
+        return result
+    }
+
+    /**
+     * Write the aggregates to the [output] file, if configured.
+     */
+    override fun close() {
+        if (output != null) {
+            ParquetHostAggregateWriter(output).write(collect())
+        }
+    }
+
+    /**
+     * The accumulators for a single group of hosts.
+     */
+    private inner class Group {
+        var count = 0L
+        val sum = DoubleArray(rollups.size)
+        val min = DoubleArray(rollups.size) { Double.POSITIVE_INFINITY }
+        val max = DoubleArray(rollups.size) { Double.NEGATIVE_INFINITY }
+        val digests = Array(rollups.size) { if (rollups[it].quantiles.isEmpty()) null else TDigest(compression) }
+    }
+
+    public companion object {
+        /**
+         * The name of the group that contains all hosts.
+         */
+        public const val ALL: String = "all"
+
+        /**
+         * Group the hosts by the cluster to which they belong.
+         */
+        @JvmField
+        public val byCluster: (HostInfo) -> String = { host -> host.meta["cluster"]?.toString() ?: ALL }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+/**
+ * The aggregated value of a [HostMetric] over a group of hosts for the duration of a run.
+ *
+ * @param group The group of hosts that is aggregated.
+ * @param metric The metric that is aggregated.
+ * @param count The number of samples that were aggregated.
+ * @param sum The sum of the samples.
+ * @param min The minimum of the samples.
+ * @param max The maximum of the samples.
+ * @param quantiles The estimated quantiles of the samples.
+ */
+public data class HostAggregate(
+    val group: String,
+    val metric: HostMetric,
+    val count: Long,
+    val sum: Double,
+    val min: Double,
+    val max: Double,
+    val quantiles: Map<Double, Double>
+) {
+    /**
+     * The mean of the samples.
+     */
+    val mean: Double
+        get() = if (count > 0) sum / count else 0.0
+}
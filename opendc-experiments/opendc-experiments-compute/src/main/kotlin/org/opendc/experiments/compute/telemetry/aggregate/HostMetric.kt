@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+
+/**
+ * A host metric that can be aggregated by the [AggregateComputeMonitor].
+ */
+public enum class HostMetric {
+    /**
+     * The duration (in seconds) that a CPU was active in the host.
+     */
+    CPU_ACTIVE_TIME {
+        override fun get(reader: HostTableReader): Double = reader.cpuActiveTime.toDouble()
+    },
+
+    /**
+     * The duration (in seconds) that a CPU was idle in the host.
+     */
+    CPU_IDLE_TIME {
+        override fun get(reader: HostTableReader): Double = reader.cpuIdleTime.toDouble()
+    },
+
+    /**
+     * The duration (in seconds) that a vCPU wanted to run, but no capacity was available (overcommitted CPU time).
+     */
+    CPU_STEAL_TIME {
+        override fun get(reader: HostTableReader): Double = reader.cpuStealTime.toDouble()
+    },
+
+    /**
+     * The duration (in seconds) of CPU time that was lost due to interference.
+     */
+    CPU_LOST_TIME {
+        override fun get(reader: HostTableReader): Double = reader.cpuLostTime.toDouble()
+    },
+
+    /**
+     * The CPU usage of the host (in MHz).
+     */
+    CPU_USAGE {
+        override fun get(reader: HostTableReader): Double = reader.cpuUsage
+    },
+
+    /**
+     * The CPU demand of the host (in MHz).
+     */
+    CPU_DEMAND {
+        override fun get(reader: HostTableReader): Double = reader.cpuDemand
+    },
+
+    /**
+     * The CPU utilization of the host.
+     */
+    CPU_UTILIZATION {
+        override fun get(reader: HostTableReader): Double = reader.cpuUtilization
+    },
+
+    /**
+     * The power usage of the host (in W).
+     */
+    POWER_USAGE {
+        override fun get(reader: HostTableReader): Double = reader.powerUsage
+    },
+
+    /**
+     * The energy consumption of the host since the previous interval (in J).
+     */
+    POWER_TOTAL {
+        override fun get(reader: HostTableReader): Double = reader.powerTotal
+    },
+
+    /**
+     * The number of guests running on the host.
+     */
+    GUESTS_RUNNING {
+        override fun get(reader: HostTableReader): Double = reader.guestsRunning.toDouble()
+    },
+
+    /**
+     * The duration (in seconds) that the host was down.
+     */
+    DOWNTIME {
+        override fun get(reader: HostTableReader): Double = reader.downtime.toDouble()
+    };
+
+    /**
+     * Obtain the value of this metric from the specified [reader].
+     */
+    public abstract fun get(reader: HostTableReader): Double
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+/**
+ * A rollup of a [HostMetric] computed by the [AggregateComputeMonitor].
+ *
+ * The sum, minimum, maximum and mean of the metric are always computed. Quantiles are estimated using a t-digest per
+ * group, which is only maintained if [quantiles] is not empty.
+ *
+ * @param metric The metric to aggregate.
+ * @param quantiles The quantiles in [0, 1] to estimate for the metric.
+ */
+public data class HostRollup(val metric: HostMetric, val quantiles: List<Double> = emptyList()) {
+    init {
+        require(quantiles.all { it in 0.0..1.0 }) { "Quantiles must be in [0, 1]" }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+import kotlin.math.PI
+import kotlin.math.asin
+import kotlin.math.ceil
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sin
+
+/**
+ * A merging t-digest for estimating quantiles of a stream of values in bounded memory.
+ *
+ * Values are collected in a buffer, which is sorted and merged into the centroids of the digest once it is full. The
+ * size of the centroids is bounded by the arcsine scale function, which keeps the centroids small near the tails of
+ * the distribution where the accuracy matters most. All state is stored in primitive arrays, such that adding a value
+ * does not allocate.
+ *
+ * @param compression The compression factor of the digest, which bounds the number of centroids.
+ */
+internal class TDigest(private val compression: Double = 100.0) {
+    init {
+        require(compression >= 10.0) { "Compression must be at least 10" }
+    }
+
+    /**
+     * The means and weights of the merged centroids, sorted by mean.
+     */
+    private var means = DoubleArray(ceil(compression).toInt() * 2 + 8)
+    private var weights = DoubleArray(means.size)
+    private var centroidCount = 0
+
+    /**
+     * Scratch space for the merge of the buffer and the centroids.
+     */
+    private var mergeMeans = DoubleArray(means.size)
+    private var mergeWeights = DoubleArray(means.size)
+
+    /**
+     * The values that have not been merged yet.
+     */
+    private val buffer = DoubleArray(ceil(compression).toInt() * 5)
+    private var bufferSize = 0
+
+    /**
+     * The total weight of the merged centroids.
+     */
+    private var mergedWeight = 0.0
+
+    /**
+     * The exact minimum and maximum of the values.
+     */
+    private var minValue = Double.POSITIVE_INFINITY
+    private var maxValue = Double.NEGATIVE_INFINITY
+
+    /**
+     * The number of values added to the digest.
+     */
+    val count: Long
+        get() = mergedWeight.toLong() + bufferSize
+
+    /**
+     * Add the specified [value] to the digest.
+     */
+    fun add(value: Double) {
+        if (value.isNaN()) {
+            return
+        }
+
+        if (bufferSize == buffer.size) {
+            merge()
+        }
+
+        buffer[bufferSize++] = value
+        minValue = min(minValue, value)
+        maxValue = max(maxValue, value)
+    }
+
+    /**
+     * Estimate the value at quantile [q] of the values added to the digest, or `NaN` if the digest is empty.
+     */
+    fun quantile(q: Double): Double {
+        require(q in 0.0..1.0) { "Quantile must be in [0, 1]" }
+
+        merge()
+
+        val n = centroidCount
+        if (n == 0) {
+            return Double.NaN
+        } else if (n == 1) {
+            return means[0]
+        }
+
+        val means = means
+        val weights = weights
+        val total = mergedWeight
+        val target = q * total
+
+        // Interpolate between the extremes and the centers of the outer centroids
+        if (target < weights[0] / 2) {
+            return minValue + (means[0] - minValue) * (target / (weights[0] / 2))
+        } else if (target > total - weights[n - 1] / 2) {
+            val tail = total - target
+            return maxValue - (maxValue - means[n - 1]) * (tail / (weights[n - 1] / 2))
+        }
+
+        var cumulative = weights[0] / 2
+        for (i in 0 until n - 1) {
+            val gap = (weights[i] + weights[i + 1]) / 2
+            if (cumulative + gap >= target) {
+                val fraction = (target - cumulative) / gap
+                return means[i] + (means[i + 1] - means[i]) * fraction
+            }
+            cumulative += gap
+        }
+
+        return means[n - 1]
+    }
+
+    /**
+     * Merge the buffered values into the centroids of the digest.
+     */
+    private fun merge() {
+        val bufferSize = bufferSize
+        if (bufferSize == 0) {
+            return
+        }
+
+        val buffer = buffer
+        buffer.sort(0, bufferSize)
+
+        val means = means
+        val weights = weights
+        val outMeans = mergeMeans
+        val outWeights = mergeWeights
+        val total = mergedWeight + bufferSize
+
+        var out = 0
+        var curMean = 0.0
+        var curWeight = 0.0
+        var weightSoFar = 0.0
+        var weightLimit = total * q(k(0.0) + 1)
+
+        var i = 0
+        var j = 0
+        val n = centroidCount
+
+        while (i < bufferSize || j < n) {
+            val mean: Double
+            val weight: Double
+            if (j >= n || (i < bufferSize && buffer[i] < means[j])) {
+                mean = buffer[i++]
+                weight = 1.0
+            } else {
+                mean = means[j]
+                weight = weights[j++]
+            }
+
+            if (curWeight == 0.0) {
+                curMean = mean
+                curWeight = weight
+            } else if (weightSoFar + curWeight + weight <= weightLimit) {
+                curWeight += weight
+                curMean += (mean - curMean) * weight / curWeight
+            } else {
+                outMeans[out] = curMean
+                outWeights[out] = curWeight
+                out++
+
+                weightSoFar += curWeight
+                weightLimit = total * q(k(weightSoFar / total) + 1)
+                curMean = mean
+                curWeight = weight
+            }
+        }
+
+        outMeans[out] = curMean
+        outWeights[out] = curWeight
+        out++
+
+        // Swap the centroids with the scratch space
+        mergeMeans = means
+        mergeWeights = weights
+        this.means = outMeans
+        this.weights = outWeights
+
+        centroidCount = out
+        mergedWeight = total
+        this.bufferSize = 0
+    }
+
+    /**
+     * The arcsine scale function that maps a quantile to the index space of the centroids.
+     */
+    private fun k(q: Double): Double = compression / (2 * PI) * asin(2 * q - 1)
+
+    /**
+     * The inverse of the scale function [k].
+     */
+    private fun q(k: Double): Double {
+        val x = k * 2 * PI / compression
+        return if (x >= PI / 2) 1.0 else (sin(x) + 1) / 2
+    }
+}
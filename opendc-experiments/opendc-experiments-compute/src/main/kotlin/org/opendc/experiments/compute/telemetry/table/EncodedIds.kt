@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.table
+
+import org.apache.parquet.io.api.Binary
+
+/**
+ * A [HostTableReader] or [ServerTableReader] that carries the identifier of its host, encoded once as a Parquet
+ * [Binary] when the host of the reader is set, instead of for every exported row.
+ */
+internal interface EncodedHostId {
+    /**
+     * The identifier of the host of the row encoded as [Binary], or `null` if the row has no host.
+     */
+    val encodedHostId: Binary?
+}
+
+/**
+ * A [ServerTableReader] that carries the identifier of its server, encoded once as a Parquet [Binary] when the reader
+ * is created, instead of for every exported row.
+ */
+internal interface EncodedServerId {
+    /**
+     * The identifier of the server of the row encoded as [Binary].
+     */
+    val encodedServerId: Binary
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.table
+
+/**
+ * The columns of the host table that can be selected in a
+ * [TelemetryProjection][org.opendc.experiments.compute.telemetry.TelemetryProjection].
+ *
+ * The timestamp and the host identifier are part of every row and cannot be deselected.
+ *
+ * @property columnName The name of the column in the exported tables.
+ */
+public enum class HostColumn(public val columnName: String, internal val source: StatsSource) {
+    UPTIME("uptime", StatsSource.SYSTEM),
+    DOWNTIME("downtime", StatsSource.SYSTEM),
+    BOOT_TIME("boot_time", StatsSource.SYSTEM),
+    CPU_COUNT("cpu_count", StatsSource.STATIC),
+    CPU_LIMIT("cpu_limit", StatsSource.CPU),
+    CPU_USAGE("cpu_usage", StatsSource.CPU),
+    CPU_DEMAND("cpu_demand", StatsSource.CPU),
+    CPU_UTILIZATION("cpu_utilization", StatsSource.CPU),
+    CPU_TIME_ACTIVE("cpu_time_active", StatsSource.CPU),
+    CPU_TIME_IDLE("cpu_time_idle", StatsSource.CPU),
+    CPU_TIME_STEAL("cpu_time_steal", StatsSource.CPU),
+    CPU_TIME_LOST("cpu_time_lost", StatsSource.CPU),
+    MEM_LIMIT("mem_limit", StatsSource.STATIC),
+    POWER_USAGE("power_usage", StatsSource.SYSTEM),
+    POWER_TOTAL("power_total", StatsSource.SYSTEM),
+    GUESTS_TERMINATED("guests_terminated", StatsSource.SYSTEM),
+    GUESTS_RUNNING("guests_running", StatsSource.SYSTEM),
+    GUESTS_ERROR("guests_error", StatsSource.SYSTEM),
+    GUESTS_INVALID("guests_invalid", StatsSource.SYSTEM)
+}
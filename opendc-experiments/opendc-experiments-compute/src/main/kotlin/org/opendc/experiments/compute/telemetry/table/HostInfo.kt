@@ -24,5 +24,14 @@ package org.opendc.experiments.compute.telemetry.table
 
 /**
  * Information about a host exposed to the telemetry service.
+ *
+ * @param meta The metadata of the host, such as the cluster to which it belongs.
  */
-public data class HostInfo(val id: String, val name: String, val arch: String, val cpuCount: Int, val memCapacity: Long)
+public data class HostInfo(
+    val id: String,
+    val name: String,
+    val arch: String,
+    val cpuCount: Int,
+    val memCapacity: Long,
+    val meta: Map<String, Any?> = emptyMap()
+)
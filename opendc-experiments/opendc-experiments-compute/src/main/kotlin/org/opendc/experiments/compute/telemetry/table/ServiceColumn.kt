@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.table
+
+/**
+ * The columns of the service table that can be selected in a
+ * [TelemetryProjection][org.opendc.experiments.compute.telemetry.TelemetryProjection].
+ *
+ * The timestamp is part of every row and cannot be deselected.
+ *
+ * @property columnName The name of the column in the exported tables.
+ */
+public enum class ServiceColumn(public val columnName: String) {
+    HOSTS_UP("hosts_up"),
+    HOSTS_DOWN("hosts_down"),
+    SERVERS_TOTAL("servers_total"),
+    SERVERS_PENDING("servers_pending"),
+    SERVERS_ACTIVE("servers_active"),
+    ATTEMPTS_SUCCESS("attempts_success"),
+    ATTEMPTS_FAILURE("attempts_failure"),
+    ATTEMPTS_ERROR("attempts_error")
+}
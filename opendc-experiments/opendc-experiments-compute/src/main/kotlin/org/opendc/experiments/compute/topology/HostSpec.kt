@@ -22,6 +22,7 @@
 
 package org.opendc.experiments.compute.topology
 
+import org.opendc.compute.simulator.SimHostPowerModel
 import org.opendc.simulator.compute.SimPsuFactories
 import org.opendc.simulator.compute.SimPsuFactory
 import org.opendc.simulator.compute.model.MachineModel
@@ -37,6 +38,8 @@ import java.util.UUID
  * @param model The physical model of the machine.
  * @param psuFactory The [SimPsuFactory] to construct the PSU that models the power consumption of the machine.
  * @param multiplexerFactory The [FlowMultiplexerFactory] that is used to multiplex the virtual machines over the host.
+ * @param powerModel The [SimHostPowerModel] describing the low-power states of the host or `null` if the host cannot be
+ * powered down.
  */
 public data class HostSpec(
     val uid: UUID,
@@ -44,5 +47,6 @@ public data class HostSpec(
     val meta: Map<String, Any>,
     val model: MachineModel,
     val psuFactory: SimPsuFactory = SimPsuFactories.noop(),
-    val multiplexerFactory: FlowMultiplexerFactory = FlowMultiplexerFactory.maxMinMultiplexer()
+    val multiplexerFactory: FlowMultiplexerFactory = FlowMultiplexerFactory.maxMinMultiplexer(),
+    val powerModel: SimHostPowerModel? = null
 )
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.arrow
+
+import org.apache.arrow.compression.CommonsCompressionFactory
+import org.apache.arrow.memory.RootAllocator
+import org.apache.arrow.vector.BigIntVector
+import org.apache.arrow.vector.FixedSizeBinaryVector
+import org.apache.arrow.vector.TimeStampMilliTZVector
+import org.apache.arrow.vector.ipc.ArrowFileReader
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.experiments.compute.telemetry.table.HostInfo
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.time.Instant
+import java.util.UUID
+
+/**
+ * Test suite for [ArrowHostDataWriter]
+ */
+class ArrowHostDataWriterTest {
+    /**
+     * The path to write the data file to.
+     */
+    private val path = Files.createTempFile("opendc", "arrow")
+
+    @AfterEach
+    fun tearDown() {
+        Files.deleteIfExists(path)
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    fun testRoundTrip(compression: Boolean) {
+        val id = UUID.randomUUID()
+        val reader = object : HostTableReader {
+            override var timestamp: Instant = Instant.EPOCH
+            override val host: HostInfo = HostInfo(id.toString(), "test", "x86", 4, 4096)
+            override val guestsTerminated: Int = 0
+            override val guestsRunning: Int = 0
+            override val guestsError: Int = 0
+            override val guestsInvalid: Int = 0
+            override val cpuLimit: Double = 4096.0
+            override val cpuUsage: Double = 1.0
+            override val cpuDemand: Double = 1.0
+            override val cpuUtilization: Double = 0.0
+            override var cpuActiveTime: Long = 0
+            override val cpuIdleTime: Long = 1
+            override val cpuStealTime: Long = 1
+            override val cpuLostTime: Long = 1
+            override val powerUsage: Double = 1.0
+            override val powerTotal: Double = 1.0
+            override val uptime: Long = 1
+            override val downtime: Long = 1
+            override val bootTime: Instant? = null
+        }
+
+        // Use a small batch size to write multiple record batches
+        ArrowHostDataWriter(path.toFile(), compression, batchSize = 4).use { writer ->
+            for (i in 0 until 10) {
+                reader.timestamp = Instant.ofEpochMilli(i.toLong())
+                reader.cpuActiveTime = i * 10L
+                writer.write(reader)
+            }
+        }
+
+        val timestamps = mutableListOf<Long>()
+        val activeTimes = mutableListOf<Long>()
+        val ids = mutableSetOf<UUID>()
+        var bootTimeNulls = 0
+
+        RootAllocator().use { allocator ->
+            ArrowFileReader(FileChannel.open(path), allocator, CommonsCompressionFactory.INSTANCE).use { fileReader ->
+                val root = fileReader.vectorSchemaRoot
+                val timestamp = root.getVector("timestamp") as TimeStampMilliTZVector
+                val hostId = root.getVector("host_id") as FixedSizeBinaryVector
+                val activeTime = root.getVector("cpu_time_active") as BigIntVector
+                val bootTime = root.getVector("boot_time")
+
+                while (fileReader.loadNextBatch()) {
+                    for (i in 0 until root.rowCount) {
+                        timestamps.add(timestamp.get(i))
+                        activeTimes.add(activeTime.get(i))
+
+                        val bb = ByteBuffer.wrap(hostId.get(i))
+                        ids.add(UUID(bb.getLong(), bb.getLong()))
+
+                        if (bootTime.isNull(i)) {
+                            bootTimeNulls++
+                        }
+                    }
+                }
+            }
+        }
+
+        assertAll(
+            { assertEquals((0 until 10L).toList(), timestamps) },
+            { assertEquals((0 until 10L).map { it * 10 }, activeTimes) },
+            { assertEquals(setOf(id), ids) },
+            { assertEquals(10, bootTimeNulls) },
+            { assertTrue(Files.size(path) > 0) }
+        )
+    }
+}
@@ -22,13 +22,19 @@
 
 package org.opendc.experiments.compute.export.parquet
 
+import org.apache.parquet.hadoop.example.GroupReadSupport
 import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertDoesNotThrow
+import org.opendc.experiments.compute.telemetry.table.HostColumn
 import org.opendc.experiments.compute.telemetry.table.HostInfo
 import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.trace.util.parquet.LocalParquetReader
+import java.nio.ByteBuffer
 import java.nio.file.Files
 import java.time.Instant
+import java.util.UUID
 
 /**
  * Test suite for [ParquetHostDataWriter]
@@ -76,4 +82,104 @@ class HostDataWriterTest {
             })
         }
     }
+
+    @Test
+    fun testHostIds() {
+        val ids = List(3) { UUID.randomUUID() }
+        val hosts = ids.map { HostInfo(it.toString(), "test", "x86", 4, 4096) }
+        val reader = object : HostTableReader {
+            override val timestamp: Instant = Instant.now()
+            override var host: HostInfo = hosts[0]
+            override val guestsTerminated: Int = 0
+            override val guestsRunning: Int = 0
+            override val guestsError: Int = 0
+            override val guestsInvalid: Int = 0
+            override val cpuLimit: Double = 4096.0
+            override val cpuUsage: Double = 1.0
+            override val cpuDemand: Double = 1.0
+            override val cpuUtilization: Double = 0.0
+            override val cpuActiveTime: Long = 1
+            override val cpuIdleTime: Long = 1
+            override val cpuStealTime: Long = 1
+            override val cpuLostTime: Long = 1
+            override val powerUsage: Double = 1.0
+            override val powerTotal: Double = 1.0
+            override val uptime: Long = 1
+            override val downtime: Long = 1
+            override val bootTime: Instant? = null
+        }
+
+        val otherPath = Files.createTempFile("opendc", "parquet")
+
+        try {
+            // Write every host multiple times to exercise the reuse of the encoded identifiers
+            ParquetHostDataWriter(otherPath.toFile(), bufferSize = 4).use { writer ->
+                repeat(3) {
+                    for (host in hosts) {
+                        reader.host = host
+                        writer.write(reader)
+                    }
+                }
+            }
+
+            val result = mutableListOf<UUID>()
+            LocalParquetReader(otherPath, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    val bb = ByteBuffer.wrap(group.getBinary("host_id", 0).bytes)
+                    result.add(UUID(bb.getLong(), bb.getLong()))
+                }
+            }
+
+            assertEquals(ids + ids + ids, result)
+        } finally {
+            Files.deleteIfExists(otherPath)
+        }
+    }
+
+    @Test
+    fun testProjection() {
+        val reader = object : HostTableReader {
+            override val timestamp: Instant = Instant.ofEpochMilli(1000)
+            override val host: HostInfo = HostInfo(UUID.randomUUID().toString(), "test", "x86", 4, 4096)
+            override val guestsTerminated: Int = 0
+            override val guestsRunning: Int = 0
+            override val guestsError: Int = 0
+            override val guestsInvalid: Int = 0
+            override val cpuLimit: Double = 4096.0
+            override val cpuUsage: Double = 1.0
+            override val cpuDemand: Double = 1.0
+            override val cpuUtilization: Double = 0.0
+            override val cpuActiveTime: Long = 1
+            override val cpuIdleTime: Long = 1
+            override val cpuStealTime: Long = 1
+            override val cpuLostTime: Long = 1
+            override val powerUsage: Double = 1.0
+            override val powerTotal: Double = 2.0
+            override val uptime: Long = 1
+            override val downtime: Long = 1
+            override val bootTime: Instant? = null
+        }
+
+        val otherPath = Files.createTempFile("opendc", "parquet")
+
+        try {
+            val columns = setOf(HostColumn.CPU_TIME_ACTIVE, HostColumn.POWER_TOTAL, HostColumn.POWER_USAGE)
+            ParquetHostDataWriter(otherPath.toFile(), bufferSize = 4, columns = columns).use { writer ->
+                writer.write(reader)
+            }
+
+            LocalParquetReader(otherPath, GroupReadSupport()).use { parquetReader ->
+                val group = checkNotNull(parquetReader.read())
+                val fields = group.type.fields.map { it.name }
+
+                assertEquals(listOf("timestamp", "host_id", "cpu_time_active", "power_total"), fields)
+                assertEquals(1000L, group.getLong("timestamp", 0))
+                assertEquals(1L, group.getLong("cpu_time_active", 0))
+                assertEquals(2.0, group.getDouble("power_total", 0))
+            }
+        } finally {
+            Files.deleteIfExists(otherPath)
+        }
+    }
 }
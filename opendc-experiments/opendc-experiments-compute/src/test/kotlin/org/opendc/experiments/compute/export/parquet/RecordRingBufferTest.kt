@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+/**
+ * Test suite for [RecordRingBuffer].
+ */
+class RecordRingBufferTest {
+    @Test
+    fun testCapacity() {
+        assertEquals(1, RecordRingBuffer(8, 1).capacity)
+        assertEquals(4, RecordRingBuffer(8, 3).capacity)
+        assertEquals(4, RecordRingBuffer(8, 4).capacity)
+    }
+
+    @Test
+    fun testFull() {
+        val ring = RecordRingBuffer(8, 2)
+
+        repeat(2) {
+            ring.claim()
+            ring.publish()
+        }
+
+        assertEquals(-1, ring.claim())
+        assertEquals(2, ring.size)
+
+        ring.release(1)
+        assertEquals(0, ring.claim())
+    }
+
+    @Test
+    fun testWrapAround() {
+        val ring = RecordRingBuffer(8, 4)
+        val result = mutableListOf<Long>()
+
+        for (i in 0 until 10L) {
+            val offset = ring.claim()
+            ring.buffer.putLong(offset, i)
+            ring.publish()
+
+            if (i % 3 == 2L) {
+                val n = ring.available()
+                for (j in 0 until n) {
+                    result.add(ring.buffer.getLong(ring.offset(j)))
+                }
+                ring.release(n)
+            }
+        }
+
+        val n = ring.available()
+        for (j in 0 until n) {
+            result.add(ring.buffer.getLong(ring.offset(j)))
+        }
+        ring.release(n)
+
+        assertEquals((0 until 10L).toList(), result)
+        assertEquals(0, ring.size)
+    }
+}
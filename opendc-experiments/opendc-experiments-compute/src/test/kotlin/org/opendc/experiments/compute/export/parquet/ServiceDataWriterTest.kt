@@ -22,10 +22,13 @@
 
 package org.opendc.experiments.compute.export.parquet
 
+import org.apache.parquet.hadoop.example.GroupReadSupport
 import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertDoesNotThrow
 import org.opendc.experiments.compute.telemetry.table.ServiceTableReader
+import org.opendc.trace.util.parquet.LocalParquetReader
 import java.nio.file.Files
 import java.time.Instant
 
@@ -65,4 +68,167 @@ class ServiceDataWriterTest {
             })
         }
     }
+
+    @Test
+    fun testReuseReader() {
+        val reader = object : ServiceTableReader {
+            override var timestamp: Instant = Instant.EPOCH
+            override val hostsUp: Int = 1
+            override val hostsDown: Int = 0
+            override val serversTotal: Int = 1
+            override val serversPending: Int = 1
+            override val serversActive: Int = 1
+            override val attemptsSuccess: Int = 1
+            override val attemptsFailure: Int = 0
+            override val attemptsError: Int = 0
+        }
+
+        val otherPath = Files.createTempFile("opendc", "parquet")
+
+        try {
+            // Use a small buffer to exercise the hand-over of records to the writer thread
+            ParquetServiceDataWriter(otherPath.toFile(), bufferSize = 4).use { writer ->
+                for (i in 0 until 10) {
+                    reader.timestamp = Instant.ofEpochMilli(i.toLong())
+                    writer.write(reader)
+                }
+            }
+
+            val timestamps = mutableListOf<Long>()
+            LocalParquetReader(otherPath, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    timestamps.add(group.getLong("timestamp", 0))
+                }
+            }
+
+            assertEquals((0 until 10L).toList(), timestamps)
+        } finally {
+            Files.deleteIfExists(otherPath)
+        }
+    }
+
+    @Test
+    fun testSpill() {
+        val reader = object : ServiceTableReader {
+            override var timestamp: Instant = Instant.EPOCH
+            override val hostsUp: Int = 1
+            override val hostsDown: Int = 0
+            override val serversTotal: Int = 1
+            override val serversPending: Int = 1
+            override val serversActive: Int = 1
+            override val attemptsSuccess: Int = 1
+            override val attemptsFailure: Int = 0
+            override val attemptsError: Int = 0
+        }
+
+        val otherPath = Files.createTempFile("opendc", "parquet")
+
+        try {
+            // Use a single-record buffer, such that rows are spilled to disk when the writer thread falls behind
+            ParquetServiceDataWriter(otherPath.toFile(), bufferSize = 1, BackpressurePolicy.SPILL).use { writer ->
+                for (i in 0 until 1000) {
+                    reader.timestamp = Instant.ofEpochMilli(i.toLong())
+                    writer.write(reader)
+                }
+
+                assertEquals(0, writer.getStats().droppedRecords)
+            }
+
+            val timestamps = mutableListOf<Long>()
+            LocalParquetReader(otherPath, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    timestamps.add(group.getLong("timestamp", 0))
+                }
+            }
+
+            assertEquals((0 until 1000L).toList(), timestamps)
+        } finally {
+            Files.deleteIfExists(otherPath)
+        }
+    }
+
+    @Test
+    fun testSpillResume() {
+        val reader = object : ServiceTableReader {
+            override var timestamp: Instant = Instant.EPOCH
+            override val hostsUp: Int = 1
+            override val hostsDown: Int = 0
+            override val serversTotal: Int = 1
+            override val serversPending: Int = 1
+            override val serversActive: Int = 1
+            override val attemptsSuccess: Int = 1
+            override val attemptsFailure: Int = 0
+            override val attemptsError: Int = 0
+        }
+
+        val otherPath = Files.createTempFile("opendc", "parquet")
+
+        try {
+            // Use a small buffer, such that the writer alternates between spilling and publishing to the buffer
+            ParquetServiceDataWriter(otherPath.toFile(), bufferSize = 8, BackpressurePolicy.SPILL).use { writer ->
+                for (i in 0 until 10_000) {
+                    reader.timestamp = Instant.ofEpochMilli(i.toLong())
+                    writer.write(reader)
+                }
+            }
+
+            val timestamps = mutableListOf<Long>()
+            LocalParquetReader(otherPath, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    timestamps.add(group.getLong("timestamp", 0))
+                }
+            }
+
+            assertEquals((0 until 10_000L).toList(), timestamps)
+        } finally {
+            Files.deleteIfExists(otherPath)
+        }
+    }
+
+    @Test
+    fun testRollingOutput() {
+        val reader = object : ServiceTableReader {
+            override var timestamp: Instant = Instant.EPOCH
+            override val hostsUp: Int = 1
+            override val hostsDown: Int = 0
+            override val serversTotal: Int = 1
+            override val serversPending: Int = 1
+            override val serversActive: Int = 1
+            override val attemptsSuccess: Int = 1
+            override val attemptsFailure: Int = 0
+            override val attemptsError: Int = 0
+        }
+
+        val directory = Files.createTempDirectory("opendc")
+        val options = ParquetOutputOptions(maxRowsPerFile = 4, writeSummary = true)
+
+        try {
+            ParquetWriterPool(threads = 1).use { pool ->
+                ParquetServiceDataWriter(directory.resolve("data.parquet").toFile(), bufferSize = 4, options = options, pool = pool).use { writer ->
+                    for (i in 0 until 10) {
+                        reader.timestamp = Instant.ofEpochMilli(i.toLong())
+                        writer.write(reader)
+                    }
+                }
+            }
+
+            val files = Files.list(directory).use { stream -> stream.map { it.fileName.toString() }.sorted().toList() }
+            assertEquals(listOf("_metadata", "data-00000.parquet", "data-00001.parquet", "data-00002.parquet"), files)
+
+            val timestamps = mutableListOf<Long>()
+            LocalParquetReader(directory, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    timestamps.add(group.getLong("timestamp", 0))
+                }
+            }
+
+            assertEquals((0 until 10L).toList(), timestamps)
+        } finally {
+            directory.toFile().deleteRecursively()
+        }
+    }
 }
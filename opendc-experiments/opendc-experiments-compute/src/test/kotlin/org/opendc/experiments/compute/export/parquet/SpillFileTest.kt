@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.export.parquet
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+
+/**
+ * Test suite for [SpillFile].
+ */
+class SpillFileTest {
+    @Test
+    fun testSpillDrainSpill() {
+        val buffer = ByteBuffer.allocate(8)
+        val result = mutableListOf<Long>()
+
+        SpillFile(8).use { file ->
+            for (i in 0 until 3L) {
+                buffer.putLong(0, i)
+                file.append(buffer)
+            }
+
+            assertEquals(24, file.length)
+
+            repeat(3) {
+                file.read(buffer)
+                result.add(buffer.getLong(0))
+            }
+
+            assertEquals(0, file.pending)
+
+            for (i in 3 until 5L) {
+                buffer.putLong(0, i)
+                file.append(buffer)
+            }
+
+            // The file starts over once every record has been read
+            assertEquals(16, file.length)
+            assertEquals(2, file.pending)
+
+            repeat(2) {
+                file.read(buffer)
+                result.add(buffer.getLong(0))
+            }
+        }
+
+        assertEquals((0 until 5L).toList(), result)
+    }
+
+    @Test
+    fun testInterleaved() {
+        val buffer = ByteBuffer.allocate(8)
+        val result = mutableListOf<Long>()
+
+        SpillFile(8).use { file ->
+            for (i in 0 until 4L) {
+                buffer.putLong(0, i)
+                file.append(buffer)
+
+                // Keep one record pending, such that the file is never truncated
+                if (i > 0) {
+                    file.read(buffer)
+                    result.add(buffer.getLong(0))
+                }
+            }
+
+            assertEquals(32, file.length)
+
+            file.read(buffer)
+            result.add(buffer.getLong(0))
+        }
+
+        assertEquals((0 until 4L).toList(), result)
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.internal
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.opendc.experiments.compute.ComputeWorkloadLoader
+import org.opendc.simulator.compute.workload.SimTrace
+
+/**
+ * Test suite for the [CompressedVirtualMachineTrace] class.
+ */
+class CompressedVirtualMachineTraceTest {
+    @Test
+    fun testRoundTrip() {
+        val expected = SimTrace.builder()
+        val builder = CompressedVirtualMachineTrace.Builder()
+
+        // Include decreasing and negative deadlines, which are encoded as negative deltas
+        val deadlines = longArrayOf(-5_000, 0, 300_000, 600_000, 450_000, Long.MAX_VALUE)
+        for ((i, deadline) in deadlines.withIndex()) {
+            val usage = i * 123.456
+            val cores = 1 + i % 4
+            expected.add(deadline, usage, cores)
+            builder.add(deadline, usage, cores)
+        }
+
+        val trace = builder.build()
+
+        assertAll(
+            { assertEquals(expected.build(), trace.load()) },
+            { assertEquals(trace.load(), trace.load()) }
+        )
+    }
+
+    @Test
+    fun testEmpty() {
+        assertEquals(SimTrace.builder().build(), CompressedVirtualMachineTrace.Builder().build().load())
+    }
+
+    /**
+     * Test that the trace built by the workload loader matches the [SimTrace] it used to build directly, including the
+     * fragments that fill the gaps between the fragments of the trace.
+     */
+    @Test
+    fun testLoaderTrace() {
+        val builder = ComputeWorkloadLoader.Builder(2)
+
+        // Add the fragments out of order, as a parallel scan may do
+        builder.add(5_000, 6_000, 3.0, 2)
+        builder.add(0, 1_000, 1.0, 2)
+        builder.add(1_000, 2_000, 2.0, 2)
+        builder.add(6_000, 8_000, 4.0, 2)
+
+        val expected = SimTrace.builder()
+        expected.add(0, 0.0, 2) // Gap before the first fragment
+        expected.add(1_000, 1.0, 2)
+        expected.add(2_000, 2.0, 2)
+        expected.add(5_000, 0.0, 2) // Gap between 2000 and 5000
+        expected.add(6_000, 3.0, 2)
+        expected.add(8_000, 4.0, 2)
+
+        val trace = builder.build()
+
+        assertAll(
+            { assertEquals(expected.build(), trace.load()) },
+            { assertEquals((1.0 + 2.0 + 3.0 + 8.0), builder.totalLoad) }
+        )
+    }
+
+    @Test
+    fun testEquality() {
+        val a = CompressedVirtualMachineTrace.Builder()
+        val b = CompressedVirtualMachineTrace.Builder()
+        val c = CompressedVirtualMachineTrace.Builder()
+
+        a.add(1_000, 1.0, 1)
+        b.add(1_000, 1.0, 1)
+        c.add(1_000, 2.0, 1)
+
+        val first = a.build()
+        val second = b.build()
+
+        assertAll(
+            { assertEquals(first, second) },
+            { assertEquals(first.hashCode(), second.hashCode()) },
+            { assertNotEquals(first, c.build()) }
+        )
+    }
+}
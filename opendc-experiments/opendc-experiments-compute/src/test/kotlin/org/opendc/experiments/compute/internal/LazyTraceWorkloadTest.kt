@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.internal
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.opendc.experiments.compute.VirtualMachineTrace
+import org.opendc.simulator.compute.SimMachineContext
+import org.opendc.simulator.compute.workload.SimTrace
+import org.opendc.simulator.compute.workload.SimWorkload
+
+/**
+ * Test suite for the [LazyTraceWorkload] class.
+ */
+class LazyTraceWorkloadTest {
+    private val ctx = mockk<SimMachineContext>()
+    private val delegate = mockk<SimWorkload>(relaxed = true)
+    private val delegateSnapshot = mockk<SimWorkload>()
+    private val simTrace = mockk<SimTrace>()
+    private val trace = mockk<VirtualMachineTrace>()
+
+    init {
+        every { simTrace.createWorkload(OFFSET) } returns delegate
+        every { delegate.snapshot() } returns delegateSnapshot
+        every { trace.load() } returns simTrace
+    }
+
+    @Test
+    fun testSnapshotBeforeStart() {
+        val workload = LazyTraceWorkload(trace, OFFSET)
+        val snapshot = workload.snapshot()
+
+        assertTrue(snapshot is LazyTraceWorkload)
+        assertNotSame(workload, snapshot)
+        assertEquals(workload.toString(), snapshot.toString())
+        verify(exactly = 0) { trace.load() }
+    }
+
+    @Test
+    fun testSnapshotWhileRunning() {
+        val workload = LazyTraceWorkload(trace, OFFSET)
+        workload.onStart(ctx)
+
+        assertSame(delegateSnapshot, workload.snapshot())
+        verify(exactly = 1) { trace.load() }
+        verify { delegate.onStart(ctx) }
+    }
+
+    @Test
+    fun testDropTraceOnStop() {
+        val workload = LazyTraceWorkload(trace, OFFSET)
+        workload.onStart(ctx)
+        workload.onStop(ctx)
+
+        // After the guest stops, the workload no longer refers to the loaded trace
+        val snapshot = workload.snapshot()
+        assertTrue(snapshot is LazyTraceWorkload)
+        verify(exactly = 1) { delegate.onStop(ctx) }
+        verify(exactly = 0) { delegate.snapshot() }
+
+        // Stopping again is a no-op
+        workload.onStop(ctx)
+        verify(exactly = 1) { delegate.onStop(ctx) }
+
+        // Restarting the workload loads the trace again
+        workload.onStart(ctx)
+        verify(exactly = 2) { trace.load() }
+    }
+
+    @Test
+    fun testStopBeforeStart() {
+        val workload = LazyTraceWorkload(trace, OFFSET)
+        workload.onStop(ctx)
+
+        verify(exactly = 0) { trace.load() }
+        verify(exactly = 0) { delegate.onStop(any()) }
+    }
+
+    private companion object {
+        const val OFFSET = -1000L
+    }
+}
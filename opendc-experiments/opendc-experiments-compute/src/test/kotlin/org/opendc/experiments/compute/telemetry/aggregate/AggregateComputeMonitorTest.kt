@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.compute.telemetry.aggregate
+
+import org.apache.parquet.hadoop.example.GroupReadSupport
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.opendc.experiments.compute.telemetry.table.HostInfo
+import org.opendc.experiments.compute.telemetry.table.HostTableReader
+import org.opendc.trace.util.parquet.LocalParquetReader
+import java.nio.file.Files
+import java.time.Instant
+
+/**
+ * Test suite for the [AggregateComputeMonitor] class.
+ */
+class AggregateComputeMonitorTest {
+    @Test
+    fun testGroupByCluster() {
+        val monitor = AggregateComputeMonitor(
+            listOf(HostRollup(HostMetric.POWER_TOTAL), HostRollup(HostMetric.CPU_STEAL_TIME)),
+            groupBy = AggregateComputeMonitor.byCluster
+        )
+
+        val a = HostInfo("a", "a", "x86", 4, 4096, mapOf("cluster" to "A"))
+        val b = HostInfo("b", "b", "x86", 4, 4096, mapOf("cluster" to "A"))
+        val c = HostInfo("c", "c", "x86", 4, 4096, mapOf("cluster" to "B"))
+        val reader = TestHostTableReader()
+
+        for (i in 1..3) {
+            for (host in listOf(a, b, c)) {
+                reader.host = host
+                reader.powerTotal = i * 10.0
+                reader.cpuStealTime = i.toLong()
+                monitor.record(reader)
+            }
+        }
+
+        val result = monitor.collect().associateBy { it.group to it.metric }
+        val powerA = result.getValue("A" to HostMetric.POWER_TOTAL)
+        val stealB = result.getValue("B" to HostMetric.CPU_STEAL_TIME)
+
+        assertAll(
+            { assertEquals(4, result.size) },
+            { assertEquals(6, powerA.count) },
+            { assertEquals(120.0, powerA.sum) },
+            { assertEquals(10.0, powerA.min) },
+            { assertEquals(30.0, powerA.max) },
+            { assertEquals(20.0, powerA.mean) },
+            { assertEquals(6.0, stealB.sum) },
+            { assertEquals(emptyMap<Double, Double>(), stealB.quantiles) },
+            { assertNull(monitor.service) }
+        )
+    }
+
+    @Test
+    fun testQuantiles() {
+        val monitor = AggregateComputeMonitor(listOf(HostRollup(HostMetric.CPU_UTILIZATION, listOf(0.5, 0.99))))
+        val reader = TestHostTableReader()
+        reader.host = HostInfo("a", "a", "x86", 4, 4096)
+
+        for (i in 0 until 100_000) {
+            reader.cpuUtilization = (i % 1000) / 1000.0
+            monitor.record(reader)
+        }
+
+        val quantiles = monitor.collect().single().quantiles
+
+        assertAll(
+            { assertEquals(0.5, quantiles.getValue(0.5), 0.01) },
+            { assertEquals(0.99, quantiles.getValue(0.99), 0.005) }
+        )
+    }
+
+    @Test
+    fun testWriteOnClose() {
+        val path = Files.createTempFile("opendc", "parquet")
+
+        try {
+            val monitor = AggregateComputeMonitor(
+                listOf(HostRollup(HostMetric.POWER_TOTAL), HostRollup(HostMetric.CPU_UTILIZATION, listOf(0.5))),
+                groupBy = AggregateComputeMonitor.byCluster,
+                output = path.toFile()
+            )
+            val reader = TestHostTableReader()
+
+            for ((i, cluster) in listOf("A", "A", "B").withIndex()) {
+                reader.host = HostInfo("$i", "$i", "x86", 4, 4096, mapOf("cluster" to cluster))
+                reader.powerTotal = (i + 1) * 10.0
+                reader.cpuUtilization = 0.5
+                monitor.record(reader)
+            }
+
+            val expected = monitor.collect()
+            monitor.close()
+
+            val rows = mutableListOf<HostAggregate>()
+            LocalParquetReader(path, GroupReadSupport()).use { parquetReader ->
+                while (true) {
+                    val group = parquetReader.read() ?: break
+                    val quantiles = (0 until group.getFieldRepetitionCount("quantiles")).associate {
+                        val quantile = group.getGroup("quantiles", it)
+                        quantile.getDouble("quantile", 0) to quantile.getDouble("value", 0)
+                    }
+
+                    rows += HostAggregate(
+                        group.getString("group", 0),
+                        HostMetric.valueOf(group.getString("metric", 0).uppercase()),
+                        group.getLong("count", 0),
+                        group.getDouble("sum", 0),
+                        group.getDouble("min", 0),
+                        group.getDouble("max", 0),
+                        quantiles
+                    )
+                    assertEquals(rows.last().mean, group.getDouble("mean", 0))
+                }
+            }
+
+            assertAll(
+                { assertEquals(4, rows.size) },
+                { assertEquals(expected, rows) },
+                { assertEquals(30.0, rows.first { it.group == "A" && it.metric == HostMetric.POWER_TOTAL }.sum) },
+                { assertEquals(0.5, rows.first { it.group == "B" && it.metric == HostMetric.CPU_UTILIZATION }.quantiles[0.5]) }
+            )
+        } finally {
+            Files.deleteIfExists(path)
+        }
+    }
+
+    /**
+     * A mutable [HostTableReader] for the tests.
+     */
+    private class TestHostTableReader : HostTableReader {
+        override val timestamp: Instant = Instant.EPOCH
+        override lateinit var host: HostInfo
+        override val guestsTerminated: Int = 0
+        override val guestsRunning: Int = 0
+        override val guestsError: Int = 0
+        override val guestsInvalid: Int = 0
+        override val cpuLimit: Double = 4096.0
+        override val cpuUsage: Double = 1.0
+        override val cpuDemand: Double = 1.0
+        override var cpuUtilization: Double = 0.0
+        override val cpuActiveTime: Long = 1
+        override val cpuIdleTime: Long = 1
+        override var cpuStealTime: Long = 0
+        override val cpuLostTime: Long = 0
+        override val powerUsage: Double = 1.0
+        override var powerTotal: Double = 0.0
+        override val uptime: Long = 1
+        override val downtime: Long = 0
+        override val bootTime: Instant? = null
+    }
+}
@@ -29,7 +29,6 @@ plugins {
 
 dependencies {
     api(projects.opendcFaas.opendcFaasApi)
-    api(libs.commons.math3)
     implementation(projects.opendcCommon)
     implementation(libs.kotlin.logging)
 
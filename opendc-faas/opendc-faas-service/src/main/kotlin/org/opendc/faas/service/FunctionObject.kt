@@ -22,9 +22,9 @@
 
 package org.opendc.faas.service
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics
 import org.opendc.faas.service.deployer.FunctionInstance
 import org.opendc.faas.service.telemetry.FunctionStats
+import org.opendc.faas.service.telemetry.LatencyHistogram
 import java.util.UUID
 
 /**
@@ -46,10 +46,8 @@ public class FunctionObject(
     private var _failedInvocations = 0L
     private var _activeInstances = 0
     private var _idleInstances = 0
-    private val _waitTime = DescriptiveStatistics()
-        .apply { windowSize = 100 }
-    private val _activeTime = DescriptiveStatistics()
-        .apply { windowSize = 100 }
+    private val _waitTime = LatencyHistogram()
+    private val _activeTime = LatencyHistogram()
 
     /**
      * The instances associated with this function.
@@ -90,7 +88,7 @@ public class FunctionObject(
      */
     internal fun reportStart(start: Long, submitTime: Long) {
         val wait = start - submitTime
-        _waitTime.addValue(wait.toDouble())
+        _waitTime.record(wait)
 
         _idleInstances--
         _activeInstances++
@@ -107,7 +105,7 @@ public class FunctionObject(
      * Report the end of a function invocation.
      */
     internal fun reportEnd(duration: Long) {
-        _activeTime.addValue(duration.toDouble())
+        _activeTime.record(duration)
         _idleInstances++
         _activeInstances--
     }
@@ -22,8 +22,6 @@
 
 package org.opendc.faas.service.telemetry
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics
-
 /**
  * Statistics about function invocations.
  *
@@ -33,8 +31,8 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics
  * @property failedInvocations The number of function invocations that failed.
  * @property activeInstances The number of active function instances.
  * @property idleInstances The number of idle function instances.
- * @property waitTime Statistics about the wait time of a function invocation.
- * @property activeTime Statistics about the runtime of a function invocation.
+ * @property waitTime A histogram of the wait time of the function invocations (in milliseconds).
+ * @property activeTime A histogram of the runtime of the function invocations (in milliseconds).
  */
 public data class FunctionStats(
     val totalInvocations: Long,
@@ -43,6 +41,6 @@ public data class FunctionStats(
     val failedInvocations: Long,
     val activeInstances: Int,
     val idleInstances: Int,
-    val waitTime: DescriptiveStatistics,
-    val activeTime: DescriptiveStatistics
+    val waitTime: LatencyHistogram,
+    val activeTime: LatencyHistogram
 )
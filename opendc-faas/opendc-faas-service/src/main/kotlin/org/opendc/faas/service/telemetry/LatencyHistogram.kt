@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.faas.service.telemetry
+
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * A mergeable histogram of non-negative durations (in milliseconds) with a bounded memory footprint.
+ *
+ * Values are counted in log-linear buckets: values below `2^(precision + 1)` are counted exactly, while larger values
+ * fall in buckets whose width is at most `2^-precision` of their lower bound. Recording a value takes constant time,
+ * and the number of buckets only grows with the logarithm of the largest value. The count, sum, minimum and maximum
+ * are tracked exactly.
+ *
+ * Histograms with the same precision can be merged, for instance to aggregate the statistics across functions or
+ * repeated experiments.
+ *
+ * @param precision The number of bits of precision of each bucket.
+ */
+public class LatencyHistogram(public val precision: Int = 6) {
+    init {
+        require(precision in 1..16) { "Precision must be in [1, 16]" }
+    }
+
+    /**
+     * The counts of the buckets, which grow on demand.
+     */
+    private var counts = LongArray(2 shl precision)
+
+    /**
+     * The number of recorded values.
+     */
+    public var count: Long = 0
+        private set
+
+    /**
+     * The sum of the recorded values.
+     */
+    public var sum: Double = 0.0
+        private set
+
+    /**
+     * The smallest recorded value, or zero if no value was recorded.
+     */
+    public val min: Long
+        get() = if (count > 0) _min else 0
+    private var _min = Long.MAX_VALUE
+
+    /**
+     * The largest recorded value, or zero if no value was recorded.
+     */
+    public val max: Long
+        get() = if (count > 0) _max else 0
+    private var _max = Long.MIN_VALUE
+
+    /**
+     * The mean of the recorded values, or `NaN` if no value was recorded.
+     */
+    public val mean: Double
+        get() = if (count > 0) sum / count else Double.NaN
+
+    /**
+     * Record the specified [value].
+     */
+    public fun record(value: Long) {
+        require(value >= 0) { "Value must be non-negative" }
+
+        val index = indexOf(value)
+        var counts = counts
+        if (index >= counts.size) {
+            counts = counts.copyOf(max(index + 1, counts.size * 2))
+            this.counts = counts
+        }
+
+        counts[index]++
+        count++
+        sum += value
+        _min = min(_min, value)
+        _max = max(_max, value)
+    }
+
+    /**
+     * Estimate the value at the specified quantile [q] in [0, 1], or `NaN` if no value was recorded.
+     */
+    public fun quantile(q: Double): Double {
+        require(q in 0.0..1.0) { "Quantile must be in [0, 1]" }
+
+        val count = count
+        if (count == 0L) {
+            return Double.NaN
+        }
+
+        val rank = (q * count).toLong().coerceIn(1, count)
+        val counts = counts
+        var seen = 0L
+
+        for (i in counts.indices) {
+            seen += counts[i]
+            if (seen >= rank) {
+                val shift = shiftOf(i)
+                val lower = (i - (shift shl precision)).toLong() shl shift
+                val mid = lower + ((1L shl shift) - 1) / 2.0
+                return mid.coerceIn(_min.toDouble(), _max.toDouble())
+            }
+        }
+
+        return _max.toDouble()
+    }
+
+    /**
+     * Merge the values recorded by [other] into this histogram.
+     */
+    public fun merge(other: LatencyHistogram) {
+        require(other.precision == precision) { "Histograms have different precision" }
+
+        val otherCounts = other.counts
+        if (otherCounts.size > counts.size) {
+            counts = counts.copyOf(otherCounts.size)
+        }
+
+        val counts = counts
+        for (i in otherCounts.indices) {
+            counts[i] += otherCounts[i]
+        }
+
+        count += other.count
+        sum += other.sum
+        _min = min(_min, other._min)
+        _max = max(_max, other._max)
+    }
+
+    /**
+     * Return a copy of this histogram.
+     */
+    public fun copy(): LatencyHistogram {
+        val res = LatencyHistogram(precision)
+        res.counts = counts.copyOf()
+        res.count = count
+        res.sum = sum
+        res._min = _min
+        res._max = _max
+        return res
+    }
+
+    override fun toString(): String = "LatencyHistogram[count=$count,mean=$mean,min=$min,max=$max]"
+
+    /**
+     * Determine the index of the bucket of [value].
+     */
+    private fun indexOf(value: Long): Int {
+        val shift = max(0, 63 - java.lang.Long.numberOfLeadingZeros(value) - precision)
+        return (shift shl precision) + (value ushr shift).toInt()
+    }
+
+    /**
+     * Determine the shift of the bucket at [index], which determines the width of the bucket.
+     */
+    private fun shiftOf(index: Int): Int = max(0, (index shr precision) - 1)
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.faas.service.telemetry
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
+
+/**
+ * Test suite for the [LatencyHistogram] class.
+ */
+class LatencyHistogramTest {
+    @Test
+    fun testEmpty() {
+        val histogram = LatencyHistogram()
+
+        assertAll(
+            { assertEquals(0, histogram.count) },
+            { assertEquals(0, histogram.min) },
+            { assertEquals(0, histogram.max) },
+            { assertTrue(histogram.mean.isNaN()) },
+            { assertTrue(histogram.quantile(0.5).isNaN()) }
+        )
+    }
+
+    @Test
+    fun testExactSmallValues() {
+        val histogram = LatencyHistogram()
+
+        for (i in 1L..100L) {
+            histogram.record(i)
+        }
+
+        assertAll(
+            { assertEquals(100, histogram.count) },
+            { assertEquals(50.5, histogram.mean) },
+            { assertEquals(1, histogram.min) },
+            { assertEquals(100, histogram.max) },
+            { assertEquals(50.0, histogram.quantile(0.5)) },
+            { assertEquals(99.0, histogram.quantile(0.99)) }
+        )
+    }
+
+    @Test
+    fun testRelativeError() {
+        val histogram = LatencyHistogram(precision = 6)
+
+        for (i in 1L..1_000_000L) {
+            histogram.record(i)
+        }
+
+        assertAll(
+            { assertEquals(500_000.0, histogram.quantile(0.5), 500_000.0 / 64) },
+            { assertEquals(990_000.0, histogram.quantile(0.99), 990_000.0 / 64) },
+            { assertEquals(1_000_000.0, histogram.quantile(1.0)) }
+        )
+    }
+
+    @Test
+    fun testMerge() {
+        val a = LatencyHistogram()
+        val b = LatencyHistogram()
+
+        for (i in 1L..50L) {
+            a.record(i)
+        }
+        for (i in 51L..100_000L) {
+            b.record(i)
+        }
+
+        a.merge(b)
+
+        assertAll(
+            { assertEquals(100_000, a.count) },
+            { assertEquals(1, a.min) },
+            { assertEquals(100_000, a.max) },
+            { assertEquals(50_000.5, a.mean) }
+        )
+    }
+
+    @Test
+    fun testCopyIsIndependent() {
+        val histogram = LatencyHistogram()
+        histogram.record(10)
+
+        val copy = histogram.copy()
+        histogram.record(10_000)
+
+        assertAll(
+            { assertEquals(1, copy.count) },
+            { assertEquals(10, copy.max) },
+            { assertEquals(2, histogram.count) }
+        )
+    }
+
+    @Test
+    fun testNegativeValue() {
+        assertThrows<IllegalArgumentException> { LatencyHistogram().record(-1) }
+    }
+}
@@ -24,6 +24,7 @@ package org.opendc.simulator.compute;
 
 import org.opendc.simulator.compute.model.GraphicsProcessingUnit;
 import org.opendc.simulator.compute.model.ProcessingUnit;
+import org.opendc.simulator.compute.power.PowerSeries;
 import org.opendc.simulator.flow2.InPort;
 import org.opendc.simulator.power.SimPowerInlet;
 
@@ -51,6 +52,25 @@ public abstract class SimPsu extends SimPowerInlet {
      */
     public abstract double getEnergyUsage();
 
+    /**
+     * Return the {@link PowerSeries} containing every change of the power usage of the machine, or <code>null</code> if
+     * the PSU does not record the power usage at this resolution.
+     */
+    public PowerSeries getPowerSeries() {
+        return null;
+    }
+
+    /**
+     * Override the power usage of the machine (in W), for instance while the machine is suspended, powered off or
+     * transitioning between these states.
+     * <p>
+     * By default, this method does nothing, meaning that the PSU does not support overriding its power usage.
+     *
+     * @param power The power usage of the machine (in W) or a negative value to let the PSU estimate the power usage
+     *              based on the resource usage of the machine again.
+     */
+    public void setPowerOverride(double power) {}
+
     /**
      * Return an {@link InPort} that converts processing demand (in MHz) into energy demand (J) for the specified CPU
      * <code>model</code>.
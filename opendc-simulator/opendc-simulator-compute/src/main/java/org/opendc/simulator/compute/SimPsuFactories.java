@@ -29,6 +29,7 @@ import org.opendc.simulator.compute.model.ProcessingUnit;
 import org.opendc.simulator.compute.power.CpuPowerModel;
 import org.opendc.simulator.compute.power.GpuPowerModel;
 import org.opendc.simulator.compute.power.GpuPowerModels;
+import org.opendc.simulator.compute.power.PowerSeries;
 import org.opendc.simulator.flow2.FlowGraph;
 import org.opendc.simulator.flow2.FlowStage;
 import org.opendc.simulator.flow2.FlowStageLogic;
@@ -61,7 +62,19 @@ public class SimPsuFactories {
      * @param model The power model to estimate the power consumption based on the CPU usage.
      */
     public static SimPsuFactory simple(CpuPowerModel model) {
-        return (machine, graph) -> new SimplePsu(graph, model);
+        return simple(model, false);
+    }
+
+    /**
+     * Return a {@link SimPsuFactory} of {@link SimPsu} implementations that use a {@link CpuPowerModel} to estimate the
+     * power consumption of a machine based on its CPU utilization.
+     *
+     * @param model The power model to estimate the power consumption based on the CPU usage.
+     * @param recordPowerSeries A flag to indicate that every change of the power usage should be recorded in a
+     *                          {@link PowerSeries}.
+     */
+    public static SimPsuFactory simple(CpuPowerModel model, boolean recordPowerSeries) {
+        return (machine, graph) -> new SimplePsu(graph, model, recordPowerSeries ? new PowerSeries() : null);
     }
 
     /**
@@ -73,7 +86,23 @@ public class SimPsuFactories {
      * @param gpuPowerModel The power model to estimate the power consumption based on the GPU usage.
      */
     public static SimPsuFactory simpleGaming(CpuPowerModel cpuPowerModel, GpuPowerModel gpuPowerModel) {
-        return (machine, graph) -> new SimpleGamingPsu(graph, cpuPowerModel, gpuPowerModel);
+        return simpleGaming(cpuPowerModel, gpuPowerModel, false);
+    }
+
+    /**
+     * Return a {@link SimPsuFactory} of {@link SimPsu} implementations that use a {@link CpuPowerModel}
+     * and {@link org.opendc.simulator.compute.power.GpuPowerModel} to estimate the
+     * power consumption of a machine based on its CPU and GPU utilization.
+     *
+     * @param cpuPowerModel The power model to estimate the power consumption based on the CPU usage.
+     * @param gpuPowerModel The power model to estimate the power consumption based on the GPU usage.
+     * @param recordPowerSeries A flag to indicate that every change of the power usage should be recorded in a
+     *                          {@link PowerSeries}.
+     */
+    public static SimPsuFactory simpleGaming(
+            CpuPowerModel cpuPowerModel, GpuPowerModel gpuPowerModel, boolean recordPowerSeries) {
+        return (machine, graph) ->
+                new SimpleGamingPsu(graph, cpuPowerModel, gpuPowerModel, recordPowerSeries ? new PowerSeries() : null);
     }
 
     /**
@@ -145,7 +174,9 @@ public class SimPsuFactories {
         private long lastUpdate;
 
         private double powerUsage;
+        private double powerOverride = -1.0;
         private double energyUsage;
+        private final PowerSeries powerSeries;
 
         private final InHandler handler = new InHandler() {
             @Override
@@ -159,9 +190,10 @@ public class SimPsuFactories {
             }
         };
 
-        SimplePsu(FlowGraph graph, CpuPowerModel model) {
+        SimplePsu(FlowGraph graph, CpuPowerModel model, PowerSeries powerSeries) {
             this.stage = graph.newStage(this);
             this.model = model;
+            this.powerSeries = powerSeries;
             this.clock = graph.getEngine().getClock();
             this.out = stage.getOutlet("out");
             this.out.setMask(true);
@@ -185,6 +217,18 @@ public class SimPsuFactories {
             return energyUsage;
         }
 
+        @Override
+        public PowerSeries getPowerSeries() {
+            return powerSeries;
+        }
+
+        @Override
+        public void setPowerOverride(double power) {
+            updateEnergyUsage(clock.millis());
+            powerOverride = power;
+            stage.invalidate();
+        }
+
         @Override
         InPort getCpuPower(int id, ProcessingUnit model) {
             targetFreq += model.getFrequency();
@@ -211,10 +255,14 @@ public class SimPsuFactories {
         public long onUpdate(FlowStage ctx, long now) {
             updateEnergyUsage(now);
 
-            double usage = model.computePower(totalUsage / targetFreq);
+            double usage = powerOverride >= 0 ? powerOverride : model.computePower(totalUsage / targetFreq);
             out.push((float) usage);
             powerUsage = usage;
 
+            if (powerSeries != null) {
+                powerSeries.record(now, usage);
+            }
+
             return Long.MAX_VALUE;
         }
 
@@ -256,7 +304,9 @@ public class SimPsuFactories {
         private long lastUpdate;
 
         private double powerUsage;
+        private double powerOverride = -1.0;
         private double energyUsage;
+        private final PowerSeries powerSeries;
 
         private final InHandler handler = new InHandler() {
             @Override
@@ -280,10 +330,12 @@ public class SimPsuFactories {
             }
         };
 
-        SimpleGamingPsu(FlowGraph graph, CpuPowerModel cpuPowerModel, GpuPowerModel gpuPowerModel) {
+        SimpleGamingPsu(
+                FlowGraph graph, CpuPowerModel cpuPowerModel, GpuPowerModel gpuPowerModel, PowerSeries powerSeries) {
             this.stage = graph.newStage(this);
             this.cpuPowerModel = cpuPowerModel;
             this.gpuPowerModel = gpuPowerModel;
+            this.powerSeries = powerSeries;
             this.clock = graph.getEngine().getClock();
             this.out = stage.getOutlet("out");
             this.out.setMask(true);
@@ -307,6 +359,18 @@ public class SimPsuFactories {
             return energyUsage;
         }
 
+        @Override
+        public PowerSeries getPowerSeries() {
+            return powerSeries;
+        }
+
+        @Override
+        public void setPowerOverride(double power) {
+            updateEnergyUsage(clock.millis());
+            powerOverride = power;
+            stage.invalidate();
+        }
+
         @Override
         InPort getCpuPower(int id, ProcessingUnit model) {
             cpuTargetFreq += model.getFrequency();
@@ -346,11 +410,15 @@ public class SimPsuFactories {
             double cpuUsage = cpuPowerModel.computePower(cpuTotalUsage / cpuTargetFreq);
             double gpuUsage = gpuPowerModel.computePower(gpuTotalUsage / gpuTargetFreq);
 
-            double totalUsage = cpuUsage + gpuUsage;
+            double totalUsage = powerOverride >= 0 ? powerOverride : cpuUsage + gpuUsage;
 
             out.push((float) totalUsage);
             powerUsage = totalUsage;
 
+            if (powerSeries != null) {
+                powerSeries.record(now, totalUsage);
+            }
+
             return Long.MAX_VALUE;
         }
 
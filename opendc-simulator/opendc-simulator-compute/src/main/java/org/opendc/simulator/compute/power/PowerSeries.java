@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.compute.power;
+
+import java.util.Arrays;
+
+/**
+ * A high-resolution time series of the power usage of a machine, recorded only when the power usage changes.
+ *
+ * <p>
+ * The power usage of a simulated machine is piecewise constant: it only changes when the resource usage of the machine
+ * changes. This class records each change point exactly, such that the power profile and the energy usage over any
+ * interval can be reconstructed without sampling. Entries are delta-encoded into a growing byte buffer: the timestamp
+ * as a variable-length delta to the previous timestamp, and the power as the bytes of the XOR with the bits of the
+ * previous power that are not zero, prefixed by a header byte storing the number of leading and trailing zero bytes.
+ *
+ * <p>
+ * The last entry is kept unencoded until a later timestamp is recorded, such that multiple changes at the same
+ * instant collapse into a single entry.
+ */
+public final class PowerSeries {
+    private byte[] buffer = new byte[64];
+    private int position;
+
+    private int size;
+    private long lastTimestamp;
+    private long lastBits;
+
+    private boolean hasPending;
+    private long pendingTimestamp;
+    private double pendingPower;
+
+    /**
+     * Record the power usage of the machine (in W) starting at the specified <code>timestamp</code> (in ms).
+     *
+     * @param timestamp The timestamp at which the power usage changed, which must not be earlier than the timestamp of
+     *                  the previous entry.
+     * @param power The power usage of the machine (in W) from <code>timestamp</code> onwards.
+     */
+    public void record(long timestamp, double power) {
+        if (hasPending) {
+            if (timestamp < pendingTimestamp) {
+                throw new IllegalArgumentException("Timestamp is earlier than the previous entry");
+            } else if (timestamp == pendingTimestamp) {
+                pendingPower = power;
+                return;
+            } else if (Double.doubleToRawLongBits(power) == Double.doubleToRawLongBits(pendingPower)) {
+                // The power usage did not change
+                return;
+            }
+
+            encode(pendingTimestamp, pendingPower);
+        }
+
+        hasPending = true;
+        pendingTimestamp = timestamp;
+        pendingPower = power;
+    }
+
+    /**
+     * Return the number of entries in the series.
+     */
+    public int size() {
+        return hasPending ? size + 1 : size;
+    }
+
+    /**
+     * Return the number of bytes used to store the encoded entries of the series.
+     */
+    public int getEncodedSize() {
+        return position;
+    }
+
+    /**
+     * Remove all entries from the series.
+     */
+    public void clear() {
+        position = 0;
+        size = 0;
+        lastTimestamp = 0;
+        lastBits = 0;
+        hasPending = false;
+    }
+
+    /**
+     * Return a new {@link Cursor} over the entries of the series in order of time.
+     *
+     * <p>
+     * The cursor is invalidated when a new entry is recorded.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Compute the energy usage (in J) between the specified timestamps (in ms), assuming the power usage is zero
+     * before the first entry.
+     *
+     * @param from The start of the interval (inclusive).
+     * @param to The end of the interval (exclusive).
+     */
+    public double integrate(long from, long to) {
+        double energy = 0.0;
+
+        Cursor cursor = cursor();
+        long timestamp = 0;
+        double power = 0.0;
+        boolean hasPrevious = false;
+
+        while (cursor.next()) {
+            long next = cursor.getTimestamp();
+            if (hasPrevious) {
+                energy += power * overlap(timestamp, next, from, to) * 0.001;
+            }
+
+            if (next >= to) {
+                return energy;
+            }
+
+            timestamp = next;
+            power = cursor.getPower();
+            hasPrevious = true;
+        }
+
+        if (hasPrevious) {
+            energy += power * overlap(timestamp, Long.MAX_VALUE, from, to) * 0.001;
+        }
+
+        return energy;
+    }
+
+    /**
+     * Return the length of the overlap between the intervals <code>[a, b)</code> and <code>[c, d)</code>.
+     */
+    private static long overlap(long a, long b, long c, long d) {
+        return Math.max(0, Math.min(b, d) - Math.max(a, c));
+    }
+
+    /**
+     * Encode the specified entry into the buffer.
+     */
+    private void encode(long timestamp, double power) {
+        ensureCapacity(position + 19);
+
+        writeVarLong(timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+
+        long bits = Double.doubleToRawLongBits(power);
+        long xor = bits ^ lastBits;
+        lastBits = bits;
+
+        if (xor == 0) {
+            buffer[position++] = (byte) 0x80;
+        } else {
+            int leading = Long.numberOfLeadingZeros(xor) >>> 3;
+            int trailing = Long.numberOfTrailingZeros(xor) >>> 3;
+            buffer[position++] = (byte) ((leading << 4) | trailing);
+
+            for (int i = 7 - leading; i >= trailing; i--) {
+                buffer[position++] = (byte) (xor >>> (i * 8));
+            }
+        }
+
+        size++;
+    }
+
+    private void writeVarLong(long value) {
+        byte[] buffer = this.buffer;
+        int position = this.position;
+
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+
+        this.position = position;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    /**
+     * A cursor over the entries of a {@link PowerSeries}.
+     */
+    public final class Cursor {
+        private int offset;
+        private int index;
+        private long timestamp;
+        private long bits;
+
+        private Cursor() {}
+
+        /**
+         * Advance the cursor to the next entry.
+         *
+         * @return <code>true</code> if the cursor points to an entry, <code>false</code> if the series is exhausted.
+         */
+        public boolean next() {
+            if (index < size) {
+                decode();
+                index++;
+                return true;
+            } else if (index == size && hasPending) {
+                timestamp = pendingTimestamp;
+                bits = Double.doubleToRawLongBits(pendingPower);
+                index++;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Return the timestamp (in ms) at which the power usage changed.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Return the power usage (in W) from the timestamp of the entry onwards.
+         */
+        public double getPower() {
+            return Double.longBitsToDouble(bits);
+        }
+
+        private void decode() {
+            byte[] buffer = PowerSeries.this.buffer;
+            int offset = this.offset;
+
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[offset++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            timestamp += delta;
+
+            int header = buffer[offset++] & 0xFF;
+            if (header != 0x80) {
+                int leading = header >>> 4;
+                int trailing = header & 0x0F;
+
+                long xor = 0;
+                for (int i = 7 - leading; i >= trailing; i--) {
+                    xor |= (long) (buffer[offset++] & 0xFF) << (i * 8);
+                }
+                bits ^= xor;
+            }
+
+            this.offset = offset;
+        }
+    }
+}
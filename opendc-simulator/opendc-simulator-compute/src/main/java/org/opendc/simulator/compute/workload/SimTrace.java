@@ -110,6 +110,36 @@ public final class SimTrace {
         return new Workload(offset, cpuUsageCol, gpuUsageCol, deadlineCol, cpuCoresCol, size, 0);
     }
 
+    /**
+     * Two traces are equal if they contain the same fragments, regardless of the capacity of their columns.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof SimTrace)) {
+            return false;
+        }
+
+        SimTrace that = (SimTrace) o;
+        return size == that.size
+                && Arrays.equals(deadlineCol, 0, size, that.deadlineCol, 0, size)
+                && Arrays.equals(cpuUsageCol, 0, size, that.cpuUsageCol, 0, size)
+                && Arrays.equals(gpuUsageCol, 0, size, that.gpuUsageCol, 0, size)
+                && Arrays.equals(cpuCoresCol, 0, size, that.cpuCoresCol, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Long.hashCode(deadlineCol[i]);
+            result = 31 * result + Double.hashCode(cpuUsageCol[i]);
+            result = 31 * result + cpuCoresCol[i];
+        }
+        return result;
+    }
+
     /**
      * Create a new {@link Builder} instance with the specified initial capacity.
      */
@@ -27,6 +27,7 @@ import io.mockk.mockk
 import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.cancel
 import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.yield
 import org.junit.jupiter.api.Assertions.assertAll
@@ -154,6 +155,29 @@ class SimMachineTest {
         }
     }
 
+    @Test
+    fun testPowerSeries() = runSimulation {
+        val engine = FlowEngine.create(dispatcher)
+        val graph = engine.newGraph()
+        val machine = SimBareMetalMachine.create(
+            graph,
+            machineModel,
+            SimPsuFactories.simple(CpuPowerModels.linear(100.0, 50.0), /*recordPowerSeries*/ true)
+        )
+        val source = SimPowerSource(graph, /*capacity*/ 1000.0f)
+        source.connect(machine.psu)
+
+        machine.runWorkload(SimWorkloads.flops(2_000, /*utilization*/ 1.0))
+        delay(1000)
+
+        // Full utilization for one second (100 W) followed by one second of idle (50 W)
+        val series = machine.psu.powerSeries
+        assertAll(
+            { assertEquals(150.0, series.integrate(0, timeSource.millis()), 1e-6) },
+            { assertEquals(machine.psu.energyUsage, series.integrate(0, timeSource.millis()), 1e-6) }
+        )
+    }
+
     @Test
     fun testCapacityClamp() = runSimulation {
         val engine = FlowEngine.create(dispatcher)
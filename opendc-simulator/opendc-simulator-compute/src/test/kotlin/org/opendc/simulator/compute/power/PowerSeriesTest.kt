@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.compute.power
+
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.Random
+
+/**
+ * Test suite for the [PowerSeries] class.
+ */
+class PowerSeriesTest {
+    @Test
+    fun testEmpty() {
+        val series = PowerSeries()
+
+        assertAll(
+            { assertEquals(0, series.size()) },
+            { assertFalse(series.cursor().next()) },
+            { assertEquals(0.0, series.integrate(0, 1000)) }
+        )
+    }
+
+    @Test
+    fun testRoundTrip() {
+        val random = Random(0)
+        val series = PowerSeries()
+        val expected = mutableListOf<Pair<Long, Double>>()
+
+        var timestamp = 0L
+        repeat(10_000) {
+            timestamp += random.nextInt(100_000) + 1
+            val power = if (random.nextBoolean()) random.nextDouble() * 300 else 200.0 + it % 2
+            series.record(timestamp, power)
+            expected.add(timestamp to power)
+        }
+
+        val actual = mutableListOf<Pair<Long, Double>>()
+        val cursor = series.cursor()
+        while (cursor.next()) {
+            actual.add(cursor.timestamp to cursor.power)
+        }
+
+        assertEquals(expected, actual)
+    }
+
+    @Test
+    fun testCollapse() {
+        val series = PowerSeries()
+
+        series.record(0, 100.0)
+        series.record(1000, 100.0)
+        series.record(2000, 150.0)
+        series.record(2000, 200.0)
+
+        val cursor = series.cursor()
+        assertAll(
+            { assertEquals(2, series.size()) },
+            { assertEquals(true, cursor.next()) },
+            { assertEquals(0, cursor.timestamp) },
+            { assertEquals(100.0, cursor.power) },
+            { assertEquals(true, cursor.next()) },
+            { assertEquals(2000, cursor.timestamp) },
+            { assertEquals(200.0, cursor.power) },
+            { assertFalse(cursor.next()) }
+        )
+    }
+
+    @Test
+    fun testIntegrate() {
+        val series = PowerSeries()
+
+        series.record(1000, 100.0)
+        series.record(3000, 200.0)
+        series.record(4000, 0.0)
+
+        assertAll(
+            { assertEquals(400.0, series.integrate(0, 5000)) },
+            { assertEquals(50.0, series.integrate(2500, 3000)) },
+            { assertEquals(150.0, series.integrate(2500, 3500)) },
+            { assertEquals(0.0, series.integrate(0, 1000)) }
+        )
+    }
+
+    @Test
+    fun testOutOfOrder() {
+        val series = PowerSeries()
+        series.record(1000, 100.0)
+
+        assertThrows<IllegalArgumentException> { series.record(500, 100.0) }
+    }
+}
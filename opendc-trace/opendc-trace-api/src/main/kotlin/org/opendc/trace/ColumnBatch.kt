@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A batch of rows of a [Table] in columnar form, filled by [TableReader.nextBatch].
+ *
+ * The caller registers the columns it is interested in once, by the index returned from [TableReader.resolve], and
+ * then reuses the batch for the whole scan. Values are stored in primitive arrays: timestamps as epoch milliseconds,
+ * durations as milliseconds and strings as dictionary identifiers that remain stable for the lifetime of the batch.
+ *
+ * @param capacity The maximum number of rows in a single batch.
+ */
+public class ColumnBatch(public val capacity: Int = DEFAULT_CAPACITY) {
+    init {
+        require(capacity > 0) { "Capacity must be positive" }
+    }
+
+    /**
+     * The number of valid rows in this batch.
+     */
+    public var size: Int = 0
+        set(value) {
+            require(value in 0..capacity) { "Size out of bounds" }
+            field = value
+        }
+
+    /**
+     * The registered columns that are stored as 64-bit integers.
+     */
+    public val longs: List<LongVector>
+        get() = _longs
+    private val _longs = ArrayList<LongVector>()
+
+    /**
+     * The registered columns that are stored as 64-bit floats.
+     */
+    public val doubles: List<DoubleVector>
+        get() = _doubles
+    private val _doubles = ArrayList<DoubleVector>()
+
+    /**
+     * The registered columns that are stored as dictionary-encoded strings.
+     */
+    public val strings: List<StringVector>
+        get() = _strings
+    private val _strings = ArrayList<StringVector>()
+
+    /**
+     * Register the integer column with the specified [index], widened to a 64-bit integer.
+     */
+    public fun addInt(index: Int): LongVector = addLong(index, LongVector.Type.INT)
+
+    /**
+     * Register the long column with the specified [index].
+     */
+    public fun addLong(index: Int): LongVector = addLong(index, LongVector.Type.LONG)
+
+    /**
+     * Register the timestamp column with the specified [index], stored as milliseconds since the epoch.
+     */
+    public fun addInstant(index: Int): LongVector = addLong(index, LongVector.Type.INSTANT)
+
+    /**
+     * Register the duration column with the specified [index], stored in milliseconds.
+     */
+    public fun addDuration(index: Int): LongVector = addLong(index, LongVector.Type.DURATION)
+
+    /**
+     * Register the double column with the specified [index].
+     */
+    public fun addDouble(index: Int): DoubleVector {
+        require(index >= 0) { "Invalid column index" }
+        val vector = DoubleVector(index, capacity)
+        _doubles.add(vector)
+        return vector
+    }
+
+    /**
+     * Register the string column with the specified [index].
+     */
+    public fun addString(index: Int): StringVector {
+        require(index >= 0) { "Invalid column index" }
+        val vector = StringVector(index, capacity, StringDictionary())
+        _strings.add(vector)
+        return vector
+    }
+
+    /**
+     * Clear the rows of this batch. The dictionaries of the string columns are retained.
+     */
+    public fun reset() {
+        size = 0
+    }
+
+    /**
+     * Construct an empty batch with the same columns as this batch, sharing the dictionaries of the string columns so
+     * that identifiers can be copied between the batches.
+     */
+    internal fun fork(): ColumnBatch {
+        val batch = ColumnBatch(capacity)
+        for (vector in _longs) {
+            batch._longs.add(LongVector(vector.index, vector.type, capacity))
+        }
+        for (vector in _doubles) {
+            batch._doubles.add(DoubleVector(vector.index, capacity))
+        }
+        for (vector in _strings) {
+            batch._strings.add(StringVector(vector.index, capacity, vector.dictionary))
+        }
+        return batch
+    }
+
+    /**
+     * Replace the rows of this batch with the rows of [other], which must be a [fork] of this batch.
+     */
+    internal fun copyFrom(other: ColumnBatch) {
+        val size = other.size
+        for (i in _longs.indices) {
+            val src = other._longs[i]
+            val dst = _longs[i]
+            System.arraycopy(src.values, 0, dst.values, 0, size)
+            System.arraycopy(src.nulls, 0, dst.nulls, 0, size)
+        }
+        for (i in _doubles.indices) {
+            val src = other._doubles[i]
+            val dst = _doubles[i]
+            System.arraycopy(src.values, 0, dst.values, 0, size)
+            System.arraycopy(src.nulls, 0, dst.nulls, 0, size)
+        }
+        for (i in _strings.indices) {
+            val src = other._strings[i]
+            val dst = _strings[i]
+            System.arraycopy(src.ids, 0, dst.ids, 0, size)
+            System.arraycopy(src.nulls, 0, dst.nulls, 0, size)
+        }
+        this.size = size
+    }
+
+    /**
+     * Read the current row of [reader] into the row at position [row] of this batch.
+     */
+    internal fun read(reader: TableReader, row: Int) {
+        for (vector in _longs) {
+            vector.read(reader, row)
+        }
+        for (vector in _doubles) {
+            vector.read(reader, row)
+        }
+        for (vector in _strings) {
+            vector.read(reader, row)
+        }
+    }
+
+    private fun addLong(index: Int, type: LongVector.Type): LongVector {
+        require(index >= 0) { "Invalid column index" }
+        val vector = LongVector(index, type, capacity)
+        _longs.add(vector)
+        return vector
+    }
+
+    override fun toString(): String = "ColumnBatch[size=$size,capacity=$capacity]"
+
+    /**
+     * The values of a single column in a [ColumnBatch].
+     *
+     * @property index The index of the column in the reader.
+     */
+    public sealed class Vector(public val index: Int, capacity: Int) {
+        /**
+         * A flag for each row to indicate whether the value is `null`.
+         */
+        public val nulls: BooleanArray = BooleanArray(capacity)
+
+        /**
+         * Determine whether the value at [row] is `null`.
+         */
+        public fun isNull(row: Int): Boolean = nulls[row]
+
+        /**
+         * Mark the value at [row] as `null`.
+         */
+        public abstract fun setNull(row: Int)
+
+        /**
+         * Copy the value of the current row of [reader] to [row].
+         */
+        internal abstract fun read(reader: TableReader, row: Int)
+    }
+
+    /**
+     * A column stored as 64-bit integers.
+     *
+     * @property type The type of the column that is converted to a 64-bit integer.
+     */
+    public class LongVector internal constructor(index: Int, public val type: Type, capacity: Int) : Vector(index, capacity) {
+        /**
+         * The values of the column, or `0` for `null` values.
+         */
+        public val values: LongArray = LongArray(capacity)
+
+        /**
+         * Obtain the value at [row].
+         */
+        public operator fun get(row: Int): Long = values[row]
+
+        /**
+         * Set the value at [row].
+         */
+        public operator fun set(row: Int, value: Long) {
+            values[row] = value
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            values[row] = 0
+            nulls[row] = true
+        }
+
+        override fun read(reader: TableReader, row: Int) {
+            when (type) {
+                Type.INT -> if (reader.isNull(index)) setNull(row) else set(row, reader.getInt(index).toLong())
+                Type.LONG -> if (reader.isNull(index)) setNull(row) else set(row, reader.getLong(index))
+                Type.INSTANT -> {
+                    val value = reader.getInstant(index)
+                    if (value == null) setNull(row) else set(row, value.toEpochMilli())
+                }
+                Type.DURATION -> {
+                    val value = reader.getDuration(index)
+                    if (value == null) setNull(row) else set(row, value.toMillis())
+                }
+            }
+        }
+
+        /**
+         * The column types that are stored in a [LongVector].
+         */
+        public enum class Type {
+            INT, LONG, INSTANT, DURATION
+        }
+    }
+
+    /**
+     * A column stored as 64-bit floats.
+     */
+    public class DoubleVector internal constructor(index: Int, capacity: Int) : Vector(index, capacity) {
+        /**
+         * The values of the column, or [Double.NaN] for `null` values.
+         */
+        public val values: DoubleArray = DoubleArray(capacity)
+
+        /**
+         * Obtain the value at [row].
+         */
+        public operator fun get(row: Int): Double = values[row]
+
+        /**
+         * Set the value at [row].
+         */
+        public operator fun set(row: Int, value: Double) {
+            values[row] = value
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            values[row] = Double.NaN
+            nulls[row] = true
+        }
+
+        override fun read(reader: TableReader, row: Int) {
+            if (reader.isNull(index)) setNull(row) else set(row, reader.getDouble(index))
+        }
+    }
+
+    /**
+     * A column of strings, stored as identifiers into a dictionary that is shared by all batches.
+     */
+    public class StringVector internal constructor(
+        index: Int,
+        capacity: Int,
+        internal val dictionary: StringDictionary
+    ) : Vector(index, capacity) {
+        /**
+         * The dictionary identifiers of the column, or `-1` for `null` values.
+         */
+        public val ids: IntArray = IntArray(capacity)
+
+        /**
+         * The most recently interned string, since the rows of a trace are usually grouped by their key.
+         */
+        private var last: String? = null
+        private var lastId = -1
+
+        /**
+         * The number of distinct strings in the dictionary.
+         */
+        public val dictionarySize: Int
+            get() = dictionary.size
+
+        /**
+         * Obtain the string for the dictionary identifier [id].
+         */
+        public fun lookup(id: Int): String = dictionary[id]
+
+        /**
+         * Obtain the value at [row].
+         */
+        public operator fun get(row: Int): String? {
+            val id = ids[row]
+            return if (id < 0) null else dictionary[id]
+        }
+
+        /**
+         * Set the value at [row].
+         */
+        public operator fun set(row: Int, value: String) {
+            ids[row] = intern(value)
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            ids[row] = -1
+            nulls[row] = true
+        }
+
+        /**
+         * Obtain the dictionary identifier of [value], adding it to the dictionary if necessary.
+         */
+        public fun intern(value: String): Int {
+            if (value == last) {
+                return lastId
+            }
+
+            val id = dictionary.intern(value)
+            last = value
+            lastId = id
+            return id
+        }
+
+        override fun read(reader: TableReader, row: Int) {
+            val value = reader.getString(index)
+            if (value == null) setNull(row) else set(row, value)
+        }
+    }
+
+    /**
+     * A dictionary of strings that may be shared by the batches of concurrent readers.
+     */
+    internal class StringDictionary {
+        /**
+         * The lookup table from string to identifier.
+         */
+        private val lookup = ConcurrentHashMap<String, Int>()
+
+        /**
+         * The distinct strings in order of their identifiers. Entries are written before they are published in
+         * [lookup], so a thread that obtained an identifier will also observe its entry.
+         */
+        @Volatile
+        private var values = arrayOfNulls<String>(16)
+
+        /**
+         * The number of strings in the dictionary.
+         */
+        @Volatile
+        var size: Int = 0
+            private set
+
+        /**
+         * Obtain the string for the identifier [id].
+         */
+        operator fun get(id: Int): String {
+            require(id in 0 until size) { "Invalid dictionary identifier" }
+            return values[id]!!
+        }
+
+        /**
+         * Obtain the identifier of [value], adding it to the dictionary if necessary.
+         */
+        fun intern(value: String): Int {
+            val id = lookup[value]
+            if (id != null) {
+                return id
+            }
+
+            synchronized(this) {
+                val existing = lookup[value]
+                if (existing != null) {
+                    return existing
+                }
+
+                val next = size
+                var values = values
+                if (next == values.size) {
+                    values = values.copyOf(next * 2)
+                    this.values = values
+                }
+
+                values[next] = value
+                size = next + 1
+                lookup[value] = next
+                return next
+            }
+        }
+    }
+
+    public companion object {
+        /**
+         * The default number of rows in a batch.
+         */
+        public const val DEFAULT_CAPACITY: Int = 4096
+    }
+}
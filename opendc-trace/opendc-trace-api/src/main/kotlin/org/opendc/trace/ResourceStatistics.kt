@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+import java.time.Instant
+
+/**
+ * Summary statistics of a single resource in the resource states table of a trace.
+ *
+ * @property id The identifier of the resource.
+ * @property rowOffset The index of the first row of the resource in the resource states table, or `-1` if the rows of
+ * the resource are not stored contiguously.
+ * @property rowCount The number of rows of the resource.
+ * @property startTime The start of the first sample of the resource.
+ * @property endTime The end of the last sample of the resource.
+ * @property minCpuUsage The minimum CPU usage of the resource (in MHz).
+ * @property maxCpuUsage The maximum CPU usage of the resource (in MHz).
+ * @property meanCpuUsage The mean CPU usage of the resource (in MHz), weighted by the duration of the samples.
+ * @property cpuLoad The CPU usage of the resource integrated over time (in MHz * s).
+ * @property coreHours The number of CPU cores of the resource integrated over time (in hours).
+ */
+public data class ResourceStatistics(
+    val id: String,
+    val rowOffset: Long,
+    val rowCount: Long,
+    val startTime: Instant,
+    val endTime: Instant,
+    val minCpuUsage: Double,
+    val maxCpuUsage: Double,
+    val meanCpuUsage: Double,
+    val cpuLoad: Double,
+    val coreHours: Double
+)
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+import java.util.concurrent.Executor
+
+/**
+ * Options for scanning a [Table] with a [TableReader].
+ *
+ * @property parallelism The maximum number of partitions (files, row groups or CSV partitions) of the table that are
+ * read concurrently. A value of `1` reads the partitions sequentially on the caller thread.
+ * @property ordered A flag to indicate that the rows must be returned in the order of the partitions. If `false`,
+ * batches of different partitions are interleaved in the order they become available, although the rows of a single
+ * partition keep their order.
+ * @property executor The [Executor] to scan the partitions on, or `null` to use a pool owned by the reader.
+ * @property predicates The conjunction of predicates that the reader may use to skip rows (see [TablePredicate]).
+ */
+public data class ScanOptions(
+    val parallelism: Int = 1,
+    val ordered: Boolean = true,
+    val executor: Executor? = null,
+    val predicates: List<TablePredicate> = emptyList()
+) {
+    init {
+        require(parallelism > 0) { "Parallelism must be positive" }
+    }
+
+    public companion object {
+        /**
+         * The default options, which scan the partitions of a table sequentially.
+         */
+        @JvmField
+        public val SEQUENTIAL: ScanOptions = ScanOptions()
+    }
+}
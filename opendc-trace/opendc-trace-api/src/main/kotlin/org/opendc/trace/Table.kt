@@ -43,10 +43,29 @@ public interface Table {
      */
     public fun newReader(projection: List<String>? = null): TableReader
 
+    /**
+     * Open a [TableReader] for a projection of this table that scans the partitions of the table according to [options].
+     *
+     * Formats that are not partitioned ignore the options and read the table sequentially. The predicates of the
+     * options may be used to skip rows, but the reader is not required to filter all rows that do not match.
+     *
+     * @param projection The names of the columns to fetch from the table or `null` if no projection is performed.
+     * @param options The options for scanning the table.
+     */
+    public fun newReader(projection: List<String>?, options: ScanOptions): TableReader
+
     /**
      * Open a [TableWriter] for this table.
      *
      * @throws UnsupportedOperationException if writing is not supported by the table.
      */
     public fun newWriter(): TableWriter
+
+    /**
+     * Open a [TableWriter] for this table that writes the table according to [options].
+     *
+     * @param options The options for writing the table.
+     * @throws UnsupportedOperationException if writing is not supported by the table.
+     */
+    public fun newWriter(options: WriteOptions): TableWriter
 }
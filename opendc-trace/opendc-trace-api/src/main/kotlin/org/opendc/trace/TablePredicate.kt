@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+/**
+ * A predicate on a column of a [Table] that can be pushed down into a [TableReader] via [ScanOptions.predicates].
+ *
+ * Predicates are hints: a reader may skip rows, or larger units such as row groups, that cannot satisfy the predicate,
+ * but it may still return rows that do not satisfy it. Callers that require exact results must apply the predicate
+ * to the returned rows themselves.
+ *
+ * Values are represented by the Java type of the column, e.g., [java.time.Instant] for timestamp columns and
+ * [kotlin.String] for string columns.
+ */
+public sealed class TablePredicate {
+    /**
+     * The name of the column on which the predicate applies.
+     */
+    public abstract val column: String
+
+    /**
+     * A predicate that matches the values of [column] within a range.
+     *
+     * @property lower The lower bound of the range or `null` if the range is unbounded below.
+     * @property upper The upper bound of the range or `null` if the range is unbounded above.
+     * @property lowerInclusive A flag to indicate that the lower bound is part of the range.
+     * @property upperInclusive A flag to indicate that the upper bound is part of the range.
+     */
+    public data class Range(
+        override val column: String,
+        val lower: Comparable<*>?,
+        val upper: Comparable<*>?,
+        val lowerInclusive: Boolean = true,
+        val upperInclusive: Boolean = true
+    ) : TablePredicate()
+
+    /**
+     * A predicate that matches the values of [column] that are equal to one of [values].
+     */
+    public data class In(override val column: String, val values: Set<Any>) : TablePredicate()
+}
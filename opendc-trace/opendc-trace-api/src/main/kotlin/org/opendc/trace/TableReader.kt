@@ -37,6 +37,29 @@ public interface TableReader : AutoCloseable {
      */
     public fun nextRow(): Boolean
 
+    /**
+     * Advance the stream by up to [ColumnBatch.capacity] rows and read the registered columns into [batch].
+     *
+     * The default implementation adapts [nextRow] and the typed getters. Readers that are able to decode values
+     * without materializing them per row should override this method. The current row is undefined afterwards.
+     *
+     * @param batch The batch to fill, whose previous rows are discarded.
+     * @throws IllegalArgumentException if a column of the batch is not valid for this reader or its type.
+     * @return The number of rows read into the batch, or `0` if there are no more rows.
+     */
+    public fun nextBatch(batch: ColumnBatch): Int {
+        batch.reset()
+
+        val capacity = batch.capacity
+        var size = 0
+        while (size < capacity && nextRow()) {
+            batch.read(this, size++)
+        }
+
+        batch.size = size
+        return size
+    }
+
     /**
      * Resolve the index of the column by its [name].
      *
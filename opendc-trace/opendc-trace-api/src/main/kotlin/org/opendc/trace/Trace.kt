@@ -46,6 +46,12 @@ public interface Trace {
      */
     public fun getTable(name: String): Table?
 
+    /**
+     * The summary statistics of the resource states of the trace, or `null` if the format did not store them with the
+     * trace. Accessing the statistics does not require a scan of the trace.
+     */
+    public val statistics: TraceStatistics?
+
     public companion object {
         /**
          * Open a [Trace] at the specified [path] in the given [format].
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Summary statistics of the resource states table of a [Trace], which allow tools to answer questions about a trace
+ * without scanning it.
+ *
+ * Formats may store these statistics in a sidecar file when the trace is written, see [Trace.statistics].
+ *
+ * @param resources The statistics of the resources in the trace.
+ */
+public class TraceStatistics(resources: Collection<ResourceStatistics>) {
+    /**
+     * The statistics of the resources in the trace, keyed by resource identifier.
+     */
+    public val resources: Map<String, ResourceStatistics> = resources.associateBy { it.id }
+
+    /**
+     * The number of resources in the trace.
+     */
+    public val resourceCount: Int
+        get() = resources.size
+
+    /**
+     * The number of rows in the resource states table.
+     */
+    public val rowCount: Long = resources.sumOf { it.rowCount }
+
+    /**
+     * The start of the first sample in the trace, or `null` if the trace is empty.
+     */
+    public val startTime: Instant? = resources.minOfOrNull { it.startTime }
+
+    /**
+     * The end of the last sample in the trace, or `null` if the trace is empty.
+     */
+    public val endTime: Instant? = resources.maxOfOrNull { it.endTime }
+
+    /**
+     * The CPU usage of all resources integrated over time (in MHz * s).
+     */
+    public val cpuLoad: Double = resources.sumOf { it.cpuLoad }
+
+    /**
+     * The number of CPU cores of all resources integrated over time (in hours).
+     */
+    public val coreHours: Double = resources.sumOf { it.coreHours }
+
+    /**
+     * Obtain the statistics of the resource with the specified [id] or `null` if the resource does not exist.
+     */
+    public operator fun get(id: String): ResourceStatistics? = resources[id]
+
+    /**
+     * Write these statistics to the file at [path].
+     */
+    public fun write(path: Path) {
+        DataOutputStream(BufferedOutputStream(Files.newOutputStream(path))).use { output ->
+            output.writeInt(MAGIC)
+            output.writeInt(VERSION)
+            output.writeInt(resources.size)
+
+            for (resource in resources.values) {
+                output.writeUTF(resource.id)
+                output.writeLong(resource.rowOffset)
+                output.writeLong(resource.rowCount)
+                output.writeLong(resource.startTime.toEpochMilli())
+                output.writeLong(resource.endTime.toEpochMilli())
+                output.writeDouble(resource.minCpuUsage)
+                output.writeDouble(resource.maxCpuUsage)
+                output.writeDouble(resource.meanCpuUsage)
+                output.writeDouble(resource.cpuLoad)
+                output.writeDouble(resource.coreHours)
+            }
+        }
+    }
+
+    override fun toString(): String = "TraceStatistics[resources=$resourceCount,rows=$rowCount]"
+
+    /**
+     * A builder that accumulates [TraceStatistics] over the rows of a resource states table in the order in which
+     * they are stored.
+     */
+    public class Builder {
+        /**
+         * The accumulators of the resources, in order of their first row.
+         */
+        private val accumulators = LinkedHashMap<String, Accumulator>()
+
+        /**
+         * The index of the next row.
+         */
+        private var row = 0L
+
+        /**
+         * Add a row to the statistics.
+         *
+         * @param id The identifier of the resource.
+         * @param timestamp The timestamp at which the sample ends (in epoch millis).
+         * @param duration The duration of the sample (in milliseconds).
+         * @param cpuCount The number of CPU cores of the resource.
+         * @param cpuUsage The CPU usage of the sample (in MHz).
+         */
+        public fun add(id: String, timestamp: Long, duration: Long, cpuCount: Int, cpuUsage: Double): Builder {
+            val row = row++
+            val acc = accumulators.getOrPut(id) { Accumulator(row) }
+
+            if (acc.lastRow != row - 1 && acc.rowCount > 0) {
+                acc.isContiguous = false
+            }
+
+            val length = max(0, duration)
+            acc.lastRow = row
+            acc.rowCount++
+            acc.startTime = min(acc.startTime, timestamp - length)
+            acc.endTime = max(acc.endTime, timestamp)
+            acc.minCpuUsage = min(acc.minCpuUsage, cpuUsage)
+            acc.maxCpuUsage = max(acc.maxCpuUsage, cpuUsage)
+            acc.sumCpuUsage += cpuUsage
+            acc.weightedCpuUsage += cpuUsage * length
+            acc.duration += length
+            acc.coreTime += cpuCount.toDouble() * length
+            return this
+        }
+
+        /**
+         * Build the [TraceStatistics] of the rows added so far.
+         */
+        public fun build(): TraceStatistics {
+            val resources = accumulators.map { (id, acc) ->
+                val mean = if (acc.duration > 0) acc.weightedCpuUsage / acc.duration else acc.sumCpuUsage / acc.rowCount
+                ResourceStatistics(
+                    id,
+                    if (acc.isContiguous) acc.firstRow else -1,
+                    acc.rowCount,
+                    Instant.ofEpochMilli(acc.startTime),
+                    Instant.ofEpochMilli(acc.endTime),
+                    acc.minCpuUsage,
+                    acc.maxCpuUsage,
+                    mean,
+                    acc.weightedCpuUsage / 1000.0,
+                    acc.coreTime / 3_600_000.0
+                )
+            }
+            return TraceStatistics(resources)
+        }
+
+        /**
+         * The running aggregates of a single resource.
+         */
+        private class Accumulator(@JvmField val firstRow: Long) {
+            @JvmField var lastRow = firstRow
+            @JvmField var isContiguous = true
+            @JvmField var rowCount = 0L
+            @JvmField var startTime = Long.MAX_VALUE
+            @JvmField var endTime = Long.MIN_VALUE
+            @JvmField var minCpuUsage = Double.POSITIVE_INFINITY
+            @JvmField var maxCpuUsage = Double.NEGATIVE_INFINITY
+            @JvmField var sumCpuUsage = 0.0
+            @JvmField var weightedCpuUsage = 0.0
+            @JvmField var duration = 0L
+            @JvmField var coreTime = 0.0
+        }
+    }
+
+    public companion object {
+        /**
+         * The magic number at the start of a statistics file.
+         */
+        private const val MAGIC = 0x4F445354 // "ODST"
+
+        /**
+         * The version of the statistics file format.
+         */
+        private const val VERSION = 1
+
+        /**
+         * Construct a new [Builder] for [TraceStatistics].
+         */
+        @JvmStatic
+        public fun builder(): Builder = Builder()
+
+        /**
+         * Read the [TraceStatistics] from the file at [path].
+         *
+         * @throws IllegalArgumentException if the file does not contain statistics in a supported version.
+         */
+        @JvmStatic
+        public fun read(path: Path): TraceStatistics {
+            DataInputStream(BufferedInputStream(Files.newInputStream(path))).use { input ->
+                require(input.readInt() == MAGIC) { "Not a statistics file: $path" }
+                val version = input.readInt()
+                require(version == VERSION) { "Unsupported statistics version $version" }
+
+                val count = input.readInt()
+                val resources = ArrayList<ResourceStatistics>(count)
+
+                repeat(count) {
+                    resources += ResourceStatistics(
+                        input.readUTF(),
+                        input.readLong(),
+                        input.readLong(),
+                        Instant.ofEpochMilli(input.readLong()),
+                        Instant.ofEpochMilli(input.readLong()),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble()
+                    )
+                }
+
+                return TraceStatistics(resources)
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+/**
+ * Options for writing a [Table] with a [TableWriter].
+ *
+ * Formats that do not support an option ignore it.
+ *
+ * @property clustered A flag to indicate that the rows should be reordered by the key of the table (e.g., the resource
+ * identifier and timestamp for resource states) before they are written, so that readers can skip data based on the
+ * statistics of the written rows. In that case, the rows may be passed to the writer in any order.
+ * @property rowGroupSize The target size of a row group in bytes, or `0` to use the default of the format.
+ * @property pageSize The target size of a page in bytes, or `0` to use the default of the format.
+ * @property bloomFilter A flag to indicate that bloom filters should be written for the identifier columns.
+ * @property statistics A flag to indicate that the [TraceStatistics] of the written rows should be stored with the
+ * trace.
+ */
+public data class WriteOptions(
+    val clustered: Boolean = false,
+    val rowGroupSize: Int = 0,
+    val pageSize: Int = 0,
+    val bloomFilter: Boolean = true,
+    val statistics: Boolean = true
+) {
+    init {
+        require(rowGroupSize >= 0) { "Row group size must not be negative" }
+        require(pageSize >= 0) { "Page size must not be negative" }
+    }
+
+    public companion object {
+        /**
+         * The default options of the format.
+         */
+        @JvmField
+        public val DEFAULT: WriteOptions = WriteOptions()
+    }
+}
@@ -22,10 +22,12 @@
 
 package org.opendc.trace.internal
 
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.Table
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableReader
 import org.opendc.trace.TableWriter
+import org.opendc.trace.WriteOptions
 import java.util.Objects
 
 /**
@@ -44,8 +46,14 @@ internal class TableImpl(val trace: TraceImpl, override val name: String) : Tabl
         return trace.format.newReader(trace.path, name, projection)
     }
 
+    override fun newReader(projection: List<String>?, options: ScanOptions): TableReader {
+        return trace.format.newReader(trace.path, name, projection, options)
+    }
+
     override fun newWriter(): TableWriter = trace.format.newWriter(trace.path, name)
 
+    override fun newWriter(options: WriteOptions): TableWriter = trace.format.newWriter(trace.path, name, options)
+
     override fun toString(): String = "Table[name=$name]"
 
     override fun hashCode(): Int = Objects.hash(trace, name)
@@ -24,6 +24,7 @@ package org.opendc.trace.internal
 
 import org.opendc.trace.Table
 import org.opendc.trace.Trace
+import org.opendc.trace.TraceStatistics
 import org.opendc.trace.spi.TraceFormat
 import java.nio.file.Path
 import java.util.Objects
@@ -50,6 +51,8 @@ internal class TraceImpl(val format: TraceFormat, val path: Path) : Trace {
 
     override fun getTable(name: String): Table? = tableMap[name]
 
+    override val statistics: TraceStatistics? by lazy { format.getStatistics(path) }
+
     override fun hashCode(): Int = Objects.hash(format, path)
 
     override fun equals(other: Any?): Boolean = other is TraceImpl && format == other.format && path == other.path
@@ -22,8 +22,11 @@
 
 package org.opendc.trace.spi
 
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableReader
 import org.opendc.trace.TableWriter
+import org.opendc.trace.TraceStatistics
+import org.opendc.trace.WriteOptions
 import java.nio.file.Path
 import java.util.ServiceLoader
 
@@ -74,6 +77,23 @@ public interface TraceFormat {
      */
     public fun newReader(path: Path, table: String, projection: List<String>?): TableReader
 
+    /**
+     * Open a [TableReader] for the specified [table] that scans the partitions of the table according to [options].
+     *
+     * The default implementation ignores [options] and delegates to the sequential reader. Implementations may use
+     * [ScanOptions.predicates] to skip rows that cannot match, but must not drop rows that do.
+     *
+     * @param path The path to the trace to open.
+     * @param table The name of the table to open a [TableReader] for.
+     * @param projection The name of the columns to project or `null` if no projection is performed.
+     * @param options The options for scanning the table.
+     * @throws IllegalArgumentException If [table] does not exist.
+     * @return A [TableReader] instance for the table.
+     */
+    public fun newReader(path: Path, table: String, projection: List<String>?, options: ScanOptions): TableReader {
+        return newReader(path, table, projection)
+    }
+
     /**
      * Open a [TableWriter] for the specified [table].
      *
@@ -85,6 +105,32 @@ public interface TraceFormat {
      */
     public fun newWriter(path: Path, table: String): TableWriter
 
+    /**
+     * Open a [TableWriter] for the specified [table] that writes the table according to [options].
+     *
+     * The default implementation ignores [options] and delegates to [newWriter].
+     *
+     * @param path The path to the trace to open.
+     * @param table The name of the table to open a [TableWriter] for.
+     * @param options The options for writing the table.
+     * @throws IllegalArgumentException If [table] does not exist.
+     * @throws UnsupportedOperationException If the format does not support writing.
+     * @return A [TableWriter] instance for the table.
+     */
+    public fun newWriter(path: Path, table: String, options: WriteOptions): TableWriter {
+        return newWriter(path, table)
+    }
+
+    /**
+     * Return the [TraceStatistics] that were stored with the trace at the specified [path].
+     *
+     * The default implementation returns `null`, meaning that the format does not store statistics.
+     *
+     * @param path The path to the trace.
+     * @return The statistics of the trace or `null` if they are not available.
+     */
+    public fun getStatistics(path: Path): TraceStatistics? = null
+
     /**
      * A helper object for resolving providers.
      */
@@ -22,6 +22,7 @@
 
 package org.opendc.trace.util
 
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.TableReader
 import java.time.Duration
 import java.time.Instant
@@ -65,6 +66,26 @@ public abstract class CompositeTableReader : TableReader {
         return delegate != null
     }
 
+    override fun nextBatch(batch: ColumnBatch): Int {
+        tryStart()
+
+        var delegate = delegate
+
+        while (delegate != null) {
+            val size = delegate.nextBatch(batch)
+            if (size > 0) {
+                return size
+            }
+
+            delegate.close()
+            delegate = nextReader()
+            this.delegate = delegate
+        }
+
+        batch.reset()
+        return 0
+    }
+
     override fun resolve(name: String): Int {
         tryStart()
 
@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util
+
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * A scanner for delimited text files (such as CSV files) that decodes the fields of a record directly from bytes.
+ *
+ * Unlike a general-purpose CSV parser, the scanner does not produce tokens or strings for the fields it reads. The
+ * caller advances through a record field by field and decodes each field with the method that fits the column at that
+ * position, so that numbers are decoded without allocating. Quoted fields are not supported. Lines starting with `#`
+ * and empty lines are skipped, and spaces and tabs around fields are trimmed.
+ */
+public class CsvScanner private constructor(private val source: Source, private val separator: Byte) : AutoCloseable {
+    /**
+     * The buffer containing the input bytes in the range `[0, limit)`.
+     */
+    private var buf: ByteBuffer = source.buffer
+    private var limit = source.limit
+
+    /**
+     * The position of the next byte to read.
+     */
+    private var pos = 0
+
+    /**
+     * The range of the current field (after trimming).
+     */
+    private var fieldStart = 0
+    private var fieldEnd = 0
+
+    /**
+     * A flag to indicate that the scanner is positioned in a record.
+     */
+    private var inRecord = false
+
+    /**
+     * A flag to indicate that all fields of the current record have been read.
+     */
+    private var isEndOfRecord = true
+
+    /**
+     * A flag to indicate that the scanner is closed.
+     */
+    private var isClosed = false
+
+    /**
+     * The number of bytes of the current field.
+     */
+    public val fieldLength: Int
+        get() = fieldEnd - fieldStart
+
+    /**
+     * A flag to indicate that the current field is empty.
+     */
+    public val isEmpty: Boolean
+        get() = fieldEnd == fieldStart
+
+    /**
+     * Advance to the next record, skipping the remaining fields of the current record.
+     *
+     * @return `true` if the scanner is positioned at a new record, `false` if the end of the input is reached.
+     */
+    public fun nextRecord(): Boolean {
+        if (isClosed) {
+            return false
+        }
+
+        if (inRecord && !isEndOfRecord) {
+            skipLine()
+        }
+
+        inRecord = false
+        isEndOfRecord = true
+
+        while (true) {
+            if (pos == limit && !fill(pos)) {
+                return false
+            }
+
+            when (buf.get(pos)) {
+                CR, LF -> pos++
+                HASH -> skipLine()
+                else -> break
+            }
+        }
+
+        inRecord = true
+        isEndOfRecord = false
+        return true
+    }
+
+    /**
+     * Advance to the next field of the current record.
+     *
+     * @return `true` if the scanner is positioned at a new field, `false` if there are no more fields in the record.
+     */
+    public fun nextField(): Boolean {
+        if (!inRecord || isEndOfRecord) {
+            return false
+        }
+
+        var start = pos
+        var i = pos
+        var end: Byte = LF
+
+        while (true) {
+            if (i == limit) {
+                if (!fill(start)) {
+                    isEndOfRecord = true
+                    break
+                }
+
+                i -= start
+                start = 0
+                continue
+            }
+
+            val b = buf.get(i)
+            if (b == separator || b == LF || b == CR) {
+                end = b
+                break
+            }
+            i++
+        }
+
+        if (end == separator && !isEndOfRecord) {
+            pos = i + 1
+        } else {
+            pos = i
+            isEndOfRecord = true
+        }
+
+        // Trim spaces and tabs around the field
+        var fieldEnd = i
+        while (start < fieldEnd && isBlank(buf.get(start))) {
+            start++
+        }
+        while (fieldEnd > start && isBlank(buf.get(fieldEnd - 1))) {
+            fieldEnd--
+        }
+
+        this.fieldStart = start
+        this.fieldEnd = fieldEnd
+        return true
+    }
+
+    /**
+     * Obtain the byte at the specified [index] of the current field.
+     */
+    public fun byteAt(index: Int): Byte {
+        require(index in 0 until fieldLength) { "Index out of bounds" }
+        return buf.get(fieldStart + index)
+    }
+
+    /**
+     * Decode the current field as a `long` value.
+     *
+     * @throws NumberFormatException if the field is not a valid integer.
+     */
+    public fun parseLong(): Long {
+        var i = fieldStart
+        val end = fieldEnd
+        var negative = false
+
+        if (i < end) {
+            val first = buf.get(i)
+            if (first == MINUS || first == PLUS) {
+                negative = first == MINUS
+                i++
+            }
+        }
+
+        if (i == end) {
+            throw NumberFormatException("Invalid integer '${getString()}'")
+        }
+
+        var result = 0L
+        while (i < end) {
+            val digit = buf.get(i) - ZERO
+            if (digit !in 0..9 || result < (Long.MIN_VALUE + digit) / 10) {
+                throw NumberFormatException("Invalid integer '${getString()}'")
+            }
+            result = result * 10 - digit
+            i++
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw NumberFormatException("Invalid integer '${getString()}'")
+            }
+            result = -result
+        }
+
+        return result
+    }
+
+    /**
+     * Decode the current field as an `int` value.
+     *
+     * @throws NumberFormatException if the field is not a valid integer.
+     */
+    public fun parseInt(): Int {
+        val result = parseLong()
+        if (result < Int.MIN_VALUE || result > Int.MAX_VALUE) {
+            throw NumberFormatException("Invalid integer '${getString()}'")
+        }
+        return result.toInt()
+    }
+
+    /**
+     * Decode the current field as a `double` value. Both a point and a comma are accepted as decimal separator.
+     *
+     * Values whose digits fit in the 53-bit significand of a double and that have a small exponent are decoded exactly
+     * without allocating. Other values fall back to [java.lang.Double.parseDouble].
+     *
+     * @throws NumberFormatException if the field is not a valid number.
+     */
+    public fun parseDouble(): Double {
+        var i = fieldStart
+        val end = fieldEnd
+        var negative = false
+
+        if (i < end) {
+            val first = buf.get(i)
+            if (first == MINUS || first == PLUS) {
+                negative = first == MINUS
+                i++
+            }
+        }
+
+        var mantissa = 0L
+        var digits = 0
+        var scale = 0
+        var hasDigits = false
+
+        // Integer part
+        while (i < end) {
+            val digit = buf.get(i) - ZERO
+            if (digit !in 0..9) {
+                break
+            }
+            hasDigits = true
+            if (mantissa != 0L || digit != 0) {
+                digits++
+            }
+            mantissa = mantissa * 10 + digit
+            i++
+
+            if (digits > MAX_FAST_DIGITS) {
+                return parseDoubleSlow()
+            }
+        }
+
+        // Fractional part
+        if (i < end && (buf.get(i) == DOT || buf.get(i) == COMMA)) {
+            i++
+            while (i < end) {
+                val digit = buf.get(i) - ZERO
+                if (digit !in 0..9) {
+                    break
+                }
+                hasDigits = true
+                if (mantissa != 0L || digit != 0) {
+                    digits++
+                }
+                mantissa = mantissa * 10 + digit
+                scale--
+                i++
+
+                if (digits > MAX_FAST_DIGITS) {
+                    return parseDoubleSlow()
+                }
+            }
+        }
+
+        if (!hasDigits || mantissa > MAX_FAST_MANTISSA) {
+            return parseDoubleSlow()
+        }
+
+        // Exponent
+        if (i < end) {
+            val e = buf.get(i)
+            if (e != LOWER_E && e != UPPER_E) {
+                return parseDoubleSlow()
+            }
+            i++
+
+            var expNegative = false
+            if (i < end && (buf.get(i) == MINUS || buf.get(i) == PLUS)) {
+                expNegative = buf.get(i) == MINUS
+                i++
+            }
+
+            if (i == end) {
+                return parseDoubleSlow()
+            }
+
+            var exp = 0
+            while (i < end) {
+                val digit = buf.get(i) - ZERO
+                if (digit !in 0..9 || exp > MAX_FAST_EXPONENT * 10) {
+                    return parseDoubleSlow()
+                }
+                exp = exp * 10 + digit
+                i++
+            }
+
+            scale += if (expNegative) -exp else exp
+        }
+
+        // Both the mantissa and the power of ten are exactly representable, so a single operation rounds correctly
+        val value = when {
+            mantissa == 0L -> 0.0
+            scale == 0 -> mantissa.toDouble()
+            scale in 1..MAX_FAST_EXPONENT -> mantissa.toDouble() * POWERS_OF_TEN[scale]
+            scale in -MAX_FAST_EXPONENT..-1 -> mantissa.toDouble() / POWERS_OF_TEN[-scale]
+            else -> return parseDoubleSlow()
+        }
+
+        return if (negative) -value else value
+    }
+
+    /**
+     * Decode the current field as [String].
+     *
+     * @param reuse A previously decoded string that is returned if it has the same contents as the field, in order to
+     * avoid allocating a new string for repeated values.
+     */
+    public fun getString(reuse: String? = null): String {
+        val start = fieldStart
+        val length = fieldEnd - start
+
+        if (reuse != null && reuse.length == length) {
+            var i = 0
+            while (i < length && buf.get(start + i).toInt() == reuse[i].code) {
+                i++
+            }
+
+            if (i == length) {
+                return reuse
+            }
+        }
+
+        val bytes = ByteArray(length)
+        for (i in 0 until length) {
+            bytes[i] = buf.get(start + i)
+        }
+        return String(bytes, StandardCharsets.UTF_8)
+    }
+
+    override fun close() {
+        if (!isClosed) {
+            isClosed = true
+            inRecord = false
+            source.close()
+        }
+    }
+
+    /**
+     * Skip the remaining bytes of the current line.
+     */
+    private fun skipLine() {
+        while (true) {
+            if (pos == limit && !fill(pos)) {
+                return
+            }
+
+            val b = buf.get(pos)
+            if (b == LF || b == CR) {
+                return
+            }
+            pos++
+        }
+    }
+
+    /**
+     * Load more input, discarding the bytes before [keep]. The positions in the buffer are shifted by [keep].
+     *
+     * @return `false` if the end of the input is reached, in which case the buffer is not changed.
+     */
+    private fun fill(keep: Int): Boolean {
+        if (!source.refill(keep)) {
+            return false
+        }
+
+        buf = source.buffer
+        limit = source.limit
+        pos -= keep
+        fieldStart = 0
+        fieldEnd = 0
+        return true
+    }
+
+    /**
+     * Slow path for [parseDouble] that allocates a string to parse.
+     */
+    private fun parseDoubleSlow(): Double {
+        return getString().replace(',', '.').toDouble()
+    }
+
+    private fun isBlank(b: Byte): Boolean = b == SPACE || b == TAB
+
+    /**
+     * A source of input bytes for the scanner.
+     */
+    private abstract class Source : AutoCloseable {
+        /**
+         * The buffer holding the input bytes.
+         */
+        abstract val buffer: ByteBuffer
+
+        /**
+         * The number of valid bytes in [buffer].
+         */
+        abstract val limit: Int
+
+        /**
+         * Discard the bytes before [keep] and load more input after the remaining bytes.
+         *
+         * @return `false` if there is no more input, in which case the buffer is not changed.
+         */
+        abstract fun refill(keep: Int): Boolean
+    }
+
+    /**
+     * A [Source] that maps a window of a file into memory.
+     */
+    private class MappedSource(private val channel: FileChannel, private val window: Int) : Source() {
+        private val size = channel.size()
+        private var offset = 0L
+        override var buffer: ByteBuffer = map(0L, minOf(size, window.toLong()).toInt())
+        override var limit: Int = buffer.limit()
+
+        override fun refill(keep: Int): Boolean {
+            if (offset + limit >= size) {
+                return false
+            }
+
+            val remaining = limit - keep
+            val newOffset = offset + keep
+            val length = minOf(size - newOffset, maxOf(window, remaining * 2).toLong()).toInt()
+
+            buffer = map(newOffset, length)
+            limit = length
+            offset = newOffset
+            return true
+        }
+
+        override fun close() = channel.close()
+
+        private fun map(position: Long, length: Int): ByteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length.toLong())
+    }
+
+    /**
+     * A [Source] that reads from an [InputStream] into a heap buffer.
+     */
+    private class StreamSource(private val input: InputStream, bufferSize: Int) : Source() {
+        private var array = ByteArray(bufferSize)
+        override var buffer: ByteBuffer = ByteBuffer.wrap(array)
+        override var limit: Int = 0
+
+        init {
+            readMore()
+        }
+
+        override fun refill(keep: Int): Boolean {
+            val remaining = limit - keep
+
+            if (remaining == array.size) {
+                // The buffer is full with a single field, so grow it
+                array = array.copyOf(array.size * 2)
+                buffer = ByteBuffer.wrap(array)
+            } else {
+                System.arraycopy(array, keep, array, 0, remaining)
+            }
+
+            val previous = limit
+            limit = remaining
+            if (!readMore()) {
+                // Restore the previous contents, since the contract is to leave the buffer unchanged
+                System.arraycopy(array, 0, array, keep, remaining)
+                limit = previous
+                return false
+            }
+            return true
+        }
+
+        override fun close() = input.close()
+
+        /**
+         * Read at least a single byte into the buffer.
+         *
+         * @return `false` if the end of the stream is reached.
+         */
+        private fun readMore(): Boolean {
+            while (true) {
+                val n = input.read(array, limit, array.size - limit)
+                if (n < 0) {
+                    return false
+                } else if (n > 0) {
+                    limit += n
+                    return true
+                }
+            }
+        }
+    }
+
+    public companion object {
+        /**
+         * The size of the windows that are mapped into memory.
+         */
+        private const val MAPPED_WINDOW_SIZE = 64 shl 20
+
+        /**
+         * The default size of the buffer for streams.
+         */
+        private const val STREAM_BUFFER_SIZE = 64 shl 10
+
+        private const val MAX_FAST_DIGITS = 18
+        private const val MAX_FAST_MANTISSA = 1L shl 53
+        private const val MAX_FAST_EXPONENT = 22
+        private val POWERS_OF_TEN = DoubleArray(MAX_FAST_EXPONENT + 1) { "1e$it".toDouble() }
+
+        private const val LF = '\n'.code.toByte()
+        private const val CR = '\r'.code.toByte()
+        private const val HASH = '#'.code.toByte()
+        private const val SPACE = ' '.code.toByte()
+        private const val TAB = '\t'.code.toByte()
+        private const val MINUS = '-'.code.toByte()
+        private const val PLUS = '+'.code.toByte()
+        private const val DOT = '.'.code.toByte()
+        private const val COMMA = ','.code.toByte()
+        private const val LOWER_E = 'e'.code.toByte()
+        private const val UPPER_E = 'E'.code.toByte()
+        private const val ZERO = '0'.code.toByte()
+
+        /**
+         * Open a [CsvScanner] for the file at [path], which is mapped into memory.
+         *
+         * @param path The path to the file to scan.
+         * @param separator The character that separates the fields of a record.
+         */
+        @JvmStatic
+        public fun open(path: Path, separator: Char = ','): CsvScanner = open(path, separator, MAPPED_WINDOW_SIZE)
+
+        /**
+         * Open a [CsvScanner] for the file at [path] that maps windows of [windowSize] bytes into memory.
+         */
+        internal fun open(path: Path, separator: Char, windowSize: Int): CsvScanner {
+            val channel = FileChannel.open(path, StandardOpenOption.READ)
+            try {
+                return CsvScanner(MappedSource(channel, windowSize), separator.code.toByte())
+            } catch (e: Throwable) {
+                channel.close()
+                throw e
+            }
+        }
+
+        /**
+         * Construct a [CsvScanner] that reads from the specified [input] stream.
+         *
+         * @param input The stream to read from, which is closed when the scanner is closed.
+         * @param separator The character that separates the fields of a record.
+         */
+        @JvmStatic
+        public fun of(input: InputStream, separator: Char = ','): CsvScanner = of(input, separator, STREAM_BUFFER_SIZE)
+
+        /**
+         * Construct a [CsvScanner] that reads from the specified [input] stream into a buffer of [bufferSize] bytes.
+         */
+        internal fun of(input: InputStream, separator: Char, bufferSize: Int): CsvScanner {
+            return CsvScanner(StreamSource(input, bufferSize), separator.code.toByte())
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util
+
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.ScanOptions
+import org.opendc.trace.TableReader
+import java.time.Duration
+import java.time.Instant
+import java.util.UUID
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * A [TableReader] that scans the partitions of a table concurrently on a bounded number of workers.
+ *
+ * Parallelism applies to [nextBatch]: each worker reads a whole partition at a time into its own batches, which are
+ * handed to the caller through bounded queues. In ordered mode, the batches are returned in partition order, otherwise
+ * in the order in which they become available. Reading with [nextRow] scans the partitions sequentially on the caller
+ * thread. Row and batch reads cannot be mixed on a single reader.
+ *
+ * @param partitions The factories for the readers of the partitions of the table, in order.
+ * @param options The options of the scan.
+ */
+public class ParallelTableReader(
+    private val partitions: List<() -> TableReader>,
+    private val options: ScanOptions
+) : TableReader {
+    /**
+     * The number of workers to scan the partitions with.
+     */
+    private val parallelism = options.parallelism.coerceAtMost(partitions.size).coerceAtLeast(1)
+
+    /**
+     * The way in which this reader is consumed.
+     */
+    private var mode = Mode.NONE
+
+    /**
+     * The reader of the first partition, opened eagerly to resolve column indices.
+     */
+    private val first = AtomicReference<TableReader?>()
+
+    /**
+     * The state of a sequential scan with [nextRow].
+     */
+    private var rowReader: TableReader? = null
+    private var rowPartition = 0
+
+    /**
+     * The batch of the caller, from which the batches of the workers are forked.
+     */
+    private var template: ColumnBatch? = null
+
+    /**
+     * The queues through which the workers hand over batches: one per partition in ordered mode and a single shared
+     * queue otherwise.
+     */
+    private var queues: Array<BlockingQueue<Any>> = emptyArray()
+
+    /**
+     * The index of the next partition to be claimed by a worker.
+     */
+    private val nextPartition = AtomicInteger()
+
+    /**
+     * The partition that the caller is consuming in ordered mode, or the number of completed partitions otherwise.
+     */
+    private var progress = 0
+
+    /**
+     * The batches that have been consumed by the caller and can be reused by the workers.
+     */
+    private val free = ConcurrentLinkedQueue<ColumnBatch>()
+
+    /**
+     * The pool that is owned by this reader if [ScanOptions.executor] is not set.
+     */
+    private var pool: ExecutorService? = null
+
+    /**
+     * A flag to indicate that the reader has been closed.
+     */
+    @Volatile
+    private var isClosed = false
+
+    override fun nextRow(): Boolean {
+        check(mode != Mode.BATCH) { "Cannot mix row and batch reads" }
+        mode = Mode.ROW
+
+        var reader = rowReader
+        while (true) {
+            if (reader == null) {
+                if (rowPartition >= partitions.size) {
+                    return false
+                }
+
+                reader = openPartition(rowPartition)
+                rowReader = reader
+            }
+
+            if (reader.nextRow()) {
+                return true
+            }
+
+            reader.close()
+            reader = null
+            rowReader = null
+            rowPartition++
+        }
+    }
+
+    override fun nextBatch(batch: ColumnBatch): Int {
+        check(mode != Mode.ROW) { "Cannot mix row and batch reads" }
+        check(!isClosed) { "Reader is closed" }
+
+        if (mode == Mode.NONE) {
+            mode = Mode.BATCH
+            start(batch)
+        } else {
+            require(batch === template) { "The same batch must be used for the entire scan" }
+        }
+
+        while (true) {
+            val item = take()
+            if (item == null) {
+                batch.reset()
+                return 0
+            } else if (item is ColumnBatch) {
+                batch.copyFrom(item)
+                free.offer(item)
+                return batch.size
+            } else if (item is Failure) {
+                close()
+                throw item.cause
+            }
+        }
+    }
+
+    override fun resolve(name: String): Int {
+        val reader = rowReader ?: peekFirst()
+        if (reader != null) {
+            return reader.resolve(name)
+        } else if (partitions.isEmpty()) {
+            return -1
+        }
+
+        // The first partition is already consumed by the scan
+        return partitions[0]().use { it.resolve(name) }
+    }
+
+    override fun isNull(index: Int): Boolean = activeReader().isNull(index)
+
+    override fun getBoolean(index: Int): Boolean = activeReader().getBoolean(index)
+
+    override fun getInt(index: Int): Int = activeReader().getInt(index)
+
+    override fun getLong(index: Int): Long = activeReader().getLong(index)
+
+    override fun getFloat(index: Int): Float = activeReader().getFloat(index)
+
+    override fun getDouble(index: Int): Double = activeReader().getDouble(index)
+
+    override fun getString(index: Int): String? = activeReader().getString(index)
+
+    override fun getUUID(index: Int): UUID? = activeReader().getUUID(index)
+
+    override fun getInstant(index: Int): Instant? = activeReader().getInstant(index)
+
+    override fun getDuration(index: Int): Duration? = activeReader().getDuration(index)
+
+    override fun <T> getList(index: Int, elementType: Class<T>): List<T>? =
+        activeReader().getList(index, elementType)
+
+    override fun <T> getSet(index: Int, elementType: Class<T>): Set<T>? = activeReader().getSet(index, elementType)
+
+    override fun <K, V> getMap(index: Int, keyType: Class<K>, valueType: Class<V>): Map<K, V>? =
+        activeReader().getMap(index, keyType, valueType)
+
+    override fun close() {
+        if (isClosed) {
+            return
+        }
+
+        isClosed = true
+        rowReader?.close()
+        rowReader = null
+        first.getAndSet(null)?.close()
+
+        for (queue in queues) {
+            queue.clear()
+        }
+
+        pool?.shutdown()
+    }
+
+    override fun toString(): String = "ParallelTableReader[partitions=${partitions.size},parallelism=$parallelism]"
+
+    /**
+     * Obtain the reader of the current row.
+     */
+    private fun activeReader(): TableReader = checkNotNull(rowReader) { "Invalid reader state" }
+
+    /**
+     * Obtain the reader of the first partition without consuming it.
+     */
+    private fun peekFirst(): TableReader? {
+        if (partitions.isEmpty() || mode != Mode.NONE) {
+            return null
+        }
+
+        val reader = first.get()
+        if (reader != null) {
+            return reader
+        }
+
+        val opened = partitions[0]()
+        first.set(opened)
+        return opened
+    }
+
+    /**
+     * Open the reader for the partition at [index].
+     */
+    private fun openPartition(index: Int): TableReader {
+        if (index == 0) {
+            val reader = first.getAndSet(null)
+            if (reader != null) {
+                return reader
+            }
+        }
+
+        return partitions[index]()
+    }
+
+    /**
+     * Start the workers of the scan.
+     */
+    private fun start(batch: ColumnBatch) {
+        template = batch
+        queues = if (options.ordered) {
+            Array<BlockingQueue<Any>>(partitions.size) { ArrayBlockingQueue(QUEUE_CAPACITY) }
+        } else {
+            arrayOf<BlockingQueue<Any>>(ArrayBlockingQueue(parallelism * QUEUE_CAPACITY))
+        }
+
+        val executor = options.executor ?: newPool(parallelism).also { pool = it }
+        repeat(parallelism) {
+            executor.execute { work() }
+        }
+    }
+
+    /**
+     * Claim and scan partitions until all partitions have been claimed.
+     */
+    private fun work() {
+        val template = checkNotNull(template)
+
+        while (!isClosed) {
+            val partition = nextPartition.getAndIncrement()
+            if (partition >= partitions.size) {
+                break
+            }
+
+            val queue = if (options.ordered) queues[partition] else queues[0]
+            try {
+                openPartition(partition).use { reader ->
+                    while (!isClosed) {
+                        val batch = free.poll() ?: template.fork()
+                        if (reader.nextBatch(batch) == 0) {
+                            free.offer(batch)
+                            break
+                        }
+
+                        put(queue, batch)
+                    }
+                }
+
+                put(queue, END)
+            } catch (e: InterruptedException) {
+                return
+            } catch (e: Throwable) {
+                put(queue, Failure(e))
+                return
+            }
+        }
+    }
+
+    /**
+     * Hand [item] over to the caller, unless the reader is closed in the meantime.
+     */
+    private fun put(queue: BlockingQueue<Any>, item: Any) {
+        while (!isClosed) {
+            if (queue.offer(item, 10, TimeUnit.MILLISECONDS)) {
+                return
+            }
+        }
+    }
+
+    /**
+     * Take the next item handed over by the workers or `null` if all partitions have been read.
+     */
+    private fun take(): Any? {
+        while (progress < partitions.size) {
+            val queue = if (options.ordered) queues[progress] else queues[0]
+            val item = queue.take()
+            if (item === END) {
+                progress++
+                continue
+            }
+            return item
+        }
+
+        return null
+    }
+
+    /**
+     * The ways in which the reader can be consumed.
+     */
+    private enum class Mode {
+        NONE, ROW, BATCH
+    }
+
+    /**
+     * A failure of a worker that is rethrown on the caller thread.
+     */
+    private class Failure(val cause: Throwable)
+
+    private companion object {
+        /**
+         * The number of batches that may be queued per partition (or per worker in unordered mode).
+         */
+        const val QUEUE_CAPACITY = 2
+
+        /**
+         * The marker for the end of a partition.
+         */
+        val END = Any()
+
+        /**
+         * The number of pools created so far, used for naming the threads.
+         */
+        val poolCount = AtomicInteger()
+
+        /**
+         * Construct a pool of daemon threads for scanning a table.
+         */
+        fun newPool(threads: Int): ExecutorService {
+            val id = poolCount.incrementAndGet()
+            val threadCount = AtomicInteger()
+            return Executors.newFixedThreadPool(threads) { runnable ->
+                Thread(runnable, "opendc-trace-scan-$id-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+            }
+        }
+    }
+}
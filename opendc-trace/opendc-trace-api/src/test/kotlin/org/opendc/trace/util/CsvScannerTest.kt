@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util
+
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.nio.file.Files
+
+/**
+ * Test suite for the [CsvScanner] class.
+ */
+class CsvScannerTest {
+    @Test
+    fun testDoubles() {
+        val values = listOf(
+            "0", "-0.0", "1.5", "-2.25", "+3", ".5", "5.", "19.06666159933333", "0.7333333333333333",
+            "2097152.0", "110448.53333333334", "9007199254740993", "123456789012345678901.5", "0.1e1", "1e3",
+            "1.5E-3", "2.5e+10", "1e22", "1e23", "1e-22", "4.9e-324", "1.7976931348623157e308", "1e400"
+        )
+        val scanner = scan(values.joinToString(";"), ';')
+
+        assertTrue(scanner.nextRecord())
+        for (value in values) {
+            assertTrue(scanner.nextField())
+            assertEquals(value.toDouble(), scanner.parseDouble(), value)
+        }
+        assertFalse(scanner.nextField())
+    }
+
+    @Test
+    fun testCommaDecimals() {
+        val scanner = scan("1,5;-0,25e2;12,;3,0E-1", ';')
+
+        assertTrue(scanner.nextRecord())
+        assertAll(
+            { assertTrue(scanner.nextField()) },
+            { assertEquals(1.5, scanner.parseDouble()) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals(-25.0, scanner.parseDouble()) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals(12.0, scanner.parseDouble()) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals(0.3, scanner.parseDouble()) }
+        )
+    }
+
+    @Test
+    fun testInvalidDouble() {
+        val scanner = scan("abc,1.5x,,-")
+
+        assertTrue(scanner.nextRecord())
+        while (scanner.nextField()) {
+            assertThrows<NumberFormatException> { scanner.parseDouble() }
+        }
+    }
+
+    @Test
+    fun testLongs() {
+        val scanner = scan("0,-1,+42,9223372036854775807,-9223372036854775808")
+
+        assertTrue(scanner.nextRecord())
+        for (value in listOf(0L, -1L, 42L, Long.MAX_VALUE, Long.MIN_VALUE)) {
+            assertTrue(scanner.nextField())
+            assertEquals(value, scanner.parseLong())
+        }
+    }
+
+    @Test
+    fun testLongOverflow() {
+        val scanner = scan("9223372036854775808,-9223372036854775809,99999999999999999999,,-,12a,1.0")
+
+        assertTrue(scanner.nextRecord())
+        while (scanner.nextField()) {
+            assertThrows<NumberFormatException>(scanner.getString()) { scanner.parseLong() }
+        }
+    }
+
+    @Test
+    fun testIntOverflow() {
+        val scanner = scan("2147483647,2147483648,-2147483649")
+
+        assertTrue(scanner.nextRecord())
+        assertAll(
+            { assertTrue(scanner.nextField()) },
+            { assertEquals(Int.MAX_VALUE, scanner.parseInt()) },
+            { assertTrue(scanner.nextField()) },
+            { assertThrows<NumberFormatException> { scanner.parseInt() } },
+            { assertTrue(scanner.nextField()) },
+            { assertThrows<NumberFormatException> { scanner.parseInt() } }
+        )
+    }
+
+    @Test
+    fun testLineEndingsAndComments() {
+        val input = "# comment\r\na,b\r\n\r\n#another, comment\nc, d \n\n e\t,f\rg"
+
+        assertEquals(
+            listOf(listOf("a", "b"), listOf("c", "d"), listOf("e", "f"), listOf("g")),
+            scan(input).readAll()
+        )
+    }
+
+    @Test
+    fun testSkipRemainingFields() {
+        val scanner = scan("a,b,c\nd,e\n")
+
+        assertAll(
+            { assertTrue(scanner.nextRecord()) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals("a", scanner.getString()) },
+            { assertTrue(scanner.nextRecord()) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals("d", scanner.getString()) },
+            { assertFalse(scanner.nextRecord()) }
+        )
+    }
+
+    @Test
+    fun testEmptyFields() {
+        assertEquals(listOf(listOf("", "a", "", "")), scan(",a, ,").readAll())
+    }
+
+    @Test
+    fun testReuseString() {
+        val scanner = scan("vm-1,vm-1,vm-2")
+        val first = "vm-1"
+
+        assertTrue(scanner.nextRecord())
+        assertAll(
+            { assertTrue(scanner.nextField()) },
+            { assertTrue(first === scanner.getString(first)) },
+            { assertTrue(scanner.nextField()) },
+            { assertTrue(first === scanner.getString(first)) },
+            { assertTrue(scanner.nextField()) },
+            { assertEquals("vm-2", scanner.getString(first)) }
+        )
+    }
+
+    @Test
+    fun testClose() {
+        val scanner = scan("a,b")
+        scanner.close()
+
+        assertFalse(scanner.nextRecord())
+    }
+
+    /**
+     * Test that fields that are split across mapped windows are read in full.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = [1, 2, 3, 7, 8, 16, 64])
+    fun testMappedRefill(windowSize: Int) {
+        val path = Files.createTempFile("opendc", "csv")
+
+        try {
+            Files.write(path, INPUT.toByteArray())
+
+            CsvScanner.open(path, ';', windowSize).use { scanner ->
+                assertEquals(EXPECTED, scanner.readAll())
+            }
+        } finally {
+            Files.deleteIfExists(path)
+        }
+    }
+
+    /**
+     * Test that fields that are split across stream buffers are read in full, including fields that are larger than the
+     * buffer itself.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = [1, 2, 3, 7, 8, 16, 64])
+    fun testStreamRefill(bufferSize: Int) {
+        CsvScanner.of(ByteArrayInputStream(INPUT.toByteArray()), ';', bufferSize).use { scanner ->
+            assertEquals(EXPECTED, scanner.readAll())
+        }
+    }
+
+    /**
+     * Test a field that straddles the stream buffer boundary at every possible offset, with a stream that returns fewer
+     * bytes than requested.
+     */
+    @Test
+    fun testFieldStraddlesBufferBoundary() {
+        val bufferSize = 8
+
+        for (offset in 0..bufferSize * 2) {
+            val prefix = "x".repeat(offset)
+            val input = "$prefix;12345.75;-9876543210\n$prefix;1e-3;7\n"
+            val stream = ShortReadInputStream(input.toByteArray(), 3)
+
+            CsvScanner.of(stream, ';', bufferSize).use { scanner ->
+                assertTrue(scanner.nextRecord())
+                assertTrue(scanner.nextField())
+                assertEquals(prefix, scanner.getString())
+                assertTrue(scanner.nextField())
+                assertEquals(12345.75, scanner.parseDouble(), "offset $offset")
+                assertTrue(scanner.nextField())
+                assertEquals(-9876543210L, scanner.parseLong(), "offset $offset")
+                assertFalse(scanner.nextField())
+
+                assertTrue(scanner.nextRecord())
+                assertTrue(scanner.nextField())
+                assertTrue(scanner.nextField())
+                assertEquals(1e-3, scanner.parseDouble(), "offset $offset")
+                assertTrue(scanner.nextField())
+                assertEquals(7, scanner.parseInt(), "offset $offset")
+                assertFalse(scanner.nextRecord())
+            }
+        }
+    }
+
+    /**
+     * Construct a [CsvScanner] over the specified [input].
+     */
+    private fun scan(input: String, separator: Char = ','): CsvScanner {
+        return CsvScanner.of(ByteArrayInputStream(input.toByteArray()), separator)
+    }
+
+    /**
+     * Read all remaining records of the scanner as strings.
+     */
+    private fun CsvScanner.readAll(): List<List<String>> {
+        val result = mutableListOf<List<String>>()
+        while (nextRecord()) {
+            val record = mutableListOf<String>()
+            while (nextField()) {
+                record += getString()
+            }
+            result += record
+        }
+        return result
+    }
+
+    /**
+     * An [InputStream] that returns at most [chunk] bytes per read.
+     */
+    private class ShortReadInputStream(bytes: ByteArray, private val chunk: Int) : ByteArrayInputStream(bytes) {
+        override fun read(b: ByteArray, off: Int, len: Int): Int = super.read(b, off, minOf(len, chunk))
+    }
+
+    private companion object {
+        val INPUT = "# Timestamp; CPU usage [MHZ]; Comment\n" +
+            "1376314846;\t19.06666159933333;\tshort\r\n" +
+            "1376315146; 1,5; a-field-that-is-much-longer-than-the-windows-and-buffers\n" +
+            "\n" +
+            "1376315446;;\n" +
+            "1376315746;2.5e3;end"
+
+        val EXPECTED = listOf(
+            listOf("1376314846", "19.06666159933333", "short"),
+            listOf("1376315146", "1,5", "a-field-that-is-much-longer-than-the-windows-and-buffers"),
+            listOf("1376315446", "", ""),
+            listOf("1376315746", "2.5e3", "end")
+        )
+    }
+}
@@ -22,7 +22,10 @@
 
 package org.opendc.trace.azure
 
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE_PCT
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import org.opendc.trace.spi.TraceFormat
@@ -72,8 +75,38 @@ class AzureTraceBenchmarks {
         val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
         try {
             val idColumn = reader.resolve(RESOURCE_ID)
+            val timestampColumn = reader.resolve(RESOURCE_STATE_TIMESTAMP)
+            val usageColumn = reader.resolve(RESOURCE_STATE_CPU_USAGE_PCT)
             while (reader.nextRow()) {
                 bh.consume(reader.getString(idColumn))
+                bh.consume(reader.getInstant(timestampColumn))
+                bh.consume(reader.getDouble(usageColumn))
+            }
+        } finally {
+            reader.close()
+        }
+    }
+
+    @Benchmark
+    fun benchmarkResourceStatesBatch(bh: Blackhole) {
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        try {
+            val batch = ColumnBatch()
+            val ids = batch.addString(reader.resolve(RESOURCE_ID))
+            val timestamps = batch.addInstant(reader.resolve(RESOURCE_STATE_TIMESTAMP))
+            val usages = batch.addDouble(reader.resolve(RESOURCE_STATE_CPU_USAGE_PCT))
+
+            while (true) {
+                val size = reader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    bh.consume(ids.ids[row])
+                    bh.consume(timestamps.values[row])
+                    bh.consume(usages.values[row])
+                }
             }
         } finally {
             reader.close()
@@ -22,13 +22,12 @@
 
 package org.opendc.trace.azure
 
-import com.fasterxml.jackson.core.JsonToken
-import com.fasterxml.jackson.dataformat.csv.CsvParser
-import com.fasterxml.jackson.dataformat.csv.CsvSchema
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.RESOURCE_ID
 import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE_PCT
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
+import org.opendc.trace.util.CsvScanner
 import java.time.Duration
 import java.time.Instant
 import java.util.UUID
@@ -36,42 +35,75 @@ import java.util.UUID
 /**
  * A [TableReader] for the Azure v1 VM resource state table.
  */
-internal class AzureResourceStateTableReader(private val parser: CsvParser) : TableReader {
+internal class AzureResourceStateTableReader(private val scanner: CsvScanner) : TableReader {
     /**
-     * A flag to indicate whether a single row has been read already.
+     * A flag to indicate whether the reader is positioned on a row.
      */
-    private var isStarted = false
-
-    init {
-        parser.schema = schema
-    }
+    private var isActive = false
 
     override fun nextRow(): Boolean {
-        if (!isStarted) {
-            isStarted = true
-        }
-
+        val previousId = id
         reset()
 
-        if (!nextStart()) {
+        if (!scanner.nextRecord()) {
+            isActive = false
             return false
         }
 
-        while (true) {
-            val token = parser.nextValue()
+        var field = 0
+        while (scanner.nextField()) {
+            when (field++) {
+                FIELD_TIMESTAMP -> timestamp = scanner.parseLong() * 1000
+                FIELD_ID -> id = scanner.getString(previousId) // Rows of the same VM share the identifier instance
+                FIELD_CPU_AVG -> cpuUsagePct = (scanner.parseDouble() / 100.0) // Convert from % to [0, 1]
+            }
+        }
+
+        isActive = true
+        return true
+    }
 
-            if (token == null || token == JsonToken.END_OBJECT) {
-                break
+    override fun nextBatch(batch: ColumnBatch): Int {
+        for (vector in batch.longs) {
+            require(vector.index == COL_TIMESTAMP && vector.type == ColumnBatch.LongVector.Type.INSTANT) {
+                "Invalid column"
             }
+        }
+        for (vector in batch.doubles) {
+            require(vector.index == COL_CPU_USAGE_PCT) { "Invalid column" }
+        }
+        for (vector in batch.strings) {
+            require(vector.index == COL_ID) { "Invalid column" }
+        }
+
+        batch.reset()
+
+        val longs = batch.longs
+        val doubles = batch.doubles
+        val strings = batch.strings
+        val capacity = batch.capacity
+        var size = 0
 
-            when (parser.currentName) {
-                "timestamp" -> timestamp = Instant.ofEpochSecond(parser.longValue)
-                "vm id" -> id = parser.text
-                "CPU avg cpu" -> cpuUsagePct = (parser.doubleValue / 100.0) // Convert from % to [0, 1]
+        while (size < capacity && nextRow()) {
+            val timestamp = timestamp
+            for (vector in longs) {
+                if (timestamp == Long.MIN_VALUE) vector.setNull(size) else vector[size] = timestamp
             }
+
+            for (vector in doubles) {
+                vector[size] = cpuUsagePct
+            }
+
+            val id = id
+            for (vector in strings) {
+                if (id == null) vector.setNull(size) else vector[size] = id
+            }
+
+            size++
         }
 
-        return true
+        batch.size = size
+        return size
     }
 
     private val COL_ID = 0
@@ -131,7 +163,7 @@ internal class AzureResourceStateTableReader(private val parser: CsvParser) : Ta
     override fun getInstant(index: Int): Instant? {
         checkActive()
         return when (index) {
-            COL_TIMESTAMP -> timestamp
+            COL_TIMESTAMP -> if (timestamp == Long.MIN_VALUE) null else Instant.ofEpochMilli(timestamp)
             else -> throw IllegalArgumentException("Invalid column")
         }
     }
@@ -153,34 +185,22 @@ internal class AzureResourceStateTableReader(private val parser: CsvParser) : Ta
     }
 
     override fun close() {
-        parser.close()
+        isActive = false
+        scanner.close()
     }
 
     /**
      * Helper method to check if the reader is active.
      */
     private fun checkActive() {
-        check(isStarted && !parser.isClosed) { "No active row. Did you call nextRow()?" }
-    }
-
-    /**
-     * Advance the parser until the next object start.
-     */
-    private fun nextStart(): Boolean {
-        var token = parser.nextValue()
-
-        while (token != null && token != JsonToken.START_OBJECT) {
-            token = parser.nextValue()
-        }
-
-        return token != null
+        check(isActive) { "No active row. Did you call nextRow()?" }
     }
 
     /**
      * State fields of the reader.
      */
     private var id: String? = null
-    private var timestamp: Instant? = null
+    private var timestamp = Long.MIN_VALUE // Epoch millis
     private var cpuUsagePct = Double.NaN
 
     /**
@@ -188,21 +208,16 @@ internal class AzureResourceStateTableReader(private val parser: CsvParser) : Ta
      */
     private fun reset() {
         id = null
-        timestamp = null
+        timestamp = Long.MIN_VALUE
         cpuUsagePct = Double.NaN
     }
 
-    companion object {
+    private companion object {
         /**
-         * The [CsvSchema] that is used to parse the trace.
+         * The positions of the fields in the headerless trace files: timestamp, VM id, min, max and average CPU.
          */
-        private val schema = CsvSchema.builder()
-            .addColumn("timestamp", CsvSchema.ColumnType.NUMBER)
-            .addColumn("vm id", CsvSchema.ColumnType.STRING)
-            .addColumn("CPU min cpu", CsvSchema.ColumnType.NUMBER)
-            .addColumn("CPU max cpu", CsvSchema.ColumnType.NUMBER)
-            .addColumn("CPU avg cpu", CsvSchema.ColumnType.NUMBER)
-            .setAllowComments(true)
-            .build()
+        const val FIELD_TIMESTAMP = 0
+        const val FIELD_ID = 1
+        const val FIELD_CPU_AVG = 4
     }
 }
@@ -24,6 +24,7 @@ package org.opendc.trace.azure
 
 import com.fasterxml.jackson.dataformat.csv.CsvFactory
 import com.fasterxml.jackson.dataformat.csv.CsvParser
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
 import org.opendc.trace.TableReader
@@ -40,6 +41,8 @@ import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.CompositeTableReader
+import org.opendc.trace.util.CsvScanner
+import org.opendc.trace.util.ParallelTableReader
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.stream.Collectors
@@ -102,6 +105,15 @@ public class AzureTraceFormat : TraceFormat {
         }
     }
 
+    override fun newReader(path: Path, table: String, projection: List<String>?, options: ScanOptions): TableReader {
+        if (table != TABLE_RESOURCE_STATES || options.parallelism == 1) {
+            return newReader(path, table, projection)
+        }
+
+        val partitions = listPartitions(path).values.map { partPath -> { openPartition(partPath) } }
+        return ParallelTableReader(partitions, options)
+    }
+
     override fun newWriter(path: Path, table: String): TableWriter {
         throw UnsupportedOperationException("Writing not supported for this format")
     }
@@ -110,18 +122,13 @@ public class AzureTraceFormat : TraceFormat {
      * Construct a [TableReader] for reading over all VM CPU readings.
      */
     private fun newResourceStateReader(path: Path): TableReader {
-        val partitions = Files.walk(path.resolve("vm_cpu_readings"), 1)
-            .filter { !Files.isDirectory(it) && it.name.endsWith(".csv.gz") }
-            .collect(Collectors.toMap({ it.name.removeSuffix(".csv.gz") }, { it }))
-            .toSortedMap()
-        val it = partitions.iterator()
+        val it = listPartitions(path).iterator()
 
         return object : CompositeTableReader() {
             override fun nextReader(): TableReader? {
                 return if (it.hasNext()) {
                     val (_, partPath) = it.next()
-                    val stream = GZIPInputStream(partPath.inputStream())
-                    return AzureResourceStateTableReader(factory.createParser(stream))
+                    return openPartition(partPath)
                 } else {
                     null
                 }
@@ -130,4 +137,21 @@ public class AzureTraceFormat : TraceFormat {
             override fun toString(): String = "AzureCompositeTableReader"
         }
     }
+
+    /**
+     * Open a [TableReader] over the gzipped VM CPU reading partition at [path].
+     */
+    private fun openPartition(path: Path): TableReader {
+        return AzureResourceStateTableReader(CsvScanner.of(GZIPInputStream(path.inputStream(), 65536)))
+    }
+
+    /**
+     * List the VM CPU reading partitions of the trace at [path] in order.
+     */
+    private fun listPartitions(path: Path): Map<String, Path> {
+        return Files.walk(path.resolve("vm_cpu_readings"), 1)
+            .filter { !Files.isDirectory(it) && it.name.endsWith(".csv.gz") }
+            .collect(Collectors.toMap({ it.name.removeSuffix(".csv.gz") }, { it }))
+            .toSortedMap()
+    }
 }
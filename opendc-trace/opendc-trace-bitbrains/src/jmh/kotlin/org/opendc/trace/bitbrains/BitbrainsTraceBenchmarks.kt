@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.bitbrains
+
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.conv.RESOURCE_CPU_COUNT
+import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
+import org.opendc.trace.spi.TraceFormat
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for parsing traces in the Bitbrains format.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class BitbrainsTraceBenchmarks {
+    private lateinit var path: Path
+    private lateinit var format: TraceFormat
+
+    @Setup
+    fun setUp() {
+        path = Path.of("src/test/resources/bitbrains.csv")
+        format = BitbrainsTraceFormat()
+    }
+
+    @Benchmark
+    fun benchmarkResourceStatesReader(bh: Blackhole) {
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        try {
+            val idColumn = reader.resolve(RESOURCE_ID)
+            val timestampColumn = reader.resolve(RESOURCE_STATE_TIMESTAMP)
+            val coresColumn = reader.resolve(RESOURCE_CPU_COUNT)
+            val usageColumn = reader.resolve(RESOURCE_STATE_CPU_USAGE)
+            while (reader.nextRow()) {
+                bh.consume(reader.getString(idColumn))
+                bh.consume(reader.getInstant(timestampColumn))
+                bh.consume(reader.getInt(coresColumn))
+                bh.consume(reader.getDouble(usageColumn))
+            }
+        } finally {
+            reader.close()
+        }
+    }
+
+    @Benchmark
+    fun benchmarkResourceStatesBatch(bh: Blackhole) {
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        try {
+            val batch = ColumnBatch()
+            val ids = batch.addString(reader.resolve(RESOURCE_ID))
+            val timestamps = batch.addInstant(reader.resolve(RESOURCE_STATE_TIMESTAMP))
+            val cores = batch.addInt(reader.resolve(RESOURCE_CPU_COUNT))
+            val usages = batch.addDouble(reader.resolve(RESOURCE_STATE_CPU_USAGE))
+
+            while (true) {
+                val size = reader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    bh.consume(ids.ids[row])
+                    bh.consume(timestamps.values[row])
+                    bh.consume(cores.values[row])
+                    bh.consume(usages.values[row])
+                }
+            }
+        } finally {
+            reader.close()
+        }
+    }
+}
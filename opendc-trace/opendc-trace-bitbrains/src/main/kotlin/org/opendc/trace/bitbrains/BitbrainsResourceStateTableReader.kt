@@ -22,10 +22,7 @@
 
 package org.opendc.trace.bitbrains
 
-import com.fasterxml.jackson.core.JsonParseException
-import com.fasterxml.jackson.core.JsonToken
-import com.fasterxml.jackson.dataformat.csv.CsvParser
-import com.fasterxml.jackson.dataformat.csv.CsvSchema
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.RESOURCE_CPU_CAPACITY
 import org.opendc.trace.conv.RESOURCE_CPU_COUNT
@@ -39,99 +36,144 @@ import org.opendc.trace.conv.RESOURCE_STATE_MEM_USAGE
 import org.opendc.trace.conv.RESOURCE_STATE_NET_RX
 import org.opendc.trace.conv.RESOURCE_STATE_NET_TX
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
-import java.text.NumberFormat
+import org.opendc.trace.util.CsvScanner
 import java.time.Duration
 import java.time.Instant
-import java.time.LocalDateTime
-import java.time.ZoneOffset
-import java.time.format.DateTimeFormatter
-import java.time.format.DateTimeParseException
-import java.util.Locale
+import java.time.LocalDate
 import java.util.UUID
 
 /**
  * A [TableReader] for the Bitbrains resource state table.
+ *
+ * The reader decodes the fields of the semicolon-separated files with a [CsvScanner], resolving the columns by their
+ * position in the header once, so that rows are read without allocating.
  */
-internal class BitbrainsResourceStateTableReader(private val partition: String, private val parser: CsvParser) : TableReader {
+internal class BitbrainsResourceStateTableReader(private val partition: String, private val scanner: CsvScanner) : TableReader {
     /**
      * A flag to indicate whether a single row has been read already.
      */
     private var isStarted = false
 
     /**
-     * The [DateTimeFormatter] used to parse the timestamps in case of the Materna trace.
+     * A flag to indicate that the reader is positioned at a valid row.
      */
-    private val formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")
+    private var isActive = false
 
     /**
-     * The type of timestamps in the trace.
+     * A flag to indicate that the scanner is positioned at the first field of a record that has not been read yet.
      */
-    private var timestampType: TimestampType = TimestampType.UNDECIDED
+    private var isPending = false
 
     /**
-     * The [NumberFormat] used to parse doubles containing a comma.
+     * Mapping from the position of a field in a record to the column index, or `-1` if the field is ignored.
      */
-    private val nf = NumberFormat.getInstance(Locale.GERMAN)
+    private var fields = IntArray(0)
 
     /**
-     * A flag to indicate that the trace contains decimals with a comma separator.
+     * The type of timestamps in the trace.
      */
-    private var usesCommaDecimalSeparator = false
+    private var timestampType: TimestampType = TimestampType.UNDECIDED
 
-    init {
-        parser.schema = schema
-    }
+    /**
+     * The last date (as `yyyyMMdd`) decoded from a timestamp and its epoch day, since consecutive rows share the date.
+     */
+    private var lastDate = -1
+    private var lastEpochDay = 0L
 
     override fun nextRow(): Boolean {
         if (!isStarted) {
             isStarted = true
+            readHeader()
         }
 
         // Reset the row state
         reset()
 
-        if (!nextStart()) {
+        var hasField = if (isPending) {
+            isPending = false
+            true
+        } else if (scanner.nextRecord()) {
+            scanner.nextField()
+        } else {
+            isActive = false
             return false
         }
 
-        while (true) {
-            val token = parser.nextValue()
+        val fields = fields
+        var index = 0
+        while (hasField) {
+            val column = if (index < fields.size) fields[index] else -1
+            index++
+
+            when (column) {
+                COL_TIMESTAMP -> timestamp = parseTimestamp()
+                COL_CPU_COUNT -> cpuCores = scanner.parseInt()
+                COL_CPU_CAPACITY -> cpuCapacity = parseSafeDouble()
+                COL_CPU_USAGE -> cpuUsage = parseSafeDouble()
+                COL_CPU_USAGE_PCT -> cpuUsagePct = parseSafeDouble() / 100.0 // Convert to range [0, 1]
+                COL_MEM_CAPACITY -> memCapacity = parseSafeDouble()
+                COL_MEM_USAGE -> memUsage = parseSafeDouble()
+                COL_DISK_READ -> diskRead = parseSafeDouble()
+                COL_DISK_WRITE -> diskWrite = parseSafeDouble()
+                COL_NET_RX -> netReceived = parseSafeDouble()
+                COL_NET_TX -> netTransmitted = parseSafeDouble()
+            }
+
+            hasField = scanner.nextField()
+        }
 
-            if (token == null || token == JsonToken.END_OBJECT) {
-                break
+        isActive = true
+        return true
+    }
+
+    override fun nextBatch(batch: ColumnBatch): Int {
+        for (vector in batch.longs) {
+            val type = when (vector.index) {
+                COL_TIMESTAMP -> ColumnBatch.LongVector.Type.INSTANT
+                COL_CPU_COUNT -> ColumnBatch.LongVector.Type.INT
+                else -> null
             }
+            require(vector.type == type) { "Invalid column" }
+        }
+        for (vector in batch.doubles) {
+            require(vector.index in COL_CPU_CAPACITY..COL_NET_TX) { "Invalid column" }
+        }
+        for (vector in batch.strings) {
+            require(vector.index == COL_ID) { "Invalid column" }
+        }
 
-            when (parser.currentName) {
-                "Timestamp [ms]" -> {
-                    timestamp = when (timestampType) {
-                        TimestampType.UNDECIDED -> {
-                            try {
-                                val res = LocalDateTime.parse(parser.text, formatter).toInstant(ZoneOffset.UTC)
-                                timestampType = TimestampType.DATE_TIME
-                                res
-                            } catch (e: DateTimeParseException) {
-                                timestampType = TimestampType.EPOCH_MILLIS
-                                Instant.ofEpochSecond(parser.longValue)
-                            }
-                        }
-                        TimestampType.DATE_TIME -> LocalDateTime.parse(parser.text, formatter).toInstant(ZoneOffset.UTC)
-                        TimestampType.EPOCH_MILLIS -> Instant.ofEpochSecond(parser.longValue)
-                    }
+        batch.reset()
+
+        val longs = batch.longs
+        val doubles = batch.doubles
+        val strings = batch.strings
+        val capacity = batch.capacity
+        var size = 0
+
+        while (size < capacity && nextRow()) {
+            for (vector in longs) {
+                if (vector.index == COL_CPU_COUNT) {
+                    vector[size] = cpuCores.toLong()
+                } else if (timestamp == Long.MIN_VALUE) {
+                    vector.setNull(size)
+                } else {
+                    vector[size] = timestamp
                 }
-                "CPU cores" -> cpuCores = parser.intValue
-                "CPU capacity provisioned [MHZ]" -> cpuCapacity = parseSafeDouble()
-                "CPU usage [MHZ]" -> cpuUsage = parseSafeDouble()
-                "CPU usage [%]" -> cpuUsagePct = parseSafeDouble() / 100.0 // Convert to range [0, 1]
-                "Memory capacity provisioned [KB]" -> memCapacity = parseSafeDouble()
-                "Memory usage [KB]" -> memUsage = parseSafeDouble()
-                "Disk read throughput [KB/s]" -> diskRead = parseSafeDouble()
-                "Disk write throughput [KB/s]" -> diskWrite = parseSafeDouble()
-                "Network received throughput [KB/s]" -> netReceived = parseSafeDouble()
-                "Network transmitted throughput [KB/s]" -> netTransmitted = parseSafeDouble()
             }
+
+            for (vector in doubles) {
+                vector[size] = getDouble(vector.index)
+            }
+
+            for (vector in strings) {
+                vector[size] = partition
+            }
+
+            size++
         }
 
-        return true
+        batch.size = size
+        return size
     }
 
     private val COL_TIMESTAMP = 0
@@ -221,7 +263,7 @@ internal class BitbrainsResourceStateTableReader(private val partition: String,
     override fun getInstant(index: Int): Instant? {
         checkActive()
         return when (index) {
-            COL_TIMESTAMP -> timestamp
+            COL_TIMESTAMP -> if (timestamp == Long.MIN_VALUE) null else Instant.ofEpochMilli(timestamp)
             else -> throw IllegalArgumentException("Invalid column")
         }
     }
@@ -243,53 +285,140 @@ internal class BitbrainsResourceStateTableReader(private val partition: String,
     }
 
     override fun close() {
-        parser.close()
+        isActive = false
+        scanner.close()
     }
 
     /**
      * Helper method to check if the reader is active.
      */
     private fun checkActive() {
-        check(isStarted && !parser.isClosed) { "No active row. Did you call nextRow()?" }
+        check(isActive) { "No active row. Did you call nextRow()?" }
+    }
+
+    /**
+     * Resolve the column index of the field with the specified [name], or `-1` if the field is ignored.
+     */
+    private fun resolveField(name: String): Int {
+        return when (name) {
+            "Timestamp [ms]" -> COL_TIMESTAMP
+            "CPU cores" -> COL_CPU_COUNT
+            "CPU capacity provisioned [MHZ]" -> COL_CPU_CAPACITY
+            "CPU usage [MHZ]" -> COL_CPU_USAGE
+            "CPU usage [%]" -> COL_CPU_USAGE_PCT
+            "Memory capacity provisioned [KB]" -> COL_MEM_CAPACITY
+            "Memory usage [KB]" -> COL_MEM_USAGE
+            "Disk read throughput [KB/s]" -> COL_DISK_READ
+            "Disk write throughput [KB/s]" -> COL_DISK_WRITE
+            "Network received throughput [KB/s]" -> COL_NET_RX
+            "Network transmitted throughput [KB/s]" -> COL_NET_TX
+            else -> -1
+        }
     }
 
     /**
-     * Advance the parser until the next object start.
+     * Parse the current field as timestamp, which is either in seconds since the epoch or (in case of the Materna
+     * trace) a date-time of the form `dd.MM.yyyy HH:mm:ss`.
      */
-    private fun nextStart(): Boolean {
-        var token = parser.nextValue()
+    private fun parseTimestamp(): Long {
+        if (timestampType == TimestampType.UNDECIDED) {
+            timestampType = if (isDateTime()) TimestampType.DATE_TIME else TimestampType.EPOCH_MILLIS
+        }
 
-        while (token != null && token != JsonToken.START_OBJECT) {
-            token = parser.nextValue()
+        return when (timestampType) {
+            TimestampType.DATE_TIME -> parseDateTime()
+            else -> scanner.parseLong() * 1000
         }
+    }
 
-        return token != null
+    /**
+     * Determine whether the current field is a date-time of the form `dd.MM.yyyy HH:mm:ss`.
+     */
+    private fun isDateTime(): Boolean {
+        return scanner.fieldLength == 19 &&
+            scanner.byteAt(2) == DOT &&
+            scanner.byteAt(5) == DOT &&
+            scanner.byteAt(13) == COLON &&
+            scanner.byteAt(16) == COLON
     }
 
     /**
-     * Try to parse the current value safely as double.
+     * Decode the current field as date-time of the form `dd.MM.yyyy HH:mm:ss` in UTC to epoch milliseconds.
      */
-    private fun parseSafeDouble(): Double {
-        if (!usesCommaDecimalSeparator) {
-            try {
-                return parser.doubleValue
-            } catch (e: JsonParseException) {
-                usesCommaDecimalSeparator = true
+    private fun parseDateTime(): Long {
+        if (!isDateTime()) {
+            throw IllegalArgumentException("Invalid timestamp '${scanner.getString()}'")
+        }
+
+        val day = digits(0, 2)
+        val month = digits(3, 2)
+        val year = digits(6, 4)
+        val date = year * 10000 + month * 100 + day
+
+        if (date != lastDate) {
+            lastEpochDay = LocalDate.of(year, month, day).toEpochDay()
+            lastDate = date
+        }
+
+        val seconds = digits(11, 2) * 3600L + digits(14, 2) * 60L + digits(17, 2)
+        return (lastEpochDay * 86400L + seconds) * 1000L
+    }
+
+    /**
+     * Decode [length] digits of the current field starting at [offset].
+     */
+    private fun digits(offset: Int, length: Int): Int {
+        var result = 0
+        for (i in offset until offset + length) {
+            val b = scanner.byteAt(i)
+            if (!isDigit(b)) {
+                throw IllegalArgumentException("Invalid timestamp '${scanner.getString()}'")
             }
+            result = result * 10 + (b - ZERO)
         }
+        return result
+    }
 
-        val text = parser.text
-        if (text.isBlank()) {
+    /**
+     * Parse the current field as double, where empty fields are read as zero.
+     */
+    private fun parseSafeDouble(): Double {
+        if (scanner.isEmpty) {
             return 0.0
         }
 
-        return nf.parse(text).toDouble()
+        return scanner.parseDouble()
+    }
+
+    private fun isDigit(b: Byte): Boolean = b in ZERO..NINE
+
+    /**
+     * Resolve the positions of the columns from the header of the file. If the first record is not a header, the
+     * columns are assumed to be in the order of [DEFAULT_FIELDS] and the record is kept for the first row.
+     */
+    private fun readHeader() {
+        if (!scanner.nextRecord()) {
+            return
+        }
+
+        val hasField = scanner.nextField()
+        if (!hasField || scanner.fieldLength == 0 || isDigit(scanner.byteAt(0))) {
+            fields = IntArray(DEFAULT_FIELDS.size) { resolveField(DEFAULT_FIELDS[it]) }
+            isPending = hasField
+            return
+        }
+
+        val fields = mutableListOf<Int>()
+        do {
+            fields.add(resolveField(scanner.getString()))
+        } while (scanner.nextField())
+        this.fields = fields.toIntArray()
     }
 
     /**
      * State fields of the reader.
      */
-    private var timestamp: Instant? = null
+    private var timestamp = Long.MIN_VALUE // Epoch millis
     private var cpuCores = -1
     private var cpuCapacity = Double.NaN
     private var cpuUsage = Double.NaN
@@ -305,7 +434,7 @@ internal class BitbrainsResourceStateTableReader(private val partition: String,
      * Reset the state.
      */
     private fun reset() {
-        timestamp = null
+        timestamp = Long.MIN_VALUE
         cpuCores = -1
         cpuCapacity = Double.NaN
         cpuUsage = Double.NaN
@@ -325,27 +454,29 @@ internal class BitbrainsResourceStateTableReader(private val partition: String,
         UNDECIDED, DATE_TIME, EPOCH_MILLIS
     }
 
-    companion object {
+    private companion object {
+        private const val ZERO = '0'.code.toByte()
+        private const val NINE = '9'.code.toByte()
+        private const val DOT = '.'.code.toByte()
+        private const val COLON = ':'.code.toByte()
+
         /**
-         * The [CsvSchema] that is used to parse the trace.
+         * The names of the fields in the order in which they appear in files without header.
          */
-        private val schema = CsvSchema.builder()
-            .addColumn("Timestamp [ms]", CsvSchema.ColumnType.NUMBER_OR_STRING)
-            .addColumn("CPU cores", CsvSchema.ColumnType.NUMBER)
-            .addColumn("CPU capacity provisioned [MHZ]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("CPU usage [MHZ]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("CPU usage [%]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Memory capacity provisioned [KB]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Memory usage [KB]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Memory usage [%]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Disk read throughput [KB/s]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Disk write throughput [KB/s]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Disk size [GB]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Network received throughput [KB/s]", CsvSchema.ColumnType.NUMBER)
-            .addColumn("Network transmitted throughput [KB/s]", CsvSchema.ColumnType.NUMBER)
-            .setAllowComments(true)
-            .setUseHeader(true)
-            .setColumnSeparator(';')
-            .build()
+        val DEFAULT_FIELDS = listOf(
+            "Timestamp [ms]",
+            "CPU cores",
+            "CPU capacity provisioned [MHZ]",
+            "CPU usage [MHZ]",
+            "CPU usage [%]",
+            "Memory capacity provisioned [KB]",
+            "Memory usage [KB]",
+            "Memory usage [%]",
+            "Disk read throughput [KB/s]",
+            "Disk write throughput [KB/s]",
+            "Disk size [GB]",
+            "Network received throughput [KB/s]",
+            "Network transmitted throughput [KB/s]"
+        )
     }
 }
@@ -22,9 +22,9 @@
 
 package org.opendc.trace.bitbrains
 
-import com.fasterxml.jackson.dataformat.csv.CsvFactory
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.util.CsvScanner
 import java.nio.file.Path
 import java.time.Duration
 import java.time.Instant
@@ -33,7 +33,7 @@ import java.util.UUID
 /**
  * A [TableReader] for the Bitbrains resource table.
  */
-internal class BitbrainsResourceTableReader(private val factory: CsvFactory, vms: Map<String, Path>) : TableReader {
+internal class BitbrainsResourceTableReader(vms: Map<String, Path>) : TableReader {
     /**
      * An iterator to iterate over the resource entries.
      */
@@ -54,8 +54,7 @@ internal class BitbrainsResourceTableReader(private val factory: CsvFactory, vms
         while (it.hasNext()) {
             val (name, path) = it.next()
 
-            val parser = factory.createParser(path.toFile())
-            val reader = BitbrainsResourceStateTableReader(name, parser)
+            val reader = BitbrainsResourceStateTableReader(name, CsvScanner.open(path, ';'))
             val idCol = reader.resolve(RESOURCE_ID)
 
             try {
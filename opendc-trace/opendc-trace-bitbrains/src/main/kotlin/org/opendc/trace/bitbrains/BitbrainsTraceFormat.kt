@@ -22,8 +22,7 @@
 
 package org.opendc.trace.bitbrains
 
-import com.fasterxml.jackson.dataformat.csv.CsvFactory
-import com.fasterxml.jackson.dataformat.csv.CsvParser
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
 import org.opendc.trace.TableReader
@@ -45,6 +44,8 @@ import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.CompositeTableReader
+import org.opendc.trace.util.CsvScanner
+import org.opendc.trace.util.ParallelTableReader
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.stream.Collectors
@@ -60,13 +61,6 @@ public class BitbrainsTraceFormat : TraceFormat {
      */
     override val name: String = "bitbrains"
 
-    /**
-     * The [CsvFactory] used to create the parser.
-     */
-    private val factory = CsvFactory()
-        .enable(CsvParser.Feature.ALLOW_COMMENTS)
-        .enable(CsvParser.Feature.TRIM_SPACES)
-
     override fun create(path: Path) {
         throw UnsupportedOperationException("Writing not supported for this format")
     }
@@ -107,13 +101,24 @@ public class BitbrainsTraceFormat : TraceFormat {
                     .filter { !Files.isDirectory(it) && it.extension == "csv" }
                     .collect(Collectors.toMap({ it.nameWithoutExtension }, { it }))
                     .toSortedMap()
-                BitbrainsResourceTableReader(factory, vms)
+                BitbrainsResourceTableReader(vms)
             }
             TABLE_RESOURCE_STATES -> newResourceStateReader(path)
             else -> throw IllegalArgumentException("Table $table not supported")
         }
     }
 
+    override fun newReader(path: Path, table: String, projection: List<String>?, options: ScanOptions): TableReader {
+        if (table != TABLE_RESOURCE_STATES || options.parallelism == 1) {
+            return newReader(path, table, projection)
+        }
+
+        val partitions = listPartitions(path).map { (partition, partPath) ->
+            { openPartition(partition, partPath) }
+        }
+        return ParallelTableReader(partitions, options)
+    }
+
     override fun newWriter(path: Path, table: String): TableWriter {
         throw UnsupportedOperationException("Writing not supported for this format")
     }
@@ -122,17 +127,13 @@ public class BitbrainsTraceFormat : TraceFormat {
      * Construct a [TableReader] for reading over all resource state partitions.
      */
     private fun newResourceStateReader(path: Path): TableReader {
-        val partitions = Files.walk(path, 1)
-            .filter { !Files.isDirectory(it) && it.extension == "csv" }
-            .collect(Collectors.toMap({ it.nameWithoutExtension }, { it }))
-            .toSortedMap()
-        val it = partitions.iterator()
+        val it = listPartitions(path).iterator()
 
         return object : CompositeTableReader() {
             override fun nextReader(): TableReader? {
                 return if (it.hasNext()) {
                     val (partition, partPath) = it.next()
-                    return BitbrainsResourceStateTableReader(partition, factory.createParser(partPath.toFile()))
+                    return openPartition(partition, partPath)
                 } else {
                     null
                 }
@@ -141,4 +142,21 @@ public class BitbrainsTraceFormat : TraceFormat {
             override fun toString(): String = "BitbrainsCompositeTableReader"
         }
     }
+
+    /**
+     * Construct a [TableReader] for the resource state partition [partition] at [path].
+     */
+    private fun openPartition(partition: String, path: Path): TableReader {
+        return BitbrainsResourceStateTableReader(partition, CsvScanner.open(path, ';'))
+    }
+
+    /**
+     * List the resource state partitions of the trace at [path] in order.
+     */
+    private fun listPartitions(path: Path): Map<String, Path> {
+        return Files.walk(path, 1)
+            .filter { !Files.isDirectory(it) && it.extension == "csv" }
+            .collect(Collectors.toMap({ it.nameWithoutExtension }, { it }))
+            .toSortedMap()
+    }
 }
@@ -32,14 +32,19 @@ import org.junit.jupiter.api.DisplayName
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableReader
+import org.opendc.trace.conv.RESOURCE_CPU_CAPACITY
+import org.opendc.trace.conv.RESOURCE_CPU_COUNT
 import org.opendc.trace.conv.RESOURCE_ID
 import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_MEM_USAGE
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import org.opendc.trace.testkit.TableReaderTestKit
+import java.nio.file.Files
 import java.nio.file.Paths
 
 /**
@@ -96,6 +101,64 @@ class BitbrainsTraceFormatTest {
         reader.close()
     }
 
+    @Test
+    fun testBatch() {
+        val path = Paths.get("src/test/resources/bitbrains.csv")
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+
+        val batch = ColumnBatch()
+        val ids = batch.addString(reader.resolve(RESOURCE_ID))
+        val timestamps = batch.addInstant(reader.resolve(RESOURCE_STATE_TIMESTAMP))
+        val usages = batch.addDouble(reader.resolve(RESOURCE_STATE_CPU_USAGE))
+
+        assertAll(
+            { assertTrue(reader.nextBatch(batch) > 0) },
+            { assertEquals("bitbrains", ids[0]) },
+            { assertEquals(1376314846000, timestamps[0]) },
+            { assertEquals(19.066, usages[0], 0.01) }
+        )
+
+        reader.close()
+    }
+
+    /**
+     * Regression test for a header that lists fewer columns than the schema, which used to shift the values of the
+     * remaining columns.
+     */
+    @Test
+    fun testPartialHeader() {
+        val directory = Files.createTempDirectory("opendc")
+        val file = directory.resolve("vm.csv")
+
+        try {
+            Files.writeString(
+                file,
+                "Timestamp [ms];\tCPU usage [MHZ];\tMemory usage [KB]\n" +
+                    "1376314846;\t19.066;\t110448.5\n" +
+                    "1376315146;\t20.5;\t106254.0\n"
+            )
+
+            format.newReader(directory, TABLE_RESOURCE_STATES, null).use { reader ->
+                assertAll(
+                    { assertTrue(reader.nextRow()) },
+                    { assertEquals("vm", reader.getString(RESOURCE_ID)) },
+                    { assertEquals(1376314846, reader.getInstant(RESOURCE_STATE_TIMESTAMP)?.epochSecond) },
+                    { assertEquals(19.066, reader.getDouble(RESOURCE_STATE_CPU_USAGE)) },
+                    { assertEquals(110448.5, reader.getDouble(RESOURCE_STATE_MEM_USAGE)) },
+                    { assertTrue(reader.getDouble(RESOURCE_CPU_CAPACITY).isNaN()) },
+                    { assertEquals(-1, reader.getInt(RESOURCE_CPU_COUNT)) },
+                    { assertTrue(reader.nextRow()) },
+                    { assertEquals(20.5, reader.getDouble(RESOURCE_STATE_CPU_USAGE)) },
+                    { assertEquals(106254.0, reader.getDouble(RESOURCE_STATE_MEM_USAGE)) },
+                    { assertFalse(reader.nextRow()) }
+                )
+            }
+        } finally {
+            Files.deleteIfExists(file)
+            Files.deleteIfExists(directory)
+        }
+    }
+
     @DisplayName("TableReader for Resources")
     @Nested
     inner class ResourcesTableReaderTest : TableReaderTestKit() {
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.calcite
+
+import org.apache.calcite.rex.RexBuilder
+import org.apache.calcite.rex.RexCall
+import org.apache.calcite.rex.RexInputRef
+import org.apache.calcite.rex.RexLiteral
+import org.apache.calcite.rex.RexNode
+import org.apache.calcite.rex.RexUtil
+import org.apache.calcite.sql.SqlKind
+import org.opendc.trace.TableColumn
+import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Helper class to translate the filters that Calcite pushes into a [TraceTable] into [TablePredicate]s.
+ *
+ * Only comparisons between a column and a literal (and disjunctions of equalities on the same column) are translated.
+ * Other filters are ignored, which is safe since the predicates are only hints and Calcite applies all filters itself.
+ *
+ * @param rexBuilder The [RexBuilder] used to expand `SEARCH` expressions.
+ * @param columns The columns of the table that the filters refer to.
+ */
+internal class TracePredicateConverter(private val rexBuilder: RexBuilder, private val columns: List<TableColumn>) {
+    /**
+     * Translate the conjunction of [filters] into a list of [TablePredicate]s.
+     */
+    fun convert(filters: List<RexNode>): List<TablePredicate> {
+        val result = mutableListOf<TablePredicate>()
+        for (filter in filters) {
+            convertConjunction(RexUtil.expandSearch(rexBuilder, null, filter), result)
+        }
+        return result
+    }
+
+    /**
+     * Translate the conjuncts of [node] into [result].
+     */
+    private fun convertConjunction(node: RexNode, result: MutableList<TablePredicate>) {
+        if (node.kind == SqlKind.AND) {
+            for (operand in (node as RexCall).operands) {
+                convertConjunction(operand, result)
+            }
+        } else {
+            convertPredicate(node)?.let(result::add)
+        }
+    }
+
+    /**
+     * Translate a single predicate [node] or return `null` if it cannot be translated.
+     */
+    private fun convertPredicate(node: RexNode): TablePredicate? {
+        if (node !is RexCall) {
+            return null
+        }
+
+        return when (node.kind) {
+            SqlKind.EQUALS,
+            SqlKind.LESS_THAN,
+            SqlKind.LESS_THAN_OR_EQUAL,
+            SqlKind.GREATER_THAN,
+            SqlKind.GREATER_THAN_OR_EQUAL -> convertComparison(node)
+            SqlKind.OR -> convertDisjunction(node)
+            else -> null
+        }
+    }
+
+    /**
+     * Translate a comparison between a column and a literal.
+     */
+    private fun convertComparison(call: RexCall): TablePredicate? {
+        var kind = call.kind
+        var left = call.operands[0]
+        var right = call.operands[1]
+
+        if (left is RexLiteral) {
+            left = right.also { right = left }
+            kind = kind.reverse()
+        }
+
+        val ref = left as? RexInputRef ?: return null
+        val literal = right as? RexLiteral ?: return null
+        val column = columns[ref.index]
+        val value = convertLiteral(literal, column.type) ?: return null
+
+        return when (kind) {
+            SqlKind.EQUALS -> TablePredicate.In(column.name, setOf(value))
+            SqlKind.LESS_THAN -> TablePredicate.Range(column.name, null, value, upperInclusive = false)
+            SqlKind.LESS_THAN_OR_EQUAL -> TablePredicate.Range(column.name, null, value)
+            SqlKind.GREATER_THAN -> TablePredicate.Range(column.name, value, null, lowerInclusive = false)
+            SqlKind.GREATER_THAN_OR_EQUAL -> TablePredicate.Range(column.name, value, null)
+            else -> null
+        }
+    }
+
+    /**
+     * Translate a disjunction of equalities on the same column into an [TablePredicate.In] predicate.
+     */
+    private fun convertDisjunction(call: RexCall): TablePredicate? {
+        val column = mutableSetOf<String>()
+        val values = mutableSetOf<Any>()
+
+        for (operand in call.operands) {
+            val predicate = convertPredicate(operand) as? TablePredicate.In ?: return null
+            column.add(predicate.column)
+            values.addAll(predicate.values)
+        }
+
+        return if (column.size == 1) TablePredicate.In(column.first(), values) else null
+    }
+
+    /**
+     * Convert the value of [literal] into the Java representation of a column of the specified [type].
+     */
+    private fun convertLiteral(literal: RexLiteral, type: TableColumnType): Comparable<*>? {
+        if (literal.isNull) {
+            return null
+        }
+
+        return when (type) {
+            is TableColumnType.Int -> literal.getValueAs(Int::class.javaObjectType)
+            is TableColumnType.Long -> literal.getValueAs(Long::class.javaObjectType)
+            is TableColumnType.Double -> literal.getValueAs(Double::class.javaObjectType)
+            is TableColumnType.String -> literal.getValueAs(String::class.java)
+            is TableColumnType.Instant -> literal.getValueAs(Long::class.javaObjectType)?.let { Instant.ofEpochMilli(it) }
+            is TableColumnType.Duration -> literal.getValueAs(Long::class.javaObjectType)?.let { Duration.ofMillis(it) }
+            else -> null
+        }
+    }
+}
@@ -38,12 +38,14 @@ import org.apache.calcite.rel.core.TableModify
 import org.apache.calcite.rel.logical.LogicalTableModify
 import org.apache.calcite.rel.type.RelDataType
 import org.apache.calcite.rel.type.RelDataTypeFactory
+import org.apache.calcite.rex.RexBuilder
 import org.apache.calcite.rex.RexNode
 import org.apache.calcite.schema.ModifiableTable
 import org.apache.calcite.schema.ProjectableFilterableTable
 import org.apache.calcite.schema.SchemaPlus
 import org.apache.calcite.schema.impl.AbstractTableQueryable
 import org.apache.calcite.sql.type.SqlTypeName
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableColumnType
 import java.nio.ByteBuffer
 import java.time.Duration
@@ -72,14 +74,20 @@ internal class TraceTable(private val table: org.opendc.trace.Table) :
     }
 
     override fun scan(root: DataContext, filters: MutableList<RexNode>, projects: IntArray?): Enumerable<Array<Any?>> {
-        // Filters are currently not supported by the OpenDC trace API. By keeping the filters in the list, Calcite
-        // assumes that they are declined and will perform the filters itself.
+        // The filters are pushed into the reader as predicates, which the trace formats may use to skip data. Since the
+        // predicates are only hints, the filters are kept in the list, so that Calcite will still perform them itself.
+        val predicates = TracePredicateConverter(RexBuilder(root.typeFactory), table.columns).convert(filters)
+        val options = ScanOptions(predicates = predicates)
 
         val projection = projects?.map { table.columns[it] }
         val cancelFlag = DataContext.Variable.CANCEL_FLAG.get<AtomicBoolean>(root)
         return object : AbstractEnumerable<Array<Any?>>() {
             override fun enumerator(): Enumerator<Array<Any?>> =
-                TraceReaderEnumerator(table.newReader(projection?.map { it.name }), projection ?: table.columns, cancelFlag)
+                TraceReaderEnumerator(
+                    table.newReader(projection?.map { it.name }, options),
+                    projection ?: table.columns,
+                    cancelFlag
+                )
         }
     }
 
@@ -91,6 +91,24 @@ class CalciteTest {
         }
     }
 
+    @Test
+    fun testResourceStatesFilter() {
+        val query = """
+            SELECT id, `timestamp` FROM trace.resource_states
+            WHERE id IN ('1023', '1052') AND `timestamp` >= TIMESTAMP '2013-08-12 13:40:46'
+        """.trimIndent()
+
+        runQuery(odcTrace, query) { rs ->
+            val ids = mutableSetOf<String>()
+            while (rs.next()) {
+                ids.add(rs.getString("id"))
+                assertTrue(rs.getTimestamp("timestamp") >= Timestamp.valueOf("2013-08-12 13:40:46.0"))
+            }
+
+            assertEquals(setOf("1023", "1052"), ids)
+        }
+    }
+
     @Test
     fun testInterferenceGroups() {
         runQuery(odcTrace, "SELECT * FROM trace.interference_groups") { rs ->
@@ -148,7 +166,7 @@ class CalciteTest {
         every { trace.getTable(TABLE_RESOURCES)!!.columns } returns listOf(
             TableColumn("id", TableColumnType.UUID)
         )
-        every { trace.getTable(TABLE_RESOURCES)!!.newReader() } answers {
+        every { trace.getTable(TABLE_RESOURCES)!!.newReader(any(), any()) } answers {
             object : TableReader {
                 override fun nextRow(): Boolean = true
 
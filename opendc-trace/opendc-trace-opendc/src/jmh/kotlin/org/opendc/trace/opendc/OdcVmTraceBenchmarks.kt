@@ -22,8 +22,13 @@
 
 package org.opendc.trace.opendc
 
+import org.opendc.trace.ColumnBatch
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
+import org.opendc.trace.conv.RESOURCE_CPU_COUNT
 import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_DURATION
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
 import org.opendc.trace.conv.TABLE_INTERFERENCE_GROUPS
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
@@ -82,6 +87,57 @@ class OdcVmTraceBenchmarks {
         }
     }
 
+    @Benchmark
+    fun benchmarkResourceStatesRows(bh: Blackhole) {
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        try {
+            val idColumn = reader.resolve(RESOURCE_ID)
+            val timestampColumn = reader.resolve(RESOURCE_STATE_TIMESTAMP)
+            val durationColumn = reader.resolve(RESOURCE_STATE_DURATION)
+            val coresColumn = reader.resolve(RESOURCE_CPU_COUNT)
+            val usageColumn = reader.resolve(RESOURCE_STATE_CPU_USAGE)
+            while (reader.nextRow()) {
+                bh.consume(reader.getString(idColumn))
+                bh.consume(reader.getInstant(timestampColumn)!!.toEpochMilli())
+                bh.consume(reader.getDuration(durationColumn)!!.toMillis())
+                bh.consume(reader.getInt(coresColumn))
+                bh.consume(reader.getDouble(usageColumn))
+            }
+        } finally {
+            reader.close()
+        }
+    }
+
+    @Benchmark
+    fun benchmarkResourceStatesBatch(bh: Blackhole) {
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        try {
+            val batch = ColumnBatch()
+            val ids = batch.addString(reader.resolve(RESOURCE_ID))
+            val timestamps = batch.addInstant(reader.resolve(RESOURCE_STATE_TIMESTAMP))
+            val durations = batch.addDuration(reader.resolve(RESOURCE_STATE_DURATION))
+            val cores = batch.addInt(reader.resolve(RESOURCE_CPU_COUNT))
+            val usages = batch.addDouble(reader.resolve(RESOURCE_STATE_CPU_USAGE))
+
+            while (true) {
+                val size = reader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    bh.consume(ids.ids[row])
+                    bh.consume(timestamps.values[row])
+                    bh.consume(durations.values[row])
+                    bh.consume(cores.values[row])
+                    bh.consume(usages.values[row])
+                }
+            }
+        } finally {
+            reader.close()
+        }
+    }
+
     @Benchmark
     fun benchmarkInterferenceGroupReader(bh: Blackhole) {
         val reader = format.newReader(path, TABLE_INTERFERENCE_GROUPS, null)
@@ -22,39 +22,139 @@
 
 package org.opendc.trace.opendc
 
+import org.apache.parquet.column.ColumnReader
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.schema.MessageType
+import org.apache.parquet.schema.PrimitiveType
+import org.apache.parquet.schema.Type
+import org.apache.parquet.schema.Types
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.RESOURCE_CPU_COUNT
 import org.opendc.trace.conv.RESOURCE_ID
 import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
 import org.opendc.trace.conv.RESOURCE_STATE_DURATION
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
-import org.opendc.trace.opendc.parquet.ResourceState
-import org.opendc.trace.util.parquet.LocalParquetReader
+import org.opendc.trace.opendc.parquet.FilterPredicates
+import org.opendc.trace.util.parquet.LocalParquetColumnReader
 import java.time.Duration
 import java.time.Instant
 import java.util.UUID
 
 /**
  * A [TableReader] implementation for the OpenDC virtual machine trace format.
+ *
+ * The reader decodes the Parquet columns directly instead of assembling a record per row, so that rows (and batches
+ * in particular) can be read without allocating objects. Resource identifiers are interned per reader.
  */
-internal class OdcVmResourceStateTableReader(private val reader: LocalParquetReader<ResourceState>) : TableReader {
+internal class OdcVmResourceStateTableReader(private val reader: LocalParquetColumnReader) : TableReader {
+    /**
+     * The number of rows remaining in the active row group.
+     */
+    private var remaining = 0L
+
+    /**
+     * A flag to indicate that the reader is positioned at a valid row.
+     */
+    private var isActive = false
+
     /**
-     * The current record.
+     * The column readers of the active row group, or `null` if the column is not read.
      */
-    private var record: ResourceState? = null
+    private var idColumn: ColumnReader? = null
+    private var timestampColumn: ColumnReader? = null
+    private var durationColumn: ColumnReader? = null
+    private var cpuCountColumn: ColumnReader? = null
+    private var cpuUsageColumn: ColumnReader? = null
+
+    /**
+     * The values of the current row.
+     */
+    private var id = ""
+    private var timestamp = 0L
+    private var duration = 0L
+    private var cpuCount = 0
+    private var cpuUsage = 0.0
+
+    /**
+     * The interned resource identifiers.
+     */
+    private val ids = HashMap<Binary, String>()
+    private var lastIdBinary: Binary? = null
+    private var lastId = ""
 
     override fun nextRow(): Boolean {
         try {
-            val record = reader.read()
-            this.record = record
+            if (remaining == 0L && !nextRowGroup()) {
+                isActive = false
+                return false
+            }
+
+            remaining--
 
-            return record != null
+            idColumn?.let { id = readId(it) }
+            timestampColumn?.let {
+                timestamp = it.long
+                it.consume()
+            }
+            durationColumn?.let {
+                duration = it.long
+                it.consume()
+            }
+            cpuCountColumn?.let {
+                cpuCount = it.integer
+                it.consume()
+            }
+            cpuUsageColumn?.let {
+                cpuUsage = it.double
+                it.consume()
+            }
+
+            isActive = true
+            return true
         } catch (e: Throwable) {
-            this.record = null
+            isActive = false
             throw e
         }
     }
 
+    override fun nextBatch(batch: ColumnBatch): Int {
+        checkBatch(batch)
+        batch.reset()
+        isActive = false
+
+        val idVectors = batch.strings
+        val timestampVectors = batch.longs.filter { it.index == COL_TIMESTAMP }
+        val durationVectors = batch.longs.filter { it.index == COL_DURATION }
+        val cpuCountVectors = batch.longs.filter { it.index == COL_CPU_COUNT }
+        val cpuUsageVectors = batch.doubles
+
+        val capacity = batch.capacity
+        var size = 0
+
+        while (size < capacity) {
+            if (remaining == 0L && !nextRowGroup()) {
+                break
+            }
+
+            val count = minOf((capacity - size).toLong(), remaining).toInt()
+
+            readIds(idColumn, idVectors, size, count)
+            readLongs(timestampColumn, timestampVectors, size, count)
+            readLongs(durationColumn, durationVectors, size, count)
+            readInts(cpuCountColumn, cpuCountVectors, size, count)
+            readDoubles(cpuUsageColumn, cpuUsageVectors, size, count)
+
+            remaining -= count
+            size += count
+        }
+
+        batch.size = size
+        return size
+    }
+
     private val COL_ID = 0
     private val COL_TIMESTAMP = 1
     private val COL_DURATION = 2
@@ -82,9 +182,9 @@ internal class OdcVmResourceStateTableReader(private val reader: LocalParquetRea
     }
 
     override fun getInt(index: Int): Int {
-        val record = checkNotNull(record) { "Reader in invalid state" }
+        check(isActive) { "Reader in invalid state" }
         return when (index) {
-            COL_CPU_COUNT -> record.cpuCount
+            COL_CPU_COUNT -> cpuCount
             else -> throw IllegalArgumentException("Invalid column or type [index $index]")
         }
     }
@@ -98,18 +198,18 @@ internal class OdcVmResourceStateTableReader(private val reader: LocalParquetRea
     }
 
     override fun getDouble(index: Int): Double {
-        val record = checkNotNull(record) { "Reader in invalid state" }
+        check(isActive) { "Reader in invalid state" }
         return when (index) {
-            COL_CPU_USAGE -> record.cpuUsage
+            COL_CPU_USAGE -> cpuUsage
             else -> throw IllegalArgumentException("Invalid column or type [index $index]")
         }
     }
 
     override fun getString(index: Int): String {
-        val record = checkNotNull(record) { "Reader in invalid state" }
+        check(isActive) { "Reader in invalid state" }
 
         return when (index) {
-            COL_ID -> record.id
+            COL_ID -> id
             else -> throw IllegalArgumentException("Invalid column index $index")
         }
     }
@@ -119,19 +219,19 @@ internal class OdcVmResourceStateTableReader(private val reader: LocalParquetRea
     }
 
     override fun getInstant(index: Int): Instant {
-        val record = checkNotNull(record) { "Reader in invalid state" }
+        check(isActive) { "Reader in invalid state" }
 
         return when (index) {
-            COL_TIMESTAMP -> record.timestamp
+            COL_TIMESTAMP -> if (timestampColumn != null) Instant.ofEpochMilli(timestamp) else Instant.MIN
             else -> throw IllegalArgumentException("Invalid column index $index")
         }
     }
 
     override fun getDuration(index: Int): Duration {
-        val record = checkNotNull(record) { "Reader in invalid state" }
+        check(isActive) { "Reader in invalid state" }
 
         return when (index) {
-            COL_DURATION -> record.duration
+            COL_DURATION -> Duration.ofMillis(duration)
             else -> throw IllegalArgumentException("Invalid column index $index")
         }
     }
@@ -153,4 +253,266 @@ internal class OdcVmResourceStateTableReader(private val reader: LocalParquetRea
     }
 
     override fun toString(): String = "OdcVmResourceStateTableReader"
+
+    /**
+     * Advance to the next row group and obtain its column readers.
+     */
+    private fun nextRowGroup(): Boolean {
+        val rows = reader.nextRowGroup()
+        if (rows < 0) {
+            idColumn = null
+            timestampColumn = null
+            durationColumn = null
+            cpuCountColumn = null
+            cpuUsageColumn = null
+            return false
+        }
+
+        remaining = rows
+        idColumn = reader.getColumnReader("id")
+        timestampColumn = reader.getColumnReader("timestamp") ?: reader.getColumnReader("time")
+        durationColumn = reader.getColumnReader("duration")
+        cpuCountColumn = reader.getColumnReader("cpu_count") ?: reader.getColumnReader("cores")
+        cpuUsageColumn = reader.getColumnReader("cpu_usage") ?: reader.getColumnReader("cpuUsage")
+
+        // Reset the values of columns that are not read, matching the record-based reader
+        id = ""
+        timestamp = 0L
+        duration = 0L
+        cpuCount = 0
+        cpuUsage = 0.0
+        return true
+    }
+
+    /**
+     * Read the current value of [column] as interned identifier and advance the column.
+     */
+    private fun readId(column: ColumnReader): String {
+        val binary = column.binary
+        column.consume()
+
+        // Dictionary-encoded pages return the same instance for the same value
+        if (binary === lastIdBinary || binary == lastIdBinary) {
+            return lastId
+        }
+
+        var id = ids[binary]
+        if (id == null) {
+            id = binary.toStringUsingUTF8()
+            ids[binary.copy()] = id
+        }
+
+        lastIdBinary = binary
+        lastId = id
+        return id
+    }
+
+    /**
+     * Read [count] identifiers from [column] into [vectors] starting at row [offset].
+     */
+    private fun readIds(column: ColumnReader?, vectors: List<ColumnBatch.StringVector>, offset: Int, count: Int) {
+        val end = offset + count
+        if (column == null) {
+            for (vector in vectors) {
+                for (row in offset until end) {
+                    vector.setNull(row)
+                }
+            }
+            return
+        } else if (vectors.isEmpty()) {
+            skip(column, count)
+            return
+        }
+
+        val first = vectors[0]
+        val values = first.ids
+        for (row in offset until end) {
+            values[row] = first.intern(readId(column))
+        }
+        first.nulls.fill(false, offset, end)
+
+        for (i in 1 until vectors.size) {
+            val vector = vectors[i]
+            for (row in offset until end) {
+                vector[row] = first.lookup(values[row])
+            }
+        }
+    }
+
+    /**
+     * Read [count] 64-bit integers from [column] into [vectors] starting at row [offset].
+     */
+    private fun readLongs(column: ColumnReader?, vectors: List<ColumnBatch.LongVector>, offset: Int, count: Int) {
+        if (column == null || vectors.isEmpty()) {
+            fillMissing(column, vectors, offset, count)
+            return
+        }
+
+        val values = vectors[0].values
+        for (row in offset until offset + count) {
+            values[row] = column.long
+            column.consume()
+        }
+        copyLongs(vectors, offset, count)
+    }
+
+    /**
+     * Read [count] 32-bit integers from [column] into [vectors] starting at row [offset].
+     */
+    private fun readInts(column: ColumnReader?, vectors: List<ColumnBatch.LongVector>, offset: Int, count: Int) {
+        if (column == null || vectors.isEmpty()) {
+            fillMissing(column, vectors, offset, count)
+            return
+        }
+
+        val values = vectors[0].values
+        for (row in offset until offset + count) {
+            values[row] = column.integer.toLong()
+            column.consume()
+        }
+        copyLongs(vectors, offset, count)
+    }
+
+    /**
+     * Read [count] doubles from [column] into [vectors] starting at row [offset].
+     */
+    private fun readDoubles(column: ColumnReader?, vectors: List<ColumnBatch.DoubleVector>, offset: Int, count: Int) {
+        val end = offset + count
+        if (column == null) {
+            for (vector in vectors) {
+                for (row in offset until end) {
+                    vector.setNull(row)
+                }
+            }
+            return
+        } else if (vectors.isEmpty()) {
+            skip(column, count)
+            return
+        }
+
+        val first = vectors[0]
+        val values = first.values
+        for (row in offset until end) {
+            values[row] = column.double
+            column.consume()
+        }
+        first.nulls.fill(false, offset, end)
+
+        for (i in 1 until vectors.size) {
+            val vector = vectors[i]
+            System.arraycopy(values, offset, vector.values, offset, count)
+            vector.nulls.fill(false, offset, end)
+        }
+    }
+
+    /**
+     * Handle a column that is either not read from the file or not part of the batch.
+     */
+    private fun fillMissing(column: ColumnReader?, vectors: List<ColumnBatch.LongVector>, offset: Int, count: Int) {
+        if (column != null) {
+            skip(column, count)
+        }
+
+        for (vector in vectors) {
+            for (row in offset until offset + count) {
+                vector.setNull(row)
+            }
+        }
+    }
+
+    /**
+     * Copy the values of the first vector in [vectors] to the other vectors.
+     */
+    private fun copyLongs(vectors: List<ColumnBatch.LongVector>, offset: Int, count: Int) {
+        val first = vectors[0]
+        first.nulls.fill(false, offset, offset + count)
+
+        for (i in 1 until vectors.size) {
+            val vector = vectors[i]
+            System.arraycopy(first.values, offset, vector.values, offset, count)
+            vector.nulls.fill(false, offset, offset + count)
+        }
+    }
+
+    /**
+     * Skip [count] values of [column].
+     */
+    private fun skip(column: ColumnReader, count: Int) {
+        repeat(count) {
+            column.skip()
+            column.consume()
+        }
+    }
+
+    /**
+     * Verify that the columns of [batch] are valid for this reader.
+     */
+    private fun checkBatch(batch: ColumnBatch) {
+        for (vector in batch.longs) {
+            val type = when (vector.index) {
+                COL_TIMESTAMP -> ColumnBatch.LongVector.Type.INSTANT
+                COL_DURATION -> ColumnBatch.LongVector.Type.DURATION
+                COL_CPU_COUNT -> ColumnBatch.LongVector.Type.INT
+                else -> null
+            }
+            require(vector.type == type) { "Invalid column or type [index ${vector.index}]" }
+        }
+        for (vector in batch.doubles) {
+            require(vector.index == COL_CPU_USAGE) { "Invalid column or type [index ${vector.index}]" }
+        }
+        for (vector in batch.strings) {
+            require(vector.index == COL_ID) { "Invalid column or type [index ${vector.index}]" }
+        }
+    }
+
+    companion object {
+        /**
+         * Mapping from the field names of the trace versions to the table columns and their physical types.
+         */
+        private val FIELDS = mapOf(
+            "id" to (RESOURCE_ID to PrimitiveType.PrimitiveTypeName.BINARY),
+            "time" to (RESOURCE_STATE_TIMESTAMP to PrimitiveType.PrimitiveTypeName.INT64),
+            "timestamp" to (RESOURCE_STATE_TIMESTAMP to PrimitiveType.PrimitiveTypeName.INT64),
+            "duration" to (RESOURCE_STATE_DURATION to PrimitiveType.PrimitiveTypeName.INT64),
+            "cores" to (RESOURCE_CPU_COUNT to PrimitiveType.PrimitiveTypeName.INT32),
+            "cpu_count" to (RESOURCE_CPU_COUNT to PrimitiveType.PrimitiveTypeName.INT32),
+            "cpuUsage" to (RESOURCE_STATE_CPU_USAGE to PrimitiveType.PrimitiveTypeName.DOUBLE),
+            "cpu_usage" to (RESOURCE_STATE_CPU_USAGE to PrimitiveType.PrimitiveTypeName.DOUBLE)
+        )
+
+        /**
+         * Select the fields of the file [schema] to read given the [projection] of table columns.
+         */
+        @JvmStatic
+        fun project(schema: MessageType, projection: List<String>?): MessageType {
+            val projectionSet = projection?.toSet()
+
+            return Types.buildMessage()
+                .apply {
+                    for (field in schema.fields) {
+                        val (column, type) = FIELDS[field.name] ?: continue
+                        if (projectionSet != null && column !in projectionSet) {
+                            continue
+                        }
+
+                        require(
+                            field.isPrimitive &&
+                                field.isRepetition(Type.Repetition.REQUIRED) &&
+                                field.asPrimitiveType().primitiveTypeName == type
+                        ) { "Invalid type for field ${field.name}" }
+
+                        addField(field)
+                    }
+                }
+                .named(schema.name)
+        }
+
+        /**
+         * Translate the [predicates] on the table columns into a [FilterPredicate] for the file [schema].
+         */
+        @JvmStatic
+        fun filter(schema: MessageType, predicates: List<TablePredicate>): FilterPredicate? {
+            return FilterPredicates.convert(schema, predicates, FIELDS.mapValues { it.value.first })
+        }
+    }
 }
@@ -24,20 +24,35 @@ package org.opendc.trace.opendc
 
 import org.apache.parquet.hadoop.ParquetWriter
 import org.opendc.trace.TableWriter
+import org.opendc.trace.TraceStatistics
 import org.opendc.trace.conv.RESOURCE_CPU_COUNT
 import org.opendc.trace.conv.RESOURCE_ID
 import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
 import org.opendc.trace.conv.RESOURCE_STATE_DURATION
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
 import org.opendc.trace.opendc.parquet.ResourceState
+import java.nio.file.Path
 import java.time.Duration
 import java.time.Instant
 import java.util.UUID
 
 /**
  * A [TableWriter] implementation for the OpenDC virtual machine trace format.
+ *
+ * @param writer The Parquet writer to write the rows to.
+ * @param sorter The [ResourceStateSorter] to cluster the rows with, or `null` if the rows are written in order.
+ * @param statisticsPath The path to store the [TraceStatistics] of the written rows at, or `null` to not store them.
  */
-internal class OdcVmResourceStateTableWriter(private val writer: ParquetWriter<ResourceState>) : TableWriter {
+internal class OdcVmResourceStateTableWriter(
+    private val writer: ParquetWriter<ResourceState>,
+    private val sorter: ResourceStateSorter? = null,
+    private val statisticsPath: Path? = null
+) : TableWriter {
+    /**
+     * The builder for the statistics of the written rows.
+     */
+    private val statistics = TraceStatistics.builder()
+
     /**
      * The current state for the record that is being written.
      */
@@ -61,9 +76,15 @@ internal class OdcVmResourceStateTableWriter(private val writer: ParquetWriter<R
         check(_isActive) { "No active row" }
         _isActive = false
 
+        val state = ResourceState(_id, _timestamp, _duration, _cpuCount, _cpuUsage)
+        if (sorter != null) {
+            sorter.add(state)
+            return
+        }
+
         check(lastId != _id || _timestamp >= lastTimestamp) { "Records need to be ordered by (id, timestamp)" }
 
-        writer.write(ResourceState(_id, _timestamp, _duration, _cpuCount, _cpuUsage))
+        write(state)
 
         lastId = _id
         lastTimestamp = _timestamp
@@ -156,7 +177,23 @@ internal class OdcVmResourceStateTableWriter(private val writer: ParquetWriter<R
     }
 
     override fun close() {
-        writer.close()
+        try {
+            sorter?.drainTo(::write)
+        } finally {
+            sorter?.close()
+            writer.close()
+        }
+
+        // Store the statistics after the trace, so that they are never older than the trace they describe
+        statisticsPath?.let { statistics.build().write(it) }
+    }
+
+    /**
+     * Write the specified [state] to the Parquet file.
+     */
+    private fun write(state: ResourceState) {
+        writer.write(state)
+        statistics.add(state.id, state.timestamp.toEpochMilli(), state.duration.toMillis(), state.cpuCount, state.cpuUsage)
     }
 
     /**
@@ -27,10 +27,14 @@ import com.fasterxml.jackson.core.JsonFactory
 import org.apache.parquet.column.ParquetProperties
 import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.metadata.CompressionCodecName
+import org.apache.parquet.schema.MessageType
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
 import org.opendc.trace.TableReader
 import org.opendc.trace.TableWriter
+import org.opendc.trace.TraceStatistics
+import org.opendc.trace.WriteOptions
 import org.opendc.trace.conv.INTERFERENCE_GROUP_MEMBERS
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
 import org.opendc.trace.conv.INTERFERENCE_GROUP_TARGET
@@ -46,12 +50,14 @@ import org.opendc.trace.conv.RESOURCE_STOP_TIME
 import org.opendc.trace.conv.TABLE_INTERFERENCE_GROUPS
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
+import org.opendc.trace.opendc.parquet.FilterPredicates
 import org.opendc.trace.opendc.parquet.ResourceReadSupport
-import org.opendc.trace.opendc.parquet.ResourceStateReadSupport
 import org.opendc.trace.opendc.parquet.ResourceStateWriteSupport
 import org.opendc.trace.opendc.parquet.ResourceWriteSupport
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
+import org.opendc.trace.util.ParallelTableReader
+import org.opendc.trace.util.parquet.LocalParquetColumnReader
 import org.opendc.trace.util.parquet.LocalParquetReader
 import org.opendc.trace.util.parquet.LocalParquetWriter
 import java.nio.file.Files
@@ -125,7 +131,9 @@ public class OdcVmTraceFormat : TraceFormat {
                 OdcVmResourceTableReader(reader)
             }
             TABLE_RESOURCE_STATES -> {
-                val reader = LocalParquetReader(path.resolve("trace.parquet"), ResourceStateReadSupport(projection))
+                val reader = LocalParquetColumnReader(path.resolve("trace.parquet")) { schema ->
+                    OdcVmResourceStateTableReader.project(schema, projection)
+                }
                 OdcVmResourceStateTableReader(reader)
             }
             TABLE_INTERFERENCE_GROUPS -> {
@@ -142,7 +150,47 @@ public class OdcVmTraceFormat : TraceFormat {
         }
     }
 
-    override fun newWriter(path: Path, table: String): TableWriter {
+    override fun newReader(path: Path, table: String, projection: List<String>?, options: ScanOptions): TableReader {
+        val predicates = options.predicates
+        return when (table) {
+            TABLE_RESOURCES -> {
+                if (predicates.isEmpty()) {
+                    return newReader(path, table, projection)
+                }
+
+                // Parquet evaluates record filters only on the projected columns
+                val readProjection = projection?.let { (it + predicates.map { p -> p.column }).distinct() }
+                val reader = LocalParquetReader(
+                    path.resolve("meta.parquet"),
+                    ResourceReadSupport(readProjection),
+                    filter = { schema -> FilterPredicates.convert(schema, predicates, ResourceReadSupport.FIELDS) }
+                )
+                OdcVmResourceTableReader(reader)
+            }
+            TABLE_RESOURCE_STATES -> {
+                val projectionFn = { schema: MessageType -> OdcVmResourceStateTableReader.project(schema, projection) }
+                val filterFn = { schema: MessageType -> OdcVmResourceStateTableReader.filter(schema, predicates) }
+
+                if (options.parallelism == 1) {
+                    val reader = LocalParquetColumnReader(path.resolve("trace.parquet"), projectionFn, filter = filterFn)
+                    return OdcVmResourceStateTableReader(reader)
+                }
+
+                // Partition the resource states by row group, so that even a single trace file is scanned in parallel.
+                // Row groups that cannot match the predicates are pruned up front, so no partition is created for them.
+                val rowGroups = LocalParquetColumnReader.listRowGroups(path.resolve("trace.parquet"), filterFn)
+                val partitions = rowGroups.map { (file, rowGroup) ->
+                    { OdcVmResourceStateTableReader(LocalParquetColumnReader(file, projectionFn, rowGroup)) }
+                }
+                ParallelTableReader(partitions, options)
+            }
+            else -> newReader(path, table, projection)
+        }
+    }
+
+    override fun newWriter(path: Path, table: String): TableWriter = newWriter(path, table, WriteOptions.DEFAULT)
+
+    override fun newWriter(path: Path, table: String, options: WriteOptions): TableWriter {
         return when (table) {
             TABLE_RESOURCES -> {
                 val writer = LocalParquetWriter.builder(path.resolve("meta.parquet"), ResourceWriteSupport())
@@ -150,6 +198,7 @@ public class OdcVmTraceFormat : TraceFormat {
                     .withPageWriteChecksumEnabled(true)
                     .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
                     .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                    .withSizes(options)
                     .build()
                 OdcVmResourceTableWriter(writer)
             }
@@ -157,12 +206,19 @@ public class OdcVmTraceFormat : TraceFormat {
                 val writer = LocalParquetWriter.builder(path.resolve("trace.parquet"), ResourceStateWriteSupport())
                     .withCompressionCodec(CompressionCodecName.ZSTD)
                     .withDictionaryEncoding("id", true)
-                    .withBloomFilterEnabled("id", true)
+                    .withBloomFilterEnabled("id", options.bloomFilter)
                     .withPageWriteChecksumEnabled(true)
                     .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
                     .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                    .withSizes(options)
                     .build()
-                OdcVmResourceStateTableWriter(writer)
+                val sorter = if (options.clustered) ResourceStateSorter(path) else null
+
+                // Remove the statistics of the previous trace, which no longer describe the trace being written
+                val statisticsPath = path.resolve(STATISTICS_FILE)
+                Files.deleteIfExists(statisticsPath)
+
+                OdcVmResourceStateTableWriter(writer, sorter, statisticsPath.takeIf { options.statistics })
             }
             TABLE_INTERFERENCE_GROUPS -> {
                 val generator = jsonFactory.createGenerator(path.resolve("interference-model.json").toFile(), JsonEncoding.UTF8)
@@ -171,4 +227,39 @@ public class OdcVmTraceFormat : TraceFormat {
             else -> throw IllegalArgumentException("Table $table not supported")
         }
     }
+
+    override fun getStatistics(path: Path): TraceStatistics? {
+        val statisticsPath = path.resolve(STATISTICS_FILE)
+        if (!statisticsPath.exists()) {
+            return null
+        }
+
+        // Ignore statistics that were written before the trace, e.g., by a writer that was not closed properly
+        val tracePath = path.resolve("trace.parquet")
+        if (tracePath.exists() && Files.getLastModifiedTime(statisticsPath) < Files.getLastModifiedTime(tracePath)) {
+            return null
+        }
+
+        return TraceStatistics.read(statisticsPath)
+    }
+
+    /**
+     * Apply the row group and page sizes of [options] to this builder.
+     */
+    private fun <T> LocalParquetWriter.Builder<T>.withSizes(options: WriteOptions): LocalParquetWriter.Builder<T> {
+        if (options.rowGroupSize > 0) {
+            withRowGroupSize(options.rowGroupSize)
+        }
+        if (options.pageSize > 0) {
+            withPageSize(options.pageSize)
+        }
+        return this
+    }
+
+    private companion object {
+        /**
+         * The name of the file in which the statistics of the resource states are stored.
+         */
+        const val STATISTICS_FILE = "trace-stats.bin"
+    }
 }
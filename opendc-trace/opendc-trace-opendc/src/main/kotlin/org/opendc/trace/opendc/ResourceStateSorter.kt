@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.opendc
+
+import org.apache.parquet.hadoop.metadata.CompressionCodecName
+import org.opendc.trace.TableReader
+import org.opendc.trace.conv.RESOURCE_CPU_COUNT
+import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_DURATION
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
+import org.opendc.trace.opendc.parquet.ResourceState
+import org.opendc.trace.opendc.parquet.ResourceStateWriteSupport
+import org.opendc.trace.util.parquet.LocalParquetColumnReader
+import org.opendc.trace.util.parquet.LocalParquetWriter
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.PriorityQueue
+
+/**
+ * A helper class to cluster the rows of the resource states table by (id, timestamp) before they are written.
+ *
+ * Rows are buffered in memory and sorted once the buffer is full. Sorted runs that do not fit in memory are spilled to
+ * temporary Parquet files in a hidden directory under [parent] and merged when the rows are drained.
+ *
+ * @param parent The directory in which to create the directory for the spilled runs.
+ * @param capacity The maximum number of rows to buffer in memory.
+ */
+internal class ResourceStateSorter(
+    private val parent: Path,
+    private val capacity: Int = DEFAULT_CAPACITY
+) : AutoCloseable {
+    /**
+     * The rows buffered in memory.
+     */
+    private val buffer = ArrayList<ResourceState>()
+
+    /**
+     * The sorted runs that have been spilled to disk.
+     */
+    private val runs = mutableListOf<Path>()
+
+    /**
+     * The directory containing the spilled runs or `null` if no run has been spilled yet.
+     */
+    private var tmpDir: Path? = null
+
+    /**
+     * Add the specified [state] to the sorter.
+     */
+    fun add(state: ResourceState) {
+        buffer.add(state)
+
+        if (buffer.size >= capacity) {
+            spill()
+        }
+    }
+
+    /**
+     * Pass all rows in (id, timestamp) order to [sink].
+     */
+    fun drainTo(sink: (ResourceState) -> Unit) {
+        if (runs.isEmpty()) {
+            buffer.sortWith(ORDER)
+            for (state in buffer) {
+                sink(state)
+            }
+            buffer.clear()
+            return
+        }
+
+        if (buffer.isNotEmpty()) {
+            spill()
+        }
+
+        merge(sink)
+    }
+
+    override fun close() {
+        buffer.clear()
+
+        for (run in runs) {
+            Files.deleteIfExists(run)
+        }
+        runs.clear()
+
+        tmpDir?.let { Files.deleteIfExists(it) }
+        tmpDir = null
+    }
+
+    /**
+     * Sort the buffered rows and spill them to a new run on disk.
+     */
+    private fun spill() {
+        buffer.sortWith(ORDER)
+
+        val dir = tmpDir ?: Files.createTempDirectory(parent, ".sort-").also { tmpDir = it }
+        val run = dir.resolve("run-${runs.size}.parquet")
+        runs.add(run)
+
+        LocalParquetWriter.builder(run, ResourceStateWriteSupport())
+            .withCompressionCodec(CompressionCodecName.SNAPPY)
+            .build()
+            .use { writer ->
+                for (state in buffer) {
+                    writer.write(state)
+                }
+            }
+
+        buffer.clear()
+    }
+
+    /**
+     * Merge the spilled runs into [sink].
+     */
+    private fun merge(sink: (ResourceState) -> Unit) {
+        val cursors = runs.map { Cursor(OdcVmResourceStateTableReader(LocalParquetColumnReader(it))) }
+        val queue = PriorityQueue<Cursor>(cursors.size) { a, b -> ORDER.compare(a.state, b.state) }
+
+        try {
+            for (cursor in cursors) {
+                if (cursor.next()) {
+                    queue.add(cursor)
+                }
+            }
+
+            while (true) {
+                val cursor = queue.poll() ?: break
+                sink(cursor.state)
+
+                if (cursor.next()) {
+                    queue.add(cursor)
+                }
+            }
+        } finally {
+            cursors.forEach(Cursor::close)
+        }
+    }
+
+    /**
+     * A cursor over the rows of a spilled run.
+     */
+    private class Cursor(private val reader: TableReader) : AutoCloseable {
+        private val colId = reader.resolve(RESOURCE_ID)
+        private val colTimestamp = reader.resolve(RESOURCE_STATE_TIMESTAMP)
+        private val colDuration = reader.resolve(RESOURCE_STATE_DURATION)
+        private val colCpuCount = reader.resolve(RESOURCE_CPU_COUNT)
+        private val colCpuUsage = reader.resolve(RESOURCE_STATE_CPU_USAGE)
+
+        /**
+         * The current row of the cursor.
+         */
+        lateinit var state: ResourceState
+
+        /**
+         * Advance the cursor to the next row.
+         */
+        fun next(): Boolean {
+            if (!reader.nextRow()) {
+                return false
+            }
+
+            state = ResourceState(
+                reader.getString(colId)!!,
+                reader.getInstant(colTimestamp)!!,
+                reader.getDuration(colDuration)!!,
+                reader.getInt(colCpuCount),
+                reader.getDouble(colCpuUsage)
+            )
+            return true
+        }
+
+        override fun close() = reader.close()
+    }
+
+    private companion object {
+        /**
+         * The default number of rows to buffer in memory.
+         */
+        const val DEFAULT_CAPACITY = 1 shl 20
+
+        /**
+         * The order in which the rows are written.
+         */
+        val ORDER: Comparator<ResourceState> = compareBy<ResourceState> { it.id }.thenBy { it.timestamp }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.opendc.parquet
+
+import org.apache.parquet.filter2.predicate.FilterApi
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.filter2.predicate.Operators
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.schema.MessageType
+import org.apache.parquet.schema.PrimitiveType
+import org.opendc.trace.TablePredicate
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Helper functions to translate [TablePredicate]s into Parquet [FilterPredicate]s.
+ */
+internal object FilterPredicates {
+    /**
+     * The maximum number of values of an IN predicate that are translated into a disjunction of equality predicates.
+     * Larger sets are matched by an [InSetPredicate], since the disjunction is evaluated recursively.
+     */
+    private const val MAX_DISJUNCTS = 64
+
+    /**
+     * Translate the conjunction of [predicates] into a [FilterPredicate] for a file with the specified [schema].
+     *
+     * @param schema The schema of the file to filter.
+     * @param predicates The predicates to translate.
+     * @param fields A mapping from the field names in the file to the table columns.
+     * @return The [FilterPredicate] or `null` if none of the predicates can be translated.
+     */
+    fun convert(schema: MessageType, predicates: List<TablePredicate>, fields: Map<String, String>): FilterPredicate? {
+        var result: FilterPredicate? = null
+
+        for (predicate in predicates) {
+            val field = schema.fields.firstOrNull { it.isPrimitive && fields[it.name] == predicate.column } ?: continue
+            val filter = convert(field.name, field.asPrimitiveType().primitiveTypeName, predicate) ?: continue
+            result = if (result != null) FilterApi.and(result, filter) else filter
+        }
+
+        return result
+    }
+
+    /**
+     * Translate a single [predicate] on the field [name] with the specified primitive [type].
+     */
+    private fun convert(name: String, type: PrimitiveType.PrimitiveTypeName, predicate: TablePredicate): FilterPredicate? {
+        return when (type) {
+            PrimitiveType.PrimitiveTypeName.INT64 ->
+                convert(FilterApi.longColumn(name), predicate) { toLong(it) }
+            PrimitiveType.PrimitiveTypeName.INT32 ->
+                convert(FilterApi.intColumn(name), predicate) { toLong(it)?.toInt() }
+            PrimitiveType.PrimitiveTypeName.DOUBLE ->
+                convert(FilterApi.doubleColumn(name), predicate) { (it as? Number)?.toDouble() }
+            PrimitiveType.PrimitiveTypeName.BINARY ->
+                convert(FilterApi.binaryColumn(name), predicate) { (it as? String)?.let(Binary::fromString) }
+            else -> null
+        }
+    }
+
+    /**
+     * Translate [predicate] for the specified [column], using [transform] to convert the values of the predicate.
+     */
+    private fun <T : Comparable<T>, C> convert(
+        column: C,
+        predicate: TablePredicate,
+        transform: (Any) -> T?
+    ): FilterPredicate? where C : Operators.Column<T>, C : Operators.SupportsLtGt {
+        return when (predicate) {
+            is TablePredicate.Range -> {
+                val lower = predicate.lower?.let(transform)?.let {
+                    if (predicate.lowerInclusive) FilterApi.gtEq(column, it) else FilterApi.gt(column, it)
+                }
+                val upper = predicate.upper?.let(transform)?.let {
+                    if (predicate.upperInclusive) FilterApi.ltEq(column, it) else FilterApi.lt(column, it)
+                }
+
+                if (lower != null && upper != null) FilterApi.and(lower, upper) else lower ?: upper
+            }
+            is TablePredicate.In -> {
+                val values = predicate.values.map { transform(it) ?: return null }
+                if (values.size > MAX_DISJUNCTS) {
+                    return FilterApi.userDefined(column, InSetPredicate(values))
+                }
+
+                values
+                    .map<T, FilterPredicate> { FilterApi.eq(column, it) }
+                    .reduceOrNull { acc, eq -> FilterApi.or(acc, eq) }
+            }
+        }
+    }
+
+    /**
+     * Convert the specified [value] to the `long` representation of the Parquet files, or `null` if the value cannot
+     * be represented exactly.
+     */
+    private fun toLong(value: Any): Long? {
+        return when (value) {
+            is Instant -> value.toEpochMilli()
+            is Duration -> value.toMillis()
+            is Double, is Float -> value.toDouble().takeIf { it % 1.0 == 0.0 }?.toLong()
+            is Number -> value.toLong()
+            else -> null
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.opendc.parquet
+
+import org.apache.parquet.filter2.predicate.Statistics
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate
+import java.io.Serializable
+
+/**
+ * A [UserDefinedPredicate] that matches the values in a set.
+ *
+ * Unlike a disjunction of equality predicates, the depth of this predicate does not grow with the number of values, so
+ * it can be used for large sets. Row groups are dropped if none of the values lies within their statistics.
+ *
+ * @param values The values to match.
+ */
+internal class InSetPredicate<T : Comparable<T>>(values: Collection<T>) : UserDefinedPredicate<T>(), Serializable {
+    /**
+     * The values to match.
+     */
+    private val values: Set<T> = HashSet(values)
+
+    /**
+     * The values sorted by the comparator of the column, which is determined by the statistics of the row groups.
+     */
+    @Transient
+    private var sorted: List<T> = emptyList()
+
+    /**
+     * The comparator by which [sorted] is ordered.
+     */
+    @Transient
+    private var comparator: Comparator<T>? = null
+
+    override fun keep(value: T?): Boolean = value != null && value in values
+
+    override fun canDrop(statistics: Statistics<T>): Boolean {
+        val min = statistics.min ?: return false
+        val max = statistics.max ?: return false
+        val comparator = statistics.comparator
+        val sorted = sortedBy(comparator)
+
+        // Find the first value that is not smaller than the minimum of the row group
+        var lo = 0
+        var hi = sorted.size
+        while (lo < hi) {
+            val mid = (lo + hi) ushr 1
+            if (comparator.compare(sorted[mid], min) < 0) lo = mid + 1 else hi = mid
+        }
+
+        return lo == sorted.size || comparator.compare(sorted[lo], max) > 0
+    }
+
+    override fun inverseCanDrop(statistics: Statistics<T>): Boolean = false
+
+    override fun toString(): String = "in(${values.size} values)"
+
+    /**
+     * Obtain the values sorted by [comparator].
+     */
+    private fun sortedBy(comparator: Comparator<T>): List<T> {
+        if (this.comparator !== comparator) {
+            sorted = values.sortedWith(comparator)
+            this.comparator = comparator
+        }
+        return sorted
+    }
+}
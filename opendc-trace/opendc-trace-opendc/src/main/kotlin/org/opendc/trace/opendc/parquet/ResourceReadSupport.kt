@@ -42,22 +42,6 @@ import org.opendc.trace.conv.RESOURCE_STOP_TIME
  * A [ReadSupport] instance for [Resource] objects.
  */
 internal class ResourceReadSupport(private val projection: List<String>?) : ReadSupport<Resource>() {
-    /**
-     * Mapping from field names to [TableColumn]s.
-     */
-    private val fieldMap = mapOf(
-        "id" to RESOURCE_ID,
-        "submissionTime" to RESOURCE_START_TIME,
-        "start_time" to RESOURCE_START_TIME,
-        "endTime" to RESOURCE_STOP_TIME,
-        "stop_time" to RESOURCE_STOP_TIME,
-        "maxCores" to RESOURCE_CPU_COUNT,
-        "cpu_count" to RESOURCE_CPU_COUNT,
-        "cpu_capacity" to RESOURCE_CPU_CAPACITY,
-        "requiredMemory" to RESOURCE_MEM_CAPACITY,
-        "mem_capacity" to RESOURCE_MEM_CAPACITY
-    )
-
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -66,7 +50,7 @@ internal class ResourceReadSupport(private val projection: List<String>?) : Read
                         val projectionSet = projection.toSet()
 
                         for (field in READ_SCHEMA.fields) {
-                            val col = fieldMap[field.name] ?: continue
+                            val col = FIELDS[field.name] ?: continue
                             if (col in projectionSet) {
                                 addField(field)
                             }
@@ -88,6 +72,23 @@ internal class ResourceReadSupport(private val projection: List<String>?) : Read
     ): RecordMaterializer<Resource> = ResourceRecordMaterializer(readContext.requestedSchema)
 
     companion object {
+        /**
+         * Mapping from field names to [TableColumn]s.
+         */
+        @JvmStatic
+        val FIELDS = mapOf(
+            "id" to RESOURCE_ID,
+            "submissionTime" to RESOURCE_START_TIME,
+            "start_time" to RESOURCE_START_TIME,
+            "endTime" to RESOURCE_STOP_TIME,
+            "stop_time" to RESOURCE_STOP_TIME,
+            "maxCores" to RESOURCE_CPU_COUNT,
+            "cpu_count" to RESOURCE_CPU_COUNT,
+            "cpu_capacity" to RESOURCE_CPU_CAPACITY,
+            "requiredMemory" to RESOURCE_MEM_CAPACITY,
+            "mem_capacity" to RESOURCE_MEM_CAPACITY
+        )
+
         /**
          * Parquet read schema (version 2.0) for the "resources" table in the trace.
          */
@@ -34,9 +34,13 @@ import org.junit.jupiter.api.assertDoesNotThrow
 import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableColumn
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
 import org.opendc.trace.TableWriter
+import org.opendc.trace.WriteOptions
 import org.opendc.trace.conv.INTERFERENCE_GROUP_MEMBERS
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
 import org.opendc.trace.conv.INTERFERENCE_GROUP_TARGET
@@ -46,6 +50,7 @@ import org.opendc.trace.conv.RESOURCE_ID
 import org.opendc.trace.conv.RESOURCE_MEM_CAPACITY
 import org.opendc.trace.conv.RESOURCE_START_TIME
 import org.opendc.trace.conv.RESOURCE_STATE_CPU_USAGE
+import org.opendc.trace.conv.RESOURCE_STATE_DURATION
 import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
 import org.opendc.trace.conv.RESOURCE_STOP_TIME
 import org.opendc.trace.conv.TABLE_INTERFERENCE_GROUPS
@@ -53,8 +58,10 @@ import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import org.opendc.trace.testkit.TableReaderTestKit
 import org.opendc.trace.testkit.TableWriterTestKit
+import org.opendc.trace.util.ParallelTableReader
 import java.nio.file.Files
 import java.nio.file.Paths
+import java.time.Duration
 import java.time.Instant
 
 /**
@@ -157,6 +164,171 @@ internal class OdcVmTraceFormatTest {
         reader.close()
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = ["trace-v2.0", "trace-v2.1"])
+    fun testResourceStatesBatch(name: String) {
+        val path = Paths.get("src/test/resources/$name")
+        val rowReader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        val batchReader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+
+        val batch = ColumnBatch(capacity = 7)
+        val ids = batch.addString(batchReader.resolve(RESOURCE_ID))
+        val timestamps = batch.addInstant(batchReader.resolve(RESOURCE_STATE_TIMESTAMP))
+        val durations = batch.addDuration(batchReader.resolve(RESOURCE_STATE_DURATION))
+        val cores = batch.addInt(batchReader.resolve(RESOURCE_CPU_COUNT))
+        val usages = batch.addDouble(batchReader.resolve(RESOURCE_STATE_CPU_USAGE))
+
+        var count = 0
+        try {
+            while (true) {
+                val size = batchReader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    assertTrue(rowReader.nextRow())
+                    assertEquals(rowReader.getString(RESOURCE_ID), ids[row])
+                    assertEquals(rowReader.getInstant(RESOURCE_STATE_TIMESTAMP)!!.toEpochMilli(), timestamps[row])
+                    assertEquals(rowReader.getDuration(RESOURCE_STATE_DURATION)!!.toMillis(), durations[row])
+                    assertEquals(rowReader.getInt(RESOURCE_CPU_COUNT).toLong(), cores[row])
+                    assertEquals(rowReader.getDouble(RESOURCE_STATE_CPU_USAGE), usages[row])
+                }
+                count += size
+            }
+
+            assertFalse(rowReader.nextRow())
+            assertTrue(count > 0)
+        } finally {
+            rowReader.close()
+            batchReader.close()
+        }
+    }
+
+    @Test
+    fun testResourcesBatch() {
+        val path = Paths.get("src/test/resources/trace-v2.1")
+        val reader = format.newReader(path, TABLE_RESOURCES, null)
+
+        val batch = ColumnBatch()
+        val ids = batch.addString(reader.resolve(RESOURCE_ID))
+        val startTimes = batch.addInstant(reader.resolve(RESOURCE_START_TIME))
+
+        assertAll(
+            { assertEquals(4, reader.nextBatch(batch)) },
+            { assertEquals(listOf("1019", "1023", "1052", "1073"), (0 until batch.size).map { ids[it] }) },
+            { assertEquals(1376314846000, startTimes[0]) },
+            { assertEquals(0, reader.nextBatch(batch)) }
+        )
+
+        reader.close()
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [true, false])
+    fun testResourceStatesParallel(ordered: Boolean) {
+        val path = Paths.get("src/test/resources/trace-v2.1")
+        val expected = readIds(format.newReader(path, TABLE_RESOURCE_STATES, null))
+
+        // Scan the same trace three times as separate partitions
+        val partitions = List(3) { { format.newReader(path, TABLE_RESOURCE_STATES, null) } }
+        val actual = readIds(ParallelTableReader(partitions, ScanOptions(parallelism = 2, ordered = ordered)))
+
+        if (ordered) {
+            assertEquals(expected + expected + expected, actual)
+        } else {
+            assertEquals((expected + expected + expected).sorted(), actual.sorted())
+        }
+    }
+
+    @Test
+    fun testResourceStatesParallelFormat() {
+        val path = Paths.get("src/test/resources/trace-v2.1")
+        val expected = readIds(format.newReader(path, TABLE_RESOURCE_STATES, null))
+        val actual = readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, ScanOptions(parallelism = 4)))
+
+        assertEquals(expected, actual)
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["trace-v2.0", "trace-v2.1"])
+    fun testResourcesPredicate(name: String) {
+        val path = Paths.get("src/test/resources/$name")
+        val options = ScanOptions(predicates = listOf(TablePredicate.In(RESOURCE_ID, setOf("1023", "1073"))))
+        val reader = format.newReader(path, TABLE_RESOURCES, listOf(RESOURCE_START_TIME), options)
+
+        assertEquals(listOf("1023", "1073"), readIds(reader))
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["trace-v2.0", "trace-v2.1"])
+    fun testResourceStatesPredicateRange(name: String) {
+        val path = Paths.get("src/test/resources/$name")
+        val expected = readIds(format.newReader(path, TABLE_RESOURCE_STATES, null))
+
+        val bound = Instant.parse("2100-01-01T00:00:00Z")
+        val after = ScanOptions(predicates = listOf(TablePredicate.Range(RESOURCE_STATE_TIMESTAMP, bound, null)))
+        val before = ScanOptions(predicates = listOf(TablePredicate.Range(RESOURCE_STATE_TIMESTAMP, null, bound)))
+
+        assertAll(
+            { assertEquals(emptyList<String>(), readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, after))) },
+            { assertEquals(expected, readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, before))) }
+        )
+    }
+
+    @Test
+    fun testResourceStatesPredicateId() {
+        val path = Files.createTempDirectory("opendc")
+        val writer = format.newWriter(path, TABLE_RESOURCE_STATES)
+
+        writer.startRow()
+        writer.setString(RESOURCE_ID, "1019")
+        writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.EPOCH)
+        writer.endRow()
+        writer.close()
+
+        val hit = ScanOptions(predicates = listOf(TablePredicate.In(RESOURCE_ID, setOf("1019", "1023"))))
+        val miss = ScanOptions(predicates = listOf(TablePredicate.In(RESOURCE_ID, setOf("1023"))))
+
+        assertAll(
+            { assertEquals(listOf("1019"), readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, hit))) },
+            { assertEquals(emptyList<String>(), readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, miss))) }
+        )
+    }
+
+    @Test
+    fun testResourceStatesPredicateLargeSet() {
+        val path = Files.createTempDirectory("opendc")
+        val writer = format.newWriter(path, TABLE_RESOURCE_STATES)
+
+        writer.startRow()
+        writer.setString(RESOURCE_ID, "1019")
+        writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.EPOCH)
+        writer.endRow()
+        writer.close()
+
+        val ids = (2000 until 3000).map { it.toString() }.toSet()
+        val hit = ScanOptions(predicates = listOf(TablePredicate.In(RESOURCE_ID, ids + "1019")))
+        val miss = ScanOptions(predicates = listOf(TablePredicate.In(RESOURCE_ID, ids)))
+
+        assertAll(
+            { assertEquals(listOf("1019"), readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, hit))) },
+            { assertEquals(emptyList<String>(), readIds(format.newReader(path, TABLE_RESOURCE_STATES, null, miss))) }
+        )
+    }
+
+    @Test
+    fun testResourceStatesBatchInvalidColumn() {
+        val path = Paths.get("src/test/resources/trace-v2.1")
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+
+        val batch = ColumnBatch()
+        batch.addInstant(reader.resolve(RESOURCE_STATE_DURATION))
+
+        assertThrows<IllegalArgumentException> { reader.nextBatch(batch) }
+        reader.close()
+    }
+
     @Test
     fun testResourceStatesWrite() {
         val path = Files.createTempDirectory("opendc")
@@ -184,6 +356,84 @@ internal class OdcVmTraceFormatTest {
         reader.close()
     }
 
+    @Test
+    fun testResourceStatesWriteClustered() {
+        val path = Files.createTempDirectory("opendc")
+        val options = WriteOptions(clustered = true, rowGroupSize = 1 shl 20)
+        val writer = format.newWriter(path, TABLE_RESOURCE_STATES, options)
+
+        // Interleave the rows of the resources, which is only allowed when clustering
+        for ((id, timestamp) in listOf("1023" to 2L, "1019" to 1L, "1023" to 1L, "1019" to 2L)) {
+            writer.startRow()
+            writer.setString(RESOURCE_ID, id)
+            writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.ofEpochMilli(timestamp))
+            writer.endRow()
+        }
+        writer.close()
+
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, null)
+        val rows = mutableListOf<Pair<String, Long>>()
+        while (reader.nextRow()) {
+            rows.add(reader.getString(RESOURCE_ID)!! to reader.getInstant(RESOURCE_STATE_TIMESTAMP)!!.toEpochMilli())
+        }
+        reader.close()
+
+        assertAll(
+            { assertEquals(listOf("1019" to 1L, "1019" to 2L, "1023" to 1L, "1023" to 2L), rows) },
+            {
+                assertEquals(
+                    setOf(path.resolve("trace.parquet"), path.resolve("trace-stats.bin")),
+                    Files.list(path).use { it.toList() }.toSet()
+                )
+            }
+        )
+    }
+
+    @Test
+    fun testResourceStatesStatistics() {
+        val path = Files.createTempDirectory("opendc")
+        val writer = format.newWriter(path, TABLE_RESOURCE_STATES)
+
+        val rows = listOf(Triple("1019", 300_000L, 10.0), Triple("1019", 600_000L, 30.0), Triple("1023", 300_000L, 20.0))
+        for ((id, timestamp, usage) in rows) {
+            writer.startRow()
+            writer.setString(RESOURCE_ID, id)
+            writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.ofEpochMilli(timestamp))
+            writer.setDuration(RESOURCE_STATE_DURATION, Duration.ofMinutes(5))
+            writer.setDouble(RESOURCE_STATE_CPU_USAGE, usage)
+            writer.setInt(RESOURCE_CPU_COUNT, 2)
+            writer.endRow()
+        }
+        writer.close()
+
+        val statistics = format.getStatistics(path)!!
+        val resource = statistics["1019"]!!
+
+        assertAll(
+            { assertEquals(2, statistics.resourceCount) },
+            { assertEquals(3, statistics.rowCount) },
+            { assertEquals(Instant.EPOCH, statistics.startTime) },
+            { assertEquals(Instant.ofEpochMilli(600_000), statistics.endTime) },
+            { assertEquals(0.5, statistics.coreHours) },
+            { assertEquals(0L, resource.rowOffset) },
+            { assertEquals(2L, resource.rowCount) },
+            { assertEquals(10.0, resource.minCpuUsage) },
+            { assertEquals(30.0, resource.maxCpuUsage) },
+            { assertEquals(20.0, resource.meanCpuUsage) },
+            { assertEquals(12_000.0, resource.cpuLoad) },
+            { assertEquals(2L, statistics["1023"]?.rowOffset) }
+        )
+    }
+
+    @Test
+    fun testResourceStatesStatisticsDisabled() {
+        val path = Files.createTempDirectory("opendc")
+        format.newWriter(path, TABLE_RESOURCE_STATES).close()
+        format.newWriter(path, TABLE_RESOURCE_STATES, WriteOptions(statistics = false)).close()
+
+        assertEquals(null, format.getStatistics(path))
+    }
+
     @Test
     fun testInterferenceGroups() {
         val path = Paths.get("src/test/resources/trace-v2.1")
@@ -253,6 +503,32 @@ internal class OdcVmTraceFormatTest {
         reader.close()
     }
 
+    /**
+     * Read the resource identifiers of all rows of [reader] in batches.
+     */
+    private fun readIds(reader: TableReader): List<String> {
+        val batch = ColumnBatch(capacity = 5)
+        val ids = batch.addString(reader.resolve(RESOURCE_ID))
+        val result = mutableListOf<String>()
+
+        try {
+            while (true) {
+                val size = reader.nextBatch(batch)
+                if (size == 0) {
+                    break
+                }
+
+                for (row in 0 until size) {
+                    result.add(ids[row]!!)
+                }
+            }
+        } finally {
+            reader.close()
+        }
+
+        return result
+    }
+
     @DisplayName("TableReader for Resources")
     @Nested
     inner class ResourcesTableReaderTest : TableReaderTestKit() {
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.opendc
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.opendc.trace.conv.RESOURCE_ID
+import org.opendc.trace.conv.RESOURCE_STATE_TIMESTAMP
+import org.opendc.trace.opendc.parquet.ResourceState
+import org.opendc.trace.opendc.parquet.ResourceStateWriteSupport
+import org.opendc.trace.util.parquet.LocalParquetColumnReader
+import org.opendc.trace.util.parquet.LocalParquetWriter
+import java.nio.file.Files
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Test suite for the [ResourceStateSorter] class.
+ */
+internal class ResourceStateSorterTest {
+    @Test
+    fun testSpill() {
+        val path = Files.createTempDirectory("opendc")
+        val file = path.resolve("trace.parquet")
+        val writer = LocalParquetWriter.builder(file, ResourceStateWriteSupport()).build()
+        val sorter = ResourceStateSorter(path, capacity = 2)
+
+        val ids = listOf("c", "a", "b", "a", "c", "b", "a")
+        for ((timestamp, id) in ids.withIndex().reversed()) {
+            sorter.add(ResourceState(id, Instant.ofEpochMilli(timestamp.toLong()), Duration.ZERO, 1, 0.0))
+        }
+
+        try {
+            sorter.drainTo(writer::write)
+        } finally {
+            sorter.close()
+            writer.close()
+        }
+
+        val reader = OdcVmResourceStateTableReader(LocalParquetColumnReader(file))
+        val rows = mutableListOf<Pair<String, Long>>()
+        while (reader.nextRow()) {
+            rows.add(reader.getString(RESOURCE_ID)!! to reader.getInstant(RESOURCE_STATE_TIMESTAMP)!!.toEpochMilli())
+        }
+        reader.close()
+
+        val expected = ids.withIndex()
+            .map { (timestamp, id) -> id to timestamp.toLong() }
+            .sortedWith(compareBy({ it.first }, { it.second }))
+        assertEquals(expected, rows)
+        assertEquals(listOf(file), Files.list(path).use { it.toList() })
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet
+
+import org.apache.parquet.column.ColumnReader
+import org.apache.parquet.column.impl.ColumnReadStoreImpl
+import org.apache.parquet.filter2.compat.FilterCompat
+import org.apache.parquet.filter2.compat.RowGroupFilter
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.hadoop.ParquetFileReader
+import org.apache.parquet.hadoop.metadata.BlockMetaData
+import org.apache.parquet.io.api.Converter
+import org.apache.parquet.io.api.GroupConverter
+import org.apache.parquet.io.api.PrimitiveConverter
+import org.apache.parquet.schema.GroupType
+import org.apache.parquet.schema.MessageType
+import java.nio.file.Path
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * A helper class to read the columns of Parquet files on the filesystem directly, without assembling records.
+ *
+ * Whereas [LocalParquetReader] materializes an object per row, this class exposes a [ColumnReader] per column for
+ * every row group, so that callers can decode the values of a column straight into primitive buffers.
+ *
+ * @param path The path to the Parquet file or directory to read.
+ * @param projection A function to select the columns to read given the schema of a file.
+ * @param rowGroup The index of the single row group to read from the file at [path], or `-1` to read all row groups.
+ * @param filter A function to construct a [FilterPredicate] given the schema of a file, which is used to skip the row
+ * groups whose statistics, dictionaries or bloom filters show that no row can match. The rows of the remaining row
+ * groups are not filtered.
+ */
+public class LocalParquetColumnReader(
+    path: Path,
+    private val projection: (MessageType) -> MessageType = { it },
+    private val rowGroup: Int = -1,
+    private val filter: (MessageType) -> FilterPredicate? = { null }
+) : AutoCloseable {
+    /**
+     * The input files to process.
+     */
+    private val files = if (rowGroup >= 0) listOf(path).iterator() else listParquetFiles(path).iterator()
+
+    /**
+     * The index of the next row group to read in the active file.
+     */
+    private var blockIndex = 0
+
+    /**
+     * The index after the last row group to read in the active file.
+     */
+    private var blockEnd = 0
+
+    /**
+     * A mask of the row groups in the active file that cannot match the filter, or `null` if no filter applies.
+     */
+    private var skipped: BooleanArray? = null
+
+    /**
+     * The reader for the active file.
+     */
+    private var reader: ParquetFileReader? = null
+
+    /**
+     * The column store of the active row group.
+     */
+    private var store: ColumnReadStoreImpl? = null
+
+    /**
+     * The schema of the columns that are read from the active file.
+     */
+    public var schema: MessageType? = null
+        private set
+
+    /**
+     * Advance to the next non-empty row group, possibly in the next file.
+     *
+     * @return The number of rows in the row group or `-1` if there are no more row groups.
+     */
+    public fun nextRowGroup(): Long {
+        while (true) {
+            val reader = reader ?: openNext() ?: return -1
+            val index = blockIndex++
+            val pages = if (index < blockEnd) {
+                if (skipped?.get(index) == true) {
+                    reader.skipNextRowGroup()
+                    continue
+                }
+
+                reader.readNextRowGroup()
+            } else {
+                null
+            }
+
+            if (pages == null) {
+                reader.close()
+                this.reader = null
+                this.store = null
+                continue
+            } else if (pages.rowCount == 0L) {
+                continue
+            }
+
+            val schema = checkNotNull(schema)
+            store = ColumnReadStoreImpl(pages, NoopGroupConverter(schema), schema, reader.fileMetaData.createdBy)
+            return pages.rowCount
+        }
+    }
+
+    /**
+     * Obtain a [ColumnReader] for the top-level column [name] in the active row group. The reader is positioned at the
+     * first value of the row group and should be obtained only once per row group.
+     *
+     * @return The [ColumnReader] for the column or `null` if the column is not read from the active file.
+     */
+    public fun getColumnReader(name: String): ColumnReader? {
+        val store = checkNotNull(store) { "No active row group. Did you call nextRowGroup()?" }
+        val schema = checkNotNull(schema)
+
+        if (!schema.containsField(name)) {
+            return null
+        }
+
+        return store.getColumnReader(schema.getColumnDescription(arrayOf(name)))
+    }
+
+    override fun close() {
+        reader?.close()
+        reader = null
+        store = null
+    }
+
+    /**
+     * Open the next file to read from.
+     */
+    private fun openNext(): ParquetFileReader? {
+        if (!files.hasNext()) {
+            return null
+        }
+
+        val reader = ParquetFileReader.open(LocalInputFile(files.next()))
+        try {
+            val schema = projection(reader.fileMetaData.schema)
+            reader.setRequestedSchema(schema)
+            this.schema = schema
+
+            val blocks = reader.rowGroups
+            check(rowGroup < blocks.size) { "Row group $rowGroup does not exist" }
+
+            val predicate = filter(reader.fileMetaData.schema)
+            skipped = if (predicate != null) {
+                // Only evaluate the filter on the row groups that are actually read
+                val candidates = if (rowGroup >= 0) listOf(blocks[rowGroup]) else blocks
+                val kept = filterRowGroups(reader, candidates, predicate)
+                BooleanArray(blocks.size) { blocks[it] !in kept }
+            } else {
+                null
+            }
+
+            if (rowGroup >= 0) {
+                repeat(rowGroup) { reader.skipNextRowGroup() }
+                blockIndex = rowGroup
+                blockEnd = rowGroup + 1
+            } else {
+                blockIndex = 0
+                blockEnd = blocks.size
+            }
+        } catch (e: Throwable) {
+            reader.close()
+            throw e
+        }
+
+        this.reader = reader
+        return reader
+    }
+
+    public companion object {
+        /**
+         * List the row groups of the Parquet file or directory at [path] in order, as pairs of the file and the index
+         * of the row group in that file. Each pair can be read separately by a [LocalParquetColumnReader].
+         *
+         * @param path The path to the Parquet file or directory to list.
+         * @param filter A function to construct a [FilterPredicate] given the schema of a file, which is used to omit
+         * the row groups that cannot match, such that no partition is created for them.
+         */
+        @JvmStatic
+        @JvmOverloads
+        public fun listRowGroups(
+            path: Path,
+            filter: (MessageType) -> FilterPredicate? = { null }
+        ): List<Pair<Path, Int>> {
+            val result = mutableListOf<Pair<Path, Int>>()
+            for (file in listParquetFiles(path)) {
+                ParquetFileReader.open(LocalInputFile(file)).use { reader ->
+                    val blocks = reader.rowGroups
+                    val predicate = filter(reader.fileMetaData.schema)
+                    val kept = if (predicate != null) filterRowGroups(reader, blocks, predicate) else null
+
+                    for ((index, block) in blocks.withIndex()) {
+                        if (kept == null || block in kept) {
+                            result.add(file to index)
+                        }
+                    }
+                }
+            }
+            return result
+        }
+
+        /**
+         * Determine the row groups in [blocks] whose statistics, dictionaries or bloom filters do not rule out a match
+         * with [predicate].
+         */
+        private fun filterRowGroups(
+            reader: ParquetFileReader,
+            blocks: List<BlockMetaData>,
+            predicate: FilterPredicate
+        ): Set<BlockMetaData> {
+            val levels = listOf(
+                RowGroupFilter.FilterLevel.STATISTICS,
+                RowGroupFilter.FilterLevel.DICTIONARY,
+                RowGroupFilter.FilterLevel.BLOOMFILTER
+            )
+            val kept = Collections.newSetFromMap(IdentityHashMap<BlockMetaData, Boolean>())
+            kept.addAll(RowGroupFilter.filterRowGroups(levels, FilterCompat.get(predicate), blocks, reader))
+            return kept
+        }
+    }
+
+    /**
+     * A [GroupConverter] that ignores all values, since the values are obtained from the [ColumnReader]s directly.
+     */
+    private class NoopGroupConverter(type: GroupType) : GroupConverter() {
+        private val converters = type.fields.map { field ->
+            if (field.isPrimitive) {
+                object : PrimitiveConverter() {}
+            } else {
+                NoopGroupConverter(field.asGroupType())
+            }
+        }
+
+        override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
+
+        override fun start() {}
+
+        override fun end() {}
+    }
+}
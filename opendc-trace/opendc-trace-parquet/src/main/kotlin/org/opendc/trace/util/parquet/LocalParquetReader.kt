@@ -22,9 +22,13 @@
 
 package org.opendc.trace.util.parquet
 
+import org.apache.parquet.filter2.compat.FilterCompat
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.hadoop.ParquetFileReader
 import org.apache.parquet.hadoop.ParquetReader
 import org.apache.parquet.hadoop.api.ReadSupport
 import org.apache.parquet.io.InputFile
+import org.apache.parquet.schema.MessageType
 import java.io.File
 import java.io.IOException
 import java.nio.file.Files
@@ -39,19 +43,21 @@ import kotlin.io.path.isDirectory
  * @param path The path to the Parquet file or directory to read.
  * @param readSupport Helper class to perform conversion from Parquet to [T].
  * @param strictTyping A flag to disable strict typing of primitive types.
+ * @param filter A function to construct a [FilterPredicate] given the schema of a file, which is used to skip row
+ * groups and records that cannot match, or `null` to read all records.
  */
 public class LocalParquetReader<out T>(
     path: Path,
     private val readSupport: ReadSupport<T>,
-    private val strictTyping: Boolean = true
+    private val strictTyping: Boolean = true,
+    private val filter: ((MessageType) -> FilterPredicate?)? = null
 ) : AutoCloseable {
     /**
      * The input files to process.
      */
     private val filesIterator = if (path.isDirectory()) {
-        Files.list(path)
-            .filter { !it.isDirectory() }
-            .sorted()
+        listParquetFiles(path)
+            .asSequence()
             .map { LocalInputFile(it) }
             .iterator()
     } else {
@@ -119,10 +125,45 @@ public class LocalParquetReader<out T>(
      * Construct a [ParquetReader] for the specified [input] with a custom [ReadSupport].
      */
     private fun createReader(input: InputFile): ParquetReader<T> {
-        return object : ParquetReader.Builder<T>(input) {
+        val builder = object : ParquetReader.Builder<T>(input) {
             override fun getReadSupport(): ReadSupport<@UnsafeVariance T> = this@LocalParquetReader.readSupport
         }
             .set("parquet.strict.typing", strictTyping.toString())
-            .build()
+
+        if (filter != null) {
+            // The filter is constructed per file, since the field names may differ between files
+            val schema = ParquetFileReader.open(input).use { it.fileMetaData.schema }
+            val predicate = filter(schema)
+            if (predicate != null) {
+                builder.withFilter(FilterCompat.get(predicate))
+            }
+        }
+
+        return builder.build()
     }
 }
+
+/**
+ * List the Parquet files to read at [path] in order, which is either a single file or a directory of files.
+ */
+internal fun listParquetFiles(path: Path): List<Path> {
+    return if (path.isDirectory()) {
+        Files.list(path).use { stream ->
+            stream
+                .filter { !it.isDirectory() && !isHidden(it) }
+                .sorted()
+                .toList()
+        }
+    } else {
+        listOf(path)
+    }
+}
+
+/**
+ * Determine whether the file at [path] should be skipped when reading a directory, such as `_metadata` summary
+ * files or checksum files.
+ */
+private fun isHidden(path: Path): Boolean {
+    val name = path.fileName.toString()
+    return name.startsWith("_") || name.startsWith(".")
+}
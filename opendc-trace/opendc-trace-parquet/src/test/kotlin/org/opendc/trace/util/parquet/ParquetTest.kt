@@ -23,6 +23,7 @@
 package org.opendc.trace.util.parquet
 
 import org.apache.hadoop.conf.Configuration
+import org.apache.parquet.filter2.predicate.FilterApi
 import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.api.ReadSupport
 import org.apache.parquet.hadoop.api.WriteSupport
@@ -37,6 +38,7 @@ import org.apache.parquet.schema.Type
 import org.apache.parquet.schema.Types
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
@@ -143,6 +145,75 @@ internal class ParquetTest {
         assertEquals(n, counter)
     }
 
+    /**
+     * Test whether the column reader decodes the values written by the Parquet writer.
+     */
+    @Test
+    fun testColumnReader() {
+        val n = 4
+        val writer = LocalParquetWriter.builder(path, writeSupport)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .build()
+
+        try {
+            repeat(n) { i ->
+                writer.write(i)
+            }
+        } finally {
+            writer.close()
+        }
+
+        val reader = LocalParquetColumnReader(path)
+        val values = mutableListOf<Int>()
+        try {
+            while (true) {
+                val rows = reader.nextRowGroup()
+                if (rows < 0) {
+                    break
+                }
+
+                val column = checkNotNull(reader.getColumnReader("field"))
+                repeat(rows.toInt()) {
+                    values.add(column.integer)
+                    column.consume()
+                }
+                assertNull(reader.getColumnReader("missing"))
+            }
+        } finally {
+            reader.close()
+        }
+
+        assertEquals(List(n) { it }, values)
+    }
+
+    /**
+     * Test whether listing the row groups omits the row groups that cannot match the filter.
+     */
+    @Test
+    fun testListRowGroupsFilter() {
+        val n = 4
+        val writer = LocalParquetWriter.builder(path, writeSupport)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .build()
+
+        try {
+            repeat(n) { i ->
+                writer.write(i)
+            }
+        } finally {
+            writer.close()
+        }
+
+        val column = FilterApi.intColumn("field")
+
+        assertEquals(listOf(path to 0), LocalParquetColumnReader.listRowGroups(path))
+        assertEquals(listOf(path to 0), LocalParquetColumnReader.listRowGroups(path) { FilterApi.eq(column, 2) })
+        assertEquals(
+            emptyList<Pair<Path, Int>>(),
+            LocalParquetColumnReader.listRowGroups(path) { FilterApi.gt(column, n) }
+        )
+    }
+
     /**
      * Test if overwriting fails if not specified.
      */
@@ -25,6 +25,7 @@ description = "Tools for working with workload traces"
 /* Build configuration */
 plugins {
     `kotlin-conventions`
+    `testing-conventions`
     application
 }
 
@@ -30,15 +30,20 @@ import com.github.ajalt.clikt.parameters.groups.defaultByName
 import com.github.ajalt.clikt.parameters.groups.groupChoice
 import com.github.ajalt.clikt.parameters.options.default
 import com.github.ajalt.clikt.parameters.options.defaultLazy
+import com.github.ajalt.clikt.parameters.options.flag
 import com.github.ajalt.clikt.parameters.options.option
 import com.github.ajalt.clikt.parameters.options.required
 import com.github.ajalt.clikt.parameters.types.double
 import com.github.ajalt.clikt.parameters.types.file
+import com.github.ajalt.clikt.parameters.types.int
 import com.github.ajalt.clikt.parameters.types.long
 import com.github.ajalt.clikt.parameters.types.restrictTo
 import mu.KotlinLogging
+import org.opendc.trace.ColumnBatch
+import org.opendc.trace.ScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.Trace
+import org.opendc.trace.WriteOptions
 import org.opendc.trace.conv.RESOURCE_CPU_CAPACITY
 import org.opendc.trace.conv.RESOURCE_CPU_COUNT
 import org.opendc.trace.conv.RESOURCE_ID
@@ -53,10 +58,14 @@ import org.opendc.trace.conv.RESOURCE_STOP_TIME
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import java.io.File
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.nio.file.Path
 import java.time.Duration
 import java.time.Instant
 import java.util.Random
-import kotlin.collections.HashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 import kotlin.math.abs
 import kotlin.math.max
 import kotlin.math.min
@@ -95,6 +104,56 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
     private val outputFormat by option("--output-format", help = "format of output trace")
         .default("opendc-vm")
 
+    /**
+     * A flag to cluster the resource states of the output trace by resource and timestamp.
+     */
+    private val cluster by option("--cluster", help = "cluster resource states by resource and timestamp")
+        .flag()
+
+    /**
+     * The target size of the row groups of the output trace.
+     */
+    private val rowGroupSize by option("--row-group-size", help = "target size of a row group in bytes")
+        .int()
+        .restrictTo(min = 0)
+        .default(0)
+
+    /**
+     * The target size of the pages of the output trace.
+     */
+    private val pageSize by option("--page-size", help = "target size of a page in bytes")
+        .int()
+        .restrictTo(min = 0)
+        .default(0)
+
+    /**
+     * A flag to write bloom filters on the resource identifiers of the output trace.
+     */
+    private val bloomFilter by option("--bloom-filter", help = "write bloom filters on resource identifiers")
+        .flag("--no-bloom-filter", default = true)
+
+    /**
+     * A flag to store the statistics of the resource states with the output trace.
+     */
+    private val statistics by option("--statistics", help = "store summary statistics with the output trace")
+        .flag("--no-statistics", default = true)
+
+    /**
+     * The number of threads to use for parsing the input trace and sorting its samples.
+     */
+    private val threads by option("--threads", help = "number of threads for parsing and sorting")
+        .int()
+        .restrictTo(min = 1)
+        .default(Runtime.getRuntime().availableProcessors())
+
+    /**
+     * The number of samples to buffer in memory before they are sorted and spilled to disk.
+     */
+    private val chunkSize by option("--chunk-size", help = "number of samples to sort in memory before spilling")
+        .int()
+        .restrictTo(min = 1)
+        .default(1 shl 20)
+
     /**
      * The sampling options.
      */
@@ -122,26 +181,77 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
         val inputTrace = Trace.open(input, format = inputFormat)
         val outputTrace = Trace.create(output, format = outputFormat)
 
+        // Use a separate pool for sorting, since the scan workers block while the caller is waiting for a sort
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val context = Context(output.toPath(), ScanOptions(parallelism = threads), executor, chunkSize)
+            convert(inputTrace, outputTrace, context)
+        } finally {
+            executor.shutdown()
+        }
+
+        logger.info { "Peak heap usage: ${peakHeapUsage() shr 20} MiB" }
+    }
+
+    /**
+     * Convert [inputTrace] into [outputTrace] using the specified [context].
+     */
+    private fun convert(inputTrace: Trace, outputTrace: Trace, context: Context) {
         logger.info { "Building resources table" }
 
-        val metaWriter = outputTrace.getTable(TABLE_RESOURCES)!!.newWriter()
+        val writeOptions = WriteOptions(cluster, rowGroupSize, pageSize, bloomFilter, statistics)
+        val metaWriter = outputTrace.getTable(TABLE_RESOURCES)!!.newWriter(writeOptions)
 
-        val selectedVms = metaWriter.use { converter.convertResources(inputTrace, it, samplingOptions) }
+        var start = System.nanoTime()
+        val selectedVms = metaWriter.use { converter.convertResources(inputTrace, it, samplingOptions, context) }
 
         if (selectedVms.isEmpty()) {
             logger.warn { "No VMs selected" }
             return
         }
 
-        logger.info { "Wrote ${selectedVms.size} rows" }
+        logThroughput(selectedVms.size, start)
         logger.info { "Building resource states table" }
 
-        val writer = outputTrace.getTable(TABLE_RESOURCE_STATES)!!.newWriter()
+        val writer = outputTrace.getTable(TABLE_RESOURCE_STATES)!!.newWriter(writeOptions)
+
+        start = System.nanoTime()
+        val statesCount = writer.use { converter.convertResourceStates(inputTrace, it, selectedVms, context) }
+        logThroughput(statesCount, start)
+    }
+
+    /**
+     * Log the number of rows written since [start] (in nanoseconds) and the resulting throughput.
+     */
+    private fun logThroughput(count: Int, start: Long) {
+        val seconds = (System.nanoTime() - start) / 1e9
+        logger.info { "Wrote $count rows in %.1f s (%.0f rows/s)".format(seconds, count / seconds) }
+    }
 
-        val statesCount = writer.use { converter.convertResourceStates(inputTrace, it, selectedVms) }
-        logger.info { "Wrote $statesCount rows" }
+    /**
+     * Determine the peak usage of the heap memory pools in bytes.
+     */
+    private fun peakHeapUsage(): Long {
+        return ManagementFactory.getMemoryPoolMXBeans()
+            .filter { it.type == MemoryType.HEAP }
+            .sumOf { it.peakUsage.used }
     }
 
+    /**
+     * The resources shared by the conversion of a trace.
+     *
+     * @param spillDir The directory in which samples may be spilled to disk.
+     * @param scanOptions The options for scanning the resource states of the input trace.
+     * @param executor The executor on which samples are sorted and spilled.
+     * @param chunkSize The number of samples to buffer in memory before they are spilled.
+     */
+    private class Context(
+        val spillDir: Path,
+        val scanOptions: ScanOptions,
+        val executor: ExecutorService,
+        val chunkSize: Int
+    )
+
     /**
      * Options for sampling the workload trace.
      */
@@ -172,9 +282,15 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
          * @param trace The trace to convert.
          * @param writer The table writer for the target format.
          * @param samplingOptions The sampling options to use.
+         * @param context The context of the conversion.
          * @return The map of resources that have been selected.
          */
-        abstract fun convertResources(trace: Trace, writer: TableWriter, samplingOptions: SamplingOptions?): Map<String, Resource>
+        abstract fun convertResources(
+            trace: Trace,
+            writer: TableWriter,
+            samplingOptions: SamplingOptions?,
+            context: Context
+        ): Map<String, Resource>
 
         /**
          * Convert the resource states table for the trace.
@@ -182,9 +298,15 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
          * @param trace The trace to convert.
          * @param writer The table writer for the target format.
          * @param selected The set of virtual machines that have been selected.
+         * @param context The context of the conversion.
          * @return The number of rows written.
          */
-        abstract fun convertResourceStates(trace: Trace, writer: TableWriter, selected: Map<String, Resource>): Int
+        abstract fun convertResourceStates(
+            trace: Trace,
+            writer: TableWriter,
+            selected: Map<String, Resource>,
+            context: Context
+        ): Int
 
         /**
          * A resource in the resource table.
@@ -218,12 +340,16 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
          */
         private val SAMPLE_CASCADE_DIFF = 0.1
 
-        override fun convertResources(trace: Trace, writer: TableWriter, samplingOptions: SamplingOptions?): Map<String, Resource> {
+        override fun convertResources(
+            trace: Trace,
+            writer: TableWriter,
+            samplingOptions: SamplingOptions?,
+            context: Context
+        ): Map<String, Resource> {
             val random = samplingOptions?.let { Random(it.seed) }
             val samplingFraction = samplingOptions?.fraction ?: 1.0
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
-
-            var hasNextRow = reader.nextRow()
+            // The samples are aggregated in input order, so the partitions are parsed in parallel but read in order
+            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader(null, context.scanOptions)
             val selectedVms = mutableMapOf<String, Resource>()
 
             val idCol = reader.resolve(RESOURCE_ID)
@@ -233,61 +359,101 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
             val memCapacityCol = reader.resolve(RESOURCE_MEM_CAPACITY)
             val memUsageCol = reader.resolve(RESOURCE_STATE_MEM_USAGE)
 
-            while (hasNextRow) {
-                var id: String
-                var cpuCount = 0
-                var cpuCapacity = 0.0
-                var memCapacity = 0.0
-                var memUsage = 0.0
-                var startTime = Long.MAX_VALUE
-                var stopTime = Long.MIN_VALUE
-
-                do {
-                    id = reader.getString(idCol)!!
-
-                    val timestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                    startTime = min(startTime, timestamp)
-                    stopTime = max(stopTime, timestamp)
-
-                    cpuCount = max(cpuCount, reader.getInt(cpuCountCol))
-                    cpuCapacity = max(cpuCapacity, reader.getDouble(cpuCapacityCol))
-                    memCapacity = max(memCapacity, reader.getDouble(memCapacityCol))
-                    if (memUsageCol > 0) {
-                        memUsage = max(memUsage, reader.getDouble(memUsageCol))
+            val batch = ColumnBatch()
+            val ids = batch.addString(idCol)
+            val timestamps = batch.addInstant(timestampCol)
+            val cpuCounts = batch.addInt(cpuCountCol)
+            val cpuCapacities = batch.addDouble(cpuCapacityCol)
+            val memCapacities = batch.addDouble(memCapacityCol)
+            val memUsages = if (memUsageCol > 0) batch.addDouble(memUsageCol) else null
+
+            // The consecutive samples of a VM may span multiple batches
+            val aggregate = ResourceAggregate()
+            var currentId = -1
+
+            reader.use {
+                while (true) {
+                    val size = reader.nextBatch(batch)
+                    if (size == 0) {
+                        break
                     }
 
-                    hasNextRow = reader.nextRow()
-                } while (hasNextRow && id == reader.getString(RESOURCE_ID))
-
-                // Sample only a fraction of the VMs
-                if (random != null && random.nextDouble() > samplingFraction) {
-                    continue
+                    for (row in 0 until size) {
+                        val id = ids.ids[row]
+                        check(id >= 0) { "Missing resource identifier" }
+
+                        if (id != currentId) {
+                            if (currentId >= 0) {
+                                select(ids.lookup(currentId), aggregate, writer, selectedVms, random, samplingFraction)
+                            }
+
+                            currentId = id
+                            aggregate.reset()
+                        }
+
+                        aggregate.add(
+                            timestamps.values[row],
+                            cpuCounts.values[row].toInt(),
+                            cpuCapacities.values[row],
+                            memCapacities.values[row],
+                            memUsages?.values?.get(row) ?: 0.0
+                        )
+                    }
                 }
+            }
 
-                logger.info { "Selecting VM $id" }
+            if (currentId >= 0) {
+                select(ids.lookup(currentId), aggregate, writer, selectedVms, random, samplingFraction)
+            }
 
-                val startInstant = Instant.ofEpochMilli(startTime) - SAMPLE_INTERVAL // Offset by sample interval
-                val stopInstant = Instant.ofEpochMilli(stopTime)
+            return selectedVms
+        }
 
-                selectedVms.computeIfAbsent(id) {
-                    Resource(it, startInstant, stopInstant, cpuCount, cpuCapacity, max(memCapacity, memUsage))
-                }
+        /**
+         * Sample the VM with the specified [id] and write it to the resources table if it is selected.
+         */
+        private fun select(
+            id: String,
+            aggregate: ResourceAggregate,
+            writer: TableWriter,
+            selectedVms: MutableMap<String, Resource>,
+            random: Random?,
+            samplingFraction: Double
+        ) {
+            // Sample only a fraction of the VMs
+            if (random != null && random.nextDouble() > samplingFraction) {
+                return
+            }
 
-                writer.startRow()
-                writer.setString(RESOURCE_ID, id)
-                writer.setInstant(RESOURCE_START_TIME, startInstant)
-                writer.setInstant(RESOURCE_STOP_TIME, stopInstant)
-                writer.setInt(RESOURCE_CPU_COUNT, cpuCount)
-                writer.setDouble(RESOURCE_CPU_CAPACITY, cpuCapacity)
-                writer.setDouble(RESOURCE_MEM_CAPACITY, max(memCapacity, memUsage))
-                writer.endRow()
+            logger.info { "Selecting VM $id" }
+
+            val startInstant = Instant.ofEpochMilli(aggregate.startTime) - SAMPLE_INTERVAL // Offset by sample interval
+            val stopInstant = Instant.ofEpochMilli(aggregate.stopTime)
+            val cpuCount = aggregate.cpuCount
+            val cpuCapacity = aggregate.cpuCapacity
+            val memCapacity = max(aggregate.memCapacity, aggregate.memUsage)
+
+            selectedVms.computeIfAbsent(id) {
+                Resource(it, startInstant, stopInstant, cpuCount, cpuCapacity, memCapacity)
             }
 
-            return selectedVms
+            writer.startRow()
+            writer.setString(RESOURCE_ID, id)
+            writer.setInstant(RESOURCE_START_TIME, startInstant)
+            writer.setInstant(RESOURCE_STOP_TIME, stopInstant)
+            writer.setInt(RESOURCE_CPU_COUNT, cpuCount)
+            writer.setDouble(RESOURCE_CPU_CAPACITY, cpuCapacity)
+            writer.setDouble(RESOURCE_MEM_CAPACITY, memCapacity)
+            writer.endRow()
         }
 
-        override fun convertResourceStates(trace: Trace, writer: TableWriter, selected: Map<String, Resource>): Int {
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
+        override fun convertResourceStates(
+            trace: Trace,
+            writer: TableWriter,
+            selected: Map<String, Resource>,
+            context: Context
+        ): Int {
+            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader(null, context.scanOptions)
             val sampleInterval = SAMPLE_INTERVAL.toMillis()
 
             val idCol = reader.resolve(RESOURCE_ID)
@@ -295,62 +461,132 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
             val cpuCountCol = reader.resolve(RESOURCE_CPU_COUNT)
             val cpuUsageCol = reader.resolve(RESOURCE_STATE_CPU_USAGE)
 
-            var hasNextRow = reader.nextRow()
+            val batch = ColumnBatch()
+            val ids = batch.addString(idCol)
+            val timestamps = batch.addInstant(timestampCol)
+            val cpuCounts = batch.addInt(cpuCountCol)
+            val cpuUsages = batch.addDouble(cpuUsageCol)
+
+            // The sample that is being cascaded, which may span multiple batches
+            var currentId = -1
+            var cpuCount = 0
+            var cpuUsage = 0.0
+            var timestamp = 0L
+            var duration = 0L
             var count = 0
 
-            while (hasNextRow) {
-                val id = reader.getString(idCol)!!
-                val resource = selected[id]
-                if (resource == null) {
-                    hasNextRow = reader.nextRow()
-                    continue
-                }
-
-                val cpuCount = reader.getInt(cpuCountCol)
-                val cpuUsage = reader.getDouble(cpuUsageCol)
-
-                val startTimestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                var timestamp: Long = startTimestamp
-                var duration: Long = sampleInterval
-
-                // Attempt to cascade further samples into one if they share the same CPU usage
-                while (reader.nextRow().also { hasNextRow = it }) {
-                    val shouldCascade = id == reader.getString(idCol) &&
-                        abs(cpuUsage - reader.getDouble(cpuUsageCol)) < SAMPLE_CASCADE_DIFF &&
-                        cpuCount == reader.getInt(cpuCountCol)
-
-                    // Check whether the next sample can be cascaded with the current sample:
-                    // (1) The VM identifier of both samples matches
-                    // (2) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`
-                    // (3) The CPU count of both samples is identical
-                    if (!shouldCascade) {
+            reader.use {
+                while (true) {
+                    val size = reader.nextBatch(batch)
+                    if (size == 0) {
                         break
                     }
 
-                    val nextTimestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-
-                    // Check whether the interval between both samples is not higher than `SAMPLE_INTERVAL`
-                    if ((nextTimestamp - timestamp) > sampleInterval) {
-                        break
+                    for (row in 0 until size) {
+                        val id = ids.ids[row]
+                        check(id >= 0) { "Missing resource identifier" }
+
+                        val nextCpuCount = cpuCounts.values[row].toInt()
+                        val nextCpuUsage = cpuUsages.values[row]
+                        val nextTimestamp = timestamps.values[row]
+
+                        // Check whether the next sample can be cascaded with the current sample:
+                        // (1) The VM identifier of both samples matches
+                        // (2) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`
+                        // (3) The CPU count of both samples is identical
+                        // (4) The interval between both samples is not higher than `SAMPLE_INTERVAL`
+                        if (id == currentId &&
+                            abs(cpuUsage - nextCpuUsage) < SAMPLE_CASCADE_DIFF &&
+                            cpuCount == nextCpuCount &&
+                            (nextTimestamp - timestamp) <= sampleInterval
+                        ) {
+                            duration += nextTimestamp - timestamp
+                            timestamp = nextTimestamp
+                            continue
+                        }
+
+                        if (currentId >= 0) {
+                            write(writer, ids.lookup(currentId), timestamp, duration, cpuCount, cpuUsage)
+                            count++
+                            currentId = -1
+                        }
+
+                        if (ids.lookup(id) !in selected) {
+                            continue
+                        }
+
+                        currentId = id
+                        cpuCount = nextCpuCount
+                        cpuUsage = nextCpuUsage
+                        timestamp = nextTimestamp
+                        duration = sampleInterval
                     }
-
-                    duration += nextTimestamp - timestamp
-                    timestamp = nextTimestamp
                 }
+            }
 
-                writer.startRow()
-                writer.setString(RESOURCE_ID, id)
-                writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.ofEpochMilli(timestamp))
-                writer.setDuration(RESOURCE_STATE_DURATION, Duration.ofMillis(duration))
-                writer.setInt(RESOURCE_CPU_COUNT, cpuCount)
-                writer.setDouble(RESOURCE_STATE_CPU_USAGE, cpuUsage)
-                writer.endRow()
-
+            if (currentId >= 0) {
+                write(writer, ids.lookup(currentId), timestamp, duration, cpuCount, cpuUsage)
                 count++
             }
 
             return count
         }
+
+        /**
+         * Write a (cascaded) sample to the resource states table.
+         */
+        private fun write(
+            writer: TableWriter,
+            id: String,
+            timestamp: Long,
+            duration: Long,
+            cpuCount: Int,
+            cpuUsage: Double
+        ) {
+            writer.startRow()
+            writer.setString(RESOURCE_ID, id)
+            writer.setInstant(RESOURCE_STATE_TIMESTAMP, Instant.ofEpochMilli(timestamp))
+            writer.setDuration(RESOURCE_STATE_DURATION, Duration.ofMillis(duration))
+            writer.setInt(RESOURCE_CPU_COUNT, cpuCount)
+            writer.setDouble(RESOURCE_STATE_CPU_USAGE, cpuUsage)
+            writer.endRow()
+        }
+
+        /**
+         * The aggregated properties of the consecutive samples of a VM.
+         */
+        private class ResourceAggregate {
+            var cpuCount = 0
+            var cpuCapacity = 0.0
+            var memCapacity = 0.0
+            var memUsage = 0.0
+            var startTime = Long.MAX_VALUE
+            var stopTime = Long.MIN_VALUE
+
+            /**
+             * Reset the aggregate for the next VM.
+             */
+            fun reset() {
+                cpuCount = 0
+                cpuCapacity = 0.0
+                memCapacity = 0.0
+                memUsage = 0.0
+                startTime = Long.MAX_VALUE
+                stopTime = Long.MIN_VALUE
+            }
+
+            /**
+             * Add a sample of the VM to the aggregate.
+             */
+            fun add(timestamp: Long, cpuCount: Int, cpuCapacity: Double, memCapacity: Double, memUsage: Double) {
+                startTime = min(startTime, timestamp)
+                stopTime = max(stopTime, timestamp)
+                this.cpuCount = max(this.cpuCount, cpuCount)
+                this.cpuCapacity = max(this.cpuCapacity, cpuCapacity)
+                this.memCapacity = max(this.memCapacity, memCapacity)
+                this.memUsage = max(this.memUsage, memUsage)
+            }
+        }
     }
 
     /**
@@ -377,7 +613,12 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
          */
         private val SAMPLE_CASCADE_DIFF = 0.1
 
-        override fun convertResources(trace: Trace, writer: TableWriter, samplingOptions: SamplingOptions?): Map<String, Resource> {
+        override fun convertResources(
+            trace: Trace,
+            writer: TableWriter,
+            samplingOptions: SamplingOptions?,
+            context: Context
+        ): Map<String, Resource> {
             val random = samplingOptions?.let { Random(it.seed) }
             val samplingFraction = samplingOptions?.fraction ?: 1.0
             val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader()
@@ -425,49 +666,90 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
             return selectedVms
         }
 
-        override fun convertResourceStates(trace: Trace, writer: TableWriter, selected: Map<String, Resource>): Int {
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
-            val states = HashMap<String, State>()
+        override fun convertResourceStates(
+            trace: Trace,
+            writer: TableWriter,
+            selected: Map<String, Resource>,
+            context: Context
+        ): Int {
             val sampleInterval = SAMPLE_INTERVAL.toMillis()
 
-            val idCol = reader.resolve(RESOURCE_ID)
-            val timestampCol = reader.resolve(RESOURCE_STATE_TIMESTAMP)
-            val cpuUsageCol = reader.resolve(RESOURCE_STATE_CPU_USAGE_PCT)
+            // The samples of the Azure trace are ordered by timestamp, so group them by VM first. This keeps only
+            // the state of a single VM in memory instead of the state of every VM in the trace.
+            SampleSorter(context.spillDir, context.executor, context.chunkSize).use { sorter ->
+                val projection = listOf(RESOURCE_ID, RESOURCE_STATE_TIMESTAMP, RESOURCE_STATE_CPU_USAGE_PCT)
+                val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES))
+                    .newReader(projection, context.scanOptions.copy(ordered = false))
+
+                reader.use {
+                    val batch = ColumnBatch()
+                    val ids = batch.addString(reader.resolve(RESOURCE_ID))
+                    val timestamps = batch.addInstant(reader.resolve(RESOURCE_STATE_TIMESTAMP))
+                    val cpuUsages = batch.addDouble(reader.resolve(RESOURCE_STATE_CPU_USAGE_PCT))
+
+                    // Read in batches, since only batches are parsed by the workers of a parallel scan
+                    while (true) {
+                        val size = reader.nextBatch(batch)
+                        if (size == 0) {
+                            break
+                        }
+
+                        for (row in 0 until size) {
+                            val id = checkNotNull(ids[row]) { "Missing resource identifier" }
+                            if (id !in selected) {
+                                continue
+                            }
+
+                            sorter.add(id, timestamps.values[row], cpuUsages.values[row])
+                        }
+                    }
+                }
 
-            var count = 0
+                logger.info { "Grouped ${sorter.size} samples" }
 
-            while (reader.nextRow()) {
-                val id = reader.getString(idCol)!!
-                val resource = selected[id] ?: continue
-
-                val cpuUsage = reader.getDouble(cpuUsageCol) * resource.cpuCapacity // MHz
-                val state = states.computeIfAbsent(id) { State(resource, cpuUsage, sampleInterval) }
-                val timestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                val delta = (timestamp - state.time)
-
-                // Check whether the next sample can be cascaded with the current sample:
-                // (1) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`)
-                // (2) The interval between both samples is not higher than `SAMPLE_INTERVAL`
-                if (abs(cpuUsage - state.cpuUsage) <= SAMPLE_CASCADE_DIFF && delta <= sampleInterval) {
-                    state.time = timestamp
-                    state.duration += delta
-                    continue
+                var state: State? = null
+                var count = 0
+
+                sorter.drain { id, timestamp, cpuUsagePct ->
+                    var current = state
+                    if (current == null || current.resource.id != id) {
+                        if (current != null) {
+                            current.write(writer)
+                            count++
+                        }
+
+                        val resource = selected.getValue(id)
+                        current = State(resource, cpuUsagePct * resource.cpuCapacity, sampleInterval)
+                        state = current
+                    }
+
+                    val cpuUsage = cpuUsagePct * current.resource.cpuCapacity // MHz
+                    val delta = (timestamp - current.time)
+
+                    // Check whether the next sample can be cascaded with the current sample:
+                    // (1) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`)
+                    // (2) The interval between both samples is not higher than `SAMPLE_INTERVAL`
+                    if (abs(cpuUsage - current.cpuUsage) <= SAMPLE_CASCADE_DIFF && delta <= sampleInterval) {
+                        current.time = timestamp
+                        current.duration += delta
+                        return@drain
+                    }
+
+                    current.write(writer)
+                    // Reset the state fields
+                    current.time = timestamp
+                    current.duration = sampleInterval
+                    // Count write
+                    count++
                 }
 
-                state.write(writer)
-                // Reset the state fields
-                state.time = timestamp
-                state.duration = sampleInterval
-                // Count write
-                count++
-            }
+                state?.let {
+                    it.write(writer)
+                    count++
+                }
 
-            for ((_, state) in states) {
-                state.write(writer)
-                count++
+                return count
             }
-
-            return count
         }
 
         private class State(@JvmField val resource: Resource, @JvmField var cpuUsage: Double, @JvmField var duration: Long) {
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.tools
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.PriorityQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.Semaphore
+
+/**
+ * A helper class to group the samples of a trace by resource before they are converted.
+ *
+ * Samples are buffered in chunks of [capacity] samples. Full chunks are sorted by (id, timestamp) and spilled to
+ * temporary files in a hidden directory under [parent] on the threads of [executor], while the caller continues to
+ * add samples. At most [maxPending] chunks are in flight at any time, which bounds the memory used by the sorter.
+ *
+ * @param parent The directory in which to create the directory for the spilled runs.
+ * @param executor The executor on which the chunks are sorted and spilled.
+ * @param capacity The maximum number of samples in a chunk.
+ * @param maxPending The maximum number of chunks that are being sorted or spilled concurrently.
+ */
+internal class SampleSorter(
+    private val parent: Path,
+    private val executor: ExecutorService,
+    private val capacity: Int = DEFAULT_CAPACITY,
+    maxPending: Int = 2
+) : AutoCloseable {
+    /**
+     * The chunk that is currently being filled.
+     */
+    private var buffer = ArrayList<Sample>(capacity)
+
+    /**
+     * The sorted runs that have been (or are being) spilled to disk.
+     */
+    private val runs = mutableListOf<Future<Path>>()
+
+    /**
+     * The permits for chunks that are in flight.
+     */
+    private val permits = Semaphore(maxPending)
+
+    /**
+     * The directory containing the spilled runs or `null` if no run has been spilled yet.
+     */
+    private var tmpDir: Path? = null
+
+    /**
+     * The number of samples added to the sorter.
+     */
+    var size: Long = 0
+        private set
+
+    /**
+     * Add a sample of resource [id] at [timestamp] (in epoch milliseconds) with the specified [value].
+     */
+    fun add(id: String, timestamp: Long, value: Double) {
+        buffer.add(Sample(id, timestamp, value))
+        size++
+
+        if (buffer.size >= capacity) {
+            spill()
+        }
+    }
+
+    /**
+     * Pass all samples in (id, timestamp) order to [visitor].
+     */
+    fun drain(visitor: Visitor) {
+        if (runs.isEmpty()) {
+            buffer.sortWith(ORDER)
+            for (sample in buffer) {
+                visitor.visit(sample.id, sample.timestamp, sample.value)
+            }
+            buffer.clear()
+            return
+        }
+
+        if (buffer.isNotEmpty()) {
+            spill()
+        }
+
+        merge(visitor)
+    }
+
+    override fun close() {
+        buffer.clear()
+
+        for (run in runs) {
+            runCatching { Files.deleteIfExists(run.get()) }
+        }
+        runs.clear()
+
+        tmpDir?.let { Files.deleteIfExists(it) }
+        tmpDir = null
+    }
+
+    /**
+     * Hand the current chunk to the executor to be sorted and spilled to a new run on disk.
+     */
+    private fun spill() {
+        val chunk = buffer
+        buffer = ArrayList(capacity)
+
+        val dir = tmpDir ?: Files.createTempDirectory(parent, ".convert-").also { tmpDir = it }
+        val run = dir.resolve("run-${runs.size}.bin")
+
+        permits.acquire()
+        try {
+            runs += executor.submit<Path> {
+                try {
+                    chunk.sortWith(ORDER)
+                    write(run, chunk)
+                    run
+                } finally {
+                    permits.release()
+                }
+            }
+        } catch (e: Throwable) {
+            permits.release()
+            throw e
+        }
+    }
+
+    /**
+     * Write the sorted [chunk] to the file at [path].
+     */
+    private fun write(path: Path, chunk: List<Sample>) {
+        DataOutputStream(BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE)).use { output ->
+            for (sample in chunk) {
+                output.writeUTF(sample.id)
+                output.writeLong(sample.timestamp)
+                output.writeDouble(sample.value)
+            }
+        }
+    }
+
+    /**
+     * Merge the spilled runs into [visitor].
+     */
+    private fun merge(visitor: Visitor) {
+        val cursors = runs.map { Cursor(it.get()) }
+        val queue = PriorityQueue<Cursor>(cursors.size) { a, b -> ORDER.compare(a.sample, b.sample) }
+
+        try {
+            for (cursor in cursors) {
+                if (cursor.next()) {
+                    queue.add(cursor)
+                }
+            }
+
+            while (true) {
+                val cursor = queue.poll() ?: break
+                val sample = cursor.sample
+                visitor.visit(sample.id, sample.timestamp, sample.value)
+
+                if (cursor.next()) {
+                    queue.add(cursor)
+                }
+            }
+        } finally {
+            cursors.forEach(Cursor::close)
+        }
+    }
+
+    /**
+     * A visitor for the samples drained from a [SampleSorter].
+     */
+    fun interface Visitor {
+        /**
+         * Visit the sample of resource [id] at [timestamp] with [value].
+         */
+        fun visit(id: String, timestamp: Long, value: Double)
+    }
+
+    /**
+     * A sample buffered by the sorter.
+     */
+    private class Sample(@JvmField val id: String, @JvmField val timestamp: Long, @JvmField val value: Double)
+
+    /**
+     * A cursor over the samples of a spilled run.
+     */
+    private class Cursor(path: Path) : AutoCloseable {
+        private val input = DataInputStream(BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))
+
+        /**
+         * The current sample of the cursor.
+         */
+        lateinit var sample: Sample
+
+        /**
+         * Advance the cursor to the next sample.
+         */
+        fun next(): Boolean {
+            val id = try {
+                input.readUTF()
+            } catch (e: EOFException) {
+                return false
+            }
+
+            sample = Sample(id, input.readLong(), input.readDouble())
+            return true
+        }
+
+        override fun close() = input.close()
+    }
+
+    private companion object {
+        /**
+         * The default number of samples in a chunk.
+         */
+        const val DEFAULT_CAPACITY = 1 shl 20
+
+        /**
+         * The size of the buffers used for reading and writing the runs.
+         */
+        const val BUFFER_SIZE = 1 shl 16
+
+        /**
+         * The order in which the samples are drained.
+         */
+        val ORDER: Comparator<Sample> = Comparator { a, b ->
+            val cmp = a.id.compareTo(b.id)
+            if (cmp != 0) cmp else a.timestamp.compareTo(b.timestamp)
+        }
+    }
+}
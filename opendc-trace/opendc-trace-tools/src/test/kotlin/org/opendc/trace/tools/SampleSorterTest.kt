@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.tools
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Random
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Test suite for the [SampleSorter] class.
+ */
+class SampleSorterTest {
+    private lateinit var parent: Path
+    private lateinit var executor: ExecutorService
+
+    @BeforeEach
+    fun setUp() {
+        parent = Files.createTempDirectory("opendc")
+        executor = Executors.newFixedThreadPool(2)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        executor.shutdown()
+        Files.deleteIfExists(parent)
+    }
+
+    @Test
+    fun testInMemory() {
+        val result = mutableListOf<Triple<String, Long, Double>>()
+
+        SampleSorter(parent, executor, capacity = 16).use { sorter ->
+            sorter.add("b", 2, 1.0)
+            sorter.add("a", 1, 2.0)
+            sorter.add("b", 1, 3.0)
+
+            sorter.drain { id, timestamp, value -> result.add(Triple(id, timestamp, value)) }
+        }
+
+        assertAll(
+            { assertEquals(listOf(Triple("a", 1L, 2.0), Triple("b", 1L, 3.0), Triple("b", 2L, 1.0)), result) },
+            { assertEquals(0, Files.list(parent).use { it.count() }) }
+        )
+    }
+
+    @Test
+    fun testSpilledRuns() {
+        // Samples of the Azure trace arrive ordered by timestamp rather than by resource
+        val expected = mutableListOf<Triple<String, Long, Double>>()
+        for (timestamp in 0 until 25L) {
+            for (id in listOf("vm-2", "vm-0", "vm-1")) {
+                expected.add(Triple(id, timestamp, timestamp * 0.5))
+            }
+        }
+
+        val input = expected.shuffled(Random(0))
+        val result = mutableListOf<Triple<String, Long, Double>>()
+        var runs = 0L
+
+        SampleSorter(parent, executor, capacity = 4, maxPending = 1).use { sorter ->
+            for ((id, timestamp, value) in input) {
+                sorter.add(id, timestamp, value)
+            }
+
+            sorter.drain { id, timestamp, value -> result.add(Triple(id, timestamp, value)) }
+
+            val tmpDir = Files.list(parent).use { it.toList() }.single()
+            runs = Files.list(tmpDir).use { it.count() }
+        }
+
+        assertAll(
+            { assertEquals(19, runs, "75 samples should be spilled in runs of 4 samples") },
+            { assertEquals(expected.sortedWith(compareBy({ it.first }, { it.second })), result) },
+            { assertEquals(0, Files.list(parent).use { it.count() }, "The runs should be deleted on close") }
+        )
+    }
+}